@@ -0,0 +1,55 @@
+package es.codeurjc.mca.tfm.purchases.benchmarks;
+
+import es.codeurjc.mca.tfm.purchases.domain.models.Item;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import es.codeurjc.mca.tfm.purchases.domain.models.ShoppingCart;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data builders shared by benchmarks.
+ */
+final class BenchmarkData {
+
+  /**
+   * Shopping cart identifier.
+   */
+  static final Long SHOPPING_CART_ID = 1652692327498L;
+
+  /**
+   * User identifier.
+   */
+  static final Integer USER_ID = 1;
+
+  /**
+   * Private constructor.
+   */
+  private BenchmarkData() {
+  }
+
+  /**
+   * Builds an incomplete shopping cart with passed number of items.
+   *
+   * @param size number of items.
+   * @return shopping cart.
+   */
+  static ShoppingCart buildShoppingCart(int size) {
+    return new ShoppingCart(SHOPPING_CART_ID, USER_ID, false, buildItems(size), Money.ZERO);
+  }
+
+  /**
+   * Builds a list of items with product identifiers from 1 to passed size.
+   *
+   * @param size number of items.
+   * @return list of items.
+   */
+  static List<Item> buildItems(int size) {
+    List<Item> items = new ArrayList<>(size);
+    for (int productId = 1; productId <= size; productId++) {
+      items.add(
+          new Item(productId, Money.ofMinorUnits(100L + productId % 1000), 1 + productId % 5));
+    }
+    return items;
+  }
+
+}
@@ -0,0 +1,104 @@
+package es.codeurjc.mca.tfm.purchases.benchmarks;
+
+import es.codeurjc.mca.tfm.purchases.domain.mappers.DomainMapper;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.JsonCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.JsonEventCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.SmileEventCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapperImpl;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JSON against Smile events encoding, for the items update event, the biggest one. Encoded sizes
+ * are printed on setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventCodecBenchmark {
+
+  /**
+   * Number of items in the shopping cart.
+   */
+  @Param({"1", "10", "100", "1000"})
+  private int cartSize;
+
+  /**
+   * Events codec.
+   */
+  @Param({"json", "smile"})
+  private String codec;
+
+  /**
+   * Events codec.
+   */
+  private EventCodec eventCodec;
+
+  /**
+   * Items update event.
+   */
+  private ShoppingCartItemsUpdateRequestedEvent event;
+
+  /**
+   * Encoded items update event.
+   */
+  private byte[] data;
+
+  /**
+   * Builds codec, event and encoded event.
+   *
+   * @throws IOException if an error happens.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    JsonCodec jsonCodec = new JsonCodec();
+    this.eventCodec =
+        "smile".equals(this.codec) ? new SmileEventCodec() : new JsonEventCodec(jsonCodec);
+    InfraMapperImpl infraMapper = new InfraMapperImpl();
+    infraMapper.setJsonCodec(jsonCodec);
+    this.event = infraMapper.mapToShoppingCartItemsUpdateRequestedEvent(
+        DomainMapper.map(BenchmarkData.buildShoppingCart(this.cartSize)));
+    this.data = this.eventCodec.encode(this.event);
+    System.out.printf("%n%s event with %d items: %d bytes%n", this.codec, this.cartSize,
+        this.data.length);
+  }
+
+  /**
+   * Encodes event, as publisher does before sending.
+   *
+   * @return encoded event.
+   * @throws IOException if an error happens.
+   */
+  @Benchmark
+  public byte[] encode() throws IOException {
+    return this.eventCodec.encode(this.event);
+  }
+
+  /**
+   * Decodes event, as listeners do after receiving.
+   *
+   * @return decoded event.
+   * @throws IOException if an error happens.
+   */
+  @Benchmark
+  public ShoppingCartItemsUpdateRequestedEvent decode() throws IOException {
+    return this.eventCodec.decode(this.data, ShoppingCartItemsUpdateRequestedEvent.class);
+  }
+
+}
@@ -0,0 +1,135 @@
+package es.codeurjc.mca.tfm.purchases.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ItemDto;
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
+import es.codeurjc.mca.tfm.purchases.domain.mappers.DomainMapper;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.JsonCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapper;
+import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapperImpl;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Events and items JSON serialization benchmark, done the same way as Kafka adapters, listeners
+ * and infrastructure mapper.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventSerializationBenchmark {
+
+  /**
+   * Number of items in the shopping cart.
+   */
+  @Param({"1", "10", "100", "1000", "10000"})
+  private int cartSize;
+
+  /**
+   * JSON codec, as the one shared by adapters, listeners and infrastructure mapper.
+   */
+  private JsonCodec jsonCodec;
+
+  /**
+   * Infrastructure mapper.
+   */
+  private InfraMapper infraMapper;
+
+  /**
+   * Shopping cart DTO.
+   */
+  private ShoppingCartDto shoppingCartDto;
+
+  /**
+   * Items update event.
+   */
+  private ShoppingCartItemsUpdateRequestedEvent event;
+
+  /**
+   * Items update event as JSON.
+   */
+  private String eventJson;
+
+  /**
+   * Items as JSON, as stored in shopping cart items column.
+   */
+  private String itemsJson;
+
+  /**
+   * Builds event and JSON values.
+   *
+   * @throws JsonProcessingException if an error happens.
+   */
+  @Setup
+  public void setUp() throws JsonProcessingException {
+    this.jsonCodec = new JsonCodec();
+    InfraMapperImpl infraMapper = new InfraMapperImpl();
+    infraMapper.setJsonCodec(this.jsonCodec);
+    this.infraMapper = infraMapper;
+    this.shoppingCartDto = DomainMapper.map(BenchmarkData.buildShoppingCart(this.cartSize));
+    this.event = this.infraMapper.mapToShoppingCartItemsUpdateRequestedEvent(this.shoppingCartDto);
+    this.eventJson = this.jsonCodec.write(this.event);
+    this.itemsJson = this.infraMapper.map(this.event.getItems());
+  }
+
+  /**
+   * Maps DTO to event and serializes it, as adapters do before sending.
+   *
+   * @return event as JSON.
+   * @throws JsonProcessingException if an error happens.
+   */
+  @Benchmark
+  public String serializeEvent() throws JsonProcessingException {
+    return this.jsonCodec.write(
+        this.infraMapper.mapToShoppingCartItemsUpdateRequestedEvent(this.shoppingCartDto));
+  }
+
+  /**
+   * Deserializes event, as listeners do after receiving.
+   *
+   * @return deserialized event.
+   * @throws JsonProcessingException if an error happens.
+   */
+  @Benchmark
+  public ShoppingCartItemsUpdateRequestedEvent deserializeEvent() throws JsonProcessingException {
+    return this.jsonCodec.read(this.eventJson, ShoppingCartItemsUpdateRequestedEvent.class);
+  }
+
+  /**
+   * Serializes items to store them in the items column.
+   *
+   * @return items as JSON.
+   * @throws JsonProcessingException if an error happens.
+   */
+  @Benchmark
+  public String mapItemsToJson() throws JsonProcessingException {
+    return this.infraMapper.map(this.event.getItems());
+  }
+
+  /**
+   * Parses items column to item DTOs.
+   *
+   * @return item DTOs.
+   * @throws JsonProcessingException if an error happens.
+   */
+  @Benchmark
+  public List<ItemDto> mapToItemDtoList() throws JsonProcessingException {
+    return this.infraMapper.mapToItemDtoList(this.itemsJson);
+  }
+
+}
@@ -0,0 +1,55 @@
+package es.codeurjc.mca.tfm.purchases.benchmarks;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.generators.SnowflakeIdGenerator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Identifier generator throughput benchmark, with one thread and with as many threads as
+ * available processors sharing the same generator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+  /**
+   * Shared identifier generator.
+   */
+  private final SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(1L);
+
+  /**
+   * Generates identifiers from one thread.
+   *
+   * @return generated identifier.
+   */
+  @Benchmark
+  @Threads(1)
+  public long singleThread() {
+    return this.idGenerator.nextId();
+  }
+
+  /**
+   * Generates identifiers from as many threads as available processors.
+   *
+   * @return generated identifier.
+   */
+  @Benchmark
+  @Threads(Threads.MAX)
+  public long contended() {
+    return this.idGenerator.nextId();
+  }
+
+}
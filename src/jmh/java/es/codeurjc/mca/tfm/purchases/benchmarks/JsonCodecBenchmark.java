@@ -0,0 +1,161 @@
+package es.codeurjc.mca.tfm.purchases.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ItemDto;
+import es.codeurjc.mca.tfm.purchases.domain.mappers.DomainMapper;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.JsonCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.MoneyModule;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItem;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapperImpl;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Shared JSON codec against creating an object mapper per call, as infrastructure mapper did
+ * before, for items column and events. Run with -prof gc to compare allocations too.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonCodecBenchmark {
+
+  /**
+   * Number of items in the shopping cart.
+   */
+  @Param({"1", "10", "100"})
+  private int cartSize;
+
+  /**
+   * Shared JSON codec.
+   */
+  private JsonCodec jsonCodec;
+
+  /**
+   * Items of the shopping cart.
+   */
+  private List<ShoppingCartItem> items;
+
+  /**
+   * Items as JSON, as stored in shopping cart items column.
+   */
+  private String itemsJson;
+
+  /**
+   * Items update event as JSON.
+   */
+  private String eventJson;
+
+  /**
+   * Builds items and JSON values.
+   *
+   * @throws JsonProcessingException if an error happens.
+   */
+  @Setup
+  public void setUp() throws JsonProcessingException {
+    this.jsonCodec = new JsonCodec();
+    InfraMapperImpl infraMapper = new InfraMapperImpl();
+    infraMapper.setJsonCodec(this.jsonCodec);
+    ShoppingCartItemsUpdateRequestedEvent event =
+        infraMapper.mapToShoppingCartItemsUpdateRequestedEvent(
+            DomainMapper.map(BenchmarkData.buildShoppingCart(this.cartSize)));
+    this.items = event.getItems();
+    this.itemsJson = this.jsonCodec.write(this.items);
+    this.eventJson = this.jsonCodec.write(event);
+  }
+
+  /**
+   * Serializes items with a new object mapper.
+   *
+   * @return items as JSON.
+   * @throws JsonProcessingException if an error happens.
+   */
+  @Benchmark
+  public String writeItemsWithNewObjectMapper() throws JsonProcessingException {
+    return newObjectMapper().writeValueAsString(this.items);
+  }
+
+  /**
+   * Serializes items with shared codec.
+   *
+   * @return items as JSON.
+   * @throws JsonProcessingException if an error happens.
+   */
+  @Benchmark
+  public String writeItemsWithCodec() throws JsonProcessingException {
+    return this.jsonCodec.write(this.items);
+  }
+
+  /**
+   * Parses items with a new object mapper.
+   *
+   * @return item DTOs.
+   * @throws JsonProcessingException if an error happens.
+   */
+  @Benchmark
+  public List<ItemDto> readItemsWithNewObjectMapper() throws JsonProcessingException {
+    return List.of(newObjectMapper().readValue(this.itemsJson, ItemDto[].class));
+  }
+
+  /**
+   * Parses items with shared codec.
+   *
+   * @return item DTOs.
+   * @throws JsonProcessingException if an error happens.
+   */
+  @Benchmark
+  public List<ItemDto> readItemsWithCodec() throws JsonProcessingException {
+    return this.jsonCodec.readList(this.itemsJson, ItemDto[].class);
+  }
+
+  /**
+   * Deserializes event with a new object mapper.
+   *
+   * @return deserialized event.
+   * @throws JsonProcessingException if an error happens.
+   */
+  @Benchmark
+  public ShoppingCartItemsUpdateRequestedEvent readEventWithNewObjectMapper()
+      throws JsonProcessingException {
+    return newObjectMapper().readValue(this.eventJson,
+        ShoppingCartItemsUpdateRequestedEvent.class);
+  }
+
+  /**
+   * Deserializes event with shared codec.
+   *
+   * @return deserialized event.
+   * @throws JsonProcessingException if an error happens.
+   */
+  @Benchmark
+  public ShoppingCartItemsUpdateRequestedEvent readEventWithCodec()
+      throws JsonProcessingException {
+    return this.jsonCodec.read(this.eventJson, ShoppingCartItemsUpdateRequestedEvent.class);
+  }
+
+  /**
+   * Creates an object mapper, as done before on every mapping.
+   *
+   * @return new object mapper.
+   */
+  private static ObjectMapper newObjectMapper() {
+    return new ObjectMapper().registerModule(new MoneyModule()).registerModule(new Jdk8Module());
+  }
+
+}
@@ -0,0 +1,149 @@
+package es.codeurjc.mca.tfm.purchases.benchmarks;
+
+import es.codeurjc.mca.tfm.purchases.domain.dtos.OrderDto;
+import es.codeurjc.mca.tfm.purchases.domain.mappers.DomainMapper;
+import es.codeurjc.mca.tfm.purchases.domain.models.Order;
+import es.codeurjc.mca.tfm.purchases.domain.models.OrderState;
+import es.codeurjc.mca.tfm.purchases.domain.models.ShoppingCart;
+import es.codeurjc.mca.tfm.purchases.domain.ports.in.OrderUseCase;
+import es.codeurjc.mca.tfm.purchases.domain.ports.out.OrderRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.configs.Config;
+import es.codeurjc.mca.tfm.purchases.infrastructure.generators.SnowflakeIdGenerator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Order state transitions benchmark, through order use case with the same state services wiring
+ * as the application and an in memory order repository.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderStateBenchmark {
+
+  /**
+   * Order identifier.
+   */
+  private static final Long ORDER_ID = 1652692327532L;
+
+  /**
+   * Transition to benchmark, as previous state and new state separated by colon.
+   */
+  @Param({"CREATED:VALIDATING_ITEMS", "VALIDATING_ITEMS:VALIDATING_BALANCE",
+      "VALIDATING_BALANCE:DONE", "VALIDATING_ITEMS:REJECTED"})
+  private String transition;
+
+  /**
+   * Number of items in the order shopping cart.
+   */
+  @Param({"1", "100"})
+  private int cartSize;
+
+  /**
+   * Order use case.
+   */
+  private OrderUseCase orderUseCase;
+
+  /**
+   * New state to set.
+   */
+  private OrderState newState;
+
+  /**
+   * Builds order use case and stored order.
+   */
+  @Setup
+  public void setUp() {
+    String[] states = this.transition.split(":");
+    this.newState = OrderState.valueOf(states[1]);
+    ShoppingCart shoppingCart = BenchmarkData.buildShoppingCart(this.cartSize);
+    shoppingCart.setCompleted(true);
+    OrderDto storedOrder = DomainMapper.map(new Order(ORDER_ID, shoppingCart,
+        OrderState.valueOf(states[0]), Optional.empty(), 0));
+
+    OrderRepository orderRepository = new InMemoryOrderRepository(storedOrder);
+    Config config = new Config();
+    this.orderUseCase = config.orderUseCase(orderRepository, Set.of(
+            config.validatingItemsOrderStateService(orderRepository),
+            config.validatingBalanceOrderStateService(orderRepository),
+            config.doneOrderStateService(orderRepository),
+            config.rejectedStateService(orderRepository)),
+        new SnowflakeIdGenerator(0L));
+  }
+
+  /**
+   * Updates order state.
+   *
+   * @return updated order DTO.
+   */
+  @Benchmark
+  public Optional<OrderDto> update() {
+    return this.orderUseCase.update(ORDER_ID, this.newState, Optional.empty());
+  }
+
+  /**
+   * Order repository that always finds the same stored order, mapped each time to a new DTO so
+   * updates don't change it, and ignores the rest of operations.
+   */
+  private static class InMemoryOrderRepository implements OrderRepository {
+
+    /**
+     * Stored order.
+     */
+    private final Order storedOrder;
+
+    /**
+     * Constructor.
+     *
+     * @param storedOrder stored order DTO.
+     */
+    InMemoryOrderRepository(OrderDto storedOrder) {
+      this.storedOrder = DomainMapper.map(storedOrder);
+    }
+
+    @Override
+    public void create(OrderDto orderDto) {
+    }
+
+    @Override
+    public Optional<OrderDto> findById(Long id) {
+      return Optional.of(DomainMapper.map(this.storedOrder));
+    }
+
+    @Override
+    public void update(OrderDto orderDto) {
+    }
+
+    @Override
+    public void validateItems(OrderDto orderDto) {
+    }
+
+    @Override
+    public void validateBalance(OrderDto orderDto) {
+    }
+
+    @Override
+    public void restoreItemsStock(OrderDto orderDto) {
+    }
+
+    @Override
+    public void finish(OrderDto orderDto) {
+    }
+  }
+
+}
@@ -0,0 +1,113 @@
+package es.codeurjc.mca.tfm.purchases.benchmarks;
+
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
+import es.codeurjc.mca.tfm.purchases.domain.mappers.DomainMapper;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import es.codeurjc.mca.tfm.purchases.domain.models.ShoppingCart;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Shopping cart domain operations benchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShoppingCartBenchmark {
+
+  /**
+   * Unit price used to set items.
+   */
+  private static final Money UNIT_PRICE = Money.parse("19.99");
+
+  /**
+   * Number of items in the shopping cart.
+   */
+  @Param({"1", "10", "100", "1000", "10000"})
+  private int cartSize;
+
+  /**
+   * Shopping cart.
+   */
+  private ShoppingCart shoppingCart;
+
+  /**
+   * Shopping cart DTO.
+   */
+  private ShoppingCartDto shoppingCartDto;
+
+  /**
+   * Product identifier of an item in the middle of the shopping cart.
+   */
+  private Integer existingProductId;
+
+  /**
+   * Product identifier not in the shopping cart.
+   */
+  private Integer newProductId;
+
+  /**
+   * Quantity to set, alternated to always change the item.
+   */
+  private int quantity;
+
+  /**
+   * Builds shopping cart before each iteration.
+   */
+  @Setup(Level.Iteration)
+  public void setUp() {
+    this.shoppingCart = BenchmarkData.buildShoppingCart(this.cartSize);
+    this.shoppingCartDto = DomainMapper.map(this.shoppingCart);
+    this.existingProductId = Math.max(1, this.cartSize / 2);
+    this.newProductId = this.cartSize + 1;
+  }
+
+  /**
+   * Updates quantity of an existing item.
+   *
+   * @return shopping cart total price.
+   */
+  @Benchmark
+  public Money setExistingItem() {
+    this.quantity = this.quantity % 9 + 1;
+    this.shoppingCart.setItem(this.existingProductId, UNIT_PRICE, this.quantity);
+    return this.shoppingCart.getTotalPrice();
+  }
+
+  /**
+   * Adds a new item and deletes it.
+   *
+   * @return shopping cart total price.
+   */
+  @Benchmark
+  public Money setAndDeleteNewItem() {
+    this.shoppingCart.setItem(this.newProductId, UNIT_PRICE, 1);
+    this.shoppingCart.deleteItem(this.newProductId);
+    return this.shoppingCart.getTotalPrice();
+  }
+
+  /**
+   * Maps shopping cart DTO to domain model and back, as every use case call does.
+   *
+   * @return mapped shopping cart DTO.
+   */
+  @Benchmark
+  public ShoppingCartDto mapRoundTrip() {
+    return DomainMapper.map(DomainMapper.map(this.shoppingCartDto));
+  }
+
+}
@@ -2,23 +2,30 @@ package es.codeurjc.mca.tfm.purchases.application.controllers;
 
 import static org.springframework.web.servlet.support.ServletUriComponentsBuilder.fromCurrentRequest;
 
+import es.codeurjc.mca.tfm.purchases.application.dtos.requests.ItemRequest;
 import es.codeurjc.mca.tfm.purchases.application.dtos.requests.SetItemRequest;
 import es.codeurjc.mca.tfm.purchases.application.dtos.responses.ShoppingCartResponseDto;
 import es.codeurjc.mca.tfm.purchases.application.exceptions.NotFoundException;
 import es.codeurjc.mca.tfm.purchases.application.mappers.ApplicationShoppingCartMapper;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
 import es.codeurjc.mca.tfm.purchases.domain.ports.in.ShoppingCartUseCase;
 import java.net.URI;
+import java.util.List;
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -26,6 +33,7 @@ import org.springframework.web.bind.annotation.RestController;
  */
 @RestController
 @RequestMapping("/api/v1/shopping-carts")
+@Validated
 @Slf4j
 public class ShoppingCartCommandController {
 
@@ -120,8 +128,9 @@ public class ShoppingCartCommandController {
       @PathVariable(name = "id") Long id, @PathVariable(name = "productId") Integer productId,
       @Valid @RequestBody SetItemRequest setItemRequest, Authentication authentication) {
     Integer userId = Integer.valueOf(authentication.getName());
+    Money unitPrice = Money.of(setItemRequest.getUnitPrice());
     this.shoppingCartUseCase.setItem(
-            id, userId, productId, setItemRequest.getUnitPrice(), setItemRequest.getQuantity())
+            id, userId, productId, unitPrice, setItemRequest.getQuantity())
         .orElseThrow(() -> new NotFoundException("Shopping cart not found."));
 
     return ResponseEntity.accepted().build();
@@ -146,4 +155,45 @@ public class ShoppingCartCommandController {
     return ResponseEntity.accepted().build();
   }
 
+  /**
+   * Sets several items in shopping cart at once.
+   *
+   * @param id             shopping cart identifier.
+   * @param itemRequests   items to set info.
+   * @param authentication authenticated user info.
+   * @return accepted code response.
+   */
+  @PatchMapping("/{id}/products")
+  public ResponseEntity<Void> setItemsToShoppingCart(
+      @PathVariable(name = "id") Long id,
+      @Valid @RequestBody @NotEmpty List<@Valid @NotNull ItemRequest> itemRequests,
+      Authentication authentication) {
+    Integer userId = Integer.valueOf(authentication.getName());
+    this.shoppingCartUseCase.setItems(
+            id, userId, this.applicationShoppingCartMapper.mapToItemDtoList(itemRequests))
+        .orElseThrow(() -> new NotFoundException("Shopping cart not found."));
+
+    return ResponseEntity.accepted().build();
+  }
+
+  /**
+   * Deletes several items from shopping cart at once.
+   *
+   * @param id             shopping cart identifier.
+   * @param productIds     identifiers of products to delete.
+   * @param authentication authenticated user info.
+   * @return accepted code response.
+   */
+  @DeleteMapping("/{id}/products")
+  public ResponseEntity<Void> deleteItemsFromShoppingCart(
+      @PathVariable(name = "id") Long id,
+      @RequestParam(name = "productIds") List<Integer> productIds,
+      Authentication authentication) {
+    Integer userId = Integer.valueOf(authentication.getName());
+    this.shoppingCartUseCase.deleteItems(id, userId, productIds)
+        .orElseThrow(() -> new NotFoundException("Shopping cart not found."));
+
+    return ResponseEntity.accepted().build();
+  }
+
 }
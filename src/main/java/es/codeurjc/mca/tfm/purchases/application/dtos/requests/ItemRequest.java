@@ -0,0 +1,32 @@
+package es.codeurjc.mca.tfm.purchases.application.dtos.requests;
+
+import javax.validation.constraints.NotNull;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Item to set in shopping cart, inside a set items request.
+ */
+@Data
+@Builder
+public class ItemRequest {
+
+  /**
+   * Product identifier.
+   */
+  @NotNull
+  private Integer productId;
+
+  /**
+   * Unit price.
+   */
+  @NotNull
+  private Double unitPrice;
+
+  /**
+   * Quantity.
+   */
+  @NotNull
+  private Integer quantity;
+
+}
@@ -5,6 +5,7 @@ import es.codeurjc.mca.tfm.purchases.domain.exceptions.IncompleteShoppingCartAlr
 import es.codeurjc.mca.tfm.purchases.domain.exceptions.InvalidItemException;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import javax.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -67,6 +68,18 @@ public class ControllerAdvisor extends ResponseEntityExceptionHandler {
     return this.handle(ex.getMessage(), HttpStatus.BAD_REQUEST);
   }
 
+  /**
+   * Handles ConstraintViolationException, thrown when a validated parameter isn't valid.
+   *
+   * @param ex ConstraintViolationException.
+   * @return ResponseEntity with an error message and bad request status code.
+   */
+  @ExceptionHandler(ConstraintViolationException.class)
+  public ResponseEntity<Object> handleConstraintViolationException(
+      ConstraintViolationException ex) {
+    return this.handle(ex.getMessage(), HttpStatus.BAD_REQUEST);
+  }
+
   /**
    * Handles Exception.
    *
@@ -1,8 +1,13 @@
 package es.codeurjc.mca.tfm.purchases.application.mappers;
 
+import es.codeurjc.mca.tfm.purchases.application.dtos.requests.ItemRequest;
 import es.codeurjc.mca.tfm.purchases.application.dtos.responses.ShoppingCartResponseDto;
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ItemDto;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import java.util.List;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 /**
  * Application layer shopping cart mapper.
@@ -18,4 +23,41 @@ public interface ApplicationShoppingCartMapper {
    */
   ShoppingCartResponseDto map(ShoppingCartDto shoppingCartDto);
 
+  /**
+   * Maps a money value to a double amount.
+   *
+   * @param money money value to map.
+   * @return double amount.
+   */
+  default Double map(Money money) {
+    return money != null ? money.toDouble() : null;
+  }
+
+  /**
+   * Maps an item request to an item DTO.
+   *
+   * @param itemRequest item request to map.
+   * @return mapped item DTO.
+   */
+  @Mapping(target = "totalPrice", ignore = true)
+  ItemDto map(ItemRequest itemRequest);
+
+  /**
+   * Maps a double amount to a money value.
+   *
+   * @param amount double amount to map.
+   * @return money value.
+   */
+  default Money map(Double amount) {
+    return amount != null ? Money.of(amount) : null;
+  }
+
+  /**
+   * Maps a list of item requests to a list of item DTOs.
+   *
+   * @param itemRequests item requests to map.
+   * @return mapped item DTOs.
+   */
+  List<ItemDto> mapToItemDtoList(List<ItemRequest> itemRequests);
+
 }
@@ -2,6 +2,9 @@ package es.codeurjc.mca.tfm.purchases.application.security.config;
 
 import es.codeurjc.mca.tfm.purchases.application.security.filters.JwtAuthorizationFilter;
 import es.codeurjc.mca.tfm.purchases.application.security.filters.JwtTokenProvider;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -58,6 +61,9 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         .cors().and()
         .csrf().disable()
         .authorizeRequests()
+        // monitoring urls
+        .requestMatchers(EndpointRequest.to(HealthEndpoint.class, PrometheusScrapeEndpoint.class))
+        .permitAll()
         // application urls
         .anyRequest().authenticated().and()
         .addFilter(new JwtAuthorizationFilter(authenticationManager(), this.jwtTokenProvider));
@@ -1,6 +1,7 @@
 package es.codeurjc.mca.tfm.purchases.domain.dtos;
 
 import es.codeurjc.mca.tfm.purchases.domain.models.Item;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
 import java.util.Objects;
 
 /**
@@ -16,7 +17,7 @@ public class ItemDto {
   /**
    * Unit price.
    */
-  private Double unitPrice;
+  private Money unitPrice;
 
   /**
    * Quantity.
@@ -26,7 +27,7 @@ public class ItemDto {
   /**
    * Total price.
    */
-  private Double totalPrice;
+  private Money totalPrice;
 
   /**
    * Constructor.
@@ -55,11 +56,11 @@ public class ItemDto {
     this.productId = productId;
   }
 
-  public Double getUnitPrice() {
+  public Money getUnitPrice() {
     return unitPrice;
   }
 
-  public void setUnitPrice(Double unitPrice) {
+  public void setUnitPrice(Money unitPrice) {
     this.unitPrice = unitPrice;
   }
 
@@ -71,11 +72,11 @@ public class ItemDto {
     this.quantity = quantity;
   }
 
-  public Double getTotalPrice() {
+  public Money getTotalPrice() {
     return totalPrice;
   }
 
-  public void setTotalPrice(Double totalPrice) {
+  public void setTotalPrice(Money totalPrice) {
     this.totalPrice = totalPrice;
   }
 
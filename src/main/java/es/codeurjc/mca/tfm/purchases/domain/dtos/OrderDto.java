@@ -28,6 +28,11 @@ public class OrderDto {
    */
   private Optional<List<String>> errors;
 
+  /**
+   * Order version, the number of state changes it has gone through.
+   */
+  private Integer version;
+
   /**
    * Constructor.
    */
@@ -42,13 +47,15 @@ public class OrderDto {
    * @param shoppingCart associated shopping cart.
    * @param state        state.
    * @param errors       an optional with list of errors if any.
+   * @param version      version.
    */
   public OrderDto(Long id, ShoppingCartDto shoppingCart, String state,
-      Optional<List<String>> errors) {
+      Optional<List<String>> errors, Integer version) {
     this.id = id;
     this.shoppingCart = shoppingCart;
     this.state = state;
     this.errors = errors;
+    this.version = version;
   }
 
   public Long getId() {
@@ -67,6 +74,10 @@ public class OrderDto {
     return errors;
   }
 
+  public Integer getVersion() {
+    return version;
+  }
+
   public void setId(Long id) {
     this.id = id;
   }
@@ -82,4 +93,8 @@ public class OrderDto {
   public void setErrors(Optional<List<String>> errors) {
     this.errors = errors;
   }
+
+  public void setVersion(Integer version) {
+    this.version = version;
+  }
 }
@@ -1,5 +1,6 @@
 package es.codeurjc.mca.tfm.purchases.domain.dtos;
 
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
 import es.codeurjc.mca.tfm.purchases.domain.models.ShoppingCart;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -32,7 +33,7 @@ public class ShoppingCartDto {
   /**
    * Total price.
    */
-  private Double totalPrice;
+  private Money totalPrice;
 
   /**
    * Constructor.
@@ -88,11 +89,11 @@ public class ShoppingCartDto {
     this.items = items;
   }
 
-  public Double getTotalPrice() {
+  public Money getTotalPrice() {
     return totalPrice;
   }
 
-  public void setTotalPrice(Double totalPrice) {
+  public void setTotalPrice(Money totalPrice) {
     this.totalPrice = totalPrice;
   }
 }
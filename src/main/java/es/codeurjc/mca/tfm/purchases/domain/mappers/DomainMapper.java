@@ -47,7 +47,8 @@ public class DomainMapper {
    */
   public static OrderDto map(Order order) {
     ShoppingCartDto shoppingCartDto = map(order.getShoppingCart());
-    return new OrderDto(order.getId(), shoppingCartDto, order.getState().name(), order.getErrors());
+    return new OrderDto(order.getId(), shoppingCartDto, order.getState().name(), order.getErrors(),
+        order.getVersion());
   }
 
   /**
@@ -58,7 +59,8 @@ public class DomainMapper {
    */
   public static Order map(OrderDto orderDto) {
     return new Order(orderDto.getId(), map(orderDto.getShoppingCart()),
-        OrderState.valueOf(orderDto.getState()), orderDto.getErrors());
+        OrderState.valueOf(orderDto.getState()), orderDto.getErrors(),
+        orderDto.getVersion() == null ? 0 : orderDto.getVersion());
   }
 
 }
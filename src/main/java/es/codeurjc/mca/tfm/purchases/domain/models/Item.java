@@ -1,7 +1,8 @@
 package es.codeurjc.mca.tfm.purchases.domain.models;
 
 /**
- * Item domain entity.
+ * Item domain entity. Unit price, quantity and total price are only changed together, by
+ * updating the item, so its total price is always their product.
  */
 public class Item {
 
@@ -11,9 +12,9 @@ public class Item {
   private Integer productId;
 
   /**
-   * Unit price.
+   * Unit price in minor units.
    */
-  private Double unitPrice;
+  private long unitPrice;
 
   /**
    * Quantity.
@@ -21,9 +22,9 @@ public class Item {
   private Integer quantity;
 
   /**
-   * Total price.
+   * Total price in minor units.
    */
-  private Double totalPrice;
+  private long totalPrice;
 
   /**
    * All args constructor.
@@ -32,11 +33,9 @@ public class Item {
    * @param unitPrice item unit price.
    * @param quantity  item quantity.
    */
-  public Item(Integer productId, Double unitPrice, Integer quantity) {
+  public Item(Integer productId, Money unitPrice, Integer quantity) {
     this.productId = productId;
-    this.unitPrice = unitPrice;
-    this.quantity = quantity;
-    this.totalPrice = unitPrice * quantity;
+    this.update(unitPrice, quantity);
   }
 
   public Integer getProductId() {
@@ -47,39 +46,50 @@ public class Item {
     this.productId = productId;
   }
 
-  public Double getUnitPrice() {
-    return unitPrice;
-  }
-
-  public void setUnitPrice(Double unitPrice) {
-    this.unitPrice = unitPrice;
+  public Money getUnitPrice() {
+    return Money.ofMinorUnits(unitPrice);
   }
 
   public Integer getQuantity() {
     return quantity;
   }
 
-  public void setQuantity(Integer quantity) {
-    this.quantity = quantity;
+  public Money getTotalPrice() {
+    return Money.ofMinorUnits(totalPrice);
   }
 
-  public Double getTotalPrice() {
+  /**
+   * Gets total price in minor units, to operate with it without allocating money values.
+   *
+   * @return total price in minor units.
+   */
+  long getTotalPriceInMinorUnits() {
     return totalPrice;
   }
 
-  public void setTotalPrice(Double totalPrice) {
-    this.totalPrice = totalPrice;
+  /**
+   * Updates item info. Item is left unchanged if its total price overflows.
+   *
+   * @param unitPrice product unit price.
+   * @param quantity  product quantity.
+   * @throws ArithmeticException if total price overflows.
+   */
+  public void update(Money unitPrice, Integer quantity) {
+    long newTotalPrice = totalPriceInMinorUnits(unitPrice, quantity);
+    this.unitPrice = unitPrice.getMinorUnits();
+    this.quantity = quantity;
+    this.totalPrice = newTotalPrice;
   }
 
   /**
-   * Updates item info.
+   * Calculates the total price of an item in minor units.
    *
    * @param unitPrice product unit price.
    * @param quantity  product quantity.
+   * @return total price in minor units.
+   * @throws ArithmeticException if total price overflows.
    */
-  public void update(Double unitPrice, Integer quantity) {
-    this.unitPrice = unitPrice;
-    this.quantity = quantity;
-    this.totalPrice = unitPrice * quantity;
+  static long totalPriceInMinorUnits(Money unitPrice, Integer quantity) {
+    return Math.multiplyExact(unitPrice.getMinorUnits(), quantity);
   }
 }
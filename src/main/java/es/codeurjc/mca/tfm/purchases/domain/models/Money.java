@@ -0,0 +1,168 @@
+package es.codeurjc.mca.tfm.purchases.domain.models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money value, stored as a number of minor units (cents).
+ */
+public final class Money implements Comparable<Money> {
+
+  /**
+   * Number of decimal digits of the minor unit.
+   */
+  public static final int SCALE = 2;
+
+  /**
+   * Zero amount.
+   */
+  public static final Money ZERO = new Money(0L);
+
+  /**
+   * Number of minor units in a unit.
+   */
+  private static final double MINOR_UNITS_PER_UNIT = 100d;
+
+  /**
+   * Amount in minor units.
+   */
+  private final long minorUnits;
+
+  /**
+   * Constructor.
+   *
+   * @param minorUnits amount in minor units.
+   */
+  private Money(long minorUnits) {
+    this.minorUnits = minorUnits;
+  }
+
+  /**
+   * Creates a money value from an amount in minor units.
+   *
+   * @param minorUnits amount in minor units.
+   * @return money value.
+   */
+  public static Money ofMinorUnits(long minorUnits) {
+    return minorUnits == 0L ? ZERO : new Money(minorUnits);
+  }
+
+  /**
+   * Creates a money value from a decimal amount, rounding half up to the minor unit.
+   *
+   * @param amount decimal amount.
+   * @return money value.
+   */
+  public static Money of(BigDecimal amount) {
+    return ofMinorUnits(
+        amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+  }
+
+  /**
+   * Creates a money value from a double amount, using its shortest decimal representation and
+   * rounding half up to the minor unit.
+   *
+   * @param amount double amount.
+   * @return money value.
+   */
+  public static Money of(double amount) {
+    return of(BigDecimal.valueOf(amount));
+  }
+
+  /**
+   * Creates a money value from a decimal amount as string, like "19.99".
+   *
+   * @param amount decimal amount as string.
+   * @return money value.
+   */
+  public static Money parse(String amount) {
+    return of(new BigDecimal(amount));
+  }
+
+  public long getMinorUnits() {
+    return minorUnits;
+  }
+
+  /**
+   * Adds passed money value.
+   *
+   * @param other money value to add.
+   * @return sum of both values.
+   */
+  public Money plus(Money other) {
+    return ofMinorUnits(Math.addExact(this.minorUnits, other.minorUnits));
+  }
+
+  /**
+   * Subtracts passed money value.
+   *
+   * @param other money value to subtract.
+   * @return difference of both values.
+   */
+  public Money minus(Money other) {
+    return ofMinorUnits(Math.subtractExact(this.minorUnits, other.minorUnits));
+  }
+
+  /**
+   * Multiplies by passed quantity.
+   *
+   * @param quantity quantity.
+   * @return product of value and quantity.
+   */
+  public Money times(int quantity) {
+    return ofMinorUnits(Math.multiplyExact(this.minorUnits, quantity));
+  }
+
+  /**
+   * Indicates if value is greater than zero.
+   *
+   * @return true if value is greater than zero, else false.
+   */
+  public boolean isPositive() {
+    return this.minorUnits > 0L;
+  }
+
+  /**
+   * Gets value as decimal amount.
+   *
+   * @return decimal amount with minor unit scale.
+   */
+  public BigDecimal toBigDecimal() {
+    return BigDecimal.valueOf(this.minorUnits, SCALE);
+  }
+
+  /**
+   * Gets value as the nearest double amount.
+   *
+   * @return double amount.
+   */
+  public double toDouble() {
+    return this.minorUnits / MINOR_UNITS_PER_UNIT;
+  }
+
+  @Override
+  public int compareTo(Money other) {
+    return Long.compare(this.minorUnits, other.minorUnits);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    return this.minorUnits == ((Money) o).minorUnits;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(this.minorUnits);
+  }
+
+  @Override
+  public String toString() {
+    return this.toBigDecimal().toPlainString();
+  }
+}
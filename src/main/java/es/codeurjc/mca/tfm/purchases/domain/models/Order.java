@@ -29,15 +29,24 @@ public class Order {
    */
   private Optional<List<String>> errors;
 
+  /**
+   * Order version, the number of state changes it has gone through, which orders them.
+   */
+  private int version;
+
   /**
    * Constructor.
+   *
+   * @param id           identifier.
+   * @param shoppingCart associated shopping cart.
    */
-  public Order(ShoppingCart shoppingCart) {
+  public Order(Long id, ShoppingCart shoppingCart) {
     super();
-    this.id = System.currentTimeMillis();
+    this.id = id;
     this.shoppingCart = shoppingCart;
     this.state = OrderState.CREATED;
     this.errors = Optional.empty();
+    this.version = 0;
   }
 
   /**
@@ -47,13 +56,15 @@ public class Order {
    * @param shoppingCart associated shopping cart.
    * @param state        order state.
    * @param errors       optional with list of errors if any.
+   * @param version      order version.
    */
   public Order(Long id, ShoppingCart shoppingCart,
-      OrderState state, Optional<List<String>> errors) {
+      OrderState state, Optional<List<String>> errors, int version) {
     this.id = id;
     this.shoppingCart = shoppingCart;
     this.state = state;
     this.errors = errors;
+    this.version = version;
   }
 
   public Long getId() {
@@ -72,31 +83,36 @@ public class Order {
     return errors;
   }
 
+  public int getVersion() {
+    return version;
+  }
+
   /**
    * Indicates if order has final state.
    *
    * @return true if it has final state, else false.
    */
   public boolean hasFinalState() {
-    return OrderState.DONE.equals(this.state) || OrderState.REJECTED.equals(this.state);
+    return this.state.isFinal();
   }
 
   /**
-   * Update order state.
+   * Update order state, increasing its version.
    *
    * @param state state to update.
    * @return true if state was updated, else false.
    */
   public boolean updateState(OrderState state) {
-    if (state.weight > this.state.weight) {
+    if (this.state.canTransitionTo(state)) {
       this.state = state;
+      this.version++;
       return true;
     }
     return false;
   }
 
   /**
-   * Set order as rejected, and add errors if any.
+   * Set order as rejected, increasing its version, and add errors if any.
    *
    * @param errors an optional with errors to reject the order if any.
    * @return true if order could be rejected, else false.
@@ -104,6 +120,7 @@ public class Order {
   public boolean rejectOrder(Optional<List<String>> errors) {
     if (!OrderState.DONE.equals(this.state)) {
       this.state = OrderState.REJECTED;
+      this.version++;
       if (errors.isPresent()) {
         List<String> modifiedErrors = this.errors.orElseGet(() -> new ArrayList<>());
         modifiedErrors.addAll(errors.get());
@@ -1,19 +1,54 @@
 package es.codeurjc.mca.tfm.purchases.domain.models;
 
 /**
- * Order states enum.
+ * Order states enum, with the state machine as a precomputed transition table.
  */
 public enum OrderState {
-  CREATED(0),
-  VALIDATING_ITEMS(1),
-  VALIDATING_BALANCE(2),
-  DONE(3),
-  REJECTED(3);
+  CREATED,
+  VALIDATING_ITEMS,
+  VALIDATING_BALANCE,
+  DONE,
+  REJECTED;
 
-  public final int weight;
+  /**
+   * Bit set, indexed by ordinal, of states this state can transition to.
+   */
+  private int transitions;
 
-  OrderState(int weight) {
-    this.weight = weight;
+  static {
+    CREATED.allow(VALIDATING_ITEMS, VALIDATING_BALANCE, DONE, REJECTED);
+    VALIDATING_ITEMS.allow(VALIDATING_BALANCE, DONE, REJECTED);
+    VALIDATING_BALANCE.allow(DONE, REJECTED);
+  }
+
+  /**
+   * Add states to the transition table of this state.
+   *
+   * @param states states this state can transition to.
+   */
+  private void allow(OrderState... states) {
+    for (OrderState state : states) {
+      this.transitions |= 1 << state.ordinal();
+    }
+  }
+
+  /**
+   * Check in transition table if this state can transition to other.
+   *
+   * @param state state to transition to.
+   * @return true if transition is allowed, else false.
+   */
+  public boolean canTransitionTo(OrderState state) {
+    return (this.transitions & (1 << state.ordinal())) != 0;
+  }
+
+  /**
+   * Check if this is a final state, that is, without allowed transitions.
+   *
+   * @return true if it's a final state, else false.
+   */
+  public boolean isFinal() {
+    return this.transitions == 0;
   }
 
 }
@@ -1,8 +1,10 @@
 package es.codeurjc.mca.tfm.purchases.domain.models;
 
+import es.codeurjc.mca.tfm.purchases.domain.exceptions.InvalidItemException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 /**
  * Shopping cart domain entity.
@@ -25,29 +27,30 @@ public class ShoppingCart {
   private boolean completed;
 
   /**
-   * List of items of the shopping cart.
+   * Items of the shopping cart indexed by product identifier, in insertion order.
    */
-  private List<Item> items;
+  private Map<Integer, Item> items;
 
   /**
-   * Total price.
+   * Running total price in minor units, updated by delta on every item mutation.
    */
-  private Double totalPrice;
+  private long totalPrice;
 
   /**
    * Constructor.
    *
+   * @param id     identifier.
    * @param userId user identifier.
    */
-  public ShoppingCart(Integer userId) {
-    this.id = System.currentTimeMillis();
+  public ShoppingCart(Long id, Integer userId) {
+    this.id = id;
     this.userId = userId;
-    this.items = new ArrayList<>();
-    this.totalPrice = 0d;
+    this.items = new LinkedHashMap<>();
   }
 
   /**
-   * All args constructor.
+   * All args constructor. Total price is derived from passed items, it's only kept as parameter
+   * for the carts whose items aren't available.
    *
    * @param id         identifier.
    * @param userId     user identifier.
@@ -56,12 +59,16 @@ public class ShoppingCart {
    * @param totalPrice total price.
    */
   public ShoppingCart(Long id, Integer userId, boolean completed,
-      List<Item> items, Double totalPrice) {
+      List<Item> items, Money totalPrice) {
     this.id = id;
     this.userId = userId;
     this.completed = completed;
-    this.items = items;
-    this.totalPrice = totalPrice;
+    if (items == null) {
+      this.items = new LinkedHashMap<>();
+      this.totalPrice = totalPrice != null ? totalPrice.getMinorUnits() : 0L;
+    } else {
+      this.setItems(items);
+    }
   }
 
   public Long getId() {
@@ -89,19 +96,37 @@ public class ShoppingCart {
   }
 
   public List<Item> getItems() {
-    return items;
+    return new ArrayList<>(this.items.values());
   }
 
+  /**
+   * Replaces shopping cart items, rebuilding the product index and the total price. Shopping cart
+   * is left unchanged if the total price overflows.
+   *
+   * @param items list of items.
+   * @throws InvalidItemException if total price overflows.
+   */
   public void setItems(List<Item> items) {
-    this.items = items;
-  }
-
-  public Double getTotalPrice() {
-    return totalPrice;
+    Map<Integer, Item> newItems = new LinkedHashMap<>(items.size() * 2);
+    long newTotalPrice = 0L;
+    try {
+      for (Item item : items) {
+        Item replacedItem = newItems.put(item.getProductId(), item);
+        if (replacedItem != null) {
+          newTotalPrice = Math.subtractExact(newTotalPrice,
+              replacedItem.getTotalPriceInMinorUnits());
+        }
+        newTotalPrice = Math.addExact(newTotalPrice, item.getTotalPriceInMinorUnits());
+      }
+    } catch (ArithmeticException e) {
+      throw new InvalidItemException("Can't set items, shopping cart total price overflows");
+    }
+    this.items = newItems;
+    this.totalPrice = newTotalPrice;
   }
 
-  public void setTotalPrice(Double totalPrice) {
-    this.totalPrice = totalPrice;
+  public Money getTotalPrice() {
+    return Money.ofMinorUnits(this.totalPrice);
   }
 
   /**
@@ -119,7 +144,7 @@ public class ShoppingCart {
    * @return true if is completable, else false.
    */
   public boolean isCompletable() {
-    return !this.completed && this.items != null && this.items.size() > 0 && this.totalPrice > 0;
+    return !this.completed && !this.items.isEmpty() && this.totalPrice > 0L;
   }
 
   /**
@@ -130,28 +155,50 @@ public class ShoppingCart {
   }
 
   /**
-   * Set item into shopping cart.
+   * Set item into shopping cart. New item and total prices are calculated before changing
+   * anything, so shopping cart is left unchanged if any of them overflows.
    *
    * @param productId product identifier.
    * @param unitPrice item unit price.
    * @param quantity  item quantity.
    * @return true if item can be set, else false.
+   * @throws InvalidItemException if item or shopping cart total price overflows.
    */
-  public boolean setItem(Integer productId, Double unitPrice, Integer quantity) {
-    if (unitPrice > 0 && quantity > 0) {
-      Optional<Item> itemOptional = this.items.stream()
-          .filter(item -> productId.equals(item.getProductId()))
-          .findAny();
-      itemOptional.ifPresentOrElse(
-          item -> item.update(unitPrice, quantity),
-          () -> this.items.add(new Item(productId, unitPrice, quantity))
-      );
-      this.totalPrice = this.items.stream().map(Item::getTotalPrice).reduce(0.0, Double::sum);
+  public boolean setItem(Integer productId, Money unitPrice, Integer quantity) {
+    if (isValidItem(unitPrice, quantity)) {
+      Item item = this.items.get(productId);
+      long newTotalPrice;
+      try {
+        long newItemTotalPrice = Item.totalPriceInMinorUnits(unitPrice, quantity);
+        newTotalPrice = Math.addExact(item == null ? this.totalPrice
+            : Math.subtractExact(this.totalPrice, item.getTotalPriceInMinorUnits()),
+            newItemTotalPrice);
+      } catch (ArithmeticException e) {
+        throw new InvalidItemException(
+            "Can't set item, its total price or shopping cart total price overflows");
+      }
+      if (item == null) {
+        this.items.put(productId, new Item(productId, unitPrice, quantity));
+      } else {
+        item.update(unitPrice, quantity);
+      }
+      this.totalPrice = newTotalPrice;
       return true;
     }
     return false;
   }
 
+  /**
+   * Indicates if an item with passed unit price and quantity can be set into a shopping cart.
+   *
+   * @param unitPrice item unit price.
+   * @param quantity  item quantity.
+   * @return true if unit price and quantity are greater than zero, else false.
+   */
+  public static boolean isValidItem(Money unitPrice, Integer quantity) {
+    return unitPrice != null && unitPrice.isPositive() && quantity != null && quantity > 0;
+  }
+
   /**
    * Delete item from shopping cart.
    *
@@ -159,8 +206,10 @@ public class ShoppingCart {
    * @return true if item was deleted, else false.
    */
   public boolean deleteItem(Integer productId) {
-    if (this.items.removeIf(item -> productId.equals(item.getProductId()))) {
-      this.totalPrice = this.items.stream().map(Item::getTotalPrice).reduce(0.0, Double::sum);
+    Item item = this.items.get(productId);
+    if (item != null) {
+      this.totalPrice = Math.subtractExact(this.totalPrice, item.getTotalPriceInMinorUnits());
+      this.items.remove(productId);
       return true;
     }
     return false;
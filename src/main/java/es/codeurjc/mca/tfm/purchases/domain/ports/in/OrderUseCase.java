@@ -2,6 +2,7 @@ package es.codeurjc.mca.tfm.purchases.domain.ports.in;
 
 import es.codeurjc.mca.tfm.purchases.domain.dtos.OrderDto;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
+import es.codeurjc.mca.tfm.purchases.domain.models.OrderState;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +27,6 @@ public interface OrderUseCase {
    * @param errors optional with errors if any.
    * @return updated order DTO.
    */
-  Optional<OrderDto> update(Long id, String state, Optional<List<String>> errors);
+  Optional<OrderDto> update(Long id, OrderState state, Optional<List<String>> errors);
 
 }
@@ -1,6 +1,9 @@
 package es.codeurjc.mca.tfm.purchases.domain.ports.in;
 
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ItemDto;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -53,7 +56,7 @@ public interface ShoppingCartUseCase {
    * @param quantity  item quantity.
    * @return an optional of shopping cart DTO with item set.
    */
-  Optional<ShoppingCartDto> setItem(Long id, Integer userId, Integer productId, Double unitPrice,
+  Optional<ShoppingCartDto> setItem(Long id, Integer userId, Integer productId, Money unitPrice,
       Integer quantity);
 
   /**
@@ -66,4 +69,24 @@ public interface ShoppingCartUseCase {
    */
   Optional<ShoppingCartDto> deleteItem(Long id, Integer userId, Integer productId);
 
+  /**
+   * Set several items into shopping cart with passed id and user at once.
+   *
+   * @param id     shopping cart identifier.
+   * @param userId user identifier.
+   * @param items  items to set, with product identifier, unit price and quantity.
+   * @return an optional of shopping cart DTO with items set.
+   */
+  Optional<ShoppingCartDto> setItems(Long id, Integer userId, List<ItemDto> items);
+
+  /**
+   * Delete several items from shopping cart with passed id and user at once.
+   *
+   * @param id         shopping cart identifier.
+   * @param userId     user identifier.
+   * @param productIds identifiers of products to delete.
+   * @return an optional of shopping cart DTO with items deleted.
+   */
+  Optional<ShoppingCartDto> deleteItems(Long id, Integer userId, List<Integer> productIds);
+
 }
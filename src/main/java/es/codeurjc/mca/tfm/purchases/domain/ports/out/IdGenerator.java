@@ -0,0 +1,16 @@
+package es.codeurjc.mca.tfm.purchases.domain.ports.out;
+
+/**
+ * Identifier generator interface.
+ */
+public interface IdGenerator {
+
+  /**
+   * Generates a new unique identifier. Identifiers generated later must be greater, so they can
+   * be used as primary keys keeping inserts in order.
+   *
+   * @return generated identifier.
+   */
+  long nextId();
+
+}
@@ -1,6 +1,7 @@
 package es.codeurjc.mca.tfm.purchases.domain.ports.out;
 
 import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -32,6 +33,16 @@ public interface ShoppingCartRepository {
    */
   Optional<ShoppingCartDto> getByIdAndUser(Long id, Integer userId);
 
+  /**
+   * Get current shopping cart by identifier and user, to validate and change it. Unlike
+   * {@link #getByIdAndUser}, it must not be served from a possibly stale read model.
+   *
+   * @param id     shopping cart identifier.
+   * @param userId user identifier.
+   * @return optional of current shopping cart with id and user.
+   */
+  Optional<ShoppingCartDto> getCurrentByIdAndUser(Long id, Integer userId);
+
   /**
    * Delete a shopping cart by id.
    *
@@ -49,8 +60,9 @@ public interface ShoppingCartRepository {
   /**
    * Updates shopping cart items.
    *
-   * @param shoppingCartDto DTO with shopping cart with updated items.
+   * @param shoppingCartDto   DTO with shopping cart with updated items.
+   * @param changedProductIds identifiers of products set or deleted by the update.
    */
-  void updateItems(ShoppingCartDto shoppingCartDto);
+  void updateItems(ShoppingCartDto shoppingCartDto, List<Integer> changedProductIds);
 
 }
@@ -13,7 +13,7 @@ public interface OrderStateService {
    *
    * @return service state.
    */
-  String getState();
+  OrderState getState();
 
   /**
    * Perform action for current state keeping in mind previous state.
@@ -23,8 +23,8 @@ public class DoneOrderStateServiceImpl extends FinalAbstractBaseOrderState {
    * @return service state.
    */
   @Override
-  public String getState() {
-    return OrderState.DONE.name();
+  public OrderState getState() {
+    return OrderState.DONE;
   }
 
 }
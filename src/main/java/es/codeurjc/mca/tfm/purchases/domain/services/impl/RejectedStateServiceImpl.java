@@ -24,8 +24,8 @@ public class RejectedStateServiceImpl extends FinalAbstractBaseOrderState {
    * @return service state.
    */
   @Override
-  public String getState() {
-    return OrderState.REJECTED.name();
+  public OrderState getState() {
+    return OrderState.REJECTED;
   }
 
   /**
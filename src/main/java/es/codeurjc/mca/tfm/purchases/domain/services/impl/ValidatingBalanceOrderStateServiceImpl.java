@@ -30,8 +30,8 @@ public class ValidatingBalanceOrderStateServiceImpl implements OrderStateService
    * @return service state.
    */
   @Override
-  public String getState() {
-    return OrderState.VALIDATING_BALANCE.name();
+  public OrderState getState() {
+    return OrderState.VALIDATING_BALANCE;
   }
 
   /**
@@ -30,8 +30,8 @@ public class ValidatingItemsOrderStateServiceImpl implements OrderStateService {
    * @return service state.
    */
   @Override
-  public String getState() {
-    return OrderState.VALIDATING_ITEMS.name();
+  public OrderState getState() {
+    return OrderState.VALIDATING_ITEMS;
   }
 
   /**
@@ -10,6 +10,7 @@ import es.codeurjc.mca.tfm.purchases.domain.models.Order;
 import es.codeurjc.mca.tfm.purchases.domain.models.OrderState;
 import es.codeurjc.mca.tfm.purchases.domain.models.ShoppingCart;
 import es.codeurjc.mca.tfm.purchases.domain.ports.in.OrderUseCase;
+import es.codeurjc.mca.tfm.purchases.domain.ports.out.IdGenerator;
 import es.codeurjc.mca.tfm.purchases.domain.ports.out.OrderRepository;
 import es.codeurjc.mca.tfm.purchases.domain.services.OrderStateService;
 import java.util.List;
@@ -27,20 +28,27 @@ public class OrderUseCaseImpl implements OrderUseCase {
   private final OrderRepository orderRepository;
 
   /**
-   * Map with distinct order state service strategies.
+   * Map with distinct order state service strategies, indexed by state.
    */
-  private final Map<String, OrderStateService> orderStateServiceMap;
+  private final Map<OrderState, OrderStateService> orderStateServiceMap;
+
+  /**
+   * Identifier generator.
+   */
+  private final IdGenerator idGenerator;
 
   /**
    * Constructor.
    *
    * @param orderRepository      order repository.
    * @param orderStateServiceMap order state services map.
+   * @param idGenerator          identifier generator.
    */
   public OrderUseCaseImpl(final OrderRepository orderRepository,
-      Map<String, OrderStateService> orderStateServiceMap) {
+      Map<OrderState, OrderStateService> orderStateServiceMap, final IdGenerator idGenerator) {
     this.orderRepository = orderRepository;
     this.orderStateServiceMap = orderStateServiceMap;
+    this.idGenerator = idGenerator;
   }
 
   /**
@@ -55,7 +63,7 @@ public class OrderUseCaseImpl implements OrderUseCase {
     if (!shoppingCart.isCompleted()) {
       throw new IllegalShoppingCartStateException("Can't create order from incomplete cart");
     }
-    Order order = new Order(shoppingCart);
+    Order order = new Order(this.idGenerator.nextId(), shoppingCart);
     OrderDto orderDto = DomainMapper.map(order);
     this.orderRepository.create(orderDto);
     return orderDto;
@@ -70,24 +78,26 @@ public class OrderUseCaseImpl implements OrderUseCase {
    * @return updated order DTO.
    */
   @Override
-  public Optional<OrderDto> update(Long id, String state, Optional<List<String>> errors) {
+  public Optional<OrderDto> update(Long id, OrderState state, Optional<List<String>> errors) {
     Optional<OrderDto> orderDtoOptional = this.orderRepository.findById(id);
     if (orderDtoOptional.isPresent()) {
       Order order = DomainMapper.map(orderDtoOptional.get());
-      if (order.hasFinalState()) {
-        throw new IllegalOrderStateException("Can't change state of order in final state");
-      }
       final OrderState previousState = order.getState();
-      if (OrderState.REJECTED.name().equals(state)) {
-        order.rejectOrder(errors);
-      } else if (!order.updateState(OrderState.valueOf(state))) {
+      if (!previousState.canTransitionTo(state)) {
+        if (previousState.isFinal()) {
+          throw new IllegalOrderStateException("Can't change state of order in final state");
+        }
         throw new PreviousOrderStateUpdateException(
             "Can't change state of order by other previous");
       }
+      if (OrderState.REJECTED == state) {
+        order.rejectOrder(errors);
+      } else {
+        order.updateState(state);
+      }
       OrderDto orderDto = DomainMapper.map(order);
       this.orderRepository.update(orderDto);
-      this.orderStateServiceMap.get(order.getState().name())
-          .performAction(previousState, order.getState(), orderDto);
+      this.orderStateServiceMap.get(state).performAction(previousState, state, orderDto);
       orderDtoOptional = Optional.of(orderDto);
     }
     return orderDtoOptional;
@@ -1,14 +1,20 @@
 package es.codeurjc.mca.tfm.purchases.domain.usecases;
 
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ItemDto;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
 import es.codeurjc.mca.tfm.purchases.domain.exceptions.IllegalShoppingCartStateException;
 import es.codeurjc.mca.tfm.purchases.domain.exceptions.IncompleteShoppingCartAlreadyExistsException;
 import es.codeurjc.mca.tfm.purchases.domain.exceptions.InvalidItemException;
 import es.codeurjc.mca.tfm.purchases.domain.mappers.DomainMapper;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
 import es.codeurjc.mca.tfm.purchases.domain.models.ShoppingCart;
 import es.codeurjc.mca.tfm.purchases.domain.ports.in.ShoppingCartUseCase;
+import es.codeurjc.mca.tfm.purchases.domain.ports.out.IdGenerator;
 import es.codeurjc.mca.tfm.purchases.domain.ports.out.ShoppingCartRepository;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Shopping cart use case implementation.
@@ -20,13 +26,21 @@ public class ShoppingCartUseCaseImpl implements ShoppingCartUseCase {
    */
   private final ShoppingCartRepository shoppingCartRepository;
 
+  /**
+   * Identifier generator.
+   */
+  private final IdGenerator idGenerator;
+
   /**
    * Constructor.
    *
    * @param shoppingCartRepository shopping cart repository.
+   * @param idGenerator            identifier generator.
    */
-  public ShoppingCartUseCaseImpl(final ShoppingCartRepository shoppingCartRepository) {
+  public ShoppingCartUseCaseImpl(final ShoppingCartRepository shoppingCartRepository,
+      final IdGenerator idGenerator) {
     this.shoppingCartRepository = shoppingCartRepository;
+    this.idGenerator = idGenerator;
   }
 
   /**
@@ -41,7 +55,7 @@ public class ShoppingCartUseCaseImpl implements ShoppingCartUseCase {
       throw new IncompleteShoppingCartAlreadyExistsException(
           "Already exists incomplete shopping cart with id=" + shoppingCart.getId());
     });
-    ShoppingCart shoppingCart = new ShoppingCart(userId);
+    ShoppingCart shoppingCart = new ShoppingCart(this.idGenerator.nextId(), userId);
     ShoppingCartDto shoppingCartDto = DomainMapper.map(shoppingCart);
     this.shoppingCartRepository.create(shoppingCartDto);
 
@@ -69,8 +83,8 @@ public class ShoppingCartUseCaseImpl implements ShoppingCartUseCase {
    */
   @Override
   public Optional<ShoppingCartDto> delete(Long id, Integer userId) {
-    Optional<ShoppingCartDto> shoppingCartDtoOptional = this.shoppingCartRepository.getByIdAndUser(
-        id, userId);
+    Optional<ShoppingCartDto> shoppingCartDtoOptional =
+        this.shoppingCartRepository.getCurrentByIdAndUser(id, userId);
     if (shoppingCartDtoOptional.isPresent()) {
       ShoppingCart shoppingCart = DomainMapper.map(shoppingCartDtoOptional.get());
       if (!shoppingCart.isDeletable()) {
@@ -90,8 +104,8 @@ public class ShoppingCartUseCaseImpl implements ShoppingCartUseCase {
    */
   @Override
   public Optional<ShoppingCartDto> complete(Long id, Integer userId) {
-    Optional<ShoppingCartDto> shoppingCartDtoOptional = this.shoppingCartRepository.getByIdAndUser(
-        id, userId);
+    Optional<ShoppingCartDto> shoppingCartDtoOptional =
+        this.shoppingCartRepository.getCurrentByIdAndUser(id, userId);
     if (shoppingCartDtoOptional.isPresent()) {
       ShoppingCart shoppingCart = DomainMapper.map(shoppingCartDtoOptional.get());
       if (!shoppingCart.isCompletable()) {
@@ -117,9 +131,9 @@ public class ShoppingCartUseCaseImpl implements ShoppingCartUseCase {
    */
   @Override
   public Optional<ShoppingCartDto> setItem(Long id, Integer userId, Integer productId,
-      Double unitPrice, Integer quantity) {
-    Optional<ShoppingCartDto> shoppingCartDtoOptional = this.shoppingCartRepository.getByIdAndUser(
-        id, userId);
+      Money unitPrice, Integer quantity) {
+    Optional<ShoppingCartDto> shoppingCartDtoOptional =
+        this.shoppingCartRepository.getCurrentByIdAndUser(id, userId);
     if (shoppingCartDtoOptional.isPresent()) {
       ShoppingCart shoppingCart = DomainMapper.map(shoppingCartDtoOptional.get());
       if (shoppingCart.isCompleted()) {
@@ -130,7 +144,7 @@ public class ShoppingCartUseCaseImpl implements ShoppingCartUseCase {
             "Can't set item, check item unit price and quantity to be greater than 0");
       }
       ShoppingCartDto shoppingCartDto = DomainMapper.map(shoppingCart);
-      this.shoppingCartRepository.updateItems(shoppingCartDto);
+      this.shoppingCartRepository.updateItems(shoppingCartDto, List.of(productId));
       shoppingCartDtoOptional = Optional.of(shoppingCartDto);
     }
     return shoppingCartDtoOptional;
@@ -146,8 +160,8 @@ public class ShoppingCartUseCaseImpl implements ShoppingCartUseCase {
    */
   @Override
   public Optional<ShoppingCartDto> deleteItem(Long id, Integer userId, Integer productId) {
-    Optional<ShoppingCartDto> shoppingCartDtoOptional = this.shoppingCartRepository.getByIdAndUser(
-        id, userId);
+    Optional<ShoppingCartDto> shoppingCartDtoOptional =
+        this.shoppingCartRepository.getCurrentByIdAndUser(id, userId);
     if (shoppingCartDtoOptional.isPresent()) {
       ShoppingCart shoppingCart = DomainMapper.map(shoppingCartDtoOptional.get());
       if (shoppingCart.isCompleted()) {
@@ -155,7 +169,82 @@ public class ShoppingCartUseCaseImpl implements ShoppingCartUseCase {
       }
       if (shoppingCart.deleteItem(productId)) {
         ShoppingCartDto shoppingCartDto = DomainMapper.map(shoppingCart);
-        this.shoppingCartRepository.updateItems(shoppingCartDto);
+        this.shoppingCartRepository.updateItems(shoppingCartDto, List.of(productId));
+        shoppingCartDtoOptional = Optional.of(shoppingCartDto);
+      }
+    }
+    return shoppingCartDtoOptional;
+  }
+
+  /**
+   * Set several items into shopping cart with passed id and user at once. All items are validated
+   * before reading the shopping cart, and only one items update is sent.
+   *
+   * @param id     shopping cart identifier.
+   * @param userId user identifier.
+   * @param items  items to set, with product identifier, unit price and quantity.
+   * @return an optional of shopping cart DTO with items set.
+   */
+  @Override
+  public Optional<ShoppingCartDto> setItems(Long id, Integer userId, List<ItemDto> items) {
+    if (items.isEmpty()) {
+      throw new InvalidItemException("Can't set items, at least one item is required");
+    }
+    List<Integer> invalidProductIds = items.stream()
+        .filter(item -> item.getProductId() == null
+            || !ShoppingCart.isValidItem(item.getUnitPrice(), item.getQuantity()))
+        .map(ItemDto::getProductId)
+        .collect(Collectors.toList());
+    if (!invalidProductIds.isEmpty()) {
+      throw new InvalidItemException("Can't set items with product identifiers "
+          + invalidProductIds + ", check items unit price and quantity to be greater than 0");
+    }
+    Optional<ShoppingCartDto> shoppingCartDtoOptional =
+        this.shoppingCartRepository.getCurrentByIdAndUser(id, userId);
+    if (shoppingCartDtoOptional.isPresent()) {
+      ShoppingCart shoppingCart = DomainMapper.map(shoppingCartDtoOptional.get());
+      if (shoppingCart.isCompleted()) {
+        throw new IllegalShoppingCartStateException("Can't set items to completed cart");
+      }
+      items.forEach(item ->
+          shoppingCart.setItem(item.getProductId(), item.getUnitPrice(), item.getQuantity()));
+      ShoppingCartDto shoppingCartDto = DomainMapper.map(shoppingCart);
+      this.shoppingCartRepository.updateItems(shoppingCartDto, items.stream()
+          .map(ItemDto::getProductId)
+          .distinct()
+          .collect(Collectors.toList()));
+      shoppingCartDtoOptional = Optional.of(shoppingCartDto);
+    }
+    return shoppingCartDtoOptional;
+  }
+
+  /**
+   * Delete several items from shopping cart with passed id and user at once. Only one items
+   * update is sent, and only if any item was deleted.
+   *
+   * @param id         shopping cart identifier.
+   * @param userId     user identifier.
+   * @param productIds identifiers of products to delete.
+   * @return an optional of shopping cart DTO with items deleted.
+   */
+  @Override
+  public Optional<ShoppingCartDto> deleteItems(Long id, Integer userId, List<Integer> productIds) {
+    Optional<ShoppingCartDto> shoppingCartDtoOptional =
+        this.shoppingCartRepository.getCurrentByIdAndUser(id, userId);
+    if (shoppingCartDtoOptional.isPresent()) {
+      ShoppingCart shoppingCart = DomainMapper.map(shoppingCartDtoOptional.get());
+      if (shoppingCart.isCompleted()) {
+        throw new IllegalShoppingCartStateException("Can't delete items from completed cart");
+      }
+      List<Integer> deletedProductIds = new ArrayList<>();
+      for (Integer productId : productIds) {
+        if (shoppingCart.deleteItem(productId)) {
+          deletedProductIds.add(productId);
+        }
+      }
+      if (!deletedProductIds.isEmpty()) {
+        ShoppingCartDto shoppingCartDto = DomainMapper.map(shoppingCart);
+        this.shoppingCartRepository.updateItems(shoppingCartDto, deletedProductIds);
         shoppingCartDtoOptional = Optional.of(shoppingCartDto);
       }
     }
@@ -1,8 +1,5 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.adapters;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.OrderDto;
 import es.codeurjc.mca.tfm.purchases.domain.models.OrderState;
 import es.codeurjc.mca.tfm.purchases.domain.ports.out.OrderRepository;
@@ -11,11 +8,13 @@ import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderRejectedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderUpdateRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderValidationRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapper;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.OutboxEventPublisher;
 import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaOrderRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.stores.ShoppingCartItemsStore;
+import java.io.IOException;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 /**
@@ -31,15 +30,20 @@ public class KafkaOrderRepositoryAdapter implements OrderRepository {
   private InfraMapper infraMapper;
 
   /**
-   * Kafka template.
+   * Outbox events publisher.
    */
-  private KafkaTemplate<String, String> kafkaTemplate;
+  private OutboxEventPublisher outboxEventPublisher;
 
   /**
    * Order repository.
    */
   private JpaOrderRepository jpaOrderRepository;
 
+  /**
+   * Shopping cart items storage.
+   */
+  private ShoppingCartItemsStore shoppingCartItemsStore;
+
   /**
    * Kafka create order topic.
    */
@@ -70,26 +74,22 @@ public class KafkaOrderRepositoryAdapter implements OrderRepository {
   @Value("${kafka.topics.restoreStock}")
   private String restoreStockTopic;
 
-  /**
-   * Object mapper.
-   */
-  private ObjectMapper objectMapper;
-
   /**
    * Constructor.
    *
-   * @param infraMapper        mapper.
-   * @param kafkaTemplate      kafka template.
-   * @param jpaOrderRepository jpa order repository.
+   * @param infraMapper            mapper.
+   * @param outboxEventPublisher   outbox events publisher.
+   * @param jpaOrderRepository     jpa order repository.
+   * @param shoppingCartItemsStore shopping cart items storage.
    */
   public KafkaOrderRepositoryAdapter(InfraMapper infraMapper,
-      KafkaTemplate<String, String> kafkaTemplate,
-      JpaOrderRepository jpaOrderRepository) {
+      OutboxEventPublisher outboxEventPublisher,
+      JpaOrderRepository jpaOrderRepository,
+      ShoppingCartItemsStore shoppingCartItemsStore) {
     this.infraMapper = infraMapper;
-    this.kafkaTemplate = kafkaTemplate;
+    this.outboxEventPublisher = outboxEventPublisher;
     this.jpaOrderRepository = jpaOrderRepository;
-    this.objectMapper = new ObjectMapper();
-    objectMapper.registerModule(new Jdk8Module());
+    this.shoppingCartItemsStore = shoppingCartItemsStore;
   }
 
   /**
@@ -102,11 +102,12 @@ public class KafkaOrderRepositoryAdapter implements OrderRepository {
     try {
       OrderCreationRequestedEvent orderCreationRequestedEvent =
           this.infraMapper.mapToOrderCreationRequestedEvent(orderDto);
-      this.kafkaTemplate.send(this.createOrderTopic,
-          this.objectMapper.writeValueAsString(orderCreationRequestedEvent));
+      this.outboxEventPublisher.publish(this.createOrderTopic,
+          String.valueOf(orderDto.getId()),
+          orderCreationRequestedEvent);
       log.info("Sent order creation requested event {}",
           orderCreationRequestedEvent);
-    } catch (JsonProcessingException e) {
+    } catch (IOException e) {
       log.error("Error sending order creation requested event");
       e.printStackTrace();
     }
@@ -120,7 +121,11 @@ public class KafkaOrderRepositoryAdapter implements OrderRepository {
    */
   @Override
   public Optional<OrderDto> findById(Long id) {
-    return this.jpaOrderRepository.findById(id).map(this.infraMapper::mapToOrderDto);
+    return this.jpaOrderRepository.findById(id).map(orderEntity -> {
+      OrderDto orderDto = this.infraMapper.mapToOrderDto(orderEntity);
+      orderDto.setShoppingCart(this.shoppingCartItemsStore.read(orderEntity.getShoppingCart()));
+      return orderDto;
+    });
   }
 
   /**
@@ -133,10 +138,11 @@ public class KafkaOrderRepositoryAdapter implements OrderRepository {
     try {
       OrderUpdateRequestedEvent orderUpdateRequestedEvent =
           this.infraMapper.mapToOrderUpdateRequestedEvent(orderDto);
-      this.kafkaTemplate.send(this.updateOrderTopic,
-          this.objectMapper.writeValueAsString(orderUpdateRequestedEvent));
+      this.outboxEventPublisher.publish(this.updateOrderTopic,
+          String.valueOf(orderDto.getId()),
+          orderUpdateRequestedEvent);
       log.info("Sent order update requested event {}", orderUpdateRequestedEvent);
-    } catch (JsonProcessingException e) {
+    } catch (IOException e) {
       log.error("Error sending order update requested event");
       e.printStackTrace();
     }
@@ -154,10 +160,11 @@ public class KafkaOrderRepositoryAdapter implements OrderRepository {
           this.infraMapper.mapToOrderValidationRequestedEvent(orderDto);
       orderValidationRequestedEvent.setFailureState(OrderState.REJECTED.name());
       orderValidationRequestedEvent.setSuccessState(OrderState.VALIDATING_BALANCE.name());
-      this.kafkaTemplate.send(this.validateItemsTopic,
-          this.objectMapper.writeValueAsString(orderValidationRequestedEvent));
+      this.outboxEventPublisher.publish(this.validateItemsTopic,
+          String.valueOf(orderDto.getId()),
+          orderValidationRequestedEvent);
       log.info("Sent items validation requested event {}", orderValidationRequestedEvent);
-    } catch (JsonProcessingException e) {
+    } catch (IOException e) {
       log.error("Error sending items validation requested event");
       e.printStackTrace();
     }
@@ -175,10 +182,11 @@ public class KafkaOrderRepositoryAdapter implements OrderRepository {
           this.infraMapper.mapToOrderValidationRequestedEvent(orderDto);
       orderValidationRequestedEvent.setFailureState(OrderState.REJECTED.name());
       orderValidationRequestedEvent.setSuccessState(OrderState.DONE.name());
-      this.kafkaTemplate.send(this.validateBalanceTopic,
-          this.objectMapper.writeValueAsString(orderValidationRequestedEvent));
+      this.outboxEventPublisher.publish(this.validateBalanceTopic,
+          String.valueOf(orderDto.getId()),
+          orderValidationRequestedEvent);
       log.info("Sent user balance validation requested event {}", orderValidationRequestedEvent);
-    } catch (JsonProcessingException e) {
+    } catch (IOException e) {
       log.error("Error sending user balance validation requested event");
       e.printStackTrace();
     }
@@ -194,10 +202,11 @@ public class KafkaOrderRepositoryAdapter implements OrderRepository {
     try {
       OrderRejectedEvent orderRejectedEvent =
           this.infraMapper.mapToOrderRejectedEvent(orderDto);
-      this.kafkaTemplate.send(this.restoreStockTopic,
-          this.objectMapper.writeValueAsString(orderRejectedEvent));
+      this.outboxEventPublisher.publish(this.restoreStockTopic,
+          String.valueOf(orderDto.getId()),
+          orderRejectedEvent);
       log.info("Sent items restore stock requested event {}", orderRejectedEvent);
-    } catch (JsonProcessingException e) {
+    } catch (IOException e) {
       log.error("Error sending items restore stock requested event");
       e.printStackTrace();
     }
@@ -1,23 +1,42 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.adapters;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ItemDto;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
 import es.codeurjc.mca.tfm.purchases.domain.ports.out.ShoppingCartRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.caches.IncompleteShoppingCartCache;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCompletionRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCreationRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartDeletionRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItem;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapper;
+import es.codeurjc.mca.tfm.purchases.infrastructure.projections.ShoppingCartProjection;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.CoalescingBuffer;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.OutboxEventPublisher;
 import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.stores.ShoppingCartItemsStore;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import javax.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 /**
- * Shopping cart repository adapter Kafka implementation.
+ * Shopping cart repository adapter Kafka implementation. Items updates of a shopping cart can be
+ * coalesced during a window, so only one merged update of a burst is sent. Pending items updates
+ * are served by queries, and sent before completing or deleting the shopping cart and on shutdown.
+ * Items updates are sent as deltas with the changed items only, and periodically as snapshots with
+ * all items, so the items to replay from the last snapshot are bounded.
  */
 @Service
 @Slf4j
@@ -29,15 +48,30 @@ public class KafkaShoppingCartRepositoryAdapter implements ShoppingCartRepositor
   private InfraMapper infraMapper;
 
   /**
-   * Kafka template.
+   * Outbox events publisher.
    */
-  private KafkaTemplate<String, String> kafkaTemplate;
+  private OutboxEventPublisher outboxEventPublisher;
 
   /**
    * Shopping cart repository.
    */
   private JpaShoppingCartRepository jpaShoppingCartRepository;
 
+  /**
+   * Incomplete shopping cart by user cache.
+   */
+  private IncompleteShoppingCartCache incompleteShoppingCartCache;
+
+  /**
+   * Shopping carts read model.
+   */
+  private ShoppingCartProjection shoppingCartProjection;
+
+  /**
+   * Shopping cart items storage.
+   */
+  private ShoppingCartItemsStore shoppingCartItemsStore;
+
   /**
    * Kafka create shopping cart topic.
    */
@@ -63,23 +97,60 @@ public class KafkaShoppingCartRepositoryAdapter implements ShoppingCartRepositor
   private String updateItemsTopic;
 
   /**
-   * Object mapper.
+   * Max number of shopping carts whose deltas since last snapshot are counted.
+   */
+  private static final long MAX_COUNTED_SHOPPING_CARTS = 100_000;
+
+  /**
+   * Pending items updates by shopping cart identifier.
+   */
+  private CoalescingBuffer<Long, ItemsUpdate> itemsUpdates;
+
+  /**
+   * Number of items updates sent as deltas between snapshots, 0 or 1 to send only snapshots.
    */
-  private ObjectMapper objectMapper;
+  private int snapshotEvery;
+
+  /**
+   * Deltas sent since last snapshot by shopping cart identifier. A shopping cart not counted gets
+   * a snapshot on its next items update.
+   */
+  private Cache<Long, Integer> deltasSinceSnapshot;
 
   /**
    * Constructor.
    *
-   * @param infraMapper   mapper.
-   * @param kafkaTemplate kafka template.
+   * @param infraMapper                 mapper.
+   * @param outboxEventPublisher        outbox events publisher.
+   * @param jpaShoppingCartRepository   shopping cart repository.
+   * @param incompleteShoppingCartCache incomplete shopping cart by user cache.
+   * @param shoppingCartProjection      shopping carts read model.
+   * @param shoppingCartItemsStore      shopping cart items storage.
+   * @param itemsUpdateWindowMs         milliseconds items updates of a shopping cart are
+   *                                    coalesced, 0 to send each one.
+   * @param snapshotEvery               number of items updates sent as deltas between snapshots,
+   *                                    0 or 1 to send only snapshots.
    */
   public KafkaShoppingCartRepositoryAdapter(InfraMapper infraMapper,
-      KafkaTemplate<String, String> kafkaTemplate,
-      JpaShoppingCartRepository jpaShoppingCartRepository) {
+      OutboxEventPublisher outboxEventPublisher,
+      JpaShoppingCartRepository jpaShoppingCartRepository,
+      IncompleteShoppingCartCache incompleteShoppingCartCache,
+      ShoppingCartProjection shoppingCartProjection,
+      ShoppingCartItemsStore shoppingCartItemsStore,
+      @Value("${coalescing.shoppingCartItems.windowMs}") long itemsUpdateWindowMs,
+      @Value("${events.shoppingCartItems.snapshotEvery}") int snapshotEvery) {
     this.infraMapper = infraMapper;
-    this.kafkaTemplate = kafkaTemplate;
+    this.outboxEventPublisher = outboxEventPublisher;
     this.jpaShoppingCartRepository = jpaShoppingCartRepository;
-    this.objectMapper = new ObjectMapper();
+    this.incompleteShoppingCartCache = incompleteShoppingCartCache;
+    this.shoppingCartProjection = shoppingCartProjection;
+    this.shoppingCartItemsStore = shoppingCartItemsStore;
+    this.itemsUpdates = new CoalescingBuffer<>("shopping-cart-items-updates",
+        Duration.ofMillis(itemsUpdateWindowMs), ItemsUpdate::merge, this::sendItemsUpdate);
+    this.snapshotEvery = snapshotEvery;
+    this.deltasSinceSnapshot = Caffeine.newBuilder()
+        .maximumSize(MAX_COUNTED_SHOPPING_CARTS)
+        .build();
   }
 
   /**
@@ -92,11 +163,12 @@ public class KafkaShoppingCartRepositoryAdapter implements ShoppingCartRepositor
     try {
       ShoppingCartCreationRequestedEvent shoppingCartCreationRequestedEvent =
           this.infraMapper.mapToShoppingCartCreationRequestedEvent(shoppingCartDto);
-      this.kafkaTemplate.send(this.createShoppingCartTopic,
-          this.objectMapper.writeValueAsString(shoppingCartCreationRequestedEvent));
+      this.outboxEventPublisher.publish(this.createShoppingCartTopic,
+          String.valueOf(shoppingCartDto.getUserId()),
+          shoppingCartCreationRequestedEvent);
       log.info("Sent shopping cart creation requested event {}",
           shoppingCartCreationRequestedEvent);
-    } catch (JsonProcessingException e) {
+    } catch (IOException e) {
       log.error("Error sending shopping cart creation requested event");
       e.printStackTrace();
     }
@@ -110,12 +182,13 @@ public class KafkaShoppingCartRepositoryAdapter implements ShoppingCartRepositor
    */
   @Override
   public Optional<ShoppingCartDto> getIncompleteByUser(Integer userId) {
-    return this.jpaShoppingCartRepository.findByUserIdAndCompletedIsFalse(userId)
-        .map(this.infraMapper::map);
+    return this.incompleteShoppingCartCache.findByUser(userId)
+        .map(this.shoppingCartItemsStore::read);
   }
 
   /**
-   * Get shopping cart by identifier and user.
+   * Get shopping cart by identifier and user, with its pending items update if any, else from
+   * the read model. Only used by queries.
    *
    * @param id     shopping cart identifier.
    * @param userId user identifier.
@@ -123,8 +196,27 @@ public class KafkaShoppingCartRepositoryAdapter implements ShoppingCartRepositor
    */
   @Override
   public Optional<ShoppingCartDto> getByIdAndUser(Long id, Integer userId) {
-    return this.jpaShoppingCartRepository.findByIdAndUserId(id, userId)
-        .map(this.infraMapper::map);
+    return this.itemsUpdates.get(id)
+        .map(ItemsUpdate::getShoppingCartDto)
+        .filter(shoppingCartDto -> userId.equals(shoppingCartDto.getUserId()))
+        .or(() -> this.shoppingCartProjection.findByIdAndUser(id, userId));
+  }
+
+  /**
+   * Get current shopping cart by identifier and user, with its pending items update if any, else
+   * from database, so changes are not validated against a stale read model.
+   *
+   * @param id     shopping cart identifier.
+   * @param userId user identifier.
+   * @return optional of current shopping cart with id and user.
+   */
+  @Override
+  public Optional<ShoppingCartDto> getCurrentByIdAndUser(Long id, Integer userId) {
+    return this.itemsUpdates.get(id)
+        .map(ItemsUpdate::getShoppingCartDto)
+        .or(() -> this.jpaShoppingCartRepository.findById(id)
+            .map(this.shoppingCartItemsStore::read))
+        .filter(shoppingCartDto -> userId.equals(shoppingCartDto.getUserId()));
   }
 
   /**
@@ -134,14 +226,15 @@ public class KafkaShoppingCartRepositoryAdapter implements ShoppingCartRepositor
    */
   @Override
   public void delete(Long id) {
+    this.itemsUpdates.flush(id);
     try {
       ShoppingCartDeletionRequestedEvent shoppingCartDeletionRequestedEvent =
           new ShoppingCartDeletionRequestedEvent(id);
-      this.kafkaTemplate.send(this.deleteShoppingCartTopic,
-          this.objectMapper.writeValueAsString(shoppingCartDeletionRequestedEvent));
+      this.outboxEventPublisher.publish(this.deleteShoppingCartTopic, String.valueOf(id),
+          shoppingCartDeletionRequestedEvent);
       log.info("Sent shopping cart deletion requested event {}",
           shoppingCartDeletionRequestedEvent);
-    } catch (JsonProcessingException e) {
+    } catch (IOException e) {
       log.error("Error sending shopping cart deletion requested event");
       e.printStackTrace();
     }
@@ -154,37 +247,140 @@ public class KafkaShoppingCartRepositoryAdapter implements ShoppingCartRepositor
    */
   @Override
   public void complete(ShoppingCartDto shoppingCartDto) {
+    this.itemsUpdates.flush(shoppingCartDto.getId());
     try {
       final ShoppingCartCompletionRequestedEvent shoppingCartCompletionRequestedEvent =
           this.infraMapper.mapToShoppingCartCompletionRequestedEvent(shoppingCartDto);
-      this.kafkaTemplate.send(this.completeShoppingCartTopic,
-          this.objectMapper.writeValueAsString(shoppingCartCompletionRequestedEvent));
+      this.outboxEventPublisher.publish(this.completeShoppingCartTopic,
+          String.valueOf(shoppingCartDto.getId()),
+          shoppingCartCompletionRequestedEvent);
       log.info("Sent shopping cart completion requested event {}",
           shoppingCartCompletionRequestedEvent);
-    } catch (JsonProcessingException e) {
+    } catch (IOException e) {
       log.error("Error sending shopping cart completion requested event");
       e.printStackTrace();
     }
   }
 
   /**
-   * Updates shopping cart items.
+   * Updates shopping cart items, coalescing it with other items updates of the shopping cart
+   * during the window.
    *
-   * @param shoppingCartDto DTO with shopping cart with updated items.
+   * @param shoppingCartDto   DTO with shopping cart with updated items.
+   * @param changedProductIds identifiers of products set or deleted by the update.
    */
   @Override
-  public void updateItems(ShoppingCartDto shoppingCartDto) {
+  public void updateItems(ShoppingCartDto shoppingCartDto, List<Integer> changedProductIds) {
+    this.itemsUpdates.put(shoppingCartDto.getId(),
+        new ItemsUpdate(shoppingCartDto, new LinkedHashSet<>(changedProductIds)));
+  }
+
+  /**
+   * Send pending items updates before shutdown.
+   */
+  @PreDestroy
+  public void close() {
+    this.itemsUpdates.close();
+  }
+
+  /**
+   * Send a shopping cart items update event, as a snapshot if it is due, else as a delta.
+   *
+   * @param itemsUpdate shopping cart with updated items and identifiers of changed products.
+   */
+  private void sendItemsUpdate(ItemsUpdate itemsUpdate) {
+    ShoppingCartDto shoppingCartDto = itemsUpdate.getShoppingCartDto();
     try {
       final ShoppingCartItemsUpdateRequestedEvent shoppingCartItemsUpdateRequestedEvent =
-          this.infraMapper.mapToShoppingCartItemsUpdateRequestedEvent(shoppingCartDto);
-      this.kafkaTemplate.send(this.updateItemsTopic,
-          this.objectMapper.writeValueAsString(shoppingCartItemsUpdateRequestedEvent));
+          this.isSnapshotDue(itemsUpdate)
+              ? this.infraMapper.mapToShoppingCartItemsUpdateRequestedEvent(shoppingCartDto)
+              : this.buildItemsDelta(itemsUpdate);
+      this.outboxEventPublisher.publish(this.updateItemsTopic,
+          String.valueOf(shoppingCartDto.getId()),
+          shoppingCartItemsUpdateRequestedEvent);
       log.info("Sent shopping cart items update requested event {}",
           shoppingCartItemsUpdateRequestedEvent);
-    } catch (JsonProcessingException e) {
+    } catch (IOException e) {
       log.error("Error sending shopping cart items update requested event");
       e.printStackTrace();
     }
   }
 
+  /**
+   * Check if an items update must be sent as a snapshot, counting it as a delta otherwise. A
+   * snapshot is due every configured number of items updates, for shopping carts not counted, and
+   * when the delta would not be smaller than the snapshot.
+   *
+   * @param itemsUpdate shopping cart with updated items and identifiers of changed products.
+   * @return true if items update must be sent as a snapshot, false as a delta.
+   */
+  private boolean isSnapshotDue(ItemsUpdate itemsUpdate) {
+    if (this.snapshotEvery <= 1 || itemsUpdate.getChangedProductIds().size()
+        >= itemsUpdate.getShoppingCartDto().getItems().size()) {
+      this.deltasSinceSnapshot.put(itemsUpdate.getShoppingCartDto().getId(), 0);
+      return true;
+    }
+    Integer deltas = this.deltasSinceSnapshot.asMap().compute(
+        itemsUpdate.getShoppingCartDto().getId(),
+        (id, count) -> count == null || count + 1 >= this.snapshotEvery ? 0 : count + 1);
+    return deltas == 0;
+  }
+
+  /**
+   * Build a delta items update event, with the changed items still in the shopping cart as set
+   * items, and the rest of changed products as deleted. Total price is not sent, as it could be
+   * stale when applied, so consumers compute it from the updated items.
+   *
+   * @param itemsUpdate shopping cart with updated items and identifiers of changed products.
+   * @return delta items update event.
+   */
+  private ShoppingCartItemsUpdateRequestedEvent buildItemsDelta(ItemsUpdate itemsUpdate) {
+    ShoppingCartDto shoppingCartDto = itemsUpdate.getShoppingCartDto();
+    Set<Integer> deletedProductIds = new LinkedHashSet<>(itemsUpdate.getChangedProductIds());
+    List<ShoppingCartItem> changedItems = new ArrayList<>();
+    for (ItemDto itemDto : shoppingCartDto.getItems()) {
+      if (deletedProductIds.remove(itemDto.getProductId())) {
+        changedItems.add(this.infraMapper.mapToShoppingCartItem(itemDto));
+      }
+    }
+    ShoppingCartItemsUpdateRequestedEvent shoppingCartItemsUpdateRequestedEvent =
+        new ShoppingCartItemsUpdateRequestedEvent();
+    shoppingCartItemsUpdateRequestedEvent.setId(shoppingCartDto.getId());
+    shoppingCartItemsUpdateRequestedEvent.setChangedItems(changedItems);
+    shoppingCartItemsUpdateRequestedEvent.setDeletedProductIds(new ArrayList<>(deletedProductIds));
+    return shoppingCartItemsUpdateRequestedEvent;
+  }
+
+  /**
+   * Pending items update of a shopping cart.
+   */
+  @Getter
+  @AllArgsConstructor
+  private static class ItemsUpdate {
+
+    /**
+     * DTO with shopping cart with updated items.
+     */
+    private final ShoppingCartDto shoppingCartDto;
+
+    /**
+     * Identifiers of products set or deleted since last sent items update.
+     */
+    private final Set<Integer> changedProductIds;
+
+    /**
+     * Merge a pending items update with a newer one of the same shopping cart.
+     *
+     * @param pending pending items update.
+     * @param newer   newer items update.
+     * @return items update with newer shopping cart and products changed by both.
+     */
+    private static ItemsUpdate merge(ItemsUpdate pending, ItemsUpdate newer) {
+      Set<Integer> changedProductIds = new LinkedHashSet<>(pending.getChangedProductIds());
+      changedProductIds.addAll(newer.getChangedProductIds());
+      return new ItemsUpdate(newer.getShoppingCartDto(), changedProductIds);
+    }
+
+  }
+
 }
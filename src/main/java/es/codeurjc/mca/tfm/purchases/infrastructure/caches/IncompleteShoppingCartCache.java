@@ -0,0 +1,189 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.caches;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded cache of user identifier to incomplete shopping cart identifier, in front of the
+ * incomplete shopping cart by user query. Only found shopping carts are cached, and they are
+ * checked against the database when read, so a stale entry is never trusted. Absence is always
+ * queried, as only the instance consuming the partition of a user learns about its new shopping
+ * carts, and a cached absence in other instances would accept a second shopping cart creation.
+ * Shopping cart listeners keep it coherent once their transactions are committed, and entries
+ * expire after a TTL.
+ */
+@Component
+public class IncompleteShoppingCartCache {
+
+  /**
+   * Cache name used in metrics.
+   */
+  public static final String CACHE_NAME = "incompleteShoppingCarts";
+
+  /**
+   * Max times a stale cached identifier is invalidated and queried again before querying the
+   * database directly.
+   */
+  private static final int MAX_FIND_ATTEMPTS = 2;
+
+  /**
+   * Shopping cart repository.
+   */
+  private final JpaShoppingCartRepository jpaShoppingCartRepository;
+
+  /**
+   * Incomplete shopping cart identifier by user identifier.
+   */
+  private final Cache<Integer, Long> cache;
+
+  /**
+   * Constructor.
+   *
+   * @param jpaShoppingCartRepository shopping cart repository.
+   * @param maxSize                   max number of cached users.
+   * @param ttlSeconds                seconds an entry is kept since written.
+   */
+  @Autowired
+  public IncompleteShoppingCartCache(JpaShoppingCartRepository jpaShoppingCartRepository,
+      @Value("${caches.incompleteShoppingCarts.maxSize}") long maxSize,
+      @Value("${caches.incompleteShoppingCarts.ttlSeconds}") long ttlSeconds) {
+    this(jpaShoppingCartRepository, maxSize, Duration.ofSeconds(ttlSeconds),
+        Ticker.systemTicker());
+    CaffeineCacheMetrics.monitor(Metrics.globalRegistry, this.cache, CACHE_NAME);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param jpaShoppingCartRepository shopping cart repository.
+   * @param maxSize                   max number of cached users.
+   * @param ttl                       time an entry is kept since written.
+   * @param ticker                    time source.
+   */
+  public IncompleteShoppingCartCache(JpaShoppingCartRepository jpaShoppingCartRepository,
+      long maxSize, Duration ttl, Ticker ticker) {
+    this.jpaShoppingCartRepository = jpaShoppingCartRepository;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl)
+        .ticker(ticker)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Find incomplete shopping cart of a user. A cached identifier is loaded by primary key and
+   * checked, and an unknown user is queried while holding the entry, so a concurrent put waits for
+   * the query instead of being overwritten by its result. The user is only cached if found. A stale
+   * identifier is invalidated, unless replaced meanwhile, and queried again.
+   *
+   * @param userId user identifier.
+   * @return optional of incomplete shopping cart of passed user, else empty.
+   */
+  public Optional<ShoppingCartEntity> findByUser(Integer userId) {
+    for (int attempt = 0; attempt < MAX_FIND_ATTEMPTS; attempt++) {
+      AtomicReference<ShoppingCartEntity> loadedEntity = new AtomicReference<>();
+      Long cachedId = this.cache.get(userId, key -> {
+        Optional<ShoppingCartEntity> shoppingCartEntity =
+            this.jpaShoppingCartRepository.findByUserIdAndCompletedIsFalse(key);
+        shoppingCartEntity.ifPresent(loadedEntity::set);
+        return shoppingCartEntity.map(ShoppingCartEntity::getId).orElse(null);
+      });
+      if (loadedEntity.get() != null) {
+        return Optional.of(loadedEntity.get());
+      }
+      if (cachedId == null) {
+        return Optional.empty();
+      }
+      Optional<ShoppingCartEntity> shoppingCartEntity = this.jpaShoppingCartRepository
+          .findById(cachedId)
+          .filter(entity -> !entity.isCompleted() && userId.equals(entity.getUserId()));
+      if (shoppingCartEntity.isPresent()) {
+        return shoppingCartEntity;
+      }
+      this.cache.asMap().remove(userId, cachedId);
+    }
+    return this.findByUserInDatabase(userId);
+  }
+
+  /**
+   * Find incomplete shopping cart of a user in database, without reading nor writing the cache.
+   * Used by shopping cart listeners, which must not trust a cached identifier either.
+   *
+   * @param userId user identifier.
+   * @return optional of incomplete shopping cart of passed user, else empty.
+   */
+  public Optional<ShoppingCartEntity> findByUserInDatabase(Integer userId) {
+    return this.jpaShoppingCartRepository.findByUserIdAndCompletedIsFalse(userId);
+  }
+
+  /**
+   * Set the incomplete shopping cart of a user, once current transaction is committed, if any.
+   *
+   * @param userId user identifier.
+   * @param id     incomplete shopping cart identifier.
+   */
+  public void put(Integer userId, Long id) {
+    this.afterCommit(userId, () -> this.cache.put(userId, id));
+  }
+
+  /**
+   * Set that a user has no incomplete shopping cart, after deleting or completing it, once
+   * current transaction is committed, if any. The user entry is invalidated, as absence isn't
+   * cached.
+   *
+   * @param userId user identifier.
+   */
+  public void putNone(Integer userId) {
+    this.afterCommit(userId, () -> this.cache.invalidate(userId));
+  }
+
+  /**
+   * Get cache statistics, with hits and misses.
+   *
+   * @return cache statistics.
+   */
+  public CacheStats stats() {
+    return this.cache.stats();
+  }
+
+  /**
+   * Run an action on the cache once current transaction is committed, or now if there isn't any.
+   * If the transaction is rolled back, the user entry is invalidated, since a query run meanwhile
+   * may have cached uncommitted state.
+   *
+   * @param userId user identifier.
+   * @param action action to run.
+   */
+  private void afterCommit(Integer userId, Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        if (status == STATUS_COMMITTED) {
+          action.run();
+        } else {
+          cache.invalidate(userId);
+        }
+      }
+    });
+  }
+
+}
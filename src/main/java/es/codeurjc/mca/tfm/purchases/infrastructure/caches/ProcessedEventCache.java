@@ -0,0 +1,200 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.caches;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ProcessedEventEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaProcessedEventRepository;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded cache of processed event identifiers, in front of the processed events table, so
+ * redelivered events are dropped before being processed. Events are marked as processed in the
+ * transaction that processes them, so a mark is only kept if the processing is committed, and
+ * they are cached after commit. Cached identifiers expire after a TTL, and stored ones are purged
+ * after a retention, which bounds the window in which duplicates are detected. Events without
+ * identifier are never considered processed.
+ */
+@Component
+@Slf4j
+public class ProcessedEventCache {
+
+  /**
+   * Cache name used in metrics.
+   */
+  public static final String CACHE_NAME = "processedEvents";
+
+  /**
+   * Processed event repository.
+   */
+  private final JpaProcessedEventRepository jpaProcessedEventRepository;
+
+  /**
+   * Processed event identifiers.
+   */
+  private final Cache<Long, Boolean> cache;
+
+  /**
+   * Time a processed event is stored.
+   */
+  private final Duration retention;
+
+  /**
+   * Clock.
+   */
+  private final Clock clock;
+
+  /**
+   * Constructor.
+   *
+   * @param jpaProcessedEventRepository processed event repository.
+   * @param maxSize                     max number of cached events.
+   * @param ttlSeconds                  seconds an event is cached since processed.
+   * @param retentionHours              hours a processed event is stored.
+   */
+  @Autowired
+  public ProcessedEventCache(JpaProcessedEventRepository jpaProcessedEventRepository,
+      @Value("${caches.processedEvents.maxSize}") long maxSize,
+      @Value("${caches.processedEvents.ttlSeconds}") long ttlSeconds,
+      @Value("${caches.processedEvents.retentionHours}") long retentionHours) {
+    this(jpaProcessedEventRepository, maxSize, Duration.ofSeconds(ttlSeconds),
+        Duration.ofHours(retentionHours), Ticker.systemTicker(), Clock.systemUTC());
+    CaffeineCacheMetrics.monitor(Metrics.globalRegistry, this.cache, CACHE_NAME);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param jpaProcessedEventRepository processed event repository.
+   * @param maxSize                     max number of cached events.
+   * @param ttl                         time an event is cached since processed.
+   * @param retention                   time a processed event is stored.
+   * @param ticker                      cache time source.
+   * @param clock                       clock.
+   */
+  public ProcessedEventCache(JpaProcessedEventRepository jpaProcessedEventRepository,
+      long maxSize, Duration ttl, Duration retention, Ticker ticker, Clock clock) {
+    this.jpaProcessedEventRepository = jpaProcessedEventRepository;
+    this.retention = retention;
+    this.clock = clock;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl)
+        .ticker(ticker)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Mark an event as processed in the current transaction, unless it was already processed.
+   *
+   * @param eventId event identifier, may be null.
+   * @return true if event was not processed yet, else false.
+   */
+  public boolean markProcessed(Long eventId) {
+    if (eventId == null) {
+      return true;
+    }
+    if (!this.findProcessed(List.of(eventId)).isEmpty()) {
+      return false;
+    }
+    this.markAllProcessed(List.of(eventId));
+    return true;
+  }
+
+  /**
+   * Find which events were already processed. Cached events are not queried.
+   *
+   * @param eventIds event identifiers, may contain nulls.
+   * @return identifiers of already processed events.
+   */
+  public Set<Long> findProcessed(Collection<Long> eventIds) {
+    Set<Long> processedEventIds = new HashSet<>();
+    Set<Long> unknownEventIds = new HashSet<>();
+    for (Long eventId : eventIds) {
+      if (eventId != null) {
+        if (this.cache.getIfPresent(eventId) != null) {
+          processedEventIds.add(eventId);
+        } else {
+          unknownEventIds.add(eventId);
+        }
+      }
+    }
+    if (!unknownEventIds.isEmpty()) {
+      this.jpaProcessedEventRepository.findAllById(unknownEventIds).forEach(processedEvent -> {
+        processedEventIds.add(processedEvent.getId());
+        this.cache.put(processedEvent.getId(), Boolean.TRUE);
+      });
+    }
+    return processedEventIds;
+  }
+
+  /**
+   * Mark events as processed in the current transaction, and cache them after commit.
+   *
+   * @param eventIds identifiers of events not processed yet, may contain nulls.
+   */
+  public void markAllProcessed(Collection<Long> eventIds) {
+    List<Long> markedEventIds = eventIds.stream()
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
+    if (markedEventIds.isEmpty()) {
+      return;
+    }
+    this.jpaProcessedEventRepository.saveAll(markedEventIds.stream()
+        .map(eventId -> new ProcessedEventEntity(eventId, this.clock.instant()))
+        .collect(Collectors.toList()));
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          markedEventIds.forEach(eventId -> cache.put(eventId, Boolean.TRUE));
+        }
+      });
+    } else {
+      markedEventIds.forEach(eventId -> this.cache.put(eventId, Boolean.TRUE));
+    }
+  }
+
+  /**
+   * Delete stored events processed before retention.
+   *
+   * @return number of deleted events.
+   */
+  @Scheduled(fixedDelayString = "${caches.processedEvents.purgeIntervalMs}")
+  public int purge() {
+    int purged = this.jpaProcessedEventRepository.deleteByProcessedAtBefore(
+        this.clock.instant().minus(this.retention));
+    if (purged > 0) {
+      log.debug("Purged {} processed events", purged);
+    }
+    return purged;
+  }
+
+  /**
+   * Get cache statistics, with hits and misses.
+   *
+   * @return cache statistics.
+   */
+  public CacheStats stats() {
+    return this.cache.stats();
+  }
+
+}
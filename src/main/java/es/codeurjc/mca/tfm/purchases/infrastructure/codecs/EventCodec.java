@@ -0,0 +1,38 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.codecs;
+
+import java.io.IOException;
+
+/**
+ * Kafka events encoding.
+ */
+public interface EventCodec {
+
+  /**
+   * Encode an event.
+   *
+   * @param event event to encode.
+   * @return encoded event.
+   * @throws IOException if event can't be encoded.
+   */
+  byte[] encode(Object event) throws IOException;
+
+  /**
+   * Decode an event.
+   *
+   * @param data encoded event.
+   * @param type event type.
+   * @param <T>  event type.
+   * @return decoded event.
+   * @throws IOException if data is not a valid encoded event of passed type.
+   */
+  <T> T decode(byte[] data, Class<T> type) throws IOException;
+
+  /**
+   * Check if passed data is encoded with this codec.
+   *
+   * @param data encoded event.
+   * @return true if data is encoded with this codec, else false.
+   */
+  boolean canDecode(byte[] data);
+
+}
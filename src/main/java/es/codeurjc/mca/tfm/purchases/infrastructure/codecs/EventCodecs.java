@@ -0,0 +1,82 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.codecs;
+
+import java.io.IOException;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Selects events codec. Events are encoded with Smile for configured binary topics and with JSON
+ * for the rest, and decoded with the codec their header belongs to, so a topic can be switched
+ * while it still has events in the previous format.
+ */
+@Component
+public class EventCodecs {
+
+  /**
+   * JSON events codec.
+   */
+  private final EventCodec jsonEventCodec;
+
+  /**
+   * Binary events codec.
+   */
+  private final EventCodec binaryEventCodec;
+
+  /**
+   * Topics whose events are encoded with binary codec.
+   */
+  private final Set<String> binaryTopics;
+
+  /**
+   * Constructor.
+   *
+   * @param jsonEventCodec   JSON events codec.
+   * @param binaryEventCodec binary events codec.
+   * @param binaryTopics     topics whose events are encoded with binary codec.
+   */
+  public EventCodecs(JsonEventCodec jsonEventCodec, SmileEventCodec binaryEventCodec,
+      @Value("${kafka.binaryTopics}") Set<String> binaryTopics) {
+    this.jsonEventCodec = jsonEventCodec;
+    this.binaryEventCodec = binaryEventCodec;
+    this.binaryTopics = binaryTopics;
+  }
+
+  /**
+   * Encode an event with the codec of passed topic.
+   *
+   * @param topic topic the event is sent to.
+   * @param event event to encode.
+   * @return encoded event.
+   * @throws IOException if event can't be encoded.
+   */
+  public byte[] encode(String topic, Object event) throws IOException {
+    return this.forTopic(topic).encode(event);
+  }
+
+  /**
+   * Decode an event with the codec it was encoded with.
+   *
+   * @param data encoded event.
+   * @param type event type.
+   * @param <T>  event type.
+   * @return decoded event.
+   * @throws IOException if data is not a valid encoded event of passed type.
+   */
+  public <T> T decode(byte[] data, Class<T> type) throws IOException {
+    EventCodec eventCodec =
+        this.binaryEventCodec.canDecode(data) ? this.binaryEventCodec : this.jsonEventCodec;
+    return eventCodec.decode(data, type);
+  }
+
+  /**
+   * Get codec of passed topic.
+   *
+   * @param topic topic.
+   * @return binary codec if topic is a binary one, else JSON codec.
+   */
+  public EventCodec forTopic(String topic) {
+    return this.binaryTopics.contains(topic) ? this.binaryEventCodec : this.jsonEventCodec;
+  }
+
+}
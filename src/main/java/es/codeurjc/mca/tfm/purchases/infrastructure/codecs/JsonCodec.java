@@ -0,0 +1,132 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.codecs;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ItemDto;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderCreationRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderRejectedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderValidationRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCompletionRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCreationRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartDeletionRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItem;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shared JSON codec for events and JSON columns. Readers and writers are immutable and thread
+ * safe, so they are created once per type and reused, and the ones for known types are created
+ * on startup with their serializers and deserializers already resolved.
+ */
+@Component
+public class JsonCodec {
+
+  /**
+   * Types whose readers and writers are created on startup.
+   */
+  private static final List<Class<?>> PREWARMED_TYPES = List.of(
+      ShoppingCartCreationRequestedEvent.class,
+      ShoppingCartDeletionRequestedEvent.class,
+      ShoppingCartCompletionRequestedEvent.class,
+      ShoppingCartItemsUpdateRequestedEvent.class,
+      OrderCreationRequestedEvent.class,
+      OrderUpdateRequestedEvent.class,
+      OrderValidationRequestedEvent.class,
+      OrderRejectedEvent.class,
+      ShoppingCartItem[].class,
+      ItemDto[].class,
+      String[].class);
+
+  /**
+   * Object mapper, only used to create readers and writers.
+   */
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Readers by type.
+   */
+  private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+  /**
+   * Writers by type.
+   */
+  private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor.
+   */
+  public JsonCodec() {
+    this.objectMapper = new ObjectMapper()
+        .registerModule(new MoneyModule())
+        .registerModule(new Jdk8Module());
+    PREWARMED_TYPES.forEach(type -> {
+      this.reader(type);
+      this.writer(type);
+    });
+  }
+
+  /**
+   * Read a JSON string as passed type.
+   *
+   * @param json JSON string.
+   * @param type type to read.
+   * @param <T>  type to read.
+   * @return read value.
+   * @throws JsonProcessingException if JSON is not valid for passed type.
+   */
+  public <T> T read(String json, Class<T> type) throws JsonProcessingException {
+    return this.reader(type).readValue(json);
+  }
+
+  /**
+   * Write a value as JSON string.
+   *
+   * @param value value to write.
+   * @return JSON string.
+   * @throws JsonProcessingException if value can't be written.
+   */
+  public String write(Object value) throws JsonProcessingException {
+    return this.writer(value.getClass()).writeValueAsString(value);
+  }
+
+  /**
+   * Read a JSON array as a list.
+   *
+   * @param json      JSON array string.
+   * @param arrayType type of array to read.
+   * @param <T>       type of elements.
+   * @return unmodifiable list with read elements.
+   * @throws JsonProcessingException if JSON is not valid for passed type.
+   */
+  public <T> List<T> readList(String json, Class<T[]> arrayType) throws JsonProcessingException {
+    return List.of(this.read(json, arrayType));
+  }
+
+  /**
+   * Get reader for passed type.
+   *
+   * @param type type to read.
+   * @return cached reader.
+   */
+  public ObjectReader reader(Class<?> type) {
+    return this.readers.computeIfAbsent(type, this.objectMapper::readerFor);
+  }
+
+  /**
+   * Get writer for passed type.
+   *
+   * @param type type to write.
+   * @return cached writer.
+   */
+  public ObjectWriter writer(Class<?> type) {
+    return this.writers.computeIfAbsent(type, this.objectMapper::writerFor);
+  }
+
+}
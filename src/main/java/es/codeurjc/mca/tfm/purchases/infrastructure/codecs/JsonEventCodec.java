@@ -0,0 +1,63 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.codecs;
+
+import java.io.IOException;
+import org.springframework.stereotype.Component;
+
+/**
+ * JSON events encoding, as UTF-8 bytes without header, so events can be read by any service.
+ */
+@Component
+public class JsonEventCodec implements EventCodec {
+
+  /**
+   * JSON codec.
+   */
+  private final JsonCodec jsonCodec;
+
+  /**
+   * Constructor.
+   *
+   * @param jsonCodec JSON codec.
+   */
+  public JsonEventCodec(JsonCodec jsonCodec) {
+    this.jsonCodec = jsonCodec;
+  }
+
+  /**
+   * Encode an event as JSON.
+   *
+   * @param event event to encode.
+   * @return JSON event bytes.
+   * @throws IOException if event can't be written.
+   */
+  @Override
+  public byte[] encode(Object event) throws IOException {
+    return this.jsonCodec.writer(event.getClass()).writeValueAsBytes(event);
+  }
+
+  /**
+   * Decode a JSON event.
+   *
+   * @param data JSON event bytes.
+   * @param type event type.
+   * @param <T>  event type.
+   * @return decoded event.
+   * @throws IOException if data is not valid JSON for passed type.
+   */
+  @Override
+  public <T> T decode(byte[] data, Class<T> type) throws IOException {
+    return this.jsonCodec.reader(type).readValue(data);
+  }
+
+  /**
+   * JSON has no header, so any data is tried as JSON.
+   *
+   * @param data encoded event.
+   * @return always true.
+   */
+  @Override
+  public boolean canDecode(byte[] data) {
+    return true;
+  }
+
+}
@@ -0,0 +1,96 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.codecs;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import java.io.IOException;
+
+/**
+ * Jackson module to write money values as JSON decimal numbers, like 19.99, and read them from
+ * numbers or strings without going through double, so amounts keep being exact and the JSON
+ * format of events and items column is the same as with double prices.
+ */
+public class MoneyModule extends SimpleModule {
+
+  /**
+   * Constructor.
+   */
+  public MoneyModule() {
+    super(MoneyModule.class.getSimpleName());
+    this.addSerializer(Money.class, new MoneySerializer());
+    this.addDeserializer(Money.class, new MoneyDeserializer());
+  }
+
+  /**
+   * Money JSON serializer.
+   */
+  static class MoneySerializer extends StdScalarSerializer<Money> {
+
+    /**
+     * Constructor.
+     */
+    MoneySerializer() {
+      super(Money.class);
+    }
+
+    /**
+     * Writes money as a decimal number.
+     *
+     * @param money    money value to write.
+     * @param gen      JSON generator.
+     * @param provider serializer provider.
+     * @throws IOException if an error writing happens.
+     */
+    @Override
+    public void serialize(Money money, JsonGenerator gen, SerializerProvider provider)
+        throws IOException {
+      gen.writeNumber(money.toBigDecimal());
+    }
+  }
+
+  /**
+   * Money JSON deserializer.
+   */
+  static class MoneyDeserializer extends StdScalarDeserializer<Money> {
+
+    /**
+     * Constructor.
+     */
+    MoneyDeserializer() {
+      super(Money.class);
+    }
+
+    /**
+     * Reads money from a decimal number or string.
+     *
+     * @param parser JSON parser.
+     * @param ctxt   deserialization context.
+     * @return read money value.
+     * @throws IOException if an error reading happens.
+     */
+    @Override
+    public Money deserialize(JsonParser parser, DeserializationContext ctxt)
+        throws IOException {
+      JsonToken token = parser.currentToken();
+      if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+        return Money.of(parser.getDecimalValue());
+      }
+      if (token == JsonToken.VALUE_STRING) {
+        try {
+          return Money.parse(parser.getText().trim());
+        } catch (NumberFormatException e) {
+          return (Money) ctxt.handleWeirdStringValue(Money.class, parser.getText(),
+              "not a valid money amount");
+        }
+      }
+      return (Money) ctxt.handleUnexpectedToken(Money.class, parser);
+    }
+  }
+
+}
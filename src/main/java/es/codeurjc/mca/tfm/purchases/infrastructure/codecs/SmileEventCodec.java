@@ -0,0 +1,119 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.codecs;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileParser;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compact binary events encoding with Smile, a binary JSON format, so events keep the same
+ * structure as JSON ones. Encoded events start with a two bytes header: a format marker, which is
+ * never the first byte of a JSON event, and the schema version. Unknown properties are ignored, so
+ * adding properties keeps the same version, and incompatible changes must increase it.
+ */
+@Component
+public class SmileEventCodec implements EventCodec {
+
+  /**
+   * Format marker, first byte of encoded events.
+   */
+  public static final byte FORMAT_MARKER = (byte) 0xC5;
+
+  /**
+   * Current schema version, second byte of encoded events.
+   */
+  public static final byte SCHEMA_VERSION = 1;
+
+  /**
+   * Header length.
+   */
+  private static final int HEADER_LENGTH = 2;
+
+  /**
+   * Object mapper, only used to create readers and writers.
+   */
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Readers by type.
+   */
+  private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+  /**
+   * Writers by type.
+   */
+  private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor.
+   */
+  public SmileEventCodec() {
+    this.objectMapper = SmileMapper.builder()
+        .disable(SmileGenerator.Feature.WRITE_HEADER)
+        .disable(SmileParser.Feature.REQUIRE_HEADER)
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+        .addModule(new MoneyModule())
+        .addModule(new Jdk8Module())
+        .build();
+  }
+
+  /**
+   * Encode an event with header.
+   *
+   * @param event event to encode.
+   * @return encoded event.
+   * @throws IOException if event can't be written.
+   */
+  @Override
+  public byte[] encode(Object event) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+    out.write(FORMAT_MARKER);
+    out.write(SCHEMA_VERSION);
+    this.writers.computeIfAbsent(event.getClass(), this.objectMapper::writerFor)
+        .writeValue(out, event);
+    return out.toByteArray();
+  }
+
+  /**
+   * Decode an event, checking its header.
+   *
+   * @param data encoded event.
+   * @param type event type.
+   * @param <T>  event type.
+   * @return decoded event.
+   * @throws IOException if data is not a valid encoded event of passed type, or its schema
+   *                     version is not supported.
+   */
+  @Override
+  public <T> T decode(byte[] data, Class<T> type) throws IOException {
+    if (!this.canDecode(data)) {
+      throw new IOException("Not a Smile encoded event");
+    }
+    if (data[1] != SCHEMA_VERSION) {
+      throw new IOException("Unsupported event schema version " + data[1]);
+    }
+    return this.readers.computeIfAbsent(type, this.objectMapper::readerFor)
+        .readValue(data, HEADER_LENGTH, data.length - HEADER_LENGTH);
+  }
+
+  /**
+   * Check if passed data starts with Smile events header.
+   *
+   * @param data encoded event.
+   * @return true if data starts with format marker, else false.
+   */
+  @Override
+  public boolean canDecode(byte[] data) {
+    return data.length >= HEADER_LENGTH && data[0] == FORMAT_MARKER;
+  }
+
+}
@@ -1,7 +1,10 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.configs;
 
+import com.fasterxml.jackson.databind.Module;
+import es.codeurjc.mca.tfm.purchases.domain.models.OrderState;
 import es.codeurjc.mca.tfm.purchases.domain.ports.in.OrderUseCase;
 import es.codeurjc.mca.tfm.purchases.domain.ports.in.ShoppingCartUseCase;
+import es.codeurjc.mca.tfm.purchases.domain.ports.out.IdGenerator;
 import es.codeurjc.mca.tfm.purchases.domain.ports.out.OrderRepository;
 import es.codeurjc.mca.tfm.purchases.domain.ports.out.ShoppingCartRepository;
 import es.codeurjc.mca.tfm.purchases.domain.services.OrderStateService;
@@ -11,29 +14,42 @@ import es.codeurjc.mca.tfm.purchases.domain.services.impl.ValidatingBalanceOrder
 import es.codeurjc.mca.tfm.purchases.domain.services.impl.ValidatingItemsOrderStateServiceImpl;
 import es.codeurjc.mca.tfm.purchases.domain.usecases.OrderUseCaseImpl;
 import es.codeurjc.mca.tfm.purchases.domain.usecases.ShoppingCartUseCaseImpl;
-import java.util.Map;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.MoneyModule;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Beans configuration class.
  */
 @Configuration
+@EnableScheduling
 public class Config {
 
+  /**
+   * Money Jackson module bean, registered in Spring object mapper.
+   *
+   * @return MoneyModule instance.
+   */
+  @Bean
+  public Module moneyModule() {
+    return new MoneyModule();
+  }
+
   /**
    * Shopping cart use case bean.
    *
    * @param shoppingCartRepository shopping cart repository.
+   * @param idGenerator            identifier generator.
    * @return ShoppingCartUseCase instance.
    */
   @Bean
   public ShoppingCartUseCase shoppingCartUseCase(
-      ShoppingCartRepository shoppingCartRepository) {
-    return new ShoppingCartUseCaseImpl(shoppingCartRepository);
+      ShoppingCartRepository shoppingCartRepository, IdGenerator idGenerator) {
+    return new ShoppingCartUseCaseImpl(shoppingCartRepository, idGenerator);
   }
 
   /**
@@ -77,19 +93,25 @@ public class Config {
   }
 
   /**
-   * Map with distinct order state service strategies.
+   * Map with distinct order state service strategies, indexed by state. Fails fast if a state
+   * reachable in the transition table has no strategy.
    *
    * @param orderStateServices set of order state services.
    * @return order state service strategies map.
    */
   @Bean
-  public Map<String, OrderStateService> orderStateServiceMap(
+  public EnumMap<OrderState, OrderStateService> orderStateServiceMap(
       Set<OrderStateService> orderStateServices) {
-    return orderStateServices.stream()
-        .collect(Collectors.toMap(
-            OrderStateService::getState,
-            Function.identity()
-        ));
+    EnumMap<OrderState, OrderStateService> orderStateServiceMap = new EnumMap<>(OrderState.class);
+    orderStateServices.forEach(orderStateService -> orderStateServiceMap.put(
+        orderStateService.getState(), orderStateService));
+    for (OrderState state : OrderState.values()) {
+      if (!orderStateServiceMap.containsKey(state) && Arrays.stream(OrderState.values())
+          .anyMatch(previousState -> previousState.canTransitionTo(state))) {
+        throw new IllegalStateException("No order state service for state " + state);
+      }
+    }
+    return orderStateServiceMap;
   }
 
   /**
@@ -97,13 +119,16 @@ public class Config {
    *
    * @param orderRepository    order repository.
    * @param orderStateServices set of order state services.
+   * @param idGenerator        identifier generator.
    * @return OrderUseCase instance.
    */
   @Bean
   public OrderUseCase orderUseCase(
       OrderRepository orderRepository,
-      Set<OrderStateService> orderStateServices) {
-    return new OrderUseCaseImpl(orderRepository, orderStateServiceMap(orderStateServices));
+      Set<OrderStateService> orderStateServices,
+      IdGenerator idGenerator) {
+    return new OrderUseCaseImpl(orderRepository, orderStateServiceMap(orderStateServices),
+        idGenerator);
   }
 
 }
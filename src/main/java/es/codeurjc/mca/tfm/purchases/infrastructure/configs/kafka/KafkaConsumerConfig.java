@@ -1,9 +1,14 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka;
 
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.ListenerFailuresInterceptor;
+import es.codeurjc.mca.tfm.purchases.infrastructure.stores.ShoppingCartStateStore;
+import io.micrometer.core.instrument.Metrics;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,6 +16,8 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 
 /**
  * Kafka configuration class.
@@ -20,6 +27,30 @@ import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 @EnableKafka
 public class KafkaConsumerConfig {
 
+  /**
+   * Name of the batch listeners container factory bean.
+   */
+  public static final String BATCH_LISTENER_CONTAINER_FACTORY =
+      "batchKafkaListenerContainerFactory";
+
+  /**
+   * Name of the worker pool batch listeners container factory bean.
+   */
+  public static final String WORKERS_LISTENER_CONTAINER_FACTORY =
+      "workersKafkaListenerContainerFactory";
+
+  /**
+   * Name of the retry topics listeners container factory bean.
+   */
+  public static final String RETRY_LISTENER_CONTAINER_FACTORY =
+      "retryKafkaListenerContainerFactory";
+
+  /**
+   * Milliseconds between checks of paused retry topics partitions, which are resumed once their
+   * next event is due, and max milliseconds retry topics consumers wait for events in each poll.
+   */
+  private static final long RETRY_PARTITIONS_CHECK_INTERVAL_MS = 1000L;
+
   /**
    * Kafka bootstrap server address.
    */
@@ -33,12 +64,19 @@ public class KafkaConsumerConfig {
   private String groupId;
 
   /**
-   * Kafka consumer factory bean.
+   * Whether tables are being rebuilt from topics, so listeners must not start.
+   */
+  @Value(value = "${rebuild.enabled}")
+  private boolean rebuildEnabled;
+
+  /**
+   * Kafka consumer factory bean. Consumers client metrics, such as records lag and consumption
+   * rate by topic and partition, are published.
    *
    * @return ConsumerFactory instance.
    */
   @Bean
-  public ConsumerFactory<String, String> consumerFactory() {
+  public ConsumerFactory<String, byte[]> consumerFactory() {
     Map<String, Object> props = new HashMap<>();
     props.put(
         ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG,
@@ -51,25 +89,115 @@ public class KafkaConsumerConfig {
         StringDeserializer.class);
     props.put(
         ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
-        StringDeserializer.class);
-    return new DefaultKafkaConsumerFactory<>(props);
+        ByteArrayDeserializer.class);
+    DefaultKafkaConsumerFactory<String, byte[]> consumerFactory =
+        new DefaultKafkaConsumerFactory<>(props);
+    consumerFactory.addListener(new MicrometerConsumerListener<>(Metrics.globalRegistry));
+    return consumerFactory;
   }
 
   /**
-   * ConcurrentKafkaListenerContainerFactory bean.
+   * ConcurrentKafkaListenerContainerFactory bean. Its listeners don't start in rebuild mode.
    *
+   * @param listenerFailuresInterceptor interceptor counting failed processing attempts.
    * @return ConcurrentKafkaListenerContainerFactory instance.
    */
   @Bean
-  public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
-    ConcurrentKafkaListenerContainerFactory<String, String> factory =
+  public ConcurrentKafkaListenerContainerFactory<String, byte[]> kafkaListenerContainerFactory(
+      ListenerFailuresInterceptor listenerFailuresInterceptor) {
+    ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
         new ConcurrentKafkaListenerContainerFactory<>();
     factory.setConsumerFactory(consumerFactory());
+    factory.setRecordInterceptor(listenerFailuresInterceptor);
+    factory.setAutoStartup(!this.rebuildEnabled);
     return factory;
   }
 
-}
+  /**
+   * Batch listeners ConcurrentKafkaListenerContainerFactory bean, whose listeners receive all
+   * records of each poll and process them at once. A failed batch is retried in place. Its
+   * listeners don't start in rebuild mode.
+   *
+   * @param listenerFailuresInterceptor interceptor counting failed processing attempts.
+   * @param batchErrorHandler           batch listeners error handler.
+   * @param shoppingCartStateStore      shopping carts state, loaded on partitions assignment.
+   * @return ConcurrentKafkaListenerContainerFactory instance.
+   */
+  @Bean(BATCH_LISTENER_CONTAINER_FACTORY)
+  public ConcurrentKafkaListenerContainerFactory<String, byte[]> batchKafkaListenerContainerFactory(
+      ListenerFailuresInterceptor listenerFailuresInterceptor,
+      @Qualifier("batchErrorHandler") DefaultErrorHandler batchErrorHandler,
+      ShoppingCartStateStore shoppingCartStateStore) {
+    return this.buildBatchListenerContainerFactory(listenerFailuresInterceptor, batchErrorHandler,
+        shoppingCartStateStore);
+  }
 
+  /**
+   * Worker pool batch listeners ConcurrentKafkaListenerContainerFactory bean, whose listeners
+   * receive all records of each poll and process them on the worker pool. A failed event is
+   * forwarded to retry topics. Its listeners don't start in rebuild mode.
+   *
+   * @param listenerFailuresInterceptor interceptor counting failed processing attempts.
+   * @param retryTopicsErrorHandler     retry topics error handler.
+   * @param shoppingCartStateStore      shopping carts state, loaded on partitions assignment.
+   * @return ConcurrentKafkaListenerContainerFactory instance.
+   */
+  @Bean(WORKERS_LISTENER_CONTAINER_FACTORY)
+  public ConcurrentKafkaListenerContainerFactory<String, byte[]>
+      workersKafkaListenerContainerFactory(ListenerFailuresInterceptor listenerFailuresInterceptor,
+          @Qualifier("retryTopicsErrorHandler") DefaultErrorHandler retryTopicsErrorHandler,
+          ShoppingCartStateStore shoppingCartStateStore) {
+    return this.buildBatchListenerContainerFactory(listenerFailuresInterceptor,
+        retryTopicsErrorHandler, shoppingCartStateStore);
+  }
 
+  /**
+   * Retry topics listeners ConcurrentKafkaListenerContainerFactory bean, whose listeners receive
+   * records one by one. A failed event is forwarded to the next retry topic. Idle partitions are
+   * reported periodically, so partitions paused until their next event is due are resumed. Its
+   * listeners don't start in rebuild mode.
+   *
+   * @param listenerFailuresInterceptor interceptor counting failed processing attempts.
+   * @param retryTopicsErrorHandler     retry topics error handler.
+   * @return ConcurrentKafkaListenerContainerFactory instance.
+   */
+  @Bean(RETRY_LISTENER_CONTAINER_FACTORY)
+  public ConcurrentKafkaListenerContainerFactory<String, byte[]> retryKafkaListenerContainerFactory(
+      ListenerFailuresInterceptor listenerFailuresInterceptor,
+      @Qualifier("retryTopicsErrorHandler") DefaultErrorHandler retryTopicsErrorHandler) {
+    ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
+        new ConcurrentKafkaListenerContainerFactory<>();
+    factory.setConsumerFactory(consumerFactory());
+    factory.setRecordInterceptor(listenerFailuresInterceptor);
+    factory.setCommonErrorHandler(retryTopicsErrorHandler);
+    factory.getContainerProperties().setPollTimeout(RETRY_PARTITIONS_CHECK_INTERVAL_MS);
+    factory.getContainerProperties()
+        .setIdlePartitionEventInterval(RETRY_PARTITIONS_CHECK_INTERVAL_MS);
+    factory.setAutoStartup(!this.rebuildEnabled);
+    return factory;
+  }
 
+  /**
+   * Build a batch listeners ConcurrentKafkaListenerContainerFactory, whose listeners receive all
+   * records of each poll. Its listeners don't start in rebuild mode.
+   *
+   * @param listenerFailuresInterceptor interceptor counting failed processing attempts.
+   * @param errorHandler                error handler of failed batches.
+   * @param shoppingCartStateStore      shopping carts state, loaded on partitions assignment.
+   * @return ConcurrentKafkaListenerContainerFactory instance.
+   */
+  private ConcurrentKafkaListenerContainerFactory<String, byte[]>
+      buildBatchListenerContainerFactory(ListenerFailuresInterceptor listenerFailuresInterceptor,
+          DefaultErrorHandler errorHandler, ShoppingCartStateStore shoppingCartStateStore) {
+    ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
+        new ConcurrentKafkaListenerContainerFactory<>();
+    factory.setConsumerFactory(consumerFactory());
+    factory.setBatchListener(true);
+    factory.setBatchInterceptor(listenerFailuresInterceptor);
+    factory.setCommonErrorHandler(errorHandler);
+    factory.getContainerProperties().setConsumerRebalanceListener(shoppingCartStateStore);
+    factory.setAutoStartup(!this.rebuildEnabled);
+    return factory;
+  }
 
+}
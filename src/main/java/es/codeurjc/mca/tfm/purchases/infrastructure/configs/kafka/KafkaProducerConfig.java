@@ -1,14 +1,17 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka;
 
+import io.micrometer.core.instrument.Metrics;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
 
 /**
@@ -24,12 +27,55 @@ public class KafkaProducerConfig {
   private String bootstrapAddress;
 
   /**
-   * Kafka producer factory bean.
+   * Acknowledgements the leader must receive before considering a request complete.
+   */
+  @Value("${kafka.producer.acks}")
+  private String acks;
+
+  /**
+   * Whether producer ensures that exactly one copy of each event is written.
+   */
+  @Value("${kafka.producer.enableIdempotence}")
+  private boolean enableIdempotence;
+
+  /**
+   * Max unacknowledged requests per connection. Must be at most 5 with idempotence.
+   */
+  @Value("${kafka.producer.maxInFlightRequestsPerConnection}")
+  private int maxInFlightRequestsPerConnection;
+
+  /**
+   * Milliseconds to wait for more events before sending a batch.
+   */
+  @Value("${kafka.producer.lingerMs}")
+  private int lingerMs;
+
+  /**
+   * Max bytes of a batch of events sent to the same partition.
+   */
+  @Value("${kafka.producer.batchSize}")
+  private int batchSize;
+
+  /**
+   * Compression type of batches.
+   */
+  @Value("${kafka.producer.compressionType}")
+  private String compressionType;
+
+  /**
+   * Max milliseconds to report success or failure of a send, including retries.
+   */
+  @Value("${kafka.producer.deliveryTimeoutMs}")
+  private int deliveryTimeoutMs;
+
+  /**
+   * Kafka producer factory bean, with Kafka client metrics, such as average batch size or
+   * compression rate, published as Micrometer metrics.
    *
    * @return ProducerFactory instance.
    */
   @Bean
-  public ProducerFactory<String, String> producerFactory() {
+  public ProducerFactory<String, byte[]> producerFactory() {
     Map<String, Object> configProps = new HashMap<>();
     configProps.put(
         ProducerConfig.BOOTSTRAP_SERVERS_CONFIG,
@@ -39,8 +85,19 @@ public class KafkaProducerConfig {
         StringSerializer.class);
     configProps.put(
         ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
-        StringSerializer.class);
-    return new DefaultKafkaProducerFactory<>(configProps);
+        ByteArraySerializer.class);
+    configProps.put(ProducerConfig.ACKS_CONFIG, this.acks);
+    configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, this.enableIdempotence);
+    configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION,
+        this.maxInFlightRequestsPerConnection);
+    configProps.put(ProducerConfig.LINGER_MS_CONFIG, this.lingerMs);
+    configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, this.batchSize);
+    configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, this.compressionType);
+    configProps.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, this.deliveryTimeoutMs);
+    DefaultKafkaProducerFactory<String, byte[]> producerFactory =
+        new DefaultKafkaProducerFactory<>(configProps);
+    producerFactory.addListener(new MicrometerProducerListener<>(Metrics.globalRegistry));
+    return producerFactory;
   }
 
   /**
@@ -50,7 +107,7 @@ public class KafkaProducerConfig {
    * @return KafkaTemplate bean.
    */
   @Bean
-  public KafkaTemplate<String, String> kafkaTemplate() {
+  public KafkaTemplate<String, byte[]> kafkaTemplate() {
     return new KafkaTemplate<>(producerFactory());
   }
 
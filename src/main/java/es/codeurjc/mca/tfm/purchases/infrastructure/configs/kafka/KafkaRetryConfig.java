@@ -0,0 +1,288 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import java.io.IOException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NestedRuntimeException;
+import org.springframework.kafka.config.KafkaListenerConfigUtils;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConsumerAwareRecordRecoverer;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.ListenerContainerRegistry;
+import org.springframework.kafka.listener.PartitionPausingBackoffManager;
+import org.springframework.kafka.listener.SeekUtils;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+import org.springframework.util.backoff.FixedBackOff;
+
+/**
+ * Kafka retries configuration class. A failed event of a topic processed by the worker pool is
+ * forwarded to a chain of retry topics, each processed after an exponentially growing delay, and
+ * finally to a dead letter topic, so main topics consumers keep processing next events meanwhile.
+ * Items updates and order updates are processed as whole batches, which retry topics don't support,
+ * so a failed batch is retried in place from its failed event with the same delays, and when
+ * attempts are exhausted the failed event is forwarded to the dead letter topic and next events are
+ * processed. Events that can't be decoded are forwarded to the dead letter topic right away. A
+ * retry topic partition whose next event is not due yet is paused until it is, instead of blocking
+ * its consumer thread.
+ */
+@Configuration
+public class KafkaRetryConfig {
+
+  /**
+   * Suffix of retry topics, followed by their index.
+   */
+  public static final String RETRY_TOPIC_SUFFIX = "-retry-";
+
+  /**
+   * Pattern of retry topics of a topic, appended to its name.
+   */
+  public static final String RETRY_TOPICS_PATTERN = RETRY_TOPIC_SUFFIX + "\\d+";
+
+  /**
+   * Suffix of dead letter topics.
+   */
+  public static final String DLT_SUFFIX = "-dlt";
+
+  /**
+   * Partition of forwarded events, negative so the producer chooses it by the event key, as retry
+   * and dead letter topics may have less partitions than their main topics.
+   */
+  private static final int KEY_PARTITION = -1;
+
+  /**
+   * Kafka create shopping cart topic.
+   */
+  @Value("${kafka.topics.createShoppingCart}")
+  private String createShoppingCartTopic;
+
+  /**
+   * Kafka delete shopping cart topic.
+   */
+  @Value("${kafka.topics.deleteShoppingCart}")
+  private String deleteShoppingCartTopic;
+
+  /**
+   * Kafka complete shopping cart topic.
+   */
+  @Value("${kafka.topics.completeShoppingCart}")
+  private String completeShoppingCartTopic;
+
+  /**
+   * Kafka set item to shopping cart topic.
+   */
+  @Value("${kafka.topics.updateItems}")
+  private String updateItemsTopic;
+
+  /**
+   * Kafka create order topic.
+   */
+  @Value("${kafka.topics.createOrder}")
+  private String createOrderTopic;
+
+  /**
+   * Kafka update order topic.
+   */
+  @Value("${kafka.topics.updateOrder}")
+  private String updateOrderTopic;
+
+  /**
+   * Kafka change order state topic.
+   */
+  @Value("${kafka.topics.changeState}")
+  private String changeOrderStateTopic;
+
+  /**
+   * Max number of attempts to process an event, including the first one.
+   */
+  @Value("${kafka.retry.attempts}")
+  private int attempts;
+
+  /**
+   * Milliseconds before first retry.
+   */
+  @Value("${kafka.retry.initialIntervalMs}")
+  private long initialIntervalMs;
+
+  /**
+   * Multiplier of the delay between consecutive retries.
+   */
+  @Value("${kafka.retry.multiplier}")
+  private double multiplier;
+
+  /**
+   * Max milliseconds between retries.
+   */
+  @Value("${kafka.retry.maxIntervalMs}")
+  private long maxIntervalMs;
+
+  /**
+   * Number of partitions of retry and dead letter topics.
+   */
+  @Value("${kafka.retry.partitions}")
+  private int partitions;
+
+  /**
+   * Batches error handler bean, for items updates and order updates batches. If the failed event
+   * of the batch is known, previous events are committed and only the failed one and next ones are
+   * retried.
+   *
+   * @param kafkaTemplate kafka template used to forward failed events.
+   * @return DefaultErrorHandler instance.
+   */
+  @Bean
+  public DefaultErrorHandler batchErrorHandler(KafkaTemplate<String, byte[]> kafkaTemplate) {
+    ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(
+        this.attempts - 1);
+    backOff.setInitialInterval(this.initialIntervalMs);
+    backOff.setMultiplier(this.multiplier);
+    backOff.setMaxInterval(this.maxIntervalMs);
+    DefaultErrorHandler batchErrorHandler = new DefaultErrorHandler(
+        new DeadLetterPublishingRecoverer(kafkaTemplate,
+            (record, exception) -> new TopicPartition(record.topic() + DLT_SUFFIX,
+                KEY_PARTITION)),
+        backOff);
+    batchErrorHandler.addNotRetryableExceptions(IOException.class);
+    return batchErrorHandler;
+  }
+
+  /**
+   * Retry topics error handler bean, for worker pool batches and retry topics records. The failed
+   * event is forwarded at once to the next retry topic, with the time from which it can be
+   * processed again, or to the dead letter topic, and next events are processed. A retry topic
+   * event which is not due yet is not forwarded, but sought back, so it is consumed again when its
+   * paused partition is resumed.
+   *
+   * @param kafkaTemplate kafka template used to forward failed events.
+   * @return DefaultErrorHandler instance.
+   */
+  @Bean
+  public DefaultErrorHandler retryTopicsErrorHandler(KafkaTemplate<String, byte[]> kafkaTemplate) {
+    DeadLetterPublishingRecoverer recoverer =
+        new DeadLetterPublishingRecoverer(kafkaTemplate, this::nextTopic);
+    recoverer.setHeadersFunction((record, exception) -> new RecordHeaders(new Header[]{
+        new RecordHeader(EventHeaders.RETRY_AT, EventHeaders.encodeRetryAt(
+            System.currentTimeMillis() + this.delayOf(retryOf(record.topic()))))}));
+    ConsumerAwareRecordRecoverer backOffAwareRecoverer = (record, consumer, exception) -> {
+      if (SeekUtils.isBackoffException(exception)) {
+        throw (NestedRuntimeException) exception;
+      }
+      recoverer.accept(record, consumer, exception);
+    };
+    return new DefaultErrorHandler(backOffAwareRecoverer, new FixedBackOff(0L, 0L));
+  }
+
+  /**
+   * Retry topics back off manager bean, which pauses a retry topic partition until its next event
+   * is due, and resumes it when the partition is reported idle after that time.
+   *
+   * @param listenerContainerRegistry registry of listener containers, to pause their partitions.
+   * @return PartitionPausingBackoffManager instance.
+   */
+  @Bean
+  public PartitionPausingBackoffManager retryTopicsBackoffManager(
+      @Qualifier(KafkaListenerConfigUtils.KAFKA_LISTENER_ENDPOINT_REGISTRY_BEAN_NAME)
+          ListenerContainerRegistry listenerContainerRegistry) {
+    return new PartitionPausingBackoffManager(listenerContainerRegistry);
+  }
+
+  /**
+   * Retry topics beans, for each topic processed by the worker pool, one for each retry.
+   *
+   * @return NewTopics instance with retry topics.
+   */
+  @Bean
+  public KafkaAdmin.NewTopics retryTopics() {
+    return new KafkaAdmin.NewTopics(Stream.of(this.createShoppingCartTopic,
+            this.deleteShoppingCartTopic, this.completeShoppingCartTopic, this.createOrderTopic,
+            this.changeOrderStateTopic)
+        .flatMap(topic -> IntStream.range(0, this.attempts - 1)
+            .mapToObj(retry -> new NewTopic(topic + RETRY_TOPIC_SUFFIX + retry, this.partitions,
+                (short) 1)))
+        .toArray(NewTopic[]::new));
+  }
+
+  /**
+   * Dead letter topics beans, one for each consumed topic.
+   *
+   * @return NewTopics instance with dead letter topics.
+   */
+  @Bean
+  public KafkaAdmin.NewTopics deadLetterTopics() {
+    return new KafkaAdmin.NewTopics(Stream.of(this.createShoppingCartTopic,
+            this.deleteShoppingCartTopic, this.completeShoppingCartTopic, this.updateItemsTopic,
+            this.createOrderTopic, this.updateOrderTopic, this.changeOrderStateTopic)
+        .map(topic -> new NewTopic(topic + DLT_SUFFIX, this.partitions, (short) 1))
+        .toArray(NewTopic[]::new));
+  }
+
+  /**
+   * Get the topic a failed event is forwarded to: the next retry topic of its main topic, or its
+   * dead letter topic if attempts are exhausted or the event can't be decoded.
+   *
+   * @param record    failed record.
+   * @param exception processing exception.
+   * @return topic to forward the event to, partitioned by the event key.
+   */
+  private TopicPartition nextTopic(ConsumerRecord<?, ?> record, Exception exception) {
+    int retry = retryOf(record.topic());
+    String mainTopic = record.topic().contains(RETRY_TOPIC_SUFFIX)
+        ? record.topic().substring(0, record.topic().lastIndexOf(RETRY_TOPIC_SUFFIX))
+        : record.topic();
+    if (retry >= this.attempts - 1 || isNotDecodable(exception)) {
+      return new TopicPartition(mainTopic + DLT_SUFFIX, KEY_PARTITION);
+    }
+    return new TopicPartition(mainTopic + RETRY_TOPIC_SUFFIX + retry, KEY_PARTITION);
+  }
+
+  /**
+   * Get the delay before a retry, growing exponentially up to the max delay.
+   *
+   * @param retry retry index.
+   * @return milliseconds.
+   */
+  private long delayOf(int retry) {
+    return (long) Math.min(this.initialIntervalMs * Math.pow(this.multiplier, retry),
+        this.maxIntervalMs);
+  }
+
+  /**
+   * Get the index of the next retry of an event failed in a topic, 0 for main topics.
+   *
+   * @param topic topic where the event failed.
+   * @return retry index.
+   */
+  private static int retryOf(String topic) {
+    int suffixIndex = topic.lastIndexOf(RETRY_TOPIC_SUFFIX);
+    return suffixIndex < 0 ? 0
+        : Integer.parseInt(topic.substring(suffixIndex + RETRY_TOPIC_SUFFIX.length())) + 1;
+  }
+
+  /**
+   * Check if an event failed because it can't be decoded.
+   *
+   * @param exception processing exception.
+   * @return true if it or any of its causes is an IOException, else false.
+   */
+  private static boolean isNotDecodable(Throwable exception) {
+    for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+      if (cause instanceof IOException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
@@ -4,17 +4,25 @@ import java.util.HashMap;
 import java.util.Map;
 import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.KafkaAdmin;
 
 /**
- * Kafka configuration class.
+ * Kafka configuration class. Topics replayed to rebuild tables are created without retention, as
+ * tables can only be rebuilt from all their events.
  */
 @Configuration
 public class KafkaTopicConfig {
 
+  /**
+   * Configuration of topics replayed to rebuild tables, which keep events forever.
+   */
+  private static final Map<String, String> REPLAYED_TOPIC_CONFIGS =
+      Map.of(TopicConfig.RETENTION_MS_CONFIG, "-1");
+
   /**
    * Kafka bootstrap server address.
    */
@@ -81,6 +89,65 @@ public class KafkaTopicConfig {
   @Value("${kafka.topics.changeState}")
   private String changeOrderStateTopic;
 
+  /**
+   * Number of partitions of create shopping cart topic.
+   */
+  @Value("${kafka.partitions.createShoppingCart}")
+  private int createShoppingCartPartitions;
+
+  /**
+   * Number of partitions of delete shopping cart topic.
+   */
+  @Value("${kafka.partitions.deleteShoppingCart}")
+  private int deleteShoppingCartPartitions;
+
+  /**
+   * Number of partitions of complete shopping cart topic.
+   */
+  @Value("${kafka.partitions.completeShoppingCart}")
+  private int completeShoppingCartPartitions;
+
+  /**
+   * Number of partitions of create order topic.
+   */
+  @Value("${kafka.partitions.createOrder}")
+  private int createOrderPartitions;
+
+  /**
+   * Number of partitions of validate items topic.
+   */
+  @Value("${kafka.partitions.validateItems}")
+  private int validateItemsPartitions;
+
+  /**
+   * Number of partitions of set item to shopping cart topic.
+   */
+  @Value("${kafka.partitions.updateItems}")
+  private int updateItemsPartitions;
+
+  /**
+   * Number of partitions of update order topic.
+   */
+  @Value("${kafka.partitions.updateOrder}")
+  private int updateOrderPartitions;
+
+  /**
+   * Number of partitions of restore items stock topic.
+   */
+  @Value("${kafka.partitions.restoreStock}")
+  private int restoreStockPartitions;
+
+  /**
+   * Number of partitions of validate user balance topic.
+   */
+  @Value("${kafka.partitions.validateBalance}")
+  private int validateBalancePartitions;
+
+  /**
+   * Number of partitions of change order state topic.
+   */
+  @Value("${kafka.partitions.changeState}")
+  private int changeOrderStatePartitions;
 
   /**
    * KafkaAdmin Spring bean, which will automatically add topics for all beans of type NewTopic.
@@ -101,7 +168,8 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic createShoppingCartsTopic() {
-    return new NewTopic(this.createShoppingCartTopic, 1, (short) 1);
+    return new NewTopic(this.createShoppingCartTopic, this.createShoppingCartPartitions, (short) 1)
+        .configs(REPLAYED_TOPIC_CONFIGS);
   }
 
   /**
@@ -111,7 +179,8 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic deleteShoppingCartsTopic() {
-    return new NewTopic(this.deleteShoppingCartTopic, 1, (short) 1);
+    return new NewTopic(this.deleteShoppingCartTopic, this.deleteShoppingCartPartitions, (short) 1)
+        .configs(REPLAYED_TOPIC_CONFIGS);
   }
 
   /**
@@ -121,7 +190,8 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic completeShoppingCartsTopic() {
-    return new NewTopic(this.completeShoppingCartTopic, 1, (short) 1);
+    return new NewTopic(this.completeShoppingCartTopic, this.completeShoppingCartPartitions,
+        (short) 1).configs(REPLAYED_TOPIC_CONFIGS);
   }
 
   /**
@@ -131,7 +201,8 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic createOrdersTopic() {
-    return new NewTopic(this.createOrderTopic, 1, (short) 1);
+    return new NewTopic(this.createOrderTopic, this.createOrderPartitions, (short) 1)
+        .configs(REPLAYED_TOPIC_CONFIGS);
   }
 
   /**
@@ -141,7 +212,7 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic validateOrderItemsTopic() {
-    return new NewTopic(this.validateItemsTopic, 1, (short) 1);
+    return new NewTopic(this.validateItemsTopic, this.validateItemsPartitions, (short) 1);
   }
 
   /**
@@ -151,7 +222,8 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic setItemToShoppingCartTopic() {
-    return new NewTopic(this.updateItemsTopic, 1, (short) 1);
+    return new NewTopic(this.updateItemsTopic, this.updateItemsPartitions, (short) 1)
+        .configs(REPLAYED_TOPIC_CONFIGS);
   }
 
   /**
@@ -161,7 +233,8 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic updateOrderTopic() {
-    return new NewTopic(this.updateOrderTopic, 1, (short) 1);
+    return new NewTopic(this.updateOrderTopic, this.updateOrderPartitions, (short) 1)
+        .configs(REPLAYED_TOPIC_CONFIGS);
   }
 
   /**
@@ -171,7 +244,7 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic restoreStockTopic() {
-    return new NewTopic(this.restoreStockTopic, 1, (short) 1);
+    return new NewTopic(this.restoreStockTopic, this.restoreStockPartitions, (short) 1);
   }
 
   /**
@@ -181,7 +254,7 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic validateBalanceTopic() {
-    return new NewTopic(this.validateBalanceTopic, 1, (short) 1);
+    return new NewTopic(this.validateBalanceTopic, this.validateBalancePartitions, (short) 1);
   }
 
   /**
@@ -191,7 +264,7 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic changeOrderStateTopic() {
-    return new NewTopic(this.changeOrderStateTopic, 1, (short) 1);
+    return new NewTopic(this.changeOrderStateTopic, this.changeOrderStatePartitions, (short) 1);
   }
 
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.entities;
+
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.converters.MoneyConverter;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Shopping cart item database entity, a row per product of a shopping cart when items are stored
+ * as rows. It's always new when saved, so it's inserted without a previous select. Existing items
+ * are updated and deleted by their key, without loading them.
+ */
+@Entity(name = "cart_items")
+@IdClass(CartItemKey.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartItemEntity implements Persistable<CartItemKey> {
+
+  /**
+   * Shopping cart identifier.
+   */
+  @Id
+  @NotNull
+  private Long cartId;
+
+  /**
+   * Product identifier.
+   */
+  @Id
+  @NotNull
+  private Integer productId;
+
+  /**
+   * Unit price.
+   */
+  @NotNull
+  @Convert(converter = MoneyConverter.class)
+  @Column(precision = 19, scale = 2)
+  private Money unitPrice;
+
+  /**
+   * Quantity.
+   */
+  @NotNull
+  private Integer quantity;
+
+  /**
+   * Total price.
+   */
+  @NotNull
+  @Convert(converter = MoneyConverter.class)
+  @Column(precision = 19, scale = 2)
+  private Money totalPrice;
+
+  /**
+   * Get item identifier.
+   *
+   * @return shopping cart and product identifiers.
+   */
+  @Override
+  public CartItemKey getId() {
+    return new CartItemKey(this.cartId, this.productId);
+  }
+
+  /**
+   * Indicates that entity is new, so it's inserted.
+   *
+   * @return true.
+   */
+  @Override
+  public boolean isNew() {
+    return true;
+  }
+
+}
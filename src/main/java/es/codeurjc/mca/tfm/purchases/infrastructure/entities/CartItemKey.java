@@ -0,0 +1,26 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.entities;
+
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Shopping cart item database entity identifier.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartItemKey implements Serializable {
+
+  /**
+   * Shopping cart identifier.
+   */
+  private Long cartId;
+
+  /**
+   * Product identifier.
+   */
+  private Integer productId;
+
+}
@@ -0,0 +1,40 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.entities;
+
+import java.time.Instant;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Node lease database entity, the running instance using a node identifier until it expires.
+ */
+@Entity(name = "node_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NodeLeaseEntity {
+
+  /**
+   * Node identifier.
+   */
+  @Id
+  @NotNull
+  private Integer nodeId;
+
+  /**
+   * Name of the instance holding the lease.
+   */
+  @NotBlank
+  private String instance;
+
+  /**
+   * Instant when the lease expires if not renewed.
+   */
+  @NotNull
+  private Instant expiresAt;
+
+}
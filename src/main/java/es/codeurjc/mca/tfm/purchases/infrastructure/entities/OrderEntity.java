@@ -47,4 +47,10 @@ public class OrderEntity {
   @Column(columnDefinition = "json")
   private String errors;
 
+  /**
+   * Version, the number of state changes applied to the order. Null for orders created before
+   * versions existed, which count as version zero.
+   */
+  private Integer version;
+
 }
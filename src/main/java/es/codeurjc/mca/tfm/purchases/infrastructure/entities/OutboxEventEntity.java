@@ -0,0 +1,57 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.entities;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outbox event database entity, an encoded event pending to be sent to Kafka.
+ */
+@Entity(name = "outbox_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEventEntity {
+
+  /**
+   * Outbox event identifier, increasing in insert order, which may differ from commit order of
+   * concurrent transactions.
+   */
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  /**
+   * Topic to send the event to.
+   */
+  @NotBlank
+  private String topic;
+
+  /**
+   * Event key.
+   */
+  @NotBlank
+  private String eventKey;
+
+  /**
+   * Event identifier, sent as event header.
+   */
+  private Long eventId;
+
+  /**
+   * Encoded event.
+   */
+  @Lob
+  @NotNull
+  @Column(columnDefinition = "mediumblob")
+  private byte[] payload;
+
+}
@@ -0,0 +1,61 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.entities;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
+
+/**
+ * Pending order state change database entity, a state change received before the order reached
+ * the version it was requested for, which is applied when the order reaches it.
+ */
+@Entity(name = "pending_order_state_changes")
+@Table(indexes = @Index(name = "idx_pending_order_state_changes_order_id",
+    columnList = "orderId, version"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingOrderStateChangeEntity {
+
+  /**
+   * Pending state change identifier, increasing in arrival order.
+   */
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  /**
+   * Order identifier.
+   */
+  @NotNull
+  private Long orderId;
+
+  /**
+   * Order version the state change was requested for.
+   */
+  @NotNull
+  private Integer version;
+
+  /**
+   * State to change to.
+   */
+  @NotBlank
+  private String state;
+
+  /**
+   * Errors to add to the order if they exist.
+   */
+  @Type(type = "json")
+  @Column(columnDefinition = "json")
+  private String errors;
+
+}
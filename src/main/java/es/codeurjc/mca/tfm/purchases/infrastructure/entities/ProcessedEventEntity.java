@@ -0,0 +1,49 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.entities;
+
+import java.time.Instant;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Processed event database entity, the identifier of a consumed event whose processing was
+ * committed. It's always new when saved, so it's inserted without a previous select, and saving
+ * an already processed event fails on commit.
+ */
+@Entity(name = "processed_events")
+@Table(indexes = @Index(name = "idx_processed_events_processed_at", columnList = "processedAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessedEventEntity implements Persistable<Long> {
+
+  /**
+   * Event identifier.
+   */
+  @Id
+  @NotNull
+  private Long id;
+
+  /**
+   * Processing instant.
+   */
+  @NotNull
+  private Instant processedAt;
+
+  /**
+   * Indicates that entity is new, so it's inserted.
+   *
+   * @return true.
+   */
+  @Override
+  public boolean isNew() {
+    return true;
+  }
+
+}
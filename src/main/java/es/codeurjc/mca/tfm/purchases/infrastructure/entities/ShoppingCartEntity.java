@@ -1,9 +1,15 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.entities;
 
 import com.vladmihalcea.hibernate.type.json.JsonStringType;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.converters.MoneyConverter;
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Version;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -16,6 +22,8 @@ import org.hibernate.annotations.TypeDef;
  * Shopping cart database entity.
  */
 @Entity(name = "shopping_carts")
+@Table(indexes = @Index(name = "idx_shopping_carts_completed_user_id",
+    columnList = "completed, userId"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -53,6 +61,16 @@ public class ShoppingCartEntity {
    * Total price.
    */
   @NotNull
-  private Double totalPrice;
+  @Convert(converter = MoneyConverter.class)
+  @Column(precision = 19, scale = 2)
+  private Money totalPrice;
+
+  /**
+   * Version, increased on each update and checked on update and delete, so a write based on an
+   * outdated state fails. Null for a shopping cart not saved yet.
+   */
+  @Version
+  @Column(columnDefinition = "bigint default 0")
+  private Long version;
 
 }
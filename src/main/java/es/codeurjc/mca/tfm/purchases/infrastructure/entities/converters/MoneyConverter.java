@@ -0,0 +1,36 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.entities.converters;
+
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import java.math.BigDecimal;
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * JPA converter to store money values as decimal columns.
+ */
+@Converter
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+  /**
+   * Converts money value to decimal column value.
+   *
+   * @param money money value.
+   * @return decimal value.
+   */
+  @Override
+  public BigDecimal convertToDatabaseColumn(Money money) {
+    return money != null ? money.toBigDecimal() : null;
+  }
+
+  /**
+   * Converts decimal column value to money value.
+   *
+   * @param amount decimal value.
+   * @return money value.
+   */
+  @Override
+  public Money convertToEntityAttribute(BigDecimal amount) {
+    return amount != null ? Money.of(amount) : null;
+  }
+
+}
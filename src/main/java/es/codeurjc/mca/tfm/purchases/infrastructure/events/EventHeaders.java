@@ -0,0 +1,106 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.events;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.generators.SnowflakeIdGenerator;
+import java.nio.charset.StandardCharsets;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+
+/**
+ * Kafka headers of events.
+ */
+public final class EventHeaders {
+
+  /**
+   * Event identifier header name. Its value is the decimal identifier of the event, unique between
+   * all events sent by any instance, and kept when the event is sent again or forwarded to retry
+   * and dead letter topics.
+   */
+  public static final String EVENT_ID = "eventId";
+
+  /**
+   * Retry time header name. Its value is the decimal epoch milliseconds from which an event
+   * forwarded to a retry topic can be processed again.
+   */
+  public static final String RETRY_AT = "retryAt";
+
+  /**
+   * Constructor.
+   */
+  private EventHeaders() {
+  }
+
+  /**
+   * Encode an event identifier as header value.
+   *
+   * @param eventId event identifier.
+   * @return header value.
+   */
+  public static byte[] encodeEventId(Long eventId) {
+    return String.valueOf(eventId).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Decode an event identifier header value.
+   *
+   * @param eventId header value, may be null.
+   * @return event identifier, null if event has none.
+   */
+  public static Long decodeEventId(byte[] eventId) {
+    return eventId == null ? null : Long.valueOf(new String(eventId, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Get the event identifier of a record.
+   *
+   * @param record consumed record.
+   * @return event identifier, null if event has none.
+   */
+  public static Long getEventId(ConsumerRecord<?, ?> record) {
+    return decodeEventId(getEventIdHeader(record));
+  }
+
+  /**
+   * Get the creation time of the event of a record, taken from its identifier, as identifiers are
+   * generated when events are created, or else from the record timestamp.
+   *
+   * @param record consumed record.
+   * @return epoch milliseconds when event was created.
+   */
+  public static long getEventTimestamp(ConsumerRecord<?, ?> record) {
+    Long eventId = getEventId(record);
+    return eventId == null ? record.timestamp() : SnowflakeIdGenerator.timestampOf(eventId);
+  }
+
+  /**
+   * Get the event identifier header value of a record.
+   *
+   * @param record consumed record.
+   * @return header value, null if event has none.
+   */
+  public static byte[] getEventIdHeader(ConsumerRecord<?, ?> record) {
+    Header header = record.headers().lastHeader(EVENT_ID);
+    return header == null ? null : header.value();
+  }
+
+  /**
+   * Encode a retry time as header value.
+   *
+   * @param retryAt epoch milliseconds from which event can be processed again.
+   * @return header value.
+   */
+  public static byte[] encodeRetryAt(long retryAt) {
+    return String.valueOf(retryAt).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Get the retry time of a record forwarded to a retry topic.
+   *
+   * @param record consumed record.
+   * @return epoch milliseconds from which event can be processed again, 0 if it has none.
+   */
+  public static long getRetryAt(ConsumerRecord<?, ?> record) {
+    Header header = record.headers().lastHeader(RETRY_AT);
+    return header == null ? 0 : Long.parseLong(new String(header.value(), StandardCharsets.UTF_8));
+  }
+
+}
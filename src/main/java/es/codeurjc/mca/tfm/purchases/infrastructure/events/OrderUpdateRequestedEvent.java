@@ -1,5 +1,7 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.events;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import java.util.List;
 import java.util.Optional;
 import lombok.Data;
@@ -25,4 +27,12 @@ public class OrderUpdateRequestedEvent {
    */
   private Optional<List<String>> errors;
 
+  /**
+   * Order version. In update requests, the version the order has after the update. In state change
+   * requests, the version of the order the answered validation was requested for, so the change is
+   * only applied over it. Null to apply the change over the current order, and then omitted.
+   */
+  @JsonInclude(Include.NON_NULL)
+  private Integer version;
+
 }
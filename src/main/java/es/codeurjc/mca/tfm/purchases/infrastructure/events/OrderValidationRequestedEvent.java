@@ -28,4 +28,9 @@ public class OrderValidationRequestedEvent {
    */
   private String failureState;
 
+  /**
+   * Order version the validation is requested for, to be returned in the state change request.
+   */
+  private Integer version;
+
 }
@@ -1,5 +1,6 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.events;
 
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
 import lombok.Data;
 
 /**
@@ -16,6 +17,6 @@ public class ShoppingCartCompletionRequestedEvent {
   /**
    * Total price.
    */
-  private Double totalPrice;
+  private Money totalPrice;
 
 }
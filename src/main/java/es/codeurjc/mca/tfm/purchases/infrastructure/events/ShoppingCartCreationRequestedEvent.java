@@ -1,5 +1,6 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.events;
 
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
 import java.util.List;
 import lombok.Data;
 
@@ -32,6 +33,6 @@ public class ShoppingCartCreationRequestedEvent {
   /**
    * Total price.
    */
-  private Double totalPrice;
+  private Money totalPrice;
 
 }
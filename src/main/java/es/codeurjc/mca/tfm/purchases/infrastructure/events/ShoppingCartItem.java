@@ -1,5 +1,6 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.events;
 
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
 import lombok.Data;
 
 /**
@@ -16,7 +17,7 @@ public class ShoppingCartItem {
   /**
    * Unit price.
    */
-  private Double unitPrice;
+  private Money unitPrice;
 
   /**
    * Quantity.
@@ -26,6 +27,6 @@ public class ShoppingCartItem {
   /**
    * Total price.
    */
-  private Double totalPrice;
+  private Money totalPrice;
 
 }
@@ -1,12 +1,19 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.events;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
 import java.util.List;
 import lombok.Data;
 
 /**
- * Shopping cart items update requested event.
+ * Shopping cart items update requested event. A snapshot event has all items of the shopping cart
+ * and replaces them, while a delta event only has the set items and the identifiers of the deleted
+ * products, and is applied over current items. Absent fields are not encoded, so snapshot events
+ * keep their original shape.
  */
 @Data
+@JsonInclude(Include.NON_NULL)
 public class ShoppingCartItemsUpdateRequestedEvent {
 
   /**
@@ -15,13 +22,23 @@ public class ShoppingCartItemsUpdateRequestedEvent {
   private Long id;
 
   /**
-   * List of items of the shopping cart.
+   * List of items of the shopping cart, null in delta events.
    */
   private List<ShoppingCartItem> items;
 
   /**
-   * Total price.
+   * Items set in the shopping cart, only in delta events.
    */
-  private Double totalPrice;
+  private List<ShoppingCartItem> changedItems;
+
+  /**
+   * Identifiers of products deleted from the shopping cart, only in delta events.
+   */
+  private List<Integer> deletedProductIds;
+
+  /**
+   * Total price, only in snapshot events. Consumers compute it from the updated items.
+   */
+  private Money totalPrice;
 
 }
@@ -0,0 +1,47 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.generators;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Node identifier of this instance. It's read from configuration, and may only be omitted when a
+ * single instance runs, in which case it's 0, so replicas never share the default one.
+ */
+@Component
+public class NodeId {
+
+  /**
+   * Node identifier.
+   */
+  private final int value;
+
+  /**
+   * Constructor.
+   *
+   * @param nodeId    configured node identifier, blank if not set.
+   * @param instances number of instances expected to run.
+   * @throws IllegalStateException if node identifier is not set and several instances are
+   *                               expected.
+   */
+  public NodeId(@Value("${ids.nodeId}") String nodeId, @Value("${ids.instances}") int instances) {
+    if (nodeId == null || nodeId.isBlank()) {
+      if (instances > 1) {
+        throw new IllegalStateException("Node identifier must be set with NODE_ID when running "
+            + instances + " instances, so each one has a distinct one");
+      }
+      this.value = 0;
+    } else {
+      this.value = Integer.parseInt(nodeId.trim());
+    }
+  }
+
+  /**
+   * Get node identifier.
+   *
+   * @return node identifier.
+   */
+  public int getValue() {
+    return this.value;
+  }
+
+}
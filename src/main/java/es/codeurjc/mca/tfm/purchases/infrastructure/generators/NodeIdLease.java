@@ -0,0 +1,169 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.generators;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.NodeLeaseEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaNodeLeaseRepository;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Lease of the node identifier of this instance, so two running instances never generate
+ * identifiers with the same one. It's acquired on start, failing it if another instance holds a
+ * not expired lease of the same node identifier, renewed periodically and released on shutdown.
+ * Instances are told apart by host name, so a restarted instance takes over its own lease without
+ * waiting for it to expire.
+ */
+@Component
+@ConditionalOnProperty(name = "rebuild.enabled", havingValue = "false", matchIfMissing = true)
+@Slf4j
+public class NodeIdLease {
+
+  /**
+   * Node lease repository.
+   */
+  private final JpaNodeLeaseRepository jpaNodeLeaseRepository;
+
+  /**
+   * Template to acquire, renew and release the lease in its own transaction.
+   */
+  private final TransactionTemplate transactionTemplate;
+
+  /**
+   * Node identifier of this instance.
+   */
+  private final Integer nodeId;
+
+  /**
+   * Name of this instance.
+   */
+  private final String instance;
+
+  /**
+   * Time the lease is kept since last renewed.
+   */
+  private final Duration ttl;
+
+  /**
+   * Clock to get current time.
+   */
+  private final Clock clock;
+
+  /**
+   * Constructor.
+   *
+   * @param jpaNodeLeaseRepository node lease repository.
+   * @param transactionManager     transaction manager.
+   * @param nodeId                 node identifier of this instance.
+   * @param ttlMs                  milliseconds the lease is kept since last renewed.
+   */
+  @Autowired
+  public NodeIdLease(JpaNodeLeaseRepository jpaNodeLeaseRepository,
+      PlatformTransactionManager transactionManager, NodeId nodeId,
+      @Value("${ids.nodeLease.ttlMs}") long ttlMs) {
+    this(jpaNodeLeaseRepository, transactionManager, nodeId.getValue(), hostName(),
+        Duration.ofMillis(ttlMs), Clock.systemUTC());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param jpaNodeLeaseRepository node lease repository.
+   * @param transactionManager     transaction manager.
+   * @param nodeId                 node identifier of this instance.
+   * @param instance               name of this instance.
+   * @param ttl                    time the lease is kept since last renewed.
+   * @param clock                  clock to get current time.
+   */
+  public NodeIdLease(JpaNodeLeaseRepository jpaNodeLeaseRepository,
+      PlatformTransactionManager transactionManager, Integer nodeId, String instance,
+      Duration ttl, Clock clock) {
+    this.jpaNodeLeaseRepository = jpaNodeLeaseRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.nodeId = nodeId;
+    this.instance = instance;
+    this.ttl = ttl;
+    this.clock = clock;
+  }
+
+  /**
+   * Acquire the lease on start.
+   *
+   * @throws IllegalStateException if another instance holds a not expired lease.
+   */
+  @PostConstruct
+  public void acquire() {
+    this.transactionTemplate.executeWithoutResult(status -> this.claim());
+    log.info("Acquired lease of node identifier {} for instance {}", this.nodeId, this.instance);
+  }
+
+  /**
+   * Renew the lease. If another instance took it after it expired, an error is logged, since both
+   * instances are generating identifiers with the same node identifier.
+   */
+  @Scheduled(fixedDelayString = "${ids.nodeLease.renewMs}",
+      initialDelayString = "${ids.nodeLease.renewMs}")
+  public void renew() {
+    try {
+      this.transactionTemplate.executeWithoutResult(status -> this.claim());
+    } catch (IllegalStateException e) {
+      log.error("Can't renew lease of node identifier: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Release the lease on shutdown, if still held by this instance.
+   */
+  @PreDestroy
+  public void release() {
+    this.transactionTemplate.executeWithoutResult(status ->
+        this.jpaNodeLeaseRepository.deleteByNodeIdAndInstance(this.nodeId, this.instance));
+    log.info("Released lease of node identifier {}", this.nodeId);
+  }
+
+  /**
+   * Write the lease of this instance, in current transaction, unless another instance holds a not
+   * expired one.
+   *
+   * @throws IllegalStateException if another instance holds a not expired lease.
+   */
+  private void claim() {
+    final Instant now = this.clock.instant();
+    Optional<NodeLeaseEntity> lease =
+        this.jpaNodeLeaseRepository.findByNodeIdForUpdate(this.nodeId);
+    if (lease.isPresent() && !this.instance.equals(lease.get().getInstance())
+        && lease.get().getExpiresAt().isAfter(now)) {
+      throw new IllegalStateException("Node identifier " + this.nodeId
+          + " is already used by running instance " + lease.get().getInstance()
+          + ", each running instance must have a distinct NODE_ID");
+    }
+    this.jpaNodeLeaseRepository.save(
+        new NodeLeaseEntity(this.nodeId, this.instance, now.plus(this.ttl)));
+  }
+
+  /**
+   * Get host name of this instance.
+   *
+   * @return host name.
+   */
+  private static String hostName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      throw new IllegalStateException("Can't get host name of this instance", e);
+    }
+  }
+
+}
@@ -0,0 +1,131 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.generators;
+
+import es.codeurjc.mca.tfm.purchases.domain.ports.out.IdGenerator;
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Snowflake-style identifier generator. Identifiers are composed by milliseconds since a custom
+ * epoch (41 bits), node identifier (10 bits) and a sequence inside the millisecond (12 bits), so
+ * they are unique between nodes and sorted by creation time.
+ */
+@Component
+public class SnowflakeIdGenerator implements IdGenerator {
+
+  /**
+   * Custom epoch, 2022-01-01T00:00:00Z in milliseconds.
+   */
+  public static final long EPOCH = 1640995200000L;
+
+  /**
+   * Number of bits of node identifier.
+   */
+  public static final int NODE_ID_BITS = 10;
+
+  /**
+   * Number of bits of sequence.
+   */
+  public static final int SEQUENCE_BITS = 12;
+
+  /**
+   * Max node identifier.
+   */
+  public static final long MAX_NODE_ID = (1L << NODE_ID_BITS) - 1;
+
+  /**
+   * Max sequence inside a millisecond.
+   */
+  private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+  /**
+   * Node identifier already shifted to its position.
+   */
+  private final long shiftedNodeId;
+
+  /**
+   * Clock to get current time.
+   */
+  private final Clock clock;
+
+  /**
+   * Last generated timestamp and sequence, packed as timestamp << SEQUENCE_BITS | sequence.
+   */
+  private final AtomicLong lastState = new AtomicLong();
+
+  /**
+   * Constructor.
+   *
+   * @param nodeId node identifier of this instance, between 0 and MAX_NODE_ID.
+   */
+  @Autowired
+  public SnowflakeIdGenerator(NodeId nodeId) {
+    this(nodeId.getValue(), Clock.systemUTC());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param nodeId node identifier, between 0 and MAX_NODE_ID.
+   */
+  public SnowflakeIdGenerator(long nodeId) {
+    this(nodeId, Clock.systemUTC());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param nodeId node identifier, between 0 and MAX_NODE_ID.
+   * @param clock  clock to get current time.
+   */
+  public SnowflakeIdGenerator(long nodeId, Clock clock) {
+    if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+      throw new IllegalArgumentException(
+          "Node identifier must be between 0 and " + MAX_NODE_ID + " but was " + nodeId);
+    }
+    this.shiftedNodeId = nodeId << SEQUENCE_BITS;
+    this.clock = clock;
+  }
+
+  /**
+   * Generates a new identifier without locking: the next timestamp and sequence are reserved
+   * with a compare and set. If the sequence of current millisecond is exhausted, or the clock
+   * goes backwards, the last timestamp is reused or advanced, so identifiers never repeat nor
+   * decrease.
+   *
+   * @return generated identifier.
+   */
+  @Override
+  public long nextId() {
+    final long now = this.clock.millis() - EPOCH;
+    long previous;
+    long next;
+    do {
+      previous = this.lastState.get();
+      final long previousTimestamp = previous >>> SEQUENCE_BITS;
+      if (now > previousTimestamp) {
+        next = now << SEQUENCE_BITS;
+      } else if ((previous & MAX_SEQUENCE) < MAX_SEQUENCE) {
+        next = previous + 1;
+      } else {
+        next = (previousTimestamp + 1) << SEQUENCE_BITS;
+      }
+    } while (!this.lastState.compareAndSet(previous, next));
+
+    final long timestamp = next >>> SEQUENCE_BITS;
+    return (timestamp << (NODE_ID_BITS + SEQUENCE_BITS)) | this.shiftedNodeId
+        | (next & MAX_SEQUENCE);
+  }
+
+  /**
+   * Get the creation time of an identifier.
+   *
+   * @param id identifier.
+   * @return epoch milliseconds when identifier was generated.
+   */
+  public static long timestampOf(long id) {
+    return (id >>> (NODE_ID_BITS + SEQUENCE_BITS)) + EPOCH;
+  }
+
+}
@@ -0,0 +1,82 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka.KafkaRetryConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import java.nio.charset.StandardCharsets;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Service;
+
+/**
+ * Dead letter events listener, which parks events that couldn't be processed after all retries,
+ * logging them and counting them by original topic.
+ */
+@Service
+@Slf4j
+public class DeadLetterEventsListener {
+
+  /**
+   * Dead letter events metric name.
+   */
+  public static final String DEAD_LETTERS_METRIC = "kafka.consumer.dead.letters";
+
+  /**
+   * Topic tag name.
+   */
+  private static final String TOPIC_TAG = "topic";
+
+  /**
+   * Meter registry.
+   */
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Constructor.
+   */
+  @Autowired
+  public DeadLetterEventsListener() {
+    this(Metrics.globalRegistry);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param meterRegistry meter registry.
+   */
+  public DeadLetterEventsListener(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Handler of dead letter topics events of all consumed topics.
+   *
+   * @param event            encoded event.
+   * @param topic            dead letter topic.
+   * @param key              event key.
+   * @param exceptionMessage message of the last processing exception, if any.
+   */
+  @KafkaListener(topics = {"${kafka.topics.createShoppingCart}" + KafkaRetryConfig.DLT_SUFFIX,
+      "${kafka.topics.deleteShoppingCart}" + KafkaRetryConfig.DLT_SUFFIX,
+      "${kafka.topics.completeShoppingCart}" + KafkaRetryConfig.DLT_SUFFIX,
+      "${kafka.topics.updateItems}" + KafkaRetryConfig.DLT_SUFFIX,
+      "${kafka.topics.createOrder}" + KafkaRetryConfig.DLT_SUFFIX,
+      "${kafka.topics.updateOrder}" + KafkaRetryConfig.DLT_SUFFIX,
+      "${kafka.topics.changeState}" + KafkaRetryConfig.DLT_SUFFIX}, groupId = "${kafka.groupId}")
+  public void onDeadLetter(byte[] event,
+      @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+      @Header(name = KafkaHeaders.RECEIVED_MESSAGE_KEY, required = false) String key,
+      @Header(name = KafkaHeaders.DLT_EXCEPTION_MESSAGE, required = false)
+          byte[] exceptionMessage) {
+    String originalTopic = topic.endsWith(KafkaRetryConfig.DLT_SUFFIX)
+        ? topic.substring(0, topic.length() - KafkaRetryConfig.DLT_SUFFIX.length())
+        : topic;
+    this.meterRegistry.counter(DEAD_LETTERS_METRIC, TOPIC_TAG, originalTopic).increment();
+    log.error("Parked event with key {} of topic {} in {}: {}", key, originalTopic, topic,
+        exceptionMessage != null ? new String(exceptionMessage, StandardCharsets.UTF_8) : null);
+  }
+
+}
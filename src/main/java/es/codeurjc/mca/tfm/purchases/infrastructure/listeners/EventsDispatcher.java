@@ -0,0 +1,338 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka.KafkaConsumerConfig;
+import es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka.KafkaRetryConfig;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import es.codeurjc.mca.tfm.purchases.infrastructure.workers.KeyOrderedWorkerPool;
+import es.codeurjc.mca.tfm.purchases.infrastructure.workers.KeyOrderedWorkerPool.RecordHandler;
+import java.util.List;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.KafkaConsumerBackoffManager;
+import org.springframework.stereotype.Service;
+
+/**
+ * Dispatcher of consumed events to their listeners, recording listeners metrics. Each poll is
+ * received as a batch. Events of topics processed one by one are processed by the worker pool, in
+ * order for each shopping cart or order and in parallel for different ones, each in its own
+ * transaction. The consumer waits for the batch, so offsets are only committed up to the first
+ * failed event, which is forwarded to retry topics, and next events are processed. Retry topics
+ * events are processed one by one once their retry time is reached, pausing their partition until
+ * then. Batches of items updates and order updates are processed at once, each in a transaction.
+ */
+@Service
+public class EventsDispatcher {
+
+  /**
+   * Created shopping cart retry topics listener identifier.
+   */
+  private static final String CREATED_SHOPPING_CART_RETRY_LISTENER = "createdShoppingCartRetry";
+
+  /**
+   * Delete shopping cart retry topics listener identifier.
+   */
+  private static final String DELETED_SHOPPING_CART_RETRY_LISTENER = "deletedShoppingCartRetry";
+
+  /**
+   * Completed shopping cart retry topics listener identifier.
+   */
+  private static final String COMPLETED_SHOPPING_CART_RETRY_LISTENER =
+      "completedShoppingCartRetry";
+
+  /**
+   * Created order retry topics listener identifier.
+   */
+  private static final String CREATED_ORDER_RETRY_LISTENER = "createdOrderRetry";
+
+  /**
+   * State order changed retry topics listener identifier.
+   */
+  private static final String ORDER_STATE_CHANGED_RETRY_LISTENER = "orderStateChangedRetry";
+
+  /**
+   * Shopping cart events listener.
+   */
+  private ShoppingCartEventsListener shoppingCartEventsListener;
+
+  /**
+   * Order events listener.
+   */
+  private OrderEventsListener orderEventsListener;
+
+  /**
+   * Worker pool.
+   */
+  private KeyOrderedWorkerPool keyOrderedWorkerPool;
+
+  /**
+   * Listeners metrics.
+   */
+  private ListenerMetrics listenerMetrics;
+
+  /**
+   * Retry topics back off manager.
+   */
+  private KafkaConsumerBackoffManager retryTopicsBackoffManager;
+
+  /**
+   * Created shopping cart events handler.
+   */
+  private RecordHandler createdShoppingCartHandler;
+
+  /**
+   * Delete shopping cart events handler.
+   */
+  private RecordHandler deletedShoppingCartHandler;
+
+  /**
+   * Completed shopping cart events handler.
+   */
+  private RecordHandler completedShoppingCartHandler;
+
+  /**
+   * Created order events handler.
+   */
+  private RecordHandler createdOrderHandler;
+
+  /**
+   * State order changed events handler.
+   */
+  private RecordHandler orderStateChangedHandler;
+
+  /**
+   * Constructor.
+   *
+   * @param shoppingCartEventsListener shopping cart events listener.
+   * @param orderEventsListener        order events listener.
+   * @param keyOrderedWorkerPool       worker pool.
+   * @param listenerMetrics            listeners metrics.
+   * @param retryTopicsBackoffManager  retry topics back off manager.
+   */
+  public EventsDispatcher(ShoppingCartEventsListener shoppingCartEventsListener,
+      OrderEventsListener orderEventsListener,
+      KeyOrderedWorkerPool keyOrderedWorkerPool,
+      ListenerMetrics listenerMetrics,
+      KafkaConsumerBackoffManager retryTopicsBackoffManager) {
+    this.shoppingCartEventsListener = shoppingCartEventsListener;
+    this.orderEventsListener = orderEventsListener;
+    this.keyOrderedWorkerPool = keyOrderedWorkerPool;
+    this.listenerMetrics = listenerMetrics;
+    this.retryTopicsBackoffManager = retryTopicsBackoffManager;
+    this.createdShoppingCartHandler = listenerMetrics.timed(
+        record -> shoppingCartEventsListener.onCreatedShoppingCart(record.value(),
+            EventHeaders.getEventIdHeader(record)));
+    this.deletedShoppingCartHandler = listenerMetrics.timed(
+        record -> shoppingCartEventsListener.onDeletedShoppingCart(record.value(),
+            EventHeaders.getEventIdHeader(record)));
+    this.completedShoppingCartHandler = listenerMetrics.timed(
+        record -> shoppingCartEventsListener.onCompletedShoppingCart(record.value(),
+            EventHeaders.getEventIdHeader(record)));
+    this.createdOrderHandler = listenerMetrics.timed(
+        record -> orderEventsListener.onCreatedOrder(record.value(),
+            EventHeaders.getEventIdHeader(record)));
+    this.orderStateChangedHandler = listenerMetrics.timed(
+        record -> orderEventsListener.onOrderStateChanged(record.value(),
+            EventHeaders.getEventIdHeader(record)));
+  }
+
+  /**
+   * Dispatch created shopping cart events.
+   *
+   * @param records batch of records with shopping carts to save info.
+   * @throws InterruptedException if interrupted while waiting for workers.
+   */
+  @KafkaListener(topics = "${kafka.topics.createShoppingCart}", groupId = "${kafka.groupId}",
+      concurrency = "${kafka.partitions.createShoppingCart}",
+      containerFactory = KafkaConsumerConfig.WORKERS_LISTENER_CONTAINER_FACTORY)
+  public void onCreatedShoppingCarts(List<ConsumerRecord<String, byte[]>> records)
+      throws InterruptedException {
+    this.keyOrderedWorkerPool.process(records, this.createdShoppingCartHandler);
+  }
+
+  /**
+   * Dispatch delete shopping cart events.
+   *
+   * @param records batch of records with shopping carts to delete ids.
+   * @throws InterruptedException if interrupted while waiting for workers.
+   */
+  @KafkaListener(topics = "${kafka.topics.deleteShoppingCart}", groupId = "${kafka.groupId}",
+      concurrency = "${kafka.partitions.deleteShoppingCart}",
+      containerFactory = KafkaConsumerConfig.WORKERS_LISTENER_CONTAINER_FACTORY)
+  public void onDeletedShoppingCarts(List<ConsumerRecord<String, byte[]>> records)
+      throws InterruptedException {
+    this.keyOrderedWorkerPool.process(records, this.deletedShoppingCartHandler);
+  }
+
+  /**
+   * Dispatch completed shopping cart events.
+   *
+   * @param records batch of records with completed shopping carts to save info.
+   * @throws InterruptedException if interrupted while waiting for workers.
+   */
+  @KafkaListener(topics = "${kafka.topics.completeShoppingCart}", groupId = "${kafka.groupId}",
+      concurrency = "${kafka.partitions.completeShoppingCart}",
+      containerFactory = KafkaConsumerConfig.WORKERS_LISTENER_CONTAINER_FACTORY)
+  public void onCompletedShoppingCarts(List<ConsumerRecord<String, byte[]>> records)
+      throws InterruptedException {
+    this.keyOrderedWorkerPool.process(records, this.completedShoppingCartHandler);
+  }
+
+  /**
+   * Dispatch created order events.
+   *
+   * @param records batch of records with orders info to save.
+   * @throws InterruptedException if interrupted while waiting for workers.
+   */
+  @KafkaListener(topics = "${kafka.topics.createOrder}", groupId = "${kafka.groupId}",
+      concurrency = "${kafka.partitions.createOrder}",
+      containerFactory = KafkaConsumerConfig.WORKERS_LISTENER_CONTAINER_FACTORY)
+  public void onCreatedOrders(List<ConsumerRecord<String, byte[]>> records)
+      throws InterruptedException {
+    this.keyOrderedWorkerPool.process(records, this.createdOrderHandler);
+  }
+
+  /**
+   * Dispatch state order changed events.
+   *
+   * @param records batch of records with orders info to update.
+   * @throws InterruptedException if interrupted while waiting for workers.
+   */
+  @KafkaListener(topics = "${kafka.topics.changeState}", groupId = "${kafka.groupId}",
+      concurrency = "${kafka.partitions.changeState}",
+      containerFactory = KafkaConsumerConfig.WORKERS_LISTENER_CONTAINER_FACTORY)
+  public void onOrderStatesChanged(List<ConsumerRecord<String, byte[]>> records)
+      throws InterruptedException {
+    this.keyOrderedWorkerPool.process(records, this.orderStateChangedHandler);
+  }
+
+  /**
+   * Dispatch batches of shopping cart update items events.
+   *
+   * @param records batch of records with info to save items in shopping carts.
+   * @throws Exception if an error processing the batch happens.
+   */
+  @KafkaListener(topics = "${kafka.topics.updateItems}", groupId = "${kafka.groupId}",
+      concurrency = "${kafka.partitions.updateItems}",
+      containerFactory = KafkaConsumerConfig.BATCH_LISTENER_CONTAINER_FACTORY)
+  public void onUpdateShoppingCartItems(List<ConsumerRecord<String, byte[]>> records)
+      throws Exception {
+    this.listenerMetrics.timed(records, this.shoppingCartEventsListener::onUpdateShoppingCartItems);
+  }
+
+  /**
+   * Dispatch batches of updated order events.
+   *
+   * @param records batch of records with orders info to update.
+   * @throws Exception if an error processing the batch happens.
+   */
+  @KafkaListener(topics = "${kafka.topics.updateOrder}", groupId = "${kafka.groupId}",
+      concurrency = "${kafka.partitions.updateOrder}",
+      containerFactory = KafkaConsumerConfig.BATCH_LISTENER_CONTAINER_FACTORY)
+  public void onUpdatedOrders(List<ConsumerRecord<String, byte[]>> records) throws Exception {
+    this.listenerMetrics.timed(records, this.orderEventsListener::onUpdatedOrder);
+  }
+
+  /**
+   * Dispatch retried created shopping cart events.
+   *
+   * @param record   record forwarded to a retry topic.
+   * @param consumer consumer.
+   * @throws Exception if an error processing the event happens.
+   */
+  @KafkaListener(id = CREATED_SHOPPING_CART_RETRY_LISTENER, idIsGroup = false,
+      topicPattern = "${kafka.topics.createShoppingCart}" + KafkaRetryConfig.RETRY_TOPICS_PATTERN,
+      groupId = "${kafka.groupId}", concurrency = "${kafka.retry.partitions}",
+      containerFactory = KafkaConsumerConfig.RETRY_LISTENER_CONTAINER_FACTORY)
+  public void onCreatedShoppingCartRetry(ConsumerRecord<String, byte[]> record, Consumer<?, ?> consumer)
+      throws Exception {
+    this.retry(record, consumer, CREATED_SHOPPING_CART_RETRY_LISTENER, this.createdShoppingCartHandler);
+  }
+
+  /**
+   * Dispatch retried delete shopping cart events.
+   *
+   * @param record   record forwarded to a retry topic.
+   * @param consumer consumer.
+   * @throws Exception if an error processing the event happens.
+   */
+  @KafkaListener(id = DELETED_SHOPPING_CART_RETRY_LISTENER, idIsGroup = false,
+      topicPattern = "${kafka.topics.deleteShoppingCart}" + KafkaRetryConfig.RETRY_TOPICS_PATTERN,
+      groupId = "${kafka.groupId}", concurrency = "${kafka.retry.partitions}",
+      containerFactory = KafkaConsumerConfig.RETRY_LISTENER_CONTAINER_FACTORY)
+  public void onDeletedShoppingCartRetry(ConsumerRecord<String, byte[]> record, Consumer<?, ?> consumer)
+      throws Exception {
+    this.retry(record, consumer, DELETED_SHOPPING_CART_RETRY_LISTENER, this.deletedShoppingCartHandler);
+  }
+
+  /**
+   * Dispatch retried completed shopping cart events.
+   *
+   * @param record   record forwarded to a retry topic.
+   * @param consumer consumer.
+   * @throws Exception if an error processing the event happens.
+   */
+  @KafkaListener(id = COMPLETED_SHOPPING_CART_RETRY_LISTENER, idIsGroup = false,
+      topicPattern = "${kafka.topics.completeShoppingCart}" + KafkaRetryConfig.RETRY_TOPICS_PATTERN,
+      groupId = "${kafka.groupId}", concurrency = "${kafka.retry.partitions}",
+      containerFactory = KafkaConsumerConfig.RETRY_LISTENER_CONTAINER_FACTORY)
+  public void onCompletedShoppingCartRetry(ConsumerRecord<String, byte[]> record, Consumer<?, ?> consumer)
+      throws Exception {
+    this.retry(record, consumer, COMPLETED_SHOPPING_CART_RETRY_LISTENER, this.completedShoppingCartHandler);
+  }
+
+  /**
+   * Dispatch retried created order events.
+   *
+   * @param record   record forwarded to a retry topic.
+   * @param consumer consumer.
+   * @throws Exception if an error processing the event happens.
+   */
+  @KafkaListener(id = CREATED_ORDER_RETRY_LISTENER, idIsGroup = false,
+      topicPattern = "${kafka.topics.createOrder}" + KafkaRetryConfig.RETRY_TOPICS_PATTERN,
+      groupId = "${kafka.groupId}", concurrency = "${kafka.retry.partitions}",
+      containerFactory = KafkaConsumerConfig.RETRY_LISTENER_CONTAINER_FACTORY)
+  public void onCreatedOrderRetry(ConsumerRecord<String, byte[]> record, Consumer<?, ?> consumer)
+      throws Exception {
+    this.retry(record, consumer, CREATED_ORDER_RETRY_LISTENER, this.createdOrderHandler);
+  }
+
+  /**
+   * Dispatch retried state order changed events.
+   *
+   * @param record   record forwarded to a retry topic.
+   * @param consumer consumer.
+   * @throws Exception if an error processing the event happens.
+   */
+  @KafkaListener(id = ORDER_STATE_CHANGED_RETRY_LISTENER, idIsGroup = false,
+      topicPattern = "${kafka.topics.changeState}" + KafkaRetryConfig.RETRY_TOPICS_PATTERN,
+      groupId = "${kafka.groupId}", concurrency = "${kafka.retry.partitions}",
+      containerFactory = KafkaConsumerConfig.RETRY_LISTENER_CONTAINER_FACTORY)
+  public void onOrderStateChangedRetry(ConsumerRecord<String, byte[]> record, Consumer<?, ?> consumer)
+      throws Exception {
+    this.retry(record, consumer, ORDER_STATE_CHANGED_RETRY_LISTENER, this.orderStateChangedHandler);
+  }
+
+  /**
+   * Process a record forwarded to a retry topic once its retry time is reached. Until then, its
+   * partition is paused and the record is sought back, without blocking the consumer thread.
+   * Events of a retry topic are forwarded to it with the same delay, so next events of the
+   * partition are not due before.
+   *
+   * @param record     record forwarded to a retry topic.
+   * @param consumer   consumer.
+   * @param listenerId identifier of the listener container.
+   * @param handler    record handler.
+   * @throws Exception if an error processing the event happens, or a back off exception if the
+   *                   record is not due yet.
+   */
+  private void retry(ConsumerRecord<String, byte[]> record, Consumer<?, ?> consumer,
+      String listenerId, RecordHandler handler) throws Exception {
+    this.retryTopicsBackoffManager.backOffIfNecessary(this.retryTopicsBackoffManager.createContext(
+        EventHeaders.getRetryAt(record), listenerId,
+        new TopicPartition(record.topic(), record.partition()), consumer));
+    handler.handle(record);
+  }
+
+}
@@ -0,0 +1,144 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.RecordInterceptor;
+import org.springframework.kafka.listener.SeekUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listeners interceptor which counts failed processing attempts by topic and by exception. A
+ * failed batch counts once for each of its topics. Retry topics events consumed before they are
+ * due are backed off, not failed, so they are not counted.
+ */
+@Component
+public class ListenerFailuresInterceptor implements RecordInterceptor<String, byte[]>,
+    BatchInterceptor<String, byte[]> {
+
+  /**
+   * Failed processing attempts metric name.
+   */
+  public static final String FAILURES_METRIC = "kafka.consumer.failures";
+
+  /**
+   * Topic tag name.
+   */
+  private static final String TOPIC_TAG = "topic";
+
+  /**
+   * Exception tag name.
+   */
+  private static final String EXCEPTION_TAG = "exception";
+
+  /**
+   * Meter registry.
+   */
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Constructor.
+   */
+  @Autowired
+  public ListenerFailuresInterceptor() {
+    this(Metrics.globalRegistry);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param meterRegistry meter registry.
+   */
+  public ListenerFailuresInterceptor(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Pass record to listener unchanged.
+   *
+   * @param record   consumed record.
+   * @param consumer consumer.
+   * @return same record.
+   */
+  @Override
+  public ConsumerRecord<String, byte[]> intercept(ConsumerRecord<String, byte[]> record,
+      Consumer<String, byte[]> consumer) {
+    return record;
+  }
+
+  /**
+   * Pass record to listener unchanged. Containers call {@link #intercept(ConsumerRecord,
+   * Consumer)} instead, but this deprecated method is still abstract in the interface.
+   *
+   * @param record consumed record.
+   * @return same record.
+   */
+  @Override
+  @Deprecated
+  public ConsumerRecord<String, byte[]> intercept(ConsumerRecord<String, byte[]> record) {
+    return this.intercept(record, null);
+  }
+
+  /**
+   * Pass batch to listener unchanged.
+   *
+   * @param records  consumed records.
+   * @param consumer consumer.
+   * @return same records.
+   */
+  @Override
+  public ConsumerRecords<String, byte[]> intercept(ConsumerRecords<String, byte[]> records,
+      Consumer<String, byte[]> consumer) {
+    return records;
+  }
+
+  /**
+   * Count a failed processing attempt, unless the record was backed off because it isn't due yet.
+   *
+   * @param record    consumed record.
+   * @param exception processing exception.
+   * @param consumer  consumer.
+   */
+  @Override
+  public void failure(ConsumerRecord<String, byte[]> record, Exception exception,
+      Consumer<String, byte[]> consumer) {
+    if (!SeekUtils.isBackoffException(exception)) {
+      this.count(record.topic(), exception);
+    }
+  }
+
+  /**
+   * Count a failed batch processing attempt.
+   *
+   * @param records   consumed records.
+   * @param exception processing exception.
+   * @param consumer  consumer.
+   */
+  @Override
+  public void failure(ConsumerRecords<String, byte[]> records, Exception exception,
+      Consumer<String, byte[]> consumer) {
+    records.partitions().stream()
+        .map(TopicPartition::topic)
+        .distinct()
+        .forEach(topic -> this.count(topic, exception));
+  }
+
+  /**
+   * Count a failed processing attempt.
+   *
+   * @param topic     topic of failed records.
+   * @param exception processing exception.
+   */
+  private void count(String topic, Exception exception) {
+    this.meterRegistry.counter(FAILURES_METRIC, TOPIC_TAG, topic, EXCEPTION_TAG,
+        NestedExceptionUtils.getMostSpecificCause(exception).getClass().getSimpleName())
+        .increment();
+  }
+
+}
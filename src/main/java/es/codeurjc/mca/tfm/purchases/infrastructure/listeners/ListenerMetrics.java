@@ -0,0 +1,185 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import es.codeurjc.mca.tfm.purchases.infrastructure.workers.KeyOrderedWorkerPool.RecordHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listeners metrics. Records processing time of each listener call, by topic and result, counts
+ * processed events by topic and result, so their rate is the listener throughput, and records the
+ * end to end latency of each processed event, since it was created.
+ */
+@Component
+public class ListenerMetrics {
+
+  /**
+   * Processing time metric name.
+   */
+  public static final String PROCESS_METRIC = "kafka.listener.process";
+
+  /**
+   * Processed events metric name.
+   */
+  public static final String EVENTS_METRIC = "kafka.listener.events";
+
+  /**
+   * End to end latency metric name.
+   */
+  public static final String LATENCY_METRIC = "kafka.listener.latency";
+
+  /**
+   * Topic tag name.
+   */
+  private static final String TOPIC_TAG = "topic";
+
+  /**
+   * Result tag name.
+   */
+  private static final String RESULT_TAG = "result";
+
+  /**
+   * Meter registry.
+   */
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Clock.
+   */
+  private final Clock clock;
+
+  /**
+   * Constructor.
+   */
+  @Autowired
+  public ListenerMetrics() {
+    this(Metrics.globalRegistry, Clock.systemUTC());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param meterRegistry meter registry.
+   * @param clock         clock.
+   */
+  public ListenerMetrics(MeterRegistry meterRegistry, Clock clock) {
+    this.meterRegistry = meterRegistry;
+    this.clock = clock;
+  }
+
+  /**
+   * Wrap a record handler, recording metrics of each processed record.
+   *
+   * @param handler record handler.
+   * @return timed record handler.
+   */
+  public RecordHandler timed(RecordHandler handler) {
+    return record -> {
+      long start = System.nanoTime();
+      try {
+        handler.handle(record);
+      } catch (Exception e) {
+        this.recordProcessed(List.of(record), 0, start);
+        throw e;
+      }
+      this.recordProcessed(List.of(record), 1, start);
+    };
+  }
+
+  /**
+   * Process a batch of records, recording metrics of the batch and of its processed records.
+   *
+   * @param records batch of records.
+   * @param handler batch handler.
+   * @throws Exception if an error processing the batch happens.
+   */
+  public void timed(List<ConsumerRecord<String, byte[]>> records, BatchHandler handler)
+      throws Exception {
+    long start = System.nanoTime();
+    try {
+      handler.handle(records);
+    } catch (BatchListenerFailedException e) {
+      this.recordProcessed(records, e.getIndex(), start);
+      throw e;
+    } catch (Exception e) {
+      this.recordProcessed(records, 0, start);
+      throw e;
+    }
+    this.recordProcessed(records, records.size(), start);
+  }
+
+  /**
+   * Record metrics of a listener call.
+   *
+   * @param records   records of the call.
+   * @param processed number of first records processed without failure.
+   * @param start     call start nano time.
+   */
+  private void recordProcessed(List<? extends ConsumerRecord<?, ?>> records, int processed,
+      long start) {
+    if (records.isEmpty()) {
+      return;
+    }
+    String topic = records.get(0).topic();
+    boolean success = processed == records.size();
+    Timer.builder(PROCESS_METRIC)
+        .tag(TOPIC_TAG, topic)
+        .tag(RESULT_TAG, success ? "success" : "failure")
+        .publishPercentileHistogram()
+        .register(this.meterRegistry)
+        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    this.eventsCounter(topic, "success").increment(processed);
+    if (!success) {
+      this.eventsCounter(topic, "failure").increment();
+    }
+    Timer latency = Timer.builder(LATENCY_METRIC)
+        .tag(TOPIC_TAG, topic)
+        .publishPercentileHistogram()
+        .register(this.meterRegistry);
+    long now = this.clock.millis();
+    for (int index = 0; index < processed; index++) {
+      latency.record(Math.max(0, now - EventHeaders.getEventTimestamp(records.get(index))),
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Get processed events counter.
+   *
+   * @param topic  topic.
+   * @param result processing result.
+   * @return counter.
+   */
+  private Counter eventsCounter(String topic, String result) {
+    return Counter.builder(EVENTS_METRIC)
+        .tag(TOPIC_TAG, topic)
+        .tag(RESULT_TAG, result)
+        .register(this.meterRegistry);
+  }
+
+  /**
+   * Batch handler.
+   */
+  @FunctionalInterface
+  public interface BatchHandler {
+
+    /**
+     * Handle a batch of records.
+     *
+     * @param records batch of records.
+     * @throws Exception if an error happens.
+     */
+    void handle(List<ConsumerRecord<String, byte[]>> records) throws Exception;
+
+  }
+
+}
@@ -1,23 +1,45 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import es.codeurjc.mca.tfm.purchases.domain.exceptions.IllegalOrderStateException;
 import es.codeurjc.mca.tfm.purchases.domain.exceptions.PreviousOrderStateUpdateException;
 import es.codeurjc.mca.tfm.purchases.domain.models.OrderState;
 import es.codeurjc.mca.tfm.purchases.domain.ports.in.OrderUseCase;
+import es.codeurjc.mca.tfm.purchases.infrastructure.caches.ProcessedEventCache;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
 import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OrderEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.PendingOrderStateChangeEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderCreationRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderUpdateRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapper;
 import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaOrderRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaPendingOrderStateChangeRepository;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.annotation.KafkaListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
- * Orders events listener.
+ * Orders events listener. Each event, or batch of events, is processed in a transaction, so entity
+ * changes and the follow-up events written to the outbox are committed together. Events are marked
+ * as processed in the same transaction, and already processed ones are skipped. Order updates
+ * carry the order version they lead to, and state changes the version they were requested for, so
+ * a state change received before its order reaches that version is kept pending, and applied when
+ * the update leading to it is saved, instead of over a state it wasn't requested for. Events are
+ * received from {@link EventsDispatcher}, in worker threads unless consumed in batches.
  */
 @Service
 @Slf4j
@@ -33,114 +55,297 @@ public class OrderEventsListener {
    */
   private JpaOrderRepository jpaOrderRepository;
 
+  /**
+   * Pending order state change repository.
+   */
+  private JpaPendingOrderStateChangeRepository jpaPendingOrderStateChangeRepository;
+
+  /**
+   * Processed events cache.
+   */
+  private ProcessedEventCache processedEventCache;
+
   /**
    * Order use case.
    */
   private OrderUseCase orderUseCase;
 
-
   /**
-   * Object mapper.
+   * Events codecs.
    */
-  private ObjectMapper objectMapper;
+  private EventCodecs eventCodecs;
 
   /**
    * Constructor.
    *
-   * @param infraMapper        mapper.
-   * @param jpaOrderRepository order repository.
-   * @param orderUseCase       order use case.
+   * @param infraMapper                          mapper.
+   * @param jpaOrderRepository                   order repository.
+   * @param jpaPendingOrderStateChangeRepository pending order state change repository.
+   * @param processedEventCache                  processed events cache.
+   * @param orderUseCase                         order use case.
+   * @param eventCodecs                          events codecs.
    */
   public OrderEventsListener(InfraMapper infraMapper,
       JpaOrderRepository jpaOrderRepository,
-      OrderUseCase orderUseCase) {
+      JpaPendingOrderStateChangeRepository jpaPendingOrderStateChangeRepository,
+      ProcessedEventCache processedEventCache,
+      OrderUseCase orderUseCase,
+      EventCodecs eventCodecs) {
     this.infraMapper = infraMapper;
     this.jpaOrderRepository = jpaOrderRepository;
+    this.jpaPendingOrderStateChangeRepository = jpaPendingOrderStateChangeRepository;
+    this.processedEventCache = processedEventCache;
     this.orderUseCase = orderUseCase;
-    this.objectMapper = new ObjectMapper();
-    objectMapper.registerModule(new Jdk8Module());
+    this.eventCodecs = eventCodecs;
   }
 
   /**
    * Listener to process created order events and save them in database.
    *
    * @param orderCreationRequestedEvent with order info to save.
+   * @param eventId                     event identifier header, if any.
    */
-  @KafkaListener(topics = "${kafka.topics.createOrder}", groupId = "${kafka.groupId}")
-  public void onCreatedOrder(String orderCreationRequestedEvent) throws Exception {
+  @Transactional
+  public void onCreatedOrder(byte[] orderCreationRequestedEvent, byte[] eventId) throws Exception {
     try {
-      log.info("Received orderCreationRequestedEvent {}", orderCreationRequestedEvent);
-      OrderEntity orderEntity = this.infraMapper.mapToOrderEntity(
-          this.objectMapper.readValue(orderCreationRequestedEvent,
-              OrderCreationRequestedEvent.class));
+      if (this.isAlreadyProcessed(eventId)) {
+        return;
+      }
+      OrderCreationRequestedEvent orderCreationEvent = this.eventCodecs.decode(
+          orderCreationRequestedEvent, OrderCreationRequestedEvent.class);
+      log.info("Received orderCreationRequestedEvent {}", orderCreationEvent);
+      OrderEntity orderEntity = this.infraMapper.mapToOrderEntity(orderCreationEvent);
       this.jpaOrderRepository.save(orderEntity);
       log.info("Order {} saved", orderEntity);
 
-      this.orderUseCase.update(orderEntity.getId(), OrderState.VALIDATING_ITEMS.name(),
+      this.orderUseCase.update(orderEntity.getId(), OrderState.VALIDATING_ITEMS,
           Optional.empty());
     } catch (IllegalOrderStateException illegalOrderStateException) {
       log.error(illegalOrderStateException.getMessage());
     } catch (PreviousOrderStateUpdateException previousOrderStateUpdateException) {
       log.error(previousOrderStateUpdateException.getMessage());
     } catch (Exception e) {
-      log.error("Error processing event {}: {}", orderCreationRequestedEvent, e.getMessage());
+      log.error("Error processing orderCreationRequestedEvent: {}", e.getMessage());
       throw e;
     }
   }
 
   /**
-   * Listener to process updated order events and save them in database.
+   * Listener to process batches of updated order events and save them in database. Events are
+   * applied in order over their orders, which are loaded and saved at once, in a single
+   * transaction, skipping events with versions already applied. Then pending state changes
+   * requested for the saved versions are applied. Already processed events are skipped. If an event
+   * can't be decoded, previous events are saved and it is reported as the failed event of the
+   * batch.
    *
-   * @param orderUpdateRequestedEvent with order info to update.
+   * @param records batch of records with orders info to update.
    */
-  @KafkaListener(topics = "${kafka.topics.updateOrder}", groupId = "${kafka.groupId}")
-  public void onUpdatedOrder(String orderUpdateRequestedEvent) throws Exception {
+  @Transactional(rollbackFor = Exception.class,
+      noRollbackFor = BatchListenerFailedException.class)
+  public void onUpdatedOrder(List<ConsumerRecord<String, byte[]>> records) throws Exception {
     try {
-      log.info("Received orderUpdateRequestedEvent {}", orderUpdateRequestedEvent);
-      OrderUpdateRequestedEvent orderUpdateEvent = this.objectMapper.readValue(
-          orderUpdateRequestedEvent, OrderUpdateRequestedEvent.class);
-      String errors = this.infraMapper.map(orderUpdateEvent.getErrors());
-      this.jpaOrderRepository.findById(orderUpdateEvent.getId()).ifPresentOrElse(
-          orderEntity -> {
-            orderEntity.setState(orderUpdateEvent.getState());
-            if (errors != null) {
-              orderEntity.setErrors(errors);
-            }
-            this.jpaOrderRepository.save(orderEntity);
-            log.info("order {} updated", orderEntity);
-          },
-          () -> log.error("Not order found with id {}", orderUpdateEvent.getId()));
+      Set<Long> processedEventIds = this.processedEventCache.findProcessed(records.stream()
+          .map(EventHeaders::getEventId)
+          .collect(Collectors.toList()));
+      List<OrderUpdateRequestedEvent> orderUpdateEvents = new ArrayList<>(records.size());
+      List<Long> eventIds = new ArrayList<>(records.size());
+      IOException decodingException = null;
+      int index = 0;
+      for (; index < records.size(); index++) {
+        Long eventId = EventHeaders.getEventId(records.get(index));
+        if (eventId != null && !processedEventIds.add(eventId)) {
+          continue;
+        }
+        try {
+          orderUpdateEvents.add(this.eventCodecs.decode(records.get(index).value(),
+              OrderUpdateRequestedEvent.class));
+          eventIds.add(eventId);
+        } catch (IOException e) {
+          decodingException = e;
+          break;
+        }
+      }
+      log.info("Received {} orderUpdateRequestedEvents, skipped {} already processed",
+          orderUpdateEvents.size(), index - orderUpdateEvents.size());
+      this.applyPendingStateChanges(this.updateOrders(orderUpdateEvents));
+      this.processedEventCache.markAllProcessed(eventIds);
+      if (decodingException != null) {
+        throw new BatchListenerFailedException("Can't decode orderUpdateRequestedEvent",
+            decodingException, index);
+      }
     } catch (Exception e) {
-      log.error("Error processing event {}: {}", orderUpdateRequestedEvent, e.getMessage());
+      log.error("Error processing orderUpdateRequestedEvents: {}", e.getMessage());
       throw e;
     }
   }
 
   /**
-   * Listener to process state order changed events and save them in database.
+   * Apply order update events in order over their orders, and save updated orders.
+   *
+   * @param orderUpdateEvents order update events.
+   * @return updated orders.
+   * @throws JsonProcessingException if an error mapping errors happens.
+   */
+  private Collection<OrderEntity> updateOrders(List<OrderUpdateRequestedEvent> orderUpdateEvents)
+      throws JsonProcessingException {
+    Map<Long, OrderEntity> orderEntities = this.jpaOrderRepository
+        .findAllById(orderUpdateEvents.stream()
+            .map(OrderUpdateRequestedEvent::getId)
+            .collect(Collectors.toSet()))
+        .stream()
+        .collect(Collectors.toMap(OrderEntity::getId, Function.identity()));
+    Map<Long, OrderEntity> updatedOrderEntities = new LinkedHashMap<>();
+    for (OrderUpdateRequestedEvent orderUpdateEvent : orderUpdateEvents) {
+      log.debug("Received orderUpdateRequestedEvent {}", orderUpdateEvent);
+      OrderEntity orderEntity = orderEntities.get(orderUpdateEvent.getId());
+      if (orderEntity == null) {
+        log.error("Not order found with id {}", orderUpdateEvent.getId());
+      } else if (orderUpdateEvent.getVersion() != null
+          && orderUpdateEvent.getVersion() <= versionOf(orderEntity)) {
+        log.info("Skipped already applied version {} of order {}", orderUpdateEvent.getVersion(),
+            orderEntity.getId());
+      } else {
+        orderEntity.setState(orderUpdateEvent.getState());
+        String errors = this.infraMapper.map(orderUpdateEvent.getErrors());
+        if (errors != null) {
+          orderEntity.setErrors(errors);
+        }
+        if (orderUpdateEvent.getVersion() != null) {
+          orderEntity.setVersion(orderUpdateEvent.getVersion());
+        }
+        updatedOrderEntities.put(orderEntity.getId(), orderEntity);
+      }
+    }
+    this.jpaOrderRepository.saveAllAndFlush(updatedOrderEntities.values());
+    log.info("Updated {} orders", updatedOrderEntities.size());
+    return updatedOrderEntities.values();
+  }
+
+  /**
+   * Apply pending state changes requested for the current version of updated orders, at most one
+   * per order, and discard the ones requested for previous versions. Updated orders are flushed
+   * before, so they stay locked until commit and no state change can be left pending meanwhile.
+   *
+   * @param orderEntities updated orders.
+   * @throws JsonProcessingException if an error mapping errors happens.
+   */
+  private void applyPendingStateChanges(Collection<OrderEntity> orderEntities)
+      throws JsonProcessingException {
+    if (orderEntities.isEmpty()) {
+      return;
+    }
+    Map<Long, OrderEntity> orderEntitiesById = orderEntities.stream()
+        .collect(Collectors.toMap(OrderEntity::getId, Function.identity()));
+    List<PendingOrderStateChangeEntity> doneStateChanges = new ArrayList<>();
+    Set<Long> changedOrderIds = new HashSet<>();
+    for (PendingOrderStateChangeEntity pendingStateChange : this
+        .jpaPendingOrderStateChangeRepository
+        .findByOrderIdInOrderByVersionAscIdAsc(orderEntitiesById.keySet())) {
+      int version = versionOf(orderEntitiesById.get(pendingStateChange.getOrderId()));
+      if (pendingStateChange.getVersion() <= version) {
+        doneStateChanges.add(pendingStateChange);
+        if (pendingStateChange.getVersion() == version
+            && changedOrderIds.add(pendingStateChange.getOrderId())) {
+          this.changeState(pendingStateChange.getOrderId(), pendingStateChange.getState(),
+              this.infraMapper.mapToOptionalListOfString(pendingStateChange.getErrors()));
+        } else {
+          log.info("Discarded state change of order {} to {} for outdated version {}",
+              pendingStateChange.getOrderId(), pendingStateChange.getState(),
+              pendingStateChange.getVersion());
+        }
+      }
+    }
+    this.jpaPendingOrderStateChangeRepository.deleteAllInBatch(doneStateChanges);
+  }
+
+  /**
+   * Listener to process state order changed events. A change requested for the current order
+   * version is applied, one requested for a later version is kept pending until the order reaches
+   * it, and one requested for a previous version is discarded. The order is locked meanwhile, so it
+   * can't reach the version while the change is being kept. Changes without version are applied
+   * right away.
    *
    * @param orderChangeRequestedEvent with order info to update.
+   * @param eventId                   event identifier header, if any.
    */
-  @KafkaListener(topics = "${kafka.topics.changeState}", groupId = "${kafka.groupId}")
-  public void onOrderStateChanged(String orderChangeRequestedEvent) throws Exception {
+  @Transactional
+  public void onOrderStateChanged(byte[] orderChangeRequestedEvent,
+      byte[] eventId) throws Exception {
     try {
-      // To avoid change state before a previous update order state ir performed
-      Thread.sleep(200);
-      log.info("Received orderChangeRequestedEvent {}", orderChangeRequestedEvent);
-      OrderUpdateRequestedEvent orderUpdateEvent = this.objectMapper.readValue(
+      if (this.isAlreadyProcessed(eventId)) {
+        return;
+      }
+      OrderUpdateRequestedEvent orderUpdateEvent = this.eventCodecs.decode(
           orderChangeRequestedEvent, OrderUpdateRequestedEvent.class);
-      this.orderUseCase.update(orderUpdateEvent.getId(), orderUpdateEvent.getState(),
+      log.info("Received orderChangeRequestedEvent {}", orderUpdateEvent);
+      if (orderUpdateEvent.getVersion() != null) {
+        Optional<OrderEntity> orderEntity =
+            this.jpaOrderRepository.findForUpdateById(orderUpdateEvent.getId());
+        int version = orderEntity.map(OrderEventsListener::versionOf)
+            .orElse(orderUpdateEvent.getVersion());
+        if (orderUpdateEvent.getVersion() > version) {
+          this.jpaPendingOrderStateChangeRepository.save(
+              this.infraMapper.mapToPendingOrderStateChangeEntity(orderUpdateEvent));
+          log.info("State change of order {} to {} pending until version {}",
+              orderUpdateEvent.getId(), orderUpdateEvent.getState(),
+              orderUpdateEvent.getVersion());
+          return;
+        }
+        if (orderUpdateEvent.getVersion() < version) {
+          log.info("Discarded state change of order {} to {} for outdated version {}",
+              orderUpdateEvent.getId(), orderUpdateEvent.getState(),
+              orderUpdateEvent.getVersion());
+          return;
+        }
+      }
+      this.changeState(orderUpdateEvent.getId(), orderUpdateEvent.getState(),
           orderUpdateEvent.getErrors());
+    } catch (Exception e) {
+      log.error("Error processing orderChangeRequestedEvent: {}", e.getMessage());
+      throw e;
+    }
+  }
+
+  /**
+   * Change order state, logging the change if it's not allowed.
+   *
+   * @param id     order identifier.
+   * @param state  state to change to.
+   * @param errors optional with errors if any.
+   */
+  private void changeState(Long id, String state, Optional<List<String>> errors) {
+    try {
+      this.orderUseCase.update(id, OrderState.valueOf(state), errors);
     } catch (IllegalOrderStateException illegalOrderStateException) {
       log.error(illegalOrderStateException.getMessage());
     } catch (PreviousOrderStateUpdateException previousOrderStateUpdateException) {
       log.error(previousOrderStateUpdateException.getMessage());
-    } catch (InterruptedException ie) {
-      Thread.currentThread().interrupt();
-    } catch (Exception e) {
-      log.error("Error processing event {}: {}", orderChangeRequestedEvent, e.getMessage());
-      throw e;
     }
   }
 
+  /**
+   * Check if an event was already processed, and else mark it as processed in current transaction.
+   *
+   * @param eventId event identifier header, if any.
+   * @return true if event was already processed, else false.
+   */
+  private boolean isAlreadyProcessed(byte[] eventId) {
+    Long id = EventHeaders.decodeEventId(eventId);
+    if (this.processedEventCache.markProcessed(id)) {
+      return false;
+    }
+    log.info("Skipped already processed event {}", id);
+    return true;
+  }
+
+  /**
+   * Get order version.
+   *
+   * @param orderEntity order.
+   * @return order version, zero if it has none.
+   */
+  private static int versionOf(OrderEntity orderEntity) {
+    return orderEntity.getVersion() == null ? 0 : orderEntity.getVersion();
+  }
+
 }
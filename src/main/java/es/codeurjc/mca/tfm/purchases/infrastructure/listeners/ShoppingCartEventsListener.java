@@ -1,20 +1,41 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import es.codeurjc.mca.tfm.purchases.domain.ports.in.OrderUseCase;
+import es.codeurjc.mca.tfm.purchases.infrastructure.caches.IncompleteShoppingCartCache;
+import es.codeurjc.mca.tfm.purchases.infrastructure.caches.ProcessedEventCache;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.CartItemEntity;
 import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCompletionRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCreationRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartDeletionRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapper;
+import es.codeurjc.mca.tfm.purchases.infrastructure.projections.ShoppingCartProjection;
 import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.stores.ShoppingCartItemsStore;
+import es.codeurjc.mca.tfm.purchases.infrastructure.stores.ShoppingCartStateStore;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.annotation.KafkaListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
- * Shopping cart events listener.
+ * Shopping cart events listener. Each event, or batch of events, is processed in a transaction, so
+ * entity changes and the follow-up events written to the outbox are committed together. Events are
+ * marked as processed in the same transaction, and already processed ones are skipped. Shopping
+ * carts are read from their in memory state, and changes are only written to database. Events are
+ * received from {@link EventsDispatcher}, in worker threads unless consumed in batches.
  */
 @Service
 @Slf4j
@@ -30,58 +51,110 @@ public class ShoppingCartEventsListener {
    */
   private JpaShoppingCartRepository jpaShoppingCartRepository;
 
+  /**
+   * Shopping carts state.
+   */
+  private ShoppingCartStateStore shoppingCartStateStore;
+
+  /**
+   * Shopping cart items storage.
+   */
+  private ShoppingCartItemsStore shoppingCartItemsStore;
+
+  /**
+   * Incomplete shopping cart by user cache.
+   */
+  private IncompleteShoppingCartCache incompleteShoppingCartCache;
+
+  /**
+   * Shopping carts read model.
+   */
+  private ShoppingCartProjection shoppingCartProjection;
+
+  /**
+   * Processed events cache.
+   */
+  private ProcessedEventCache processedEventCache;
+
   /**
    * Order use case.
    */
   private OrderUseCase orderUseCase;
 
   /**
-   * Object mapper.
+   * Events codecs.
    */
-  private ObjectMapper objectMapper;
+  private EventCodecs eventCodecs;
 
   /**
    * Constructor.
    *
-   * @param mapper                    mapper.
-   * @param jpaShoppingCartRepository shopping cart repository.
-   * @param orderUseCase              order use case.
+   * @param mapper                      mapper.
+   * @param jpaShoppingCartRepository   shopping cart repository.
+   * @param shoppingCartStateStore      shopping carts state.
+   * @param shoppingCartItemsStore      shopping cart items storage.
+   * @param incompleteShoppingCartCache incomplete shopping cart by user cache.
+   * @param shoppingCartProjection      shopping carts read model.
+   * @param processedEventCache         processed events cache.
+   * @param orderUseCase                order use case.
+   * @param eventCodecs                 events codecs.
    */
   public ShoppingCartEventsListener(InfraMapper mapper,
       JpaShoppingCartRepository jpaShoppingCartRepository,
-      OrderUseCase orderUseCase) {
+      ShoppingCartStateStore shoppingCartStateStore,
+      ShoppingCartItemsStore shoppingCartItemsStore,
+      IncompleteShoppingCartCache incompleteShoppingCartCache,
+      ShoppingCartProjection shoppingCartProjection,
+      ProcessedEventCache processedEventCache,
+      OrderUseCase orderUseCase,
+      EventCodecs eventCodecs) {
     this.mapper = mapper;
     this.jpaShoppingCartRepository = jpaShoppingCartRepository;
+    this.shoppingCartStateStore = shoppingCartStateStore;
+    this.shoppingCartItemsStore = shoppingCartItemsStore;
+    this.incompleteShoppingCartCache = incompleteShoppingCartCache;
+    this.shoppingCartProjection = shoppingCartProjection;
+    this.processedEventCache = processedEventCache;
     this.orderUseCase = orderUseCase;
-    this.objectMapper = new ObjectMapper();
+    this.eventCodecs = eventCodecs;
   }
 
   /**
    * Listener to process created shopping cart events and save them in database.
    *
    * @param shoppingCartCreationRequestedEvent with shopping cart to save info.
+   * @param eventId                            event identifier header, if any.
    */
-  @KafkaListener(topics = "${kafka.topics.createShoppingCart}", groupId = "${kafka.groupId}")
-  public void onCreatedShoppingCart(String shoppingCartCreationRequestedEvent) throws Exception {
+  @Transactional
+  public void onCreatedShoppingCart(byte[] shoppingCartCreationRequestedEvent,
+      byte[] eventId) throws Exception {
     try {
-      log.info("Received shoppingCartCreationRequestedEvent {}",
-          shoppingCartCreationRequestedEvent);
-      ShoppingCartEntity shoppingCartEntity = this.mapper.map(
-          this.objectMapper.readValue(shoppingCartCreationRequestedEvent,
-              ShoppingCartCreationRequestedEvent.class));
-      this.jpaShoppingCartRepository.findByUserIdAndCompletedIsFalse(shoppingCartEntity.getUserId())
+      if (this.isAlreadyProcessed(eventId)) {
+        return;
+      }
+      ShoppingCartCreationRequestedEvent creationRequestedEvent = this.eventCodecs.decode(
+          shoppingCartCreationRequestedEvent, ShoppingCartCreationRequestedEvent.class);
+      log.info("Received shoppingCartCreationRequestedEvent {}", creationRequestedEvent);
+      ShoppingCartEntity shoppingCartEntity = this.mapper.map(creationRequestedEvent);
+      List<CartItemEntity> cartItemEntities = this.shoppingCartItemsStore.setItems(
+          shoppingCartEntity, creationRequestedEvent.getItems());
+      this.incompleteShoppingCartCache.findByUserInDatabase(shoppingCartEntity.getUserId())
           .ifPresentOrElse(
               incompleteShoppingCartEntity -> log.error(
                   "Can't create shopping cart. Already exists an incomplete shopping cart {}",
                   incompleteShoppingCartEntity),
               () -> {
                 this.jpaShoppingCartRepository.save(shoppingCartEntity);
+                this.shoppingCartItemsStore.insertItems(cartItemEntities);
+                this.shoppingCartStateStore.putAfterCommit(List.of(shoppingCartEntity));
+                this.incompleteShoppingCartCache.put(shoppingCartEntity.getUserId(),
+                    shoppingCartEntity.getId());
+                this.shoppingCartProjection.put(shoppingCartEntity);
                 log.info("Shopping cart {} saved", shoppingCartEntity);
               }
           );
     } catch (Exception e) {
-      log.error("Error processing event {}: {}", shoppingCartCreationRequestedEvent,
-          e.getMessage());
+      log.error("Error processing shoppingCartCreationRequestedEvent: {}", e.getMessage());
       throw e;
     }
   }
@@ -90,20 +163,33 @@ public class ShoppingCartEventsListener {
    * Listener to process delete shopping cart events.
    *
    * @param shoppingCartDeletionRequestedEvent with shopping cart to delete id.
+   * @param eventId                            event identifier header, if any.
    */
-  @KafkaListener(topics = "${kafka.topics.deleteShoppingCart}", groupId = "${kafka.groupId}")
-  public void onDeletedShoppingCart(String shoppingCartDeletionRequestedEvent) throws Exception {
+  @Transactional
+  public void onDeletedShoppingCart(byte[] shoppingCartDeletionRequestedEvent,
+      byte[] eventId) throws Exception {
     try {
-      log.info("Received shoppingCartDeletionRequestedEvent {}",
-          shoppingCartDeletionRequestedEvent);
-      Long id =
-          this.objectMapper.readValue(shoppingCartDeletionRequestedEvent,
-              ShoppingCartDeletionRequestedEvent.class).getId();
-      this.jpaShoppingCartRepository.deleteById(id);
-      log.info("Shopping cart with id {} deleted", id);
+      if (this.isAlreadyProcessed(eventId)) {
+        return;
+      }
+      ShoppingCartDeletionRequestedEvent deletionRequestedEvent = this.eventCodecs.decode(
+          shoppingCartDeletionRequestedEvent, ShoppingCartDeletionRequestedEvent.class);
+      log.info("Received shoppingCartDeletionRequestedEvent {}", deletionRequestedEvent);
+      Long id = deletionRequestedEvent.getId();
+      this.shoppingCartStateStore.find(id).ifPresentOrElse(
+          shoppingCartEntity -> {
+            this.jpaShoppingCartRepository.remove(shoppingCartEntity);
+            this.shoppingCartStateStore.removeAfterCommit(id);
+            this.shoppingCartProjection.remove(id);
+            if (!shoppingCartEntity.isCompleted()) {
+              this.incompleteShoppingCartCache.putNone(shoppingCartEntity.getUserId());
+            }
+            log.info("Shopping cart with id {} deleted", id);
+          },
+          () -> log.error("Not shopping cart found with id {}", id)
+      );
     } catch (Exception e) {
-      log.error("Error processing event {}: {}", shoppingCartDeletionRequestedEvent,
-          e.getMessage());
+      log.error("Error processing shoppingCartDeletionRequestedEvent: {}", e.getMessage());
       throw e;
     }
   }
@@ -112,16 +198,19 @@ public class ShoppingCartEventsListener {
    * Listener to process completed shopping cart events and save them in database.
    *
    * @param shoppingCartCompletionRequestedEvent with completed shopping cart to save info.
+   * @param eventId                              event identifier header, if any.
    */
-  @KafkaListener(topics = "${kafka.topics.completeShoppingCart}", groupId = "${kafka.groupId}")
-  public void onCompletedShoppingCart(String shoppingCartCompletionRequestedEvent)
-      throws Exception {
+  @Transactional
+  public void onCompletedShoppingCart(byte[] shoppingCartCompletionRequestedEvent,
+      byte[] eventId) throws Exception {
     try {
-      log.info("Received shoppingCartCompletionRequestedEvent {}",
-          shoppingCartCompletionRequestedEvent);
-      ShoppingCartCompletionRequestedEvent completionRequestedEvent = this.objectMapper.readValue(
+      if (this.isAlreadyProcessed(eventId)) {
+        return;
+      }
+      ShoppingCartCompletionRequestedEvent completionRequestedEvent = this.eventCodecs.decode(
           shoppingCartCompletionRequestedEvent, ShoppingCartCompletionRequestedEvent.class);
-      this.jpaShoppingCartRepository.findById(completionRequestedEvent.getId()).ifPresentOrElse(
+      log.info("Received shoppingCartCompletionRequestedEvent {}", completionRequestedEvent);
+      this.shoppingCartStateStore.find(completionRequestedEvent.getId()).ifPresentOrElse(
           shoppingCartEntity -> {
             if (shoppingCartEntity.isCompleted()) {
               log.info("Shopping cart with id {} already completed",
@@ -133,54 +222,132 @@ public class ShoppingCartEventsListener {
                       + "Please check and try again");
             } else {
               shoppingCartEntity.setCompleted(true);
-              this.jpaShoppingCartRepository.save(shoppingCartEntity);
+              this.jpaShoppingCartRepository.update(shoppingCartEntity);
+              this.shoppingCartStateStore.putAfterCommit(List.of(shoppingCartEntity));
+              this.incompleteShoppingCartCache.putNone(shoppingCartEntity.getUserId());
+              this.shoppingCartProjection.put(shoppingCartEntity);
               log.info("Shopping cart {} saved", shoppingCartEntity);
 
-              this.orderUseCase.create(this.mapper.map(shoppingCartEntity));
+              this.orderUseCase.create(this.shoppingCartItemsStore.read(shoppingCartEntity));
               log.info("Requested order creation for shopping cart {}", shoppingCartEntity);
             }
           },
           () -> log.error("Not shopping cart found with id {}", completionRequestedEvent.getId())
       );
     } catch (Exception e) {
-      log.error("Error processing event {}: {}", shoppingCartCompletionRequestedEvent,
-          e.getMessage());
+      log.error("Error processing shoppingCartCompletionRequestedEvent: {}", e.getMessage());
       throw e;
     }
   }
 
   /**
-   * Listener to process shopping cart update items events and save them in database.
+   * Listener to process batches of shopping cart update items events and save them in database.
+   * Events are applied in order over the items of their shopping carts, which are loaded and saved
+   * at once, in a single transaction. Snapshot events replace the items, and delta events are
+   * applied over the current ones. Already processed events are skipped. If an event can't be
+   * decoded, previous events are saved and it is reported as the failed event of the batch.
    *
-   * @param shoppingCartItemsUpdateRequestedEvent with info to save items in shopping cart.
+   * @param records batch of records with info to save items in shopping carts.
    */
-  @KafkaListener(topics = "${kafka.topics.updateItems}", groupId = "${kafka.groupId}")
-  public void onUpdateShoppingCartItems(String shoppingCartItemsUpdateRequestedEvent)
+  @Transactional(rollbackFor = Exception.class,
+      noRollbackFor = BatchListenerFailedException.class)
+  public void onUpdateShoppingCartItems(List<ConsumerRecord<String, byte[]>> records)
       throws Exception {
     try {
-      log.info("Received shoppingCartItemsUpdateRequestedEvent {}",
-          shoppingCartItemsUpdateRequestedEvent);
-      ShoppingCartItemsUpdateRequestedEvent itemsUpdateRequestedEvent = this.objectMapper.readValue(
-          shoppingCartItemsUpdateRequestedEvent, ShoppingCartItemsUpdateRequestedEvent.class);
-      String items = this.mapper.map(itemsUpdateRequestedEvent.getItems());
-      this.jpaShoppingCartRepository.findById(itemsUpdateRequestedEvent.getId()).ifPresentOrElse(
-          shoppingCartEntity -> {
-            if (shoppingCartEntity.isCompleted()) {
-              log.error("Can't update items on a completed shopping cart.");
-            } else {
-              shoppingCartEntity.setItems(items);
-              shoppingCartEntity.setTotalPrice(itemsUpdateRequestedEvent.getTotalPrice());
-              this.jpaShoppingCartRepository.save(shoppingCartEntity);
-              log.info("Shopping cart {} saved", shoppingCartEntity);
-            }
-          },
-          () -> log.error("Not shopping cart found with id {}", itemsUpdateRequestedEvent.getId())
-      );
+      Set<Long> processedEventIds = this.processedEventCache.findProcessed(records.stream()
+          .map(EventHeaders::getEventId)
+          .collect(Collectors.toList()));
+      List<ShoppingCartItemsUpdateRequestedEvent> itemsUpdateRequestedEvents =
+          new ArrayList<>(records.size());
+      List<Long> eventIds = new ArrayList<>(records.size());
+      IOException decodingException = null;
+      int index = 0;
+      for (; index < records.size(); index++) {
+        Long eventId = EventHeaders.getEventId(records.get(index));
+        if (eventId != null && !processedEventIds.add(eventId)) {
+          continue;
+        }
+        try {
+          itemsUpdateRequestedEvents.add(this.eventCodecs.decode(records.get(index).value(),
+              ShoppingCartItemsUpdateRequestedEvent.class));
+          eventIds.add(eventId);
+        } catch (IOException e) {
+          decodingException = e;
+          break;
+        }
+      }
+      log.info("Received {} shoppingCartItemsUpdateRequestedEvents, skipped {} already processed",
+          itemsUpdateRequestedEvents.size(), index - itemsUpdateRequestedEvents.size());
+      this.updateShoppingCartsItems(itemsUpdateRequestedEvents);
+      this.processedEventCache.markAllProcessed(eventIds);
+      if (decodingException != null) {
+        throw new BatchListenerFailedException("Can't decode shoppingCartItemsUpdateRequestedEvent",
+            decodingException, index);
+      }
     } catch (Exception e) {
-      log.error("Error processing event {}: {}", shoppingCartItemsUpdateRequestedEvent,
-          e.getMessage());
+      log.error("Error processing shoppingCartItemsUpdateRequestedEvents: {}", e.getMessage());
       throw e;
     }
   }
 
+  /**
+   * Apply items update events in order over the items of their shopping carts, and save updated
+   * shopping carts. Items updates of each shopping cart are applied at once, and total prices are
+   * computed from the updated items.
+   *
+   * @param itemsUpdateRequestedEvents items update events.
+   * @throws JsonProcessingException if an error mapping items happens.
+   */
+  private void updateShoppingCartsItems(
+      List<ShoppingCartItemsUpdateRequestedEvent> itemsUpdateRequestedEvents)
+      throws JsonProcessingException {
+    Map<Long, ShoppingCartEntity> shoppingCartEntities = this.shoppingCartStateStore.findAll(
+        itemsUpdateRequestedEvents.stream()
+            .map(ShoppingCartItemsUpdateRequestedEvent::getId)
+            .collect(Collectors.toSet()));
+    Map<Long, List<ShoppingCartItemsUpdateRequestedEvent>> itemsUpdatesById =
+        new LinkedHashMap<>();
+    for (ShoppingCartItemsUpdateRequestedEvent itemsUpdateRequestedEvent :
+        itemsUpdateRequestedEvents) {
+      log.debug("Received shoppingCartItemsUpdateRequestedEvent {}", itemsUpdateRequestedEvent);
+      Long id = itemsUpdateRequestedEvent.getId();
+      ShoppingCartEntity shoppingCartEntity = shoppingCartEntities.get(id);
+      if (shoppingCartEntity == null) {
+        log.error("Not shopping cart found with id {}", id);
+      } else if (shoppingCartEntity.isCompleted()) {
+        log.error("Can't update items on a completed shopping cart.");
+      } else {
+        itemsUpdatesById.computeIfAbsent(id, key -> new ArrayList<>())
+            .add(itemsUpdateRequestedEvent);
+      }
+    }
+    List<ShoppingCartEntity> updatedShoppingCartEntities =
+        new ArrayList<>(itemsUpdatesById.size());
+    for (Map.Entry<Long, List<ShoppingCartItemsUpdateRequestedEvent>> entry :
+        itemsUpdatesById.entrySet()) {
+      ShoppingCartEntity shoppingCartEntity = shoppingCartEntities.get(entry.getKey());
+      this.shoppingCartItemsStore.update(shoppingCartEntity, entry.getValue());
+      updatedShoppingCartEntities.add(shoppingCartEntity);
+    }
+    updatedShoppingCartEntities.forEach(this.jpaShoppingCartRepository::update);
+    this.shoppingCartStateStore.putAfterCommit(updatedShoppingCartEntities);
+    updatedShoppingCartEntities.forEach(this.shoppingCartProjection::put);
+    log.info("Saved items of {} shopping carts", updatedShoppingCartEntities.size());
+  }
+
+  /**
+   * Check if an event was already processed, and else mark it as processed in current transaction.
+   *
+   * @param eventId event identifier header, if any.
+   * @return true if event was already processed, else false.
+   */
+  private boolean isAlreadyProcessed(byte[] eventId) {
+    Long id = EventHeaders.decodeEventId(eventId);
+    if (this.processedEventCache.markProcessed(id)) {
+      return false;
+    }
+    log.info("Skipped already processed event {}", id);
+    return true;
+  }
+
 }
@@ -1,11 +1,14 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.mappers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.ItemDto;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.OrderDto;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.JsonCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.CartItemEntity;
 import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OrderEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.PendingOrderStateChangeEntity;
 import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderCreationRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderRejectedEvent;
@@ -16,15 +19,35 @@ import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCompletio
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCreationRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItem;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * Infrastructure mapper.
  */
 @Mapper(componentModel = "spring")
-public interface InfraMapper {
+public abstract class InfraMapper {
+
+  /**
+   * JSON codec.
+   */
+  protected JsonCodec jsonCodec;
+
+  /**
+   * Set JSON codec.
+   *
+   * @param jsonCodec JSON codec.
+   */
+  @Autowired
+  public void setJsonCodec(JsonCodec jsonCodec) {
+    this.jsonCodec = jsonCodec;
+  }
 
   /**
    * Maps shopping cart DTO to shopping cart creation requested event.
@@ -32,7 +55,7 @@ public interface InfraMapper {
    * @param shoppingCartDto shopping cart DTO to map.
    * @return CreatedShoppingCartEvent instance.
    */
-  ShoppingCartCreationRequestedEvent mapToShoppingCartCreationRequestedEvent(
+  public abstract ShoppingCartCreationRequestedEvent mapToShoppingCartCreationRequestedEvent(
       ShoppingCartDto shoppingCartDto);
 
   /**
@@ -41,7 +64,9 @@ public interface InfraMapper {
    * @param shoppingCartCreationRequestedEvent created shopping cart event to map.
    * @return ShoppingCartEntity instance.
    */
-  ShoppingCartEntity map(ShoppingCartCreationRequestedEvent shoppingCartCreationRequestedEvent);
+  @Mapping(target = "version", ignore = true)
+  public abstract ShoppingCartEntity map(
+      ShoppingCartCreationRequestedEvent shoppingCartCreationRequestedEvent);
 
   /**
    * Map list of shopping cart items to json array as string.
@@ -50,12 +75,11 @@ public interface InfraMapper {
    * @return json array as string.
    * @throws JsonProcessingException if an error mapping list to json happens.
    */
-  default String map(List<ShoppingCartItem> items) throws JsonProcessingException {
+  public String map(List<ShoppingCartItem> items) throws JsonProcessingException {
     if (items == null) {
       return "[]";
     }
-    final ObjectMapper objectMapper = new ObjectMapper();
-    return objectMapper.writeValueAsString(items);
+    return this.jsonCodec.write(items);
   }
 
   /**
@@ -65,12 +89,11 @@ public interface InfraMapper {
    * @return json array as string.
    * @throws JsonProcessingException if an error mapping list to json happens.
    */
-  default String map(Optional<List<String>> stringList) throws JsonProcessingException {
+  public String map(Optional<List<String>> stringList) throws JsonProcessingException {
     if (stringList == null || stringList.isEmpty()) {
       return null;
     }
-    final ObjectMapper objectMapper = new ObjectMapper();
-    return objectMapper.writeValueAsString(stringList.get());
+    return this.jsonCodec.write(stringList.get());
   }
 
   /**
@@ -79,7 +102,7 @@ public interface InfraMapper {
    * @param shoppingCartEntity entity to map.
    * @return ShoppingCartEntity instance.
    */
-  ShoppingCartDto map(ShoppingCartEntity shoppingCartEntity);
+  public abstract ShoppingCartDto map(ShoppingCartEntity shoppingCartEntity);
 
   /**
    * Map a string to a list of items DTOs.
@@ -88,14 +111,38 @@ public interface InfraMapper {
    * @return a list of items DTOs.
    * @throws JsonProcessingException if an error happens.
    */
-  default List<ItemDto> mapToItemDtoList(String items) throws JsonProcessingException {
+  public List<ItemDto> mapToItemDtoList(String items) throws JsonProcessingException {
     if (items == null) {
       return List.of();
     }
-    final ObjectMapper objectMapper = new ObjectMapper();
-    return List.of(objectMapper.readValue(items, ItemDto[].class));
+    return this.jsonCodec.readList(items, ItemDto[].class);
   }
 
+  /**
+   * Map a list of shopping cart item entities to a list of items DTOs.
+   *
+   * @param cartItemEntities shopping cart item entities to map.
+   * @return a list of items DTOs.
+   */
+  public abstract List<ItemDto> mapToItemDtoList(List<CartItemEntity> cartItemEntities);
+
+  /**
+   * Maps shopping cart item entity to item DTO.
+   *
+   * @param cartItemEntity shopping cart item entity to map.
+   * @return ItemDto instance.
+   */
+  public abstract ItemDto mapToItemDto(CartItemEntity cartItemEntity);
+
+  /**
+   * Maps a shopping cart item to a shopping cart item entity.
+   *
+   * @param cartId shopping cart identifier.
+   * @param item   shopping cart item to map.
+   * @return CartItemEntity instance.
+   */
+  public abstract CartItemEntity mapToCartItemEntity(Long cartId, ShoppingCartItem item);
+
   /**
    * Map a string to a list of shopping cart items.
    *
@@ -103,13 +150,52 @@ public interface InfraMapper {
    * @return a list of shopping cart items.
    * @throws JsonProcessingException if an error happens.
    */
-  default List<ShoppingCartItem> mapToShoppingCartItemList(String items)
+  public List<ShoppingCartItem> mapToShoppingCartItemList(String items)
       throws JsonProcessingException {
     if (items == null) {
       return List.of();
     }
-    final ObjectMapper objectMapper = new ObjectMapper();
-    return List.of(objectMapper.readValue(items, ShoppingCartItem[].class));
+    return this.jsonCodec.readList(items, ShoppingCartItem[].class);
+  }
+
+  /**
+   * Map an items update over current items. A snapshot replaces current items, and a delta sets
+   * and deletes items over them, keeping their order.
+   *
+   * @param items                                 current items.
+   * @param shoppingCartItemsUpdateRequestedEvent items update to apply.
+   * @return updated items.
+   */
+  public List<ShoppingCartItem> mapToUpdatedItems(List<ShoppingCartItem> items,
+      ShoppingCartItemsUpdateRequestedEvent shoppingCartItemsUpdateRequestedEvent) {
+    if (shoppingCartItemsUpdateRequestedEvent.getItems() != null) {
+      return shoppingCartItemsUpdateRequestedEvent.getItems();
+    }
+    Map<Integer, ShoppingCartItem> itemsByProduct = new LinkedHashMap<>();
+    items.forEach(item -> itemsByProduct.put(item.getProductId(), item));
+    if (shoppingCartItemsUpdateRequestedEvent.getChangedItems() != null) {
+      shoppingCartItemsUpdateRequestedEvent.getChangedItems()
+          .forEach(item -> itemsByProduct.put(item.getProductId(), item));
+    }
+    if (shoppingCartItemsUpdateRequestedEvent.getDeletedProductIds() != null) {
+      shoppingCartItemsUpdateRequestedEvent.getDeletedProductIds()
+          .forEach(itemsByProduct::remove);
+    }
+    return new ArrayList<>(itemsByProduct.values());
+  }
+
+  /**
+   * Map items to their total price, the sum of the total price of each item.
+   *
+   * @param items items.
+   * @return total price of the items.
+   */
+  public Money mapToTotalPrice(List<ShoppingCartItem> items) {
+    Money totalPrice = Money.ZERO;
+    for (ShoppingCartItem item : items) {
+      totalPrice = totalPrice.plus(item.getTotalPrice());
+    }
+    return totalPrice;
   }
 
   /**
@@ -118,8 +204,8 @@ public interface InfraMapper {
    * @param shoppingCartDto shopping cart DTO to map.
    * @return ShoppingCartCompletionRequestedEvent instance.
    */
-  ShoppingCartCompletionRequestedEvent mapToShoppingCartCompletionRequestedEvent(
-      ShoppingCartDto shoppingCartDto);
+  public abstract ShoppingCartCompletionRequestedEvent
+      mapToShoppingCartCompletionRequestedEvent(ShoppingCartDto shoppingCartDto);
 
   /**
    * Maps order DTO to order creation requested event.
@@ -127,7 +213,7 @@ public interface InfraMapper {
    * @param orderDto order DTO to map.
    * @return OrderCreationRequestedEvent instance.
    */
-  OrderCreationRequestedEvent mapToOrderCreationRequestedEvent(OrderDto orderDto);
+  public abstract OrderCreationRequestedEvent mapToOrderCreationRequestedEvent(OrderDto orderDto);
 
   /**
    * Maps order creation requested event to order entity.
@@ -135,7 +221,9 @@ public interface InfraMapper {
    * @param orderCreationRequestedEvent created order event to map.
    * @return OrderEntity instance.
    */
-  OrderEntity mapToOrderEntity(OrderCreationRequestedEvent orderCreationRequestedEvent);
+  @Mapping(target = "version", constant = "0")
+  public abstract OrderEntity mapToOrderEntity(
+      OrderCreationRequestedEvent orderCreationRequestedEvent);
 
   /**
    * Maps order update requested event to order entity.
@@ -143,7 +231,19 @@ public interface InfraMapper {
    * @param orderUpdateRequestedEvent created order event to map.
    * @return OrderEntity instance.
    */
-  OrderEntity mapToOrderEntity(OrderUpdateRequestedEvent orderUpdateRequestedEvent);
+  public abstract OrderEntity mapToOrderEntity(OrderUpdateRequestedEvent orderUpdateRequestedEvent);
+
+  /**
+   * Maps order state change requested event to pending order state change entity.
+   *
+   * @param orderUpdateRequestedEvent order state change event to map.
+   * @return PendingOrderStateChangeEntity instance.
+   * @throws JsonProcessingException if an error mapping errors happens.
+   */
+  @Mapping(target = "id", ignore = true)
+  @Mapping(source = "id", target = "orderId")
+  public abstract PendingOrderStateChangeEntity mapToPendingOrderStateChangeEntity(
+      OrderUpdateRequestedEvent orderUpdateRequestedEvent) throws JsonProcessingException;
 
   /**
    * Maps order DTO to order update requested event.
@@ -151,7 +251,7 @@ public interface InfraMapper {
    * @param orderDto order DTO to map.
    * @return OrderUpdateRequestedEvent instance.
    */
-  OrderUpdateRequestedEvent mapToOrderUpdateRequestedEvent(OrderDto orderDto);
+  public abstract OrderUpdateRequestedEvent mapToOrderUpdateRequestedEvent(OrderDto orderDto);
 
   /**
    * Maps event order shopping cart to a shopping cart entity.
@@ -159,7 +259,8 @@ public interface InfraMapper {
    * @param orderShoppingCart event order shopping cart.
    * @return mapped shopping cart entity.
    */
-  ShoppingCartEntity mapToShoppingCartEntity(OrderShoppingCart orderShoppingCart);
+  @Mapping(target = "version", ignore = true)
+  public abstract ShoppingCartEntity mapToShoppingCartEntity(OrderShoppingCart orderShoppingCart);
 
   /**
    * Maps shopping cart DTO to shopping cart items update requested event.
@@ -167,16 +268,28 @@ public interface InfraMapper {
    * @param shoppingCartDto shopping cart DTO to map.
    * @return ShoppingCartItemsUpdateRequestedEvent instance.
    */
-  ShoppingCartItemsUpdateRequestedEvent mapToShoppingCartItemsUpdateRequestedEvent(
-      ShoppingCartDto shoppingCartDto);
+  @Mapping(target = "changedItems", ignore = true)
+  @Mapping(target = "deletedProductIds", ignore = true)
+  public abstract ShoppingCartItemsUpdateRequestedEvent
+      mapToShoppingCartItemsUpdateRequestedEvent(ShoppingCartDto shoppingCartDto);
+
+  /**
+   * Maps item DTO to shopping cart item.
+   *
+   * @param itemDto item DTO to map.
+   * @return ShoppingCartItem instance.
+   */
+  public abstract ShoppingCartItem mapToShoppingCartItem(ItemDto itemDto);
 
   /**
-   * Maps order entity to order DTO.
+   * Maps order entity to order DTO, without its shopping cart, which is read from the shopping
+   * cart items storage.
    *
    * @param orderEntity order entity to map.
    * @return mapped order DTO.
    */
-  OrderDto mapToOrderDto(OrderEntity orderEntity);
+  @Mapping(target = "shoppingCart", ignore = true)
+  public abstract OrderDto mapToOrderDto(OrderEntity orderEntity);
 
   /**
    * Maps order DTO to order validation requested event.
@@ -184,7 +297,8 @@ public interface InfraMapper {
    * @param orderDto shopping cart DTO to map.
    * @return OrderValidationRequestedEvent instance.
    */
-  OrderValidationRequestedEvent mapToOrderValidationRequestedEvent(OrderDto orderDto);
+  public abstract OrderValidationRequestedEvent mapToOrderValidationRequestedEvent(
+      OrderDto orderDto);
 
   /**
    * Map a string to a optional list of strings.
@@ -193,13 +307,12 @@ public interface InfraMapper {
    * @return an optinal with a list of string.
    * @throws JsonProcessingException if an error happens.
    */
-  default Optional<List<String>> mapToOptionalListOfString(String errors)
+  public Optional<List<String>> mapToOptionalListOfString(String errors)
       throws JsonProcessingException {
     if (errors == null) {
       return Optional.empty();
     }
-    final ObjectMapper objectMapper = new ObjectMapper();
-    return Optional.ofNullable(List.of(objectMapper.readValue(errors, String[].class)));
+    return Optional.of(this.jsonCodec.readList(errors, String[].class));
   }
 
   /**
@@ -208,7 +321,7 @@ public interface InfraMapper {
    * @param orderDto shopping cart DTO to map.
    * @return OrderRejectedEvent instance.
    */
-  OrderRejectedEvent mapToOrderRejectedEvent(OrderDto orderDto);
+  public abstract OrderRejectedEvent mapToOrderRejectedEvent(OrderDto orderDto);
 
 
 }
@@ -0,0 +1,245 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.projections;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.stores.ShoppingCartItemsStore;
+import es.codeurjc.mca.tfm.purchases.infrastructure.stores.ShoppingCartStateStore;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Shopping carts read model, with ready to serve shopping cart DTOs by identifier. Shopping cart
+ * listeners update it once each transaction applying events is committed, so queries are served
+ * without database access nor items reading, and a rolled back transaction drops the changed
+ * shopping carts instead. Only shopping carts whose events are all consumed by this instance are
+ * kept, loading them from database once, as no other instance changes them, and the rest are
+ * loaded from database on every query. Kept shopping carts are dropped when partitions are
+ * revoked, and expire after a TTL, which bounds staleness of shopping carts changed by events
+ * retried by another instance. Stored DTOs are shared between requests, so they must not be
+ * modified.
+ */
+@Component
+public class ShoppingCartProjection {
+
+  /**
+   * Projection name used in metrics.
+   */
+  public static final String CACHE_NAME = "shoppingCartProjection";
+
+  /**
+   * Shopping cart repository.
+   */
+  private final JpaShoppingCartRepository jpaShoppingCartRepository;
+
+  /**
+   * Shopping cart items storage.
+   */
+  private final ShoppingCartItemsStore shoppingCartItemsStore;
+
+  /**
+   * Shopping cart state store, which knows the shopping carts owned by this instance.
+   */
+  private final ShoppingCartStateStore shoppingCartStateStore;
+
+  /**
+   * Shopping cart entry by shopping cart identifier.
+   */
+  private final Cache<Long, Entry> shoppingCarts;
+
+  /**
+   * Constructor.
+   *
+   * @param jpaShoppingCartRepository shopping cart repository.
+   * @param shoppingCartItemsStore    shopping cart items storage.
+   * @param shoppingCartStateStore    shopping cart state store.
+   * @param maxSize                   max number of shopping carts kept.
+   * @param ttlSeconds                seconds a shopping cart is kept since written.
+   */
+  @Autowired
+  public ShoppingCartProjection(JpaShoppingCartRepository jpaShoppingCartRepository,
+      ShoppingCartItemsStore shoppingCartItemsStore, ShoppingCartStateStore shoppingCartStateStore,
+      @Value("${projections.shoppingCarts.maxSize}") long maxSize,
+      @Value("${projections.shoppingCarts.ttlSeconds}") long ttlSeconds) {
+    this(jpaShoppingCartRepository, shoppingCartItemsStore, shoppingCartStateStore, maxSize,
+        Duration.ofSeconds(ttlSeconds), Ticker.systemTicker());
+    CaffeineCacheMetrics.monitor(Metrics.globalRegistry, this.shoppingCarts, CACHE_NAME);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param jpaShoppingCartRepository shopping cart repository.
+   * @param shoppingCartItemsStore    shopping cart items storage.
+   * @param shoppingCartStateStore    shopping cart state store.
+   * @param maxSize                   max number of shopping carts kept.
+   * @param ttl                       time a shopping cart is kept since written.
+   * @param ticker                    time source.
+   */
+  public ShoppingCartProjection(JpaShoppingCartRepository jpaShoppingCartRepository,
+      ShoppingCartItemsStore shoppingCartItemsStore, ShoppingCartStateStore shoppingCartStateStore,
+      long maxSize, Duration ttl, Ticker ticker) {
+    this.jpaShoppingCartRepository = jpaShoppingCartRepository;
+    this.shoppingCartItemsStore = shoppingCartItemsStore;
+    this.shoppingCartStateStore = shoppingCartStateStore;
+    this.shoppingCarts = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl)
+        .ticker(ticker)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Get shopping cart by identifier and user, loading it from database if not in projection, or
+   * kept since before a revocation of partitions. It's only kept if owned by this instance.
+   *
+   * @param id     shopping cart identifier.
+   * @param userId user identifier.
+   * @return optional of shopping cart with id and user.
+   */
+  public Optional<ShoppingCartDto> findByIdAndUser(Long id, Integer userId) {
+    long revocations = this.shoppingCartStateStore.revocations();
+    ShoppingCartDto shoppingCartDto;
+    if (this.shoppingCartStateStore.isOwned(id)) {
+      Entry entry = this.shoppingCarts.get(id, key -> this.load(key, revocations));
+      if (entry != null && entry.revocations != revocations) {
+        this.shoppingCarts.asMap().remove(id, entry);
+        entry = this.shoppingCarts.get(id, key -> this.load(key, revocations));
+      }
+      shoppingCartDto = entry != null ? entry.shoppingCartDto : null;
+    } else {
+      this.shoppingCarts.invalidate(id);
+      shoppingCartDto = this.read(id);
+    }
+    return Optional.ofNullable(shoppingCartDto)
+        .filter(dto -> userId.equals(dto.getUserId()));
+  }
+
+  /**
+   * Set shopping cart state after saving it in database, once current transaction is committed,
+   * if any, and if it's owned by this instance. Its items are read now, within the transaction.
+   *
+   * @param shoppingCartEntity saved shopping cart entity.
+   */
+  public void put(ShoppingCartEntity shoppingCartEntity) {
+    Long id = shoppingCartEntity.getId();
+    ShoppingCartDto shoppingCartDto = this.shoppingCartItemsStore.read(shoppingCartEntity);
+    this.afterCommit(id, () -> {
+      if (this.shoppingCartStateStore.isOwned(id)) {
+        this.shoppingCarts.put(id,
+            new Entry(shoppingCartDto, this.shoppingCartStateStore.revocations()));
+      } else {
+        this.shoppingCarts.invalidate(id);
+      }
+    });
+  }
+
+  /**
+   * Remove shopping cart after deleting it from database, once current transaction is committed,
+   * if any.
+   *
+   * @param id shopping cart identifier.
+   */
+  public void remove(Long id) {
+    this.afterCommit(id, () -> this.shoppingCarts.invalidate(id));
+  }
+
+  /**
+   * Get projection statistics, with hits and misses.
+   *
+   * @return projection statistics.
+   */
+  public CacheStats stats() {
+    return this.shoppingCarts.stats();
+  }
+
+  /**
+   * Load shopping cart entry from database.
+   *
+   * @param id          shopping cart identifier.
+   * @param revocations number of revocations of partitions before loading it.
+   * @return shopping cart entry, or null if not exists.
+   */
+  private Entry load(Long id, long revocations) {
+    ShoppingCartDto shoppingCartDto = this.read(id);
+    return shoppingCartDto != null ? new Entry(shoppingCartDto, revocations) : null;
+  }
+
+  /**
+   * Read shopping cart from database.
+   *
+   * @param id shopping cart identifier.
+   * @return shopping cart DTO, or null if not exists.
+   */
+  private ShoppingCartDto read(Long id) {
+    return this.jpaShoppingCartRepository.findById(id)
+        .map(this.shoppingCartItemsStore::read)
+        .orElse(null);
+  }
+
+  /**
+   * Run an action on the projection once current transaction is committed, or now if there isn't
+   * any. If the transaction is rolled back, the shopping cart is dropped, since a query run
+   * meanwhile may have kept uncommitted state.
+   *
+   * @param id     shopping cart identifier.
+   * @param action action to run.
+   */
+  private void afterCommit(Long id, Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        if (status == STATUS_COMMITTED) {
+          action.run();
+        } else {
+          shoppingCarts.invalidate(id);
+        }
+      }
+    });
+  }
+
+  /**
+   * Kept shopping cart, with the number of revocations of partitions when it was kept.
+   */
+  private static final class Entry {
+
+    /**
+     * Shopping cart DTO.
+     */
+    private final ShoppingCartDto shoppingCartDto;
+
+    /**
+     * Number of revocations of partitions when it was kept.
+     */
+    private final long revocations;
+
+    /**
+     * Constructor.
+     *
+     * @param shoppingCartDto shopping cart DTO.
+     * @param revocations     number of revocations of partitions when it was kept.
+     */
+    private Entry(ShoppingCartDto shoppingCartDto, long revocations) {
+      this.shoppingCartDto = shoppingCartDto;
+      this.revocations = revocations;
+    }
+
+  }
+
+}
@@ -0,0 +1,194 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.publishers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Merges the values of each key for a window since its first value, and then publishes the merged
+ * value, so a burst of values of the same key is published once. By default the latest value
+ * replaces the pending one. Publishing values of a key is serialized, without blocking setting new
+ * values of it, so values of a key are published in order, and a value which failed to be
+ * published is retried before newer ones. A zero window publishes each value right away.
+ *
+ * @param <K> key type.
+ * @param <V> value type.
+ */
+@Slf4j
+public class CoalescingBuffer<K, V> {
+
+  /**
+   * Number of locks serializing the publishing of keys.
+   */
+  private static final int PUBLISH_LOCKS = 64;
+
+  /**
+   * Pending value by key.
+   */
+  private final Map<K, V> pending = new ConcurrentHashMap<>();
+
+  /**
+   * Time a value is kept since the first pending value of its key.
+   */
+  private final Duration window;
+
+  /**
+   * Merges a pending value with a newer one.
+   */
+  private final BinaryOperator<V> merger;
+
+  /**
+   * Value publisher.
+   */
+  private final Consumer<V> publisher;
+
+  /**
+   * Locks serializing the publishing of keys, by key hash.
+   */
+  private final Object[] publishLocks = new Object[PUBLISH_LOCKS];
+
+  /**
+   * Scheduler of window ends, null if window is zero.
+   */
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * Constructor.
+   *
+   * @param name      name of the scheduler thread.
+   * @param window    time a value is kept since the first pending value of its key.
+   * @param publisher value publisher.
+   */
+  public CoalescingBuffer(String name, Duration window, Consumer<V> publisher) {
+    this(name, window, (pendingValue, value) -> value, publisher);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param name      name of the scheduler thread.
+   * @param window    time a value is kept since the first pending value of its key.
+   * @param merger    merges a pending value with a newer one.
+   * @param publisher value publisher.
+   */
+  public CoalescingBuffer(String name, Duration window, BinaryOperator<V> merger,
+      Consumer<V> publisher) {
+    this.window = window;
+    this.merger = merger;
+    this.publisher = publisher;
+    for (int i = 0; i < PUBLISH_LOCKS; i++) {
+      this.publishLocks[i] = new Object();
+    }
+    this.scheduler = window.isZero() ? null : Executors.newSingleThreadScheduledExecutor(
+        runnable -> {
+          Thread thread = new Thread(runnable, name);
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  /**
+   * Set latest value of a key, merging it with its pending value if any.
+   *
+   * @param key   key.
+   * @param value value.
+   */
+  public void put(K key, V value) {
+    if (this.scheduler == null) {
+      this.publisher.accept(value);
+      return;
+    }
+    AtomicBoolean first = new AtomicBoolean();
+    this.pending.compute(key, (pendingKey, pendingValue) -> {
+      if (pendingValue == null) {
+        first.set(true);
+        return value;
+      }
+      return this.merger.apply(pendingValue, value);
+    });
+    if (first.get()) {
+      this.scheduler.schedule(() -> this.flush(key), this.window.toMillis(),
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Get pending value of a key.
+   *
+   * @param key key.
+   * @return optional of pending value, empty if key has none.
+   */
+  public Optional<V> get(K key) {
+    return Optional.ofNullable(this.pending.get(key));
+  }
+
+  /**
+   * Publish pending value of a key, if any. The value is removed before publishing it, so new
+   * values of the key are set meanwhile without waiting, and published by a later flush, which
+   * waits for this one. If publishing fails, the value is set again, merged with any newer one,
+   * and published when the window ends again.
+   *
+   * @param key key.
+   */
+  public void flush(K key) {
+    synchronized (this.publishLocks[Math.floorMod(key.hashCode(), this.publishLocks.length)]) {
+      V value = this.pending.remove(key);
+      if (value == null) {
+        return;
+      }
+      try {
+        this.publisher.accept(value);
+      } catch (RuntimeException e) {
+        log.error("Error publishing pending value of {}, will be retried: {}", key,
+            e.getMessage());
+        this.putFailed(key, value);
+      }
+    }
+  }
+
+  /**
+   * Publish all pending values and stop scheduling window ends.
+   */
+  public void close() {
+    if (this.scheduler != null) {
+      this.scheduler.shutdownNow();
+    }
+    this.pending.keySet().forEach(this::flush);
+  }
+
+  /**
+   * Set again a value which failed to be published, before any newer value of its key, and
+   * schedule its publishing if the key had no newer value.
+   *
+   * @param key   key.
+   * @param value value which failed to be published.
+   */
+  private void putFailed(K key, V value) {
+    AtomicBoolean first = new AtomicBoolean();
+    this.pending.compute(key, (pendingKey, newerValue) -> {
+      if (newerValue == null) {
+        first.set(true);
+        return value;
+      }
+      return this.merger.apply(value, newerValue);
+    });
+    if (first.get()) {
+      try {
+        this.scheduler.schedule(() -> this.flush(key), this.window.toMillis(),
+            TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        log.error("Pending value of {} not published, buffer is closed", key);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,140 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.publishers;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Asynchronous Kafka encoded events publisher. Sends don't wait for broker acknowledgement, and a
+ * callback records send latency, event size and errors per topic, and logs failed sends.
+ */
+@Component
+@Slf4j
+public class KafkaEventPublisher {
+
+  /**
+   * Send latency metric name.
+   */
+  public static final String SEND_METRIC = "kafka.producer.send";
+
+  /**
+   * Event size metric name.
+   */
+  public static final String EVENT_SIZE_METRIC = "kafka.producer.event.size";
+
+  /**
+   * Send errors metric name.
+   */
+  public static final String SEND_ERRORS_METRIC = "kafka.producer.send.errors";
+
+  /**
+   * Topic tag name.
+   */
+  private static final String TOPIC_TAG = "topic";
+
+  /**
+   * Result tag name.
+   */
+  private static final String RESULT_TAG = "result";
+
+  /**
+   * Exception tag name.
+   */
+  private static final String EXCEPTION_TAG = "exception";
+
+  /**
+   * Kafka template.
+   */
+  private final KafkaTemplate<String, byte[]> kafkaTemplate;
+
+  /**
+   * Meter registry.
+   */
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Constructor.
+   *
+   * @param kafkaTemplate kafka template.
+   */
+  @Autowired
+  public KafkaEventPublisher(KafkaTemplate<String, byte[]> kafkaTemplate) {
+    this(kafkaTemplate, Metrics.globalRegistry);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param kafkaTemplate kafka template.
+   * @param meterRegistry meter registry.
+   */
+  public KafkaEventPublisher(KafkaTemplate<String, byte[]> kafkaTemplate,
+      MeterRegistry meterRegistry) {
+    this.kafkaTemplate = kafkaTemplate;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Send an encoded event to a topic without waiting for acknowledgement.
+   *
+   * @param topic   topic.
+   * @param key     event key, which selects the partition.
+   * @param eventId event identifier, sent as header if not null.
+   * @param data    encoded event.
+   * @return future completed when event is acknowledged or failed.
+   */
+  public ListenableFuture<SendResult<String, byte[]>> publish(String topic, String key,
+      Long eventId, byte[] data) {
+    DistributionSummary.builder(EVENT_SIZE_METRIC)
+        .baseUnit("bytes")
+        .tag(TOPIC_TAG, topic)
+        .register(this.meterRegistry)
+        .record(data.length);
+    long start = System.nanoTime();
+    ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic, key, data);
+    if (eventId != null) {
+      record.headers().add(EventHeaders.EVENT_ID, EventHeaders.encodeEventId(eventId));
+    }
+    ListenableFuture<SendResult<String, byte[]>> future = this.kafkaTemplate.send(record);
+    future.addCallback(
+        result -> this.recordSend(topic, "success", start),
+        exception -> {
+          this.recordSend(topic, "failure", start);
+          Counter.builder(SEND_ERRORS_METRIC)
+              .tag(TOPIC_TAG, topic)
+              .tag(EXCEPTION_TAG, exception.getClass().getSimpleName())
+              .register(this.meterRegistry)
+              .increment();
+          log.error("Error sending event with key {} to topic {}: {}", key, topic,
+              exception.getMessage());
+        });
+    return future;
+  }
+
+  /**
+   * Record send latency.
+   *
+   * @param topic  topic.
+   * @param result send result tag.
+   * @param start  send start nano time.
+   */
+  private void recordSend(String topic, String result, long start) {
+    Timer.builder(SEND_METRIC)
+        .tag(TOPIC_TAG, topic)
+        .tag(RESULT_TAG, result)
+        .register(this.meterRegistry)
+        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+  }
+
+}
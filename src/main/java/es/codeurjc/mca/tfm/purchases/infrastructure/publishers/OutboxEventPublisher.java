@@ -0,0 +1,61 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.publishers;
+
+import es.codeurjc.mca.tfm.purchases.domain.ports.out.IdGenerator;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OutboxEventEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaOutboxEventRepository;
+import java.io.IOException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Transactional outbox events publisher. Events are encoded with the codec of their topic and
+ * saved in the outbox table, in the current transaction if there is one, so they are only sent if
+ * the entity changes made with them are committed. Outbox relay sends them to Kafka.
+ */
+@Component
+public class OutboxEventPublisher {
+
+  /**
+   * Outbox event repository.
+   */
+  private final JpaOutboxEventRepository jpaOutboxEventRepository;
+
+  /**
+   * Events codecs.
+   */
+  private final EventCodecs eventCodecs;
+
+  /**
+   * Event identifier generator.
+   */
+  private final IdGenerator idGenerator;
+
+  /**
+   * Constructor.
+   *
+   * @param jpaOutboxEventRepository outbox event repository.
+   * @param eventCodecs              events codecs.
+   * @param idGenerator              event identifier generator.
+   */
+  public OutboxEventPublisher(JpaOutboxEventRepository jpaOutboxEventRepository,
+      EventCodecs eventCodecs, IdGenerator idGenerator) {
+    this.jpaOutboxEventRepository = jpaOutboxEventRepository;
+    this.eventCodecs = eventCodecs;
+    this.idGenerator = idGenerator;
+  }
+
+  /**
+   * Save an event in the outbox to be sent to a topic, with a new unique event identifier, which
+   * consumers use to drop redelivered events.
+   *
+   * @param topic topic.
+   * @param key   event key, which selects the partition.
+   * @param event event to send.
+   * @throws IOException if event can't be encoded.
+   */
+  public void publish(String topic, String key, Object event) throws IOException {
+    this.jpaOutboxEventRepository.save(new OutboxEventEntity(null, topic, key,
+        this.idGenerator.nextId(), this.eventCodecs.encode(topic, event)));
+  }
+
+}
@@ -0,0 +1,143 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.publishers;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OutboxEventEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaOutboxEventRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Outbox relay, which drains the events written by any instance in identifier order. Each batch
+ * is claimed in its own transaction by locking its rows, skipping those locked by the relay of
+ * another instance, and is only sent if it starts at the oldest event, so a single relay sends
+ * at a time and events are never sent out of order by concurrent relays. Identifiers follow
+ * insert order, not commit order, so an event committed late may be sent after newer events of
+ * other transactions. Each batch is sent without waiting between events, so the producer batches
+ * them, and then acknowledgements are awaited. Only events up to the first failed one are
+ * deleted, and the rest are sent again, in the same order, on next run, so events may be
+ * duplicated but are never lost.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+  /**
+   * Outbox event repository.
+   */
+  private final JpaOutboxEventRepository jpaOutboxEventRepository;
+
+  /**
+   * Kafka events publisher.
+   */
+  private final KafkaEventPublisher kafkaEventPublisher;
+
+  /**
+   * Template to run each batch in its own transaction.
+   */
+  private final TransactionTemplate transactionTemplate;
+
+  /**
+   * Max number of events sent per batch.
+   */
+  private final int batchSize;
+
+  /**
+   * Constructor.
+   *
+   * @param jpaOutboxEventRepository outbox event repository.
+   * @param kafkaEventPublisher      kafka events publisher.
+   * @param transactionManager       transaction manager.
+   * @param batchSize                max number of events sent per batch.
+   */
+  public OutboxRelay(JpaOutboxEventRepository jpaOutboxEventRepository,
+      KafkaEventPublisher kafkaEventPublisher,
+      PlatformTransactionManager transactionManager,
+      @Value("${outbox.relay.batchSize}") int batchSize) {
+    this.jpaOutboxEventRepository = jpaOutboxEventRepository;
+    this.kafkaEventPublisher = kafkaEventPublisher;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Send pending outbox events until outbox is empty, a send fails or another relay is sending.
+   *
+   * @return number of sent events.
+   */
+  @Scheduled(fixedDelayString = "${outbox.relay.intervalMs}")
+  public int relay() {
+    int relayed = 0;
+    Integer sent;
+    do {
+      sent = this.transactionTemplate.execute(status -> this.relayBatch());
+      relayed += sent;
+    } while (sent == this.batchSize);
+    if (relayed > 0) {
+      log.debug("Relayed {} outbox events", relayed);
+    }
+    return relayed;
+  }
+
+  /**
+   * Claim the oldest batch of events, send it and delete the sent events, in current transaction.
+   * A batch not starting at the oldest event is released without sending it, since its previous
+   * events are being sent by another relay.
+   *
+   * @return number of sent events.
+   */
+  private int relayBatch() {
+    Long oldestId = this.jpaOutboxEventRepository.findOldestId();
+    if (oldestId == null) {
+      return 0;
+    }
+    List<OutboxEventEntity> batch = this.jpaOutboxEventRepository.claimOldest(this.batchSize);
+    if (batch.isEmpty() || !oldestId.equals(batch.get(0).getId())) {
+      return 0;
+    }
+    int sent = this.send(batch);
+    if (sent > 0) {
+      this.jpaOutboxEventRepository.deleteAllByIdInBatch(batch.subList(0, sent).stream()
+          .map(OutboxEventEntity::getId)
+          .collect(Collectors.toList()));
+    }
+    return sent;
+  }
+
+  /**
+   * Send a batch of events and wait for their acknowledgement.
+   *
+   * @param batch events to send.
+   * @return number of events acknowledged before the first failed one.
+   */
+  private int send(List<OutboxEventEntity> batch) {
+    List<ListenableFuture<SendResult<String, byte[]>>> futures = new ArrayList<>(batch.size());
+    for (OutboxEventEntity outboxEventEntity : batch) {
+      futures.add(this.kafkaEventPublisher.publish(outboxEventEntity.getTopic(),
+          outboxEventEntity.getEventKey(), outboxEventEntity.getEventId(),
+          outboxEventEntity.getPayload()));
+    }
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        futures.get(i).get();
+      } catch (ExecutionException e) {
+        log.error("Outbox event {} not sent, will be retried: {}", batch.get(i).getId(),
+            e.getMessage());
+        return i;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return i;
+      }
+    }
+    return futures.size();
+  }
+
+}
@@ -0,0 +1,150 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.rebuilders;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.CartItemEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OrderEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writer of rebuilt shopping carts, shopping cart items and orders tables. Rows are inserted into
+ * empty staging copies of the tables, in chunks sent as a single JDBC batch each, and then staging
+ * tables replace the current ones with a single atomic rename, so readers see either the previous
+ * tables or the rebuilt ones, and a failed rebuild leaves the current ones untouched. Foreign keys
+ * are dropped with the previous tables and added again to the rebuilt ones. Shopping cart items
+ * get their sequence numbers from the staging table, in insertion order.
+ */
+@Component
+public class ProjectionRebuildWriter {
+
+  /**
+   * Suffix of staging tables.
+   */
+  public static final String STAGING_SUFFIX = "_rebuild";
+
+  /**
+   * Suffix of previous tables, while they are replaced.
+   */
+  public static final String PREVIOUS_SUFFIX = "_previous";
+
+  /**
+   * Rebuilt tables, referenced tables first.
+   */
+  private static final List<String> TABLES = List.of("shopping_carts", "cart_items", "orders");
+
+  /**
+   * Statements adding foreign keys of rebuilt tables, with the same names given by migrations.
+   */
+  private static final List<String> FOREIGN_KEYS = List.of(
+      "alter table orders add constraint FKn63qt2b9c7hfgq7iekl7lgojm "
+          + "foreign key (shopping_cart_id) references shopping_carts (id)",
+      "alter table cart_items add constraint fk_cart_items_cart_id "
+          + "foreign key (cart_id) references shopping_carts (id) on delete cascade");
+
+  /**
+   * JDBC template.
+   */
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Constructor.
+   *
+   * @param jdbcTemplate JDBC template.
+   */
+  public ProjectionRebuildWriter(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Create empty staging tables like the current ones, dropping those left by a failed rebuild.
+   */
+  public void prepare() {
+    this.jdbcTemplate.execute("drop table if exists " + tables(STAGING_SUFFIX));
+    TABLES.forEach(table -> this.jdbcTemplate.execute(
+        "create table " + table + STAGING_SUFFIX + " like " + table));
+  }
+
+  /**
+   * Insert a chunk of new entities of the same type into their staging table in a single JDBC
+   * batch.
+   *
+   * @param entities new entities, referencing only already inserted ones.
+   */
+  public void insertAll(List<?> entities) {
+    if (entities.isEmpty()) {
+      return;
+    }
+    if (entities.get(0) instanceof ShoppingCartEntity) {
+      this.jdbcTemplate.batchUpdate("insert into shopping_carts" + STAGING_SUFFIX
+              + " (id, user_id, completed, items, total_price, version) values (?, ?, ?, ?, ?, ?)",
+          entities.stream().map(ShoppingCartEntity.class::cast)
+              .map(shoppingCart -> new Object[]{shoppingCart.getId(), shoppingCart.getUserId(),
+                  shoppingCart.isCompleted(), shoppingCart.getItems(),
+                  shoppingCart.getTotalPrice().toBigDecimal(),
+                  shoppingCart.getVersion() == null ? 0L : shoppingCart.getVersion()})
+              .collect(Collectors.toList()));
+    } else if (entities.get(0) instanceof CartItemEntity) {
+      this.jdbcTemplate.batchUpdate("insert into cart_items" + STAGING_SUFFIX
+              + " (cart_id, product_id, unit_price, quantity, total_price) values (?, ?, ?, ?, ?)",
+          entities.stream().map(CartItemEntity.class::cast)
+              .map(item -> new Object[]{item.getCartId(), item.getProductId(),
+                  item.getUnitPrice().toBigDecimal(), item.getQuantity(),
+                  item.getTotalPrice().toBigDecimal()})
+              .collect(Collectors.toList()));
+    } else {
+      this.jdbcTemplate.batchUpdate("insert into orders" + STAGING_SUFFIX
+              + " (id, shopping_cart_id, state, errors, version) values (?, ?, ?, ?, ?)",
+          entities.stream().map(OrderEntity.class::cast)
+              .map(order -> new Object[]{order.getId(), order.getShoppingCart().getId(),
+                  order.getState(), order.getErrors(), order.getVersion()})
+              .collect(Collectors.toList()));
+    }
+  }
+
+  /**
+   * Replace current tables with staging ones in a single atomic rename, drop the previous ones
+   * and add foreign keys to the rebuilt ones, without checking rows, as they were rebuilt
+   * consistent.
+   */
+  public void swap() {
+    this.jdbcTemplate.execute("rename table " + TABLES.stream()
+        .map(table -> table + " to " + table + PREVIOUS_SUFFIX + ", "
+            + table + STAGING_SUFFIX + " to " + table)
+        .collect(Collectors.joining(", ")));
+    this.jdbcTemplate.execute("drop table " + tables(PREVIOUS_SUFFIX));
+    this.jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("set foreign_key_checks = 0");
+        try {
+          for (String foreignKey : FOREIGN_KEYS) {
+            statement.execute(foreignKey);
+          }
+        } finally {
+          statement.execute("set foreign_key_checks = 1");
+        }
+      }
+      return null;
+    });
+  }
+
+  /**
+   * List rebuilt tables with a suffix, referencing tables first, so they can be dropped at once.
+   *
+   * @param suffix tables suffix.
+   * @return comma separated table names.
+   */
+  private static String tables(String suffix) {
+    List<String> tables = new ArrayList<>(TABLES);
+    Collections.reverse(tables);
+    return tables.stream()
+        .map(table -> table + suffix)
+        .collect(Collectors.joining(", "));
+  }
+
+}
@@ -0,0 +1,480 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.rebuilders;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.CartItemEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OrderEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderCreationRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCompletionRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCreationRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartDeletionRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItem;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapper;
+import es.codeurjc.mca.tfm.purchases.infrastructure.stores.ShoppingCartItemsStore;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shopping carts and orders tables rebuilder, run instead of the listeners when rebuild mode is
+ * enabled. Shopping cart and order topics are replayed from the beginning, in event time order and
+ * with large fetches, and events are applied in memory following the same rules as the listeners,
+ * but without their follow-up events, as these are replayed from their own topics. A replay is
+ * refused if any partition lost its first events to retention. Order state changes are not
+ * replayed, as their results are the order update events. Then tables are rebuilt into staging
+ * tables with batched inserts, which atomically replace the current ones, and the application
+ * exits. Shopping cart items are written with the configured items storage, so a rebuild also
+ * moves them to a newly selected one.
+ */
+@Component
+@ConditionalOnProperty(name = "rebuild.enabled", havingValue = "true")
+@Slf4j
+public class ProjectionRebuilder implements ApplicationRunner {
+
+  /**
+   * Consumer factory.
+   */
+  private final ConsumerFactory<String, byte[]> consumerFactory;
+
+  /**
+   * Rebuilt tables writer.
+   */
+  private final ProjectionRebuildWriter projectionRebuildWriter;
+
+  /**
+   * Mapper.
+   */
+  private final InfraMapper mapper;
+
+  /**
+   * Shopping cart items storage.
+   */
+  private final ShoppingCartItemsStore shoppingCartItemsStore;
+
+  /**
+   * Events codecs.
+   */
+  private final EventCodecs eventCodecs;
+
+  /**
+   * Application context.
+   */
+  private final ApplicationContext applicationContext;
+
+  /**
+   * Create shopping cart topic.
+   */
+  private final String createShoppingCartTopic;
+
+  /**
+   * Update items topic.
+   */
+  private final String updateItemsTopic;
+
+  /**
+   * Complete shopping cart topic.
+   */
+  private final String completeShoppingCartTopic;
+
+  /**
+   * Delete shopping cart topic.
+   */
+  private final String deleteShoppingCartTopic;
+
+  /**
+   * Create order topic.
+   */
+  private final String createOrderTopic;
+
+  /**
+   * Update order topic.
+   */
+  private final String updateOrderTopic;
+
+  /**
+   * Kafka group identifier, used as prefix of the rebuild one.
+   */
+  private final String groupId;
+
+  /**
+   * Max number of records per poll, also buffered per partition.
+   */
+  private final int maxPollRecords;
+
+  /**
+   * Min number of bytes per fetch.
+   */
+  private final int fetchMinBytes;
+
+  /**
+   * Max number of bytes per partition and fetch.
+   */
+  private final int maxPartitionFetchBytes;
+
+  /**
+   * Number of entities inserted per batch.
+   */
+  private final int writeBatchSize;
+
+  /**
+   * Interval between progress logs, in milliseconds.
+   */
+  private final long progressIntervalMs;
+
+  /**
+   * Rebuilt shopping carts by identifier, in creation order.
+   */
+  private Map<Long, ShoppingCartEntity> shoppingCarts;
+
+  /**
+   * Items of rebuilt shopping carts by identifier.
+   */
+  private Map<Long, List<ShoppingCartItem>> shoppingCartItems;
+
+  /**
+   * Incomplete rebuilt shopping cart identifier by user.
+   */
+  private Map<Integer, Long> incompleteShoppingCartIds;
+
+  /**
+   * Rebuilt orders by identifier, in creation order.
+   */
+  private Map<Long, OrderEntity> orders;
+
+  /**
+   * Identifiers of applied events, to skip redelivered ones.
+   */
+  private Set<Long> eventIds;
+
+  /**
+   * Number of skipped records.
+   */
+  private long skipped;
+
+  /**
+   * Constructor.
+   *
+   * @param consumerFactory           consumer factory.
+   * @param projectionRebuildWriter   rebuilt tables writer.
+   * @param mapper                    mapper.
+   * @param shoppingCartItemsStore    shopping cart items storage.
+   * @param eventCodecs               events codecs.
+   * @param applicationContext        application context.
+   * @param createShoppingCartTopic   create shopping cart topic.
+   * @param updateItemsTopic          update items topic.
+   * @param completeShoppingCartTopic complete shopping cart topic.
+   * @param deleteShoppingCartTopic   delete shopping cart topic.
+   * @param createOrderTopic          create order topic.
+   * @param updateOrderTopic          update order topic.
+   * @param groupId                   kafka group identifier.
+   * @param maxPollRecords            max number of records per poll.
+   * @param fetchMinBytes             min number of bytes per fetch.
+   * @param maxPartitionFetchBytes    max number of bytes per partition and fetch.
+   * @param writeBatchSize            number of entities inserted per batch.
+   * @param progressIntervalMs        interval between progress logs, in milliseconds.
+   */
+  public ProjectionRebuilder(ConsumerFactory<String, byte[]> consumerFactory,
+      ProjectionRebuildWriter projectionRebuildWriter,
+      InfraMapper mapper,
+      ShoppingCartItemsStore shoppingCartItemsStore,
+      EventCodecs eventCodecs,
+      ApplicationContext applicationContext,
+      @Value("${kafka.topics.createShoppingCart}") String createShoppingCartTopic,
+      @Value("${kafka.topics.updateItems}") String updateItemsTopic,
+      @Value("${kafka.topics.completeShoppingCart}") String completeShoppingCartTopic,
+      @Value("${kafka.topics.deleteShoppingCart}") String deleteShoppingCartTopic,
+      @Value("${kafka.topics.createOrder}") String createOrderTopic,
+      @Value("${kafka.topics.updateOrder}") String updateOrderTopic,
+      @Value("${kafka.groupId}") String groupId,
+      @Value("${rebuild.maxPollRecords}") int maxPollRecords,
+      @Value("${rebuild.fetchMinBytes}") int fetchMinBytes,
+      @Value("${rebuild.maxPartitionFetchBytes}") int maxPartitionFetchBytes,
+      @Value("${rebuild.writeBatchSize}") int writeBatchSize,
+      @Value("${rebuild.progressIntervalMs}") long progressIntervalMs) {
+    this.consumerFactory = consumerFactory;
+    this.projectionRebuildWriter = projectionRebuildWriter;
+    this.mapper = mapper;
+    this.shoppingCartItemsStore = shoppingCartItemsStore;
+    this.eventCodecs = eventCodecs;
+    this.applicationContext = applicationContext;
+    this.createShoppingCartTopic = createShoppingCartTopic;
+    this.updateItemsTopic = updateItemsTopic;
+    this.completeShoppingCartTopic = completeShoppingCartTopic;
+    this.deleteShoppingCartTopic = deleteShoppingCartTopic;
+    this.createOrderTopic = createOrderTopic;
+    this.updateOrderTopic = updateOrderTopic;
+    this.groupId = groupId;
+    this.maxPollRecords = maxPollRecords;
+    this.fetchMinBytes = fetchMinBytes;
+    this.maxPartitionFetchBytes = maxPartitionFetchBytes;
+    this.writeBatchSize = writeBatchSize;
+    this.progressIntervalMs = progressIntervalMs;
+  }
+
+  /**
+   * Rebuild tables and exit.
+   *
+   * @param args application arguments.
+   * @throws Exception if an error rebuilding tables happens.
+   */
+  @Override
+  public void run(ApplicationArguments args) throws Exception {
+    this.rebuild();
+    System.exit(SpringApplication.exit(this.applicationContext));
+  }
+
+  /**
+   * Rebuild shopping carts and orders tables from their topics.
+   *
+   * @throws Exception if an error replaying topics or writing tables happens.
+   */
+  public void rebuild() throws Exception {
+    this.shoppingCarts = new LinkedHashMap<>();
+    this.shoppingCartItems = new HashMap<>();
+    this.incompleteShoppingCartIds = new HashMap<>();
+    this.orders = new LinkedHashMap<>();
+    this.eventIds = new HashSet<>();
+    this.skipped = 0;
+
+    long replayed;
+    try (Consumer<String, byte[]> consumer = this.createConsumer()) {
+      replayed = new TopicsReplayer(consumer, this.maxPollRecords, this.progressIntervalMs)
+          .replay(List.of(this.createShoppingCartTopic, this.updateItemsTopic,
+              this.completeShoppingCartTopic, this.deleteShoppingCartTopic,
+              this.createOrderTopic, this.updateOrderTopic), this::apply);
+    }
+    log.info("Applied {} records, skipped {}", replayed - this.skipped, this.skipped);
+
+    List<CartItemEntity> cartItemEntities = new ArrayList<>();
+    for (Map.Entry<Long, List<ShoppingCartItem>> entry : this.shoppingCartItems.entrySet()) {
+      cartItemEntities.addAll(this.shoppingCartItemsStore.setItems(
+          this.shoppingCarts.get(entry.getKey()), entry.getValue()));
+    }
+    List<OrderEntity> orderEntities = new ArrayList<>(this.orders.size());
+    for (OrderEntity orderEntity : this.orders.values()) {
+      ShoppingCartEntity shoppingCartEntity =
+          this.shoppingCarts.get(orderEntity.getShoppingCart().getId());
+      if (shoppingCartEntity == null) {
+        log.error("Skipped order {} of not found shopping cart {}", orderEntity.getId(),
+            orderEntity.getShoppingCart().getId());
+      } else {
+        orderEntity.setShoppingCart(shoppingCartEntity);
+        orderEntities.add(orderEntity);
+      }
+    }
+
+    final long start = System.nanoTime();
+    this.projectionRebuildWriter.prepare();
+    this.insertAll(new ArrayList<>(this.shoppingCarts.values()));
+    this.insertAll(cartItemEntities);
+    this.insertAll(orderEntities);
+    this.projectionRebuildWriter.swap();
+    long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    log.info("Inserted {} shopping carts, {} shopping cart items and {} orders in {} ms, {} rows/s",
+        this.shoppingCarts.size(), cartItemEntities.size(), orderEntities.size(), elapsedMs,
+        (this.shoppingCarts.size() + cartItemEntities.size() + orderEntities.size()) * 1000L
+            / elapsedMs);
+  }
+
+  /**
+   * Create a consumer with large fetches, which never commits offsets.
+   *
+   * @return consumer.
+   */
+  private Consumer<String, byte[]> createConsumer() {
+    Properties properties = new Properties();
+    properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+    properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, this.maxPollRecords);
+    properties.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, this.fetchMinBytes);
+    properties.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, this.maxPartitionFetchBytes);
+    return this.consumerFactory.createConsumer(this.groupId + "-rebuild", null, null,
+        properties);
+  }
+
+  /**
+   * Insert entities in batches.
+   *
+   * @param entities entities.
+   */
+  private void insertAll(List<?> entities) {
+    for (int from = 0; from < entities.size(); from += this.writeBatchSize) {
+      this.projectionRebuildWriter.insertAll(
+          entities.subList(from, Math.min(from + this.writeBatchSize, entities.size())));
+    }
+  }
+
+  /**
+   * Apply a replayed record. Redelivered events, and the ones that can't be decoded or applied,
+   * are skipped.
+   *
+   * @param record replayed record.
+   */
+  private void apply(ConsumerRecord<String, byte[]> record) {
+    Long eventId = EventHeaders.getEventId(record);
+    if (eventId != null && !this.eventIds.add(eventId)) {
+      this.skipped++;
+      return;
+    }
+    try {
+      boolean applied;
+      String topic = record.topic();
+      if (topic.equals(this.createShoppingCartTopic)) {
+        applied = this.apply(this.eventCodecs.decode(record.value(),
+            ShoppingCartCreationRequestedEvent.class));
+      } else if (topic.equals(this.updateItemsTopic)) {
+        applied = this.apply(this.eventCodecs.decode(record.value(),
+            ShoppingCartItemsUpdateRequestedEvent.class));
+      } else if (topic.equals(this.completeShoppingCartTopic)) {
+        applied = this.apply(this.eventCodecs.decode(record.value(),
+            ShoppingCartCompletionRequestedEvent.class));
+      } else if (topic.equals(this.deleteShoppingCartTopic)) {
+        applied = this.apply(this.eventCodecs.decode(record.value(),
+            ShoppingCartDeletionRequestedEvent.class));
+      } else if (topic.equals(this.createOrderTopic)) {
+        applied = this.apply(this.eventCodecs.decode(record.value(),
+            OrderCreationRequestedEvent.class));
+      } else {
+        applied = this.apply(this.eventCodecs.decode(record.value(),
+            OrderUpdateRequestedEvent.class));
+      }
+      if (!applied) {
+        this.skipped++;
+      }
+    } catch (IOException e) {
+      log.error("Skipped record {} of partition {} of topic {}: {}", record.offset(),
+          record.partition(), record.topic(), e.getMessage());
+      this.skipped++;
+    }
+  }
+
+  /**
+   * Apply a shopping cart creation event, unless the user has an incomplete shopping cart.
+   *
+   * @param event shopping cart creation event.
+   * @return true if applied, else false.
+   * @throws IOException if an error mapping items happens.
+   */
+  private boolean apply(ShoppingCartCreationRequestedEvent event) throws IOException {
+    ShoppingCartEntity shoppingCartEntity = this.mapper.map(event);
+    if (this.incompleteShoppingCartIds.containsKey(shoppingCartEntity.getUserId())
+        || this.shoppingCarts.containsKey(shoppingCartEntity.getId())) {
+      return false;
+    }
+    this.shoppingCarts.put(shoppingCartEntity.getId(), shoppingCartEntity);
+    this.shoppingCartItems.put(shoppingCartEntity.getId(),
+        this.mapper.mapToShoppingCartItemList(shoppingCartEntity.getItems()));
+    this.incompleteShoppingCartIds.put(shoppingCartEntity.getUserId(), shoppingCartEntity.getId());
+    return true;
+  }
+
+  /**
+   * Apply a shopping cart items update event over an incomplete shopping cart.
+   *
+   * @param event shopping cart items update event.
+   * @return true if applied, else false.
+   */
+  private boolean apply(ShoppingCartItemsUpdateRequestedEvent event) {
+    ShoppingCartEntity shoppingCartEntity = this.shoppingCarts.get(event.getId());
+    if (shoppingCartEntity == null || shoppingCartEntity.isCompleted()) {
+      return false;
+    }
+    List<ShoppingCartItem> items =
+        this.mapper.mapToUpdatedItems(this.shoppingCartItems.get(event.getId()), event);
+    this.shoppingCartItems.put(event.getId(), items);
+    shoppingCartEntity.setTotalPrice(this.mapper.mapToTotalPrice(items));
+    return true;
+  }
+
+  /**
+   * Apply a shopping cart completion event over an incomplete shopping cart with the same total
+   * price.
+   *
+   * @param event shopping cart completion event.
+   * @return true if applied, else false.
+   */
+  private boolean apply(ShoppingCartCompletionRequestedEvent event) {
+    ShoppingCartEntity shoppingCartEntity = this.shoppingCarts.get(event.getId());
+    if (shoppingCartEntity == null || shoppingCartEntity.isCompleted()
+        || shoppingCartEntity.getTotalPrice().compareTo(event.getTotalPrice()) != 0) {
+      return false;
+    }
+    shoppingCartEntity.setCompleted(true);
+    this.incompleteShoppingCartIds.remove(shoppingCartEntity.getUserId());
+    return true;
+  }
+
+  /**
+   * Apply a shopping cart deletion event.
+   *
+   * @param event shopping cart deletion event.
+   * @return true if applied, else false.
+   */
+  private boolean apply(ShoppingCartDeletionRequestedEvent event) {
+    ShoppingCartEntity shoppingCartEntity = this.shoppingCarts.remove(event.getId());
+    if (shoppingCartEntity == null) {
+      return false;
+    }
+    this.shoppingCartItems.remove(event.getId());
+    if (!shoppingCartEntity.isCompleted()) {
+      this.incompleteShoppingCartIds.remove(shoppingCartEntity.getUserId());
+    }
+    return true;
+  }
+
+  /**
+   * Apply an order creation event.
+   *
+   * @param event order creation event.
+   * @return true if applied, else false.
+   */
+  private boolean apply(OrderCreationRequestedEvent event) {
+    return this.orders.putIfAbsent(event.getId(), this.mapper.mapToOrderEntity(event)) == null;
+  }
+
+  /**
+   * Apply an order update event, unless its version was already applied.
+   *
+   * @param event order update event.
+   * @return true if applied, else false.
+   * @throws IOException if an error mapping errors happens.
+   */
+  private boolean apply(OrderUpdateRequestedEvent event) throws IOException {
+    OrderEntity orderEntity = this.orders.get(event.getId());
+    if (orderEntity == null || (event.getVersion() != null && event.getVersion()
+        <= (orderEntity.getVersion() == null ? 0 : orderEntity.getVersion()))) {
+      return false;
+    }
+    orderEntity.setState(event.getState());
+    String errors = this.mapper.map(event.getErrors());
+    if (errors != null) {
+      orderEntity.setErrors(errors);
+    }
+    if (event.getVersion() != null) {
+      orderEntity.setVersion(event.getVersion());
+    }
+    return true;
+  }
+
+}
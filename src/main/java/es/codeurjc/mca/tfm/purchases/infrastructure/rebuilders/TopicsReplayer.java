@@ -0,0 +1,200 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.rebuilders;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import es.codeurjc.mca.tfm.purchases.infrastructure.workers.KeyOrderedWorkerPool.RecordHandler;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * Topics replayer, which reads all partitions of some topics from the beginning up to their end
+ * offsets at start, and hands their records to a handler in event time order, as events of
+ * different topics depend on each other. Records are fetched ahead into a buffer per partition,
+ * and the earliest record among the heads of all partitions is handed next, so every partition not
+ * fully read needs a buffered record before handing one. Partitions with a full buffer are paused,
+ * so memory is bounded. Progress and records rate are logged periodically.
+ */
+@Slf4j
+public class TopicsReplayer {
+
+  /**
+   * Poll timeout.
+   */
+  private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+  /**
+   * Consumer, not subscribed nor assigned.
+   */
+  private final Consumer<String, byte[]> consumer;
+
+  /**
+   * Max number of records buffered per partition.
+   */
+  private final int maxBufferedRecords;
+
+  /**
+   * Interval between progress logs, in milliseconds.
+   */
+  private final long progressIntervalMs;
+
+  /**
+   * Constructor.
+   *
+   * @param consumer           consumer, not subscribed nor assigned.
+   * @param maxBufferedRecords max number of records buffered per partition.
+   * @param progressIntervalMs interval between progress logs, in milliseconds.
+   */
+  public TopicsReplayer(Consumer<String, byte[]> consumer, int maxBufferedRecords,
+      long progressIntervalMs) {
+    this.consumer = consumer;
+    this.maxBufferedRecords = maxBufferedRecords;
+    this.progressIntervalMs = progressIntervalMs;
+  }
+
+  /**
+   * Replay topics records, up to their end offsets at start, in event time order. Partitions
+   * must still have their first record, as a replay missing deleted records would be incomplete.
+   *
+   * @param topics  topics to replay.
+   * @param handler record handler.
+   * @return number of replayed records.
+   * @throws IllegalStateException if a partition doesn't start at offset 0.
+   * @throws Exception             if an error handling a record happens.
+   */
+  public long replay(Collection<String> topics, RecordHandler handler) throws Exception {
+    List<TopicPartition> partitions = topics.stream()
+        .flatMap(topic -> this.consumer.partitionsFor(topic).stream()
+            .map(partitionInfo -> new TopicPartition(topic, partitionInfo.partition())))
+        .collect(Collectors.toList());
+    this.consumer.assign(partitions);
+    this.consumer.beginningOffsets(partitions).forEach((partition, beginningOffset) -> {
+      if (beginningOffset > 0) {
+        throw new IllegalStateException("Partition " + partition + " starts at offset "
+            + beginningOffset + ", so its previous events were deleted and can't be replayed");
+      }
+    });
+    this.consumer.seekToBeginning(partitions);
+    Map<TopicPartition, Long> endOffsets = this.consumer.endOffsets(partitions);
+    Map<TopicPartition, Deque<ConsumerRecord<String, byte[]>>> buffers = new HashMap<>();
+    Set<TopicPartition> fetching = new HashSet<>();
+    long total = 0;
+    for (TopicPartition partition : partitions) {
+      buffers.put(partition, new ArrayDeque<>());
+      long position = this.consumer.position(partition);
+      if (position < endOffsets.get(partition)) {
+        fetching.add(partition);
+        total += endOffsets.get(partition) - position;
+      }
+    }
+    this.consumer.pause(notIn(partitions, fetching));
+    log.info("Replaying up to {} records of {} partitions of topics {}", total,
+        fetching.size(), topics);
+
+    long start = System.nanoTime();
+    long lastProgress = start;
+    long replayed = 0;
+    while (true) {
+      while (fetching.stream().anyMatch(partition -> buffers.get(partition).isEmpty())) {
+        this.fetch(buffers, fetching, endOffsets);
+      }
+      Deque<ConsumerRecord<String, byte[]>> earliest = null;
+      for (Deque<ConsumerRecord<String, byte[]>> buffer : buffers.values()) {
+        if (!buffer.isEmpty() && (earliest == null || EventHeaders.getEventTimestamp(
+            buffer.peekFirst()) < EventHeaders.getEventTimestamp(earliest.peekFirst()))) {
+          earliest = buffer;
+        }
+      }
+      if (earliest == null) {
+        break;
+      }
+      handler.handle(earliest.pollFirst());
+      replayed++;
+      long now = System.nanoTime();
+      if (TimeUnit.NANOSECONDS.toMillis(now - lastProgress) >= this.progressIntervalMs) {
+        log.info("Replayed {} of {} records, {} records/s", replayed, total,
+            ratePerSecond(replayed, now - start));
+        lastProgress = now;
+      }
+    }
+    log.info("Replayed {} records in {} ms, {} records/s", replayed,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+        ratePerSecond(replayed, System.nanoTime() - start));
+    return replayed;
+  }
+
+  /**
+   * Poll records of partitions not fully read and without a full buffer, and buffer the ones
+   * before end offsets. Partitions read up to their end offsets are no longer fetched, and no poll
+   * is done if all the remaining ones have buffered records.
+   *
+   * @param buffers    buffered records by partition.
+   * @param fetching   partitions not fully read.
+   * @param endOffsets end offsets by partition.
+   */
+  private void fetch(Map<TopicPartition, Deque<ConsumerRecord<String, byte[]>>> buffers,
+      Set<TopicPartition> fetching, Map<TopicPartition, Long> endOffsets) {
+    for (TopicPartition partition : new ArrayList<>(fetching)) {
+      if (this.consumer.position(partition) >= endOffsets.get(partition)) {
+        fetching.remove(partition);
+        this.consumer.pause(List.of(partition));
+      }
+    }
+    if (fetching.stream().noneMatch(partition -> buffers.get(partition).isEmpty())) {
+      return;
+    }
+    Set<TopicPartition> full = fetching.stream()
+        .filter(partition -> buffers.get(partition).size() >= this.maxBufferedRecords)
+        .collect(Collectors.toSet());
+    this.consumer.pause(full);
+    this.consumer.resume(notIn(fetching, full));
+    ConsumerRecords<String, byte[]> records = this.consumer.poll(POLL_TIMEOUT);
+    for (TopicPartition partition : records.partitions()) {
+      long endOffset = endOffsets.get(partition);
+      for (ConsumerRecord<String, byte[]> record : records.records(partition)) {
+        if (record.offset() < endOffset) {
+          buffers.get(partition).addLast(record);
+        }
+      }
+    }
+  }
+
+  /**
+   * Get partitions not included in others.
+   *
+   * @param partitions partitions.
+   * @param excluded   excluded partitions.
+   * @return partitions not excluded.
+   */
+  private static List<TopicPartition> notIn(Collection<TopicPartition> partitions,
+      Set<TopicPartition> excluded) {
+    return partitions.stream()
+        .filter(partition -> !excluded.contains(partition))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Get records per second rate.
+   *
+   * @param records     number of records.
+   * @param elapsedNano elapsed nano time.
+   * @return records per second.
+   */
+  private static long ratePerSecond(long records, long elapsedNano) {
+    return elapsedNano <= 0 ? records : records * TimeUnit.SECONDS.toNanos(1) / elapsedNano;
+  }
+
+}
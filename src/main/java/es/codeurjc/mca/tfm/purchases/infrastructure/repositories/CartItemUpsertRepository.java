@@ -0,0 +1,20 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.repositories;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.CartItemEntity;
+import java.util.List;
+
+/**
+ * Shopping cart item repository fragment which inserts items, or updates them if their product is
+ * already in the shopping cart, without reading them first.
+ */
+public interface CartItemUpsertRepository {
+
+  /**
+   * Insert items, or update them if their product is already in their shopping cart, keeping
+   * their sequence number.
+   *
+   * @param cartItemEntities item entities to insert or update.
+   */
+  void upsertAll(List<CartItemEntity> cartItemEntities);
+
+}
@@ -0,0 +1,54 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.repositories;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.CartItemEntity;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Shopping cart item repository fragment implementation, which sends all items as a single JDBC
+ * batch of upserts, in the transaction of the caller.
+ */
+public class CartItemUpsertRepositoryImpl implements CartItemUpsertRepository {
+
+  /**
+   * Upsert statement, referencing inserted values through a row alias.
+   */
+  private static final String UPSERT = "insert into cart_items "
+      + "(cart_id, product_id, unit_price, quantity, total_price) values (?, ?, ?, ?, ?) as new "
+      + "on duplicate key update unit_price = new.unit_price, quantity = new.quantity, "
+      + "total_price = new.total_price";
+
+  /**
+   * JDBC template.
+   */
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Constructor.
+   *
+   * @param jdbcTemplate JDBC template.
+   */
+  public CartItemUpsertRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Insert items, or update them if their product is already in their shopping cart, keeping
+   * their sequence number.
+   *
+   * @param cartItemEntities item entities to insert or update.
+   */
+  @Override
+  public void upsertAll(List<CartItemEntity> cartItemEntities) {
+    if (cartItemEntities.isEmpty()) {
+      return;
+    }
+    this.jdbcTemplate.batchUpdate(UPSERT, cartItemEntities.stream()
+        .map(item -> new Object[]{item.getCartId(), item.getProductId(),
+            item.getUnitPrice().toBigDecimal(), item.getQuantity(),
+            item.getTotalPrice().toBigDecimal()})
+        .collect(Collectors.toList()));
+  }
+
+}
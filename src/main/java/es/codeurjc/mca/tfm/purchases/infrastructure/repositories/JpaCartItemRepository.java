@@ -0,0 +1,62 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.repositories;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.CartItemEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.CartItemKey;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Shopping cart item JPA repository interface. Items are written by key, each write touching only
+ * the row of its product, and read in insertion order, by their sequence number.
+ */
+@Repository
+public interface JpaCartItemRepository extends JpaRepository<CartItemEntity, CartItemKey>,
+    CartItemUpsertRepository {
+
+  /**
+   * Find items of a shopping cart.
+   *
+   * @param cartId shopping cart identifier.
+   * @return items of the shopping cart, in insertion order.
+   */
+  @Query(value = "select * from cart_items where cart_id = :cartId order by sequence_number",
+      nativeQuery = true)
+  List<CartItemEntity> findByCartIdInInsertionOrder(@Param("cartId") Long cartId);
+
+  /**
+   * Find items of some products of a shopping cart.
+   *
+   * @param cartId     shopping cart identifier.
+   * @param productIds product identifiers.
+   * @return items of the products in the shopping cart.
+   */
+  List<CartItemEntity> findByCartIdAndProductIdIn(Long cartId, Collection<Integer> productIds);
+
+  /**
+   * Delete items of some products from a shopping cart.
+   *
+   * @param cartId     shopping cart identifier.
+   * @param productIds product identifiers.
+   * @return number of deleted items.
+   */
+  @Modifying
+  @Query("delete from cart_items i where i.cartId = :cartId and i.productId in :productIds")
+  int deleteByCartIdAndProductIdIn(@Param("cartId") Long cartId,
+      @Param("productIds") Collection<Integer> productIds);
+
+  /**
+   * Delete all items of a shopping cart.
+   *
+   * @param cartId shopping cart identifier.
+   * @return number of deleted items.
+   */
+  @Modifying
+  @Query("delete from cart_items i where i.cartId = :cartId")
+  int deleteByCartId(@Param("cartId") Long cartId);
+
+}
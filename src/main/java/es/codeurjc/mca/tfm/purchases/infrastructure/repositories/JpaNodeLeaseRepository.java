@@ -0,0 +1,41 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.repositories;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.NodeLeaseEntity;
+import java.util.Optional;
+import javax.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Node lease JPA repository interface.
+ */
+@Repository
+public interface JpaNodeLeaseRepository extends JpaRepository<NodeLeaseEntity, Integer> {
+
+  /**
+   * Find lease of a node identifier, locking it until current transaction ends.
+   *
+   * @param nodeId node identifier.
+   * @return optional of node lease, empty if node identifier was never leased or was released.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select l from node_leases l where l.nodeId = :nodeId")
+  Optional<NodeLeaseEntity> findByNodeIdForUpdate(@Param("nodeId") Integer nodeId);
+
+  /**
+   * Delete lease of a node identifier if held by an instance.
+   *
+   * @param nodeId   node identifier.
+   * @param instance instance name.
+   * @return number of deleted leases.
+   */
+  @Modifying
+  @Query("delete from node_leases l where l.nodeId = :nodeId and l.instance = :instance")
+  int deleteByNodeIdAndInstance(@Param("nodeId") Integer nodeId,
+      @Param("instance") String instance);
+
+}
@@ -1,7 +1,10 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.repositories;
 
 import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OrderEntity;
+import java.util.Optional;
+import javax.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -10,4 +13,13 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface JpaOrderRepository extends JpaRepository<OrderEntity, Long> {
 
+  /**
+   * Find and lock an order until the end of the transaction.
+   *
+   * @param id order identifier.
+   * @return an optional with found order, or empty if not found.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  Optional<OrderEntity> findForUpdateById(Long id);
+
 }
@@ -0,0 +1,34 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.repositories;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OutboxEventEntity;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Outbox event JPA repository interface.
+ */
+@Repository
+public interface JpaOutboxEventRepository extends JpaRepository<OutboxEventEntity, Long> {
+
+  /**
+   * Find identifier of the oldest outbox event, without locking it.
+   *
+   * @return identifier of the oldest outbox event, or null if outbox is empty.
+   */
+  @Query("select min(e.id) from outbox_events e")
+  Long findOldestId();
+
+  /**
+   * Lock oldest outbox events not locked by another transaction, until current one ends.
+   *
+   * @param limit max number of events.
+   * @return locked outbox events in write order.
+   */
+  @Query(value = "select * from outbox_events order by id limit :limit for update skip locked",
+      nativeQuery = true)
+  List<OutboxEventEntity> claimOldest(@Param("limit") int limit);
+
+}
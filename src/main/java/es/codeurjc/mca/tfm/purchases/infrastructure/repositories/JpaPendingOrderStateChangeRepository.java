@@ -0,0 +1,29 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.repositories;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.PendingOrderStateChangeEntity;
+import java.util.Collection;
+import java.util.List;
+import javax.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Pending order state change JPA repository interface.
+ */
+@Repository
+public interface JpaPendingOrderStateChangeRepository extends
+    JpaRepository<PendingOrderStateChangeEntity, Long> {
+
+  /**
+   * Find and lock pending state changes of some orders. Locking reads the latest committed
+   * changes, so none written while their order was locked is missed.
+   *
+   * @param orderIds order identifiers.
+   * @return pending state changes by version and arrival order.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  List<PendingOrderStateChangeEntity> findByOrderIdInOrderByVersionAscIdAsc(
+      Collection<Long> orderIds);
+
+}
@@ -0,0 +1,29 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.repositories;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ProcessedEventEntity;
+import java.time.Instant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Processed event JPA repository interface.
+ */
+@Repository
+public interface JpaProcessedEventRepository extends JpaRepository<ProcessedEventEntity, Long> {
+
+  /**
+   * Delete events processed before an instant.
+   *
+   * @param before instant.
+   * @return number of deleted events.
+   */
+  @Transactional
+  @Modifying
+  @Query("delete from processed_events e where e.processedAt < :before")
+  int deleteByProcessedAtBefore(@Param("before") Instant before);
+
+}
@@ -1,15 +1,19 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.repositories;
 
 import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 /**
  * Shopping cart JPA repository interface.
  */
 @Repository
-public interface JpaShoppingCartRepository extends JpaRepository<ShoppingCartEntity, Long> {
+public interface JpaShoppingCartRepository extends JpaRepository<ShoppingCartEntity, Long>,
+    ShoppingCartWriteThroughRepository {
 
   /**
    * Find shopping cart by user identifier and completed false.
@@ -20,12 +24,22 @@ public interface JpaShoppingCartRepository extends JpaRepository<ShoppingCartEnt
   Optional<ShoppingCartEntity> findByUserIdAndCompletedIsFalse(Integer userId);
 
   /**
-   * Find shopping cart by identifier and user identifier.
+   * Find a page of incomplete shopping carts after an identifier, in identifier order.
    *
-   * @param id     shopping cart identifier.
-   * @param userId user identifier.
-   * @return optional of shopping cart with passed id and user, else empty.
+   * @param id       identifier after which shopping carts are found.
+   * @param pageable page to find.
+   * @return incomplete shopping carts with greater identifier.
+   */
+  List<ShoppingCartEntity> findByCompletedIsFalseAndIdGreaterThanOrderByIdAsc(Long id,
+      Pageable pageable);
+
+  /**
+   * Count shopping carts with items in their items column.
+   *
+   * @return number of shopping carts with a not empty items column.
    */
-  Optional<ShoppingCartEntity> findByIdAndUserId(Long id, Integer userId);
+  @Query(value = "select count(*) from shopping_carts where json_length(items) > 0",
+      nativeQuery = true)
+  long countWithItemsInColumn();
 
 }
@@ -0,0 +1,26 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.repositories;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+
+/**
+ * Shopping cart repository fragment which writes shopping carts whose state is already known,
+ * without reading them first. Writes check the shopping cart version when flushed, so an outdated
+ * state fails with an optimistic locking failure.
+ */
+public interface ShoppingCartWriteThroughRepository {
+
+  /**
+   * Update a shopping cart, which may be not loaded in current transaction.
+   *
+   * @param shoppingCartEntity shopping cart entity with known version.
+   */
+  void update(ShoppingCartEntity shoppingCartEntity);
+
+  /**
+   * Delete a shopping cart, which may be not loaded in current transaction.
+   *
+   * @param shoppingCartEntity shopping cart entity with known version.
+   */
+  void remove(ShoppingCartEntity shoppingCartEntity);
+
+}
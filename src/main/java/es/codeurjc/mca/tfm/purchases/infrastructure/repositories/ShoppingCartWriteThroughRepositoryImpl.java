@@ -0,0 +1,42 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.repositories;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+/**
+ * Shopping cart repository fragment implementation, which attaches not loaded shopping carts to
+ * the current session instead of merging them, as merging would read them first.
+ */
+public class ShoppingCartWriteThroughRepositoryImpl implements ShoppingCartWriteThroughRepository {
+
+  /**
+   * Entity manager.
+   */
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  /**
+   * Update a shopping cart, which may be not loaded in current transaction.
+   *
+   * @param shoppingCartEntity shopping cart entity with known version.
+   */
+  @Override
+  public void update(ShoppingCartEntity shoppingCartEntity) {
+    if (!this.entityManager.contains(shoppingCartEntity)) {
+      this.entityManager.unwrap(Session.class).update(shoppingCartEntity);
+    }
+  }
+
+  /**
+   * Delete a shopping cart, which may be not loaded in current transaction.
+   *
+   * @param shoppingCartEntity shopping cart entity with known version.
+   */
+  @Override
+  public void remove(ShoppingCartEntity shoppingCartEntity) {
+    this.entityManager.unwrap(Session.class).delete(shoppingCartEntity);
+  }
+
+}
@@ -0,0 +1,94 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.stores;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.CartItemEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItem;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapper;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shopping cart items storage as a JSON column of the shopping cart. Any items update rewrites all
+ * items of the shopping cart.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.shoppingCartItems.mode", havingValue = "json",
+    matchIfMissing = true)
+public class JsonShoppingCartItemsStore implements ShoppingCartItemsStore {
+
+  /**
+   * Mapper.
+   */
+  private final InfraMapper mapper;
+
+  /**
+   * Constructor.
+   *
+   * @param mapper mapper.
+   */
+  public JsonShoppingCartItemsStore(InfraMapper mapper) {
+    this.mapper = mapper;
+  }
+
+  /**
+   * Read a shopping cart with its items, parsed from its items column.
+   *
+   * @param shoppingCartEntity shopping cart entity.
+   * @return shopping cart DTO.
+   */
+  @Override
+  public ShoppingCartDto read(ShoppingCartEntity shoppingCartEntity) {
+    return this.mapper.map(shoppingCartEntity);
+  }
+
+  /**
+   * Set the items of a new shopping cart in its items column.
+   *
+   * @param shoppingCartEntity new shopping cart entity.
+   * @param items              items of the shopping cart.
+   * @return empty list.
+   * @throws JsonProcessingException if an error mapping items happens.
+   */
+  @Override
+  public List<CartItemEntity> setItems(ShoppingCartEntity shoppingCartEntity,
+      List<ShoppingCartItem> items) throws JsonProcessingException {
+    shoppingCartEntity.setItems(this.mapper.map(items));
+    return List.of();
+  }
+
+  /**
+   * Nothing to insert, as items are kept in the shopping cart.
+   *
+   * @param cartItemEntities item entities to insert.
+   */
+  @Override
+  public void insertItems(List<CartItemEntity> cartItemEntities) {
+  }
+
+  /**
+   * Apply items updates in order over the items parsed from the items column, and set the updated
+   * ones in it, and their total price.
+   *
+   * @param shoppingCartEntity         shopping cart entity.
+   * @param itemsUpdateRequestedEvents items updates of the shopping cart.
+   * @throws JsonProcessingException if an error mapping items happens.
+   */
+  @Override
+  public void update(ShoppingCartEntity shoppingCartEntity,
+      List<ShoppingCartItemsUpdateRequestedEvent> itemsUpdateRequestedEvents)
+      throws JsonProcessingException {
+    List<ShoppingCartItem> items =
+        this.mapper.mapToShoppingCartItemList(shoppingCartEntity.getItems());
+    for (ShoppingCartItemsUpdateRequestedEvent itemsUpdateRequestedEvent :
+        itemsUpdateRequestedEvents) {
+      items = this.mapper.mapToUpdatedItems(items, itemsUpdateRequestedEvent);
+    }
+    shoppingCartEntity.setItems(this.mapper.map(items));
+    shoppingCartEntity.setTotalPrice(this.mapper.mapToTotalPrice(items));
+  }
+
+}
@@ -0,0 +1,207 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.stores;
+
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.CartItemEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItem;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapper;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaCartItemRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shopping cart items storage as rows of the cart items table, keyed by shopping cart and product,
+ * so the shopping cart row keeps an empty items column. Items updates of a shopping cart are
+ * merged first, and then only the rows of the set and deleted products are written, so their cost
+ * doesn't grow with the number of items in the shopping cart, and set products are upserted in a
+ * single JDBC batch. Snapshots replace all rows. Items are read in insertion order, as in the items
+ * column, an updated item keeping its position. Shopping carts with items left in their items
+ * column, stored before switching to rows, would be read empty, so it refuses to start with them,
+ * unless tables are being rebuilt.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.shoppingCartItems.mode", havingValue = "rows")
+public class RowsShoppingCartItemsStore implements ShoppingCartItemsStore {
+
+  /**
+   * Items column value of shopping carts with items stored as rows.
+   */
+  private static final String NO_ITEMS = "[]";
+
+  /**
+   * Mapper.
+   */
+  private final InfraMapper mapper;
+
+  /**
+   * Shopping cart item repository.
+   */
+  private final JpaCartItemRepository jpaCartItemRepository;
+
+  /**
+   * Shopping cart repository.
+   */
+  private final JpaShoppingCartRepository jpaShoppingCartRepository;
+
+  /**
+   * Indicates if tables are being rebuilt.
+   */
+  private final boolean rebuildEnabled;
+
+  /**
+   * Constructor.
+   *
+   * @param mapper                    mapper.
+   * @param jpaCartItemRepository     shopping cart item repository.
+   * @param jpaShoppingCartRepository shopping cart repository.
+   * @param rebuildEnabled            indicates if tables are being rebuilt.
+   */
+  public RowsShoppingCartItemsStore(InfraMapper mapper,
+      JpaCartItemRepository jpaCartItemRepository,
+      JpaShoppingCartRepository jpaShoppingCartRepository,
+      @Value("${rebuild.enabled}") boolean rebuildEnabled) {
+    this.mapper = mapper;
+    this.jpaCartItemRepository = jpaCartItemRepository;
+    this.jpaShoppingCartRepository = jpaShoppingCartRepository;
+    this.rebuildEnabled = rebuildEnabled;
+  }
+
+  /**
+   * Check on start that no shopping cart has items left in its items column, unless tables are
+   * being rebuilt, which moves them to rows.
+   *
+   * @throws IllegalStateException if any shopping cart has items in its items column.
+   */
+  @PostConstruct
+  public void checkItemsColumns() {
+    if (this.rebuildEnabled) {
+      return;
+    }
+    long shoppingCarts = this.jpaShoppingCartRepository.countWithItemsInColumn();
+    if (shoppingCarts > 0) {
+      throw new IllegalStateException(shoppingCarts + " shopping carts have items stored in "
+          + "their items column, rebuild tables to store them as rows");
+    }
+  }
+
+  /**
+   * Read a shopping cart with its items, loaded from their rows.
+   *
+   * @param shoppingCartEntity shopping cart entity.
+   * @return shopping cart DTO.
+   */
+  @Override
+  public ShoppingCartDto read(ShoppingCartEntity shoppingCartEntity) {
+    ShoppingCartDto shoppingCartDto = this.mapper.map(shoppingCartEntity);
+    shoppingCartDto.setItems(this.mapper.mapToItemDtoList(
+        this.jpaCartItemRepository.findByCartIdInInsertionOrder(shoppingCartEntity.getId())));
+    return shoppingCartDto;
+  }
+
+  /**
+   * Set an empty items column in a new shopping cart, and map its items to rows.
+   *
+   * @param shoppingCartEntity new shopping cart entity.
+   * @param items              items of the shopping cart.
+   * @return item entities to insert after the shopping cart.
+   */
+  @Override
+  public List<CartItemEntity> setItems(ShoppingCartEntity shoppingCartEntity,
+      List<ShoppingCartItem> items) {
+    shoppingCartEntity.setItems(NO_ITEMS);
+    if (items == null) {
+      return List.of();
+    }
+    List<CartItemEntity> cartItemEntities = new ArrayList<>(items.size());
+    items.forEach(item -> cartItemEntities.add(
+        this.mapper.mapToCartItemEntity(shoppingCartEntity.getId(), item)));
+    return cartItemEntities;
+  }
+
+  /**
+   * Insert item entities of new shopping carts.
+   *
+   * @param cartItemEntities item entities to insert.
+   */
+  @Override
+  public void insertItems(List<CartItemEntity> cartItemEntities) {
+    if (!cartItemEntities.isEmpty()) {
+      this.jpaCartItemRepository.saveAll(cartItemEntities);
+    }
+  }
+
+  /**
+   * Merge items updates in order, and write the rows of the set and deleted products only, or
+   * replace all rows if any of them is a snapshot. Rows of set products are upserted in a single
+   * batch. Total price is adjusted by the difference between the new and previous total prices of
+   * the changed products only, read from their rows before writing them, or summed from the items
+   * of the snapshot if replaced.
+   *
+   * @param shoppingCartEntity         shopping cart entity.
+   * @param itemsUpdateRequestedEvents items updates of the shopping cart.
+   */
+  @Override
+  public void update(ShoppingCartEntity shoppingCartEntity,
+      List<ShoppingCartItemsUpdateRequestedEvent> itemsUpdateRequestedEvents) {
+    boolean replaced = false;
+    Map<Integer, ShoppingCartItem> changedItems = new LinkedHashMap<>();
+    for (ShoppingCartItemsUpdateRequestedEvent itemsUpdateRequestedEvent :
+        itemsUpdateRequestedEvents) {
+      if (itemsUpdateRequestedEvent.getItems() != null) {
+        replaced = true;
+        changedItems.clear();
+        itemsUpdateRequestedEvent.getItems()
+            .forEach(item -> changedItems.put(item.getProductId(), item));
+      } else {
+        if (itemsUpdateRequestedEvent.getChangedItems() != null) {
+          itemsUpdateRequestedEvent.getChangedItems()
+              .forEach(item -> changedItems.put(item.getProductId(), item));
+        }
+        if (itemsUpdateRequestedEvent.getDeletedProductIds() != null) {
+          itemsUpdateRequestedEvent.getDeletedProductIds()
+              .forEach(productId -> changedItems.put(productId, null));
+        }
+      }
+    }
+
+    Long cartId = shoppingCartEntity.getId();
+    List<Integer> deletedProductIds = new ArrayList<>();
+    List<ShoppingCartItem> setItems = new ArrayList<>();
+    changedItems.forEach((productId, item) -> {
+      if (item == null) {
+        deletedProductIds.add(productId);
+      } else {
+        setItems.add(item);
+      }
+    });
+    if (replaced) {
+      this.jpaCartItemRepository.deleteByCartId(cartId);
+      this.insertItems(this.setItems(shoppingCartEntity, setItems));
+      shoppingCartEntity.setTotalPrice(this.mapper.mapToTotalPrice(setItems));
+      return;
+    }
+    Money totalPrice =
+        shoppingCartEntity.getTotalPrice().plus(this.mapper.mapToTotalPrice(setItems));
+    for (CartItemEntity previousItem :
+        this.jpaCartItemRepository.findByCartIdAndProductIdIn(cartId, changedItems.keySet())) {
+      totalPrice = totalPrice.minus(previousItem.getTotalPrice());
+    }
+    if (!deletedProductIds.isEmpty()) {
+      this.jpaCartItemRepository.deleteByCartIdAndProductIdIn(cartId, deletedProductIds);
+    }
+    List<CartItemEntity> cartItemEntities = new ArrayList<>(setItems.size());
+    setItems.forEach(item -> cartItemEntities.add(this.mapper.mapToCartItemEntity(cartId, item)));
+    this.jpaCartItemRepository.upsertAll(cartItemEntities);
+    shoppingCartEntity.setTotalPrice(totalPrice);
+  }
+
+}
@@ -0,0 +1,56 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.stores;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.CartItemEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItem;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import java.util.List;
+
+/**
+ * Storage of the items of shopping carts, selected by the items storage mode. Items are stored
+ * either as a JSON column of the shopping cart, or as rows of their own table.
+ */
+public interface ShoppingCartItemsStore {
+
+  /**
+   * Read a shopping cart with its items.
+   *
+   * @param shoppingCartEntity shopping cart entity.
+   * @return shopping cart DTO.
+   */
+  ShoppingCartDto read(ShoppingCartEntity shoppingCartEntity);
+
+  /**
+   * Set the items of a new shopping cart, before inserting it.
+   *
+   * @param shoppingCartEntity new shopping cart entity.
+   * @param items              items of the shopping cart.
+   * @return item entities to insert after the shopping cart, empty if kept in it.
+   * @throws JsonProcessingException if an error mapping items happens.
+   */
+  List<CartItemEntity> setItems(ShoppingCartEntity shoppingCartEntity,
+      List<ShoppingCartItem> items) throws JsonProcessingException;
+
+  /**
+   * Insert item entities of new shopping carts, after inserting them.
+   *
+   * @param cartItemEntities item entities to insert.
+   */
+  void insertItems(List<CartItemEntity> cartItemEntities);
+
+  /**
+   * Apply items updates in order over the items of a shopping cart, and set its total price from
+   * the updated items, as the total price of delta items updates is not sent. The shopping cart
+   * is saved by the caller.
+   *
+   * @param shoppingCartEntity         shopping cart entity.
+   * @param itemsUpdateRequestedEvents items updates of the shopping cart.
+   * @throws JsonProcessingException if an error mapping items happens.
+   */
+  void update(ShoppingCartEntity shoppingCartEntity,
+      List<ShoppingCartItemsUpdateRequestedEvent> itemsUpdateRequestedEvents)
+      throws JsonProcessingException;
+
+}
@@ -0,0 +1,429 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.stores;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In memory state of the incomplete shopping carts whose events are consumed by this instance, so
+ * shopping cart listeners validate events against it and only write changes to database. A
+ * shopping cart is kept while a partition of a shopping cart keyed topic it belongs to is assigned
+ * to this instance. Partitions assigned to any consumer within the load delay are loaded together
+ * in background, reading incomplete shopping carts from database once in pages, as partitions
+ * can't be filtered in database, and when they are revoked, their shopping carts are dropped.
+ * Shopping carts not kept, including those not loaded yet, are loaded from database. Changes are
+ * kept after their transaction is committed, and changed shopping carts are dropped if it is
+ * rolled back. Writes check the shopping cart version, so a state changed meanwhile by another
+ * instance fails the write, and the event is retried over the state in database.
+ */
+@Component
+@Slf4j
+public class ShoppingCartStateStore implements ConsumerRebalanceListener {
+
+  /**
+   * Kept shopping carts metric name.
+   */
+  public static final String SIZE_METRIC = "shopping.cart.state.store.size";
+
+  /**
+   * Number of incomplete shopping carts read from database at once when loading partitions.
+   */
+  public static final int LOAD_PAGE_SIZE = 1000;
+
+  /**
+   * Shopping cart repository.
+   */
+  private final JpaShoppingCartRepository jpaShoppingCartRepository;
+
+  /**
+   * Number of partitions of shopping cart keyed topics, by topic.
+   */
+  private final Map<String, Integer> partitionsByTopic;
+
+  /**
+   * Assigned partitions of shopping cart keyed topics.
+   */
+  private final Set<TopicPartition> assignedPartitions = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Assigned partitions of shopping cart keyed topics not loaded yet.
+   */
+  private final Set<TopicPartition> pendingPartitions = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Number of revocations of assigned partitions, so state derived from owned shopping carts
+   * before a revocation can be told apart.
+   */
+  private final AtomicLong revocations = new AtomicLong();
+
+  /**
+   * Whether a load of pending partitions is scheduled.
+   */
+  private final AtomicBoolean loadScheduled = new AtomicBoolean();
+
+  /**
+   * Shopping cart state by shopping cart identifier.
+   */
+  private final Map<Long, ShoppingCartEntity> shoppingCarts = new ConcurrentHashMap<>();
+
+  /**
+   * Loader of assigned partitions.
+   */
+  private final ScheduledExecutorService loader;
+
+  /**
+   * Milliseconds to wait for other assignments before loading assigned partitions.
+   */
+  private final long loadDelayMs;
+
+  /**
+   * Constructor.
+   *
+   * @param jpaShoppingCartRepository      shopping cart repository.
+   * @param deleteShoppingCartTopic        delete shopping cart topic.
+   * @param deleteShoppingCartPartitions   delete shopping cart topic partitions.
+   * @param completeShoppingCartTopic      complete shopping cart topic.
+   * @param completeShoppingCartPartitions complete shopping cart topic partitions.
+   * @param updateItemsTopic               update items topic.
+   * @param updateItemsPartitions          update items topic partitions.
+   * @param loadDelayMs                    milliseconds to wait for other assignments before
+   *                                       loading assigned partitions.
+   */
+  @Autowired
+  public ShoppingCartStateStore(JpaShoppingCartRepository jpaShoppingCartRepository,
+      @Value("${kafka.topics.deleteShoppingCart}") String deleteShoppingCartTopic,
+      @Value("${kafka.partitions.deleteShoppingCart}") int deleteShoppingCartPartitions,
+      @Value("${kafka.topics.completeShoppingCart}") String completeShoppingCartTopic,
+      @Value("${kafka.partitions.completeShoppingCart}") int completeShoppingCartPartitions,
+      @Value("${kafka.topics.updateItems}") String updateItemsTopic,
+      @Value("${kafka.partitions.updateItems}") int updateItemsPartitions,
+      @Value("${storage.shoppingCartState.loadDelayMs}") long loadDelayMs) {
+    this(jpaShoppingCartRepository, Map.of(deleteShoppingCartTopic, deleteShoppingCartPartitions,
+        completeShoppingCartTopic, completeShoppingCartPartitions,
+        updateItemsTopic, updateItemsPartitions), Metrics.globalRegistry,
+        Executors.newSingleThreadScheduledExecutor(runnable -> {
+          Thread thread = new Thread(runnable, "shopping-cart-state-loader");
+          thread.setDaemon(true);
+          return thread;
+        }), loadDelayMs);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param jpaShoppingCartRepository shopping cart repository.
+   * @param partitionsByTopic         number of partitions of shopping cart keyed topics, by topic.
+   * @param meterRegistry             meter registry.
+   * @param loader                    loader of assigned partitions.
+   * @param loadDelayMs               milliseconds to wait for other assignments before loading
+   *                                  assigned partitions.
+   */
+  public ShoppingCartStateStore(JpaShoppingCartRepository jpaShoppingCartRepository,
+      Map<String, Integer> partitionsByTopic, MeterRegistry meterRegistry,
+      ScheduledExecutorService loader, long loadDelayMs) {
+    this.jpaShoppingCartRepository = jpaShoppingCartRepository;
+    this.partitionsByTopic = partitionsByTopic;
+    this.loader = loader;
+    this.loadDelayMs = loadDelayMs;
+    meterRegistry.gaugeMapSize(SIZE_METRIC, Tags.empty(), this.shoppingCarts);
+  }
+
+  /**
+   * Find a shopping cart, loading it from database if not kept. A kept shopping cart is returned as
+   * a not loaded entity, to be written with {@link JpaShoppingCartRepository#update} or
+   * {@link JpaShoppingCartRepository#remove}.
+   *
+   * @param id shopping cart identifier.
+   * @return optional of shopping cart entity, empty if not exists.
+   */
+  public Optional<ShoppingCartEntity> find(Long id) {
+    ShoppingCartEntity shoppingCartEntity = this.shoppingCarts.get(id);
+    if (shoppingCartEntity != null) {
+      return Optional.of(copy(shoppingCartEntity));
+    }
+    Optional<ShoppingCartEntity> loadedShoppingCartEntity =
+        this.jpaShoppingCartRepository.findById(id);
+    loadedShoppingCartEntity.ifPresent(this::load);
+    return loadedShoppingCartEntity;
+  }
+
+  /**
+   * Find shopping carts, loading from database at once those not kept.
+   *
+   * @param ids shopping carts identifiers.
+   * @return shopping cart entities by identifier, without those not existing.
+   */
+  public Map<Long, ShoppingCartEntity> findAll(Collection<Long> ids) {
+    Map<Long, ShoppingCartEntity> shoppingCartEntities = new HashMap<>();
+    Set<Long> notKeptIds = new HashSet<>();
+    for (Long id : ids) {
+      ShoppingCartEntity shoppingCartEntity = this.shoppingCarts.get(id);
+      if (shoppingCartEntity != null) {
+        shoppingCartEntities.put(id, copy(shoppingCartEntity));
+      } else {
+        notKeptIds.add(id);
+      }
+    }
+    if (!notKeptIds.isEmpty()) {
+      this.jpaShoppingCartRepository.findAllById(notKeptIds).forEach(shoppingCartEntity -> {
+        this.load(shoppingCartEntity);
+        shoppingCartEntities.put(shoppingCartEntity.getId(), shoppingCartEntity);
+      });
+    }
+    return shoppingCartEntities;
+  }
+
+  /**
+   * Keep shopping carts written in current transaction when it is committed, or drop them if it is
+   * rolled back. Completed shopping carts are dropped, as they don't change anymore.
+   *
+   * @param shoppingCartEntities written shopping cart entities.
+   */
+  public void putAfterCommit(Collection<ShoppingCartEntity> shoppingCartEntities) {
+    this.afterCompletion(shoppingCartEntities.stream()
+        .map(ShoppingCartEntity::getId)
+        .collect(Collectors.toList()), () -> shoppingCartEntities.forEach(shoppingCartEntity -> {
+          if (shoppingCartEntity.isCompleted() || !this.isAssigned(shoppingCartEntity.getId())) {
+            this.shoppingCarts.remove(shoppingCartEntity.getId());
+          } else {
+            this.shoppingCarts.put(shoppingCartEntity.getId(), copy(shoppingCartEntity));
+          }
+        }));
+  }
+
+  /**
+   * Drop a shopping cart deleted in current transaction.
+   *
+   * @param id deleted shopping cart identifier.
+   */
+  public void removeAfterCommit(Long id) {
+    this.afterCompletion(List.of(id), () -> this.shoppingCarts.remove(id));
+  }
+
+  /**
+   * Check if all events of a shopping cart are consumed by this instance, as the partition it
+   * belongs to is assigned for every shopping cart keyed topic.
+   *
+   * @param id shopping cart identifier.
+   * @return true if it belongs to an assigned partition of every topic, else false.
+   */
+  public boolean isOwned(Long id) {
+    return this.partitionsByTopic.keySet().stream().allMatch(topic ->
+        this.assignedPartitions.contains(new TopicPartition(topic, this.partitionOf(id, topic))));
+  }
+
+  /**
+   * Get the number of revocations of assigned partitions so far.
+   *
+   * @return number of revocations.
+   */
+  public long revocations() {
+    return this.revocations.get();
+  }
+
+  /**
+   * Number of kept shopping carts.
+   *
+   * @return number of kept shopping carts.
+   */
+  public int size() {
+    return this.shoppingCarts.size();
+  }
+
+  /**
+   * Schedule the load of incomplete shopping carts belonging to assigned partitions of shopping
+   * cart keyed topics, unless already scheduled, so partitions assigned to all consumers in a
+   * rebalance are loaded together.
+   *
+   * @param partitions assigned partitions.
+   */
+  @Override
+  public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+    partitions.stream()
+        .filter(partition -> this.partitionsByTopic.containsKey(partition.topic()))
+        .filter(this.assignedPartitions::add)
+        .forEach(this.pendingPartitions::add);
+    if (!this.pendingPartitions.isEmpty() && this.loadScheduled.compareAndSet(false, true)) {
+      this.loader.schedule(this::loadPendingPartitions, this.loadDelayMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Drop shopping carts not belonging anymore to any assigned partition.
+   *
+   * @param partitions revoked partitions.
+   */
+  @Override
+  public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+    this.pendingPartitions.removeAll(partitions);
+    if (this.assignedPartitions.removeAll(partitions)) {
+      this.revocations.incrementAndGet();
+      this.shoppingCarts.keySet().removeIf(id -> !this.isAssigned(id));
+      log.info("Dropped shopping carts of revoked partitions {}", partitions);
+    }
+  }
+
+  /**
+   * Stop loader.
+   */
+  @PreDestroy
+  public void close() {
+    this.loader.shutdownNow();
+  }
+
+  /**
+   * Load incomplete shopping carts belonging to pending partitions, reading them in pages by
+   * identifier. If loading fails, shopping carts are loaded from database when found.
+   */
+  private void loadPendingPartitions() {
+    this.loadScheduled.set(false);
+    Set<TopicPartition> partitions = new HashSet<>(this.pendingPartitions);
+    this.pendingPartitions.removeAll(partitions);
+    if (partitions.isEmpty()) {
+      return;
+    }
+    int loaded = 0;
+    try {
+      List<ShoppingCartEntity> page;
+      Long lastId = Long.MIN_VALUE;
+      do {
+        page = this.jpaShoppingCartRepository.findByCompletedIsFalseAndIdGreaterThanOrderByIdAsc(
+            lastId, PageRequest.of(0, LOAD_PAGE_SIZE));
+        for (ShoppingCartEntity shoppingCartEntity : page) {
+          if (partitions.stream().anyMatch(
+              partition -> this.belongsTo(shoppingCartEntity.getId(), partition))) {
+            this.load(shoppingCartEntity);
+            loaded++;
+          }
+          lastId = shoppingCartEntity.getId();
+        }
+      } while (page.size() == LOAD_PAGE_SIZE);
+      log.info("Loaded {} shopping carts of assigned partitions {}", loaded, partitions);
+    } catch (RuntimeException e) {
+      log.error("Error loading shopping carts of assigned partitions {}: {}", partitions,
+          e.getMessage());
+    }
+  }
+
+  /**
+   * Keep a shopping cart loaded from database, unless a newer version is kept.
+   *
+   * @param shoppingCartEntity loaded shopping cart entity.
+   */
+  private void load(ShoppingCartEntity shoppingCartEntity) {
+    if (!shoppingCartEntity.isCompleted() && this.isAssigned(shoppingCartEntity.getId())) {
+      this.shoppingCarts.merge(shoppingCartEntity.getId(), copy(shoppingCartEntity),
+          (kept, loaded) -> versionOf(loaded) >= versionOf(kept) ? loaded : kept);
+    }
+  }
+
+  /**
+   * Run an action when current transaction is committed, or right away if there is none, and drop
+   * shopping carts if it is rolled back.
+   *
+   * @param ids    shopping carts identifiers.
+   * @param action action.
+   */
+  private void afterCompletion(Collection<Long> ids, Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        if (status == STATUS_COMMITTED) {
+          action.run();
+        } else {
+          ids.forEach(shoppingCarts::remove);
+        }
+      }
+    });
+  }
+
+  /**
+   * Check if a shopping cart belongs to an assigned partition.
+   *
+   * @param id shopping cart identifier.
+   * @return true if it belongs to an assigned partition, else false.
+   */
+  private boolean isAssigned(Long id) {
+    return this.assignedPartitions.stream().anyMatch(partition -> this.belongsTo(id, partition));
+  }
+
+  /**
+   * Check if a shopping cart belongs to a partition, as events keyed by its identifier are sent to
+   * it by the default partitioner.
+   *
+   * @param id        shopping cart identifier.
+   * @param partition partition.
+   * @return true if it belongs to the partition, else false.
+   */
+  private boolean belongsTo(Long id, TopicPartition partition) {
+    return this.partitionOf(id, partition.topic()) == partition.partition();
+  }
+
+  /**
+   * Get the partition of a topic a shopping cart belongs to, as events keyed by its identifier
+   * are sent to it by the default partitioner.
+   *
+   * @param id    shopping cart identifier.
+   * @param topic shopping cart keyed topic.
+   * @return partition number.
+   */
+  private int partitionOf(Long id, String topic) {
+    byte[] key = String.valueOf(id).getBytes(StandardCharsets.UTF_8);
+    return Utils.toPositive(Utils.murmur2(key)) % this.partitionsByTopic.get(topic);
+  }
+
+  /**
+   * Get version of a shopping cart, 0 if not set.
+   *
+   * @param shoppingCartEntity shopping cart entity.
+   * @return version.
+   */
+  private static long versionOf(ShoppingCartEntity shoppingCartEntity) {
+    return shoppingCartEntity.getVersion() == null ? 0 : shoppingCartEntity.getVersion();
+  }
+
+  /**
+   * Copy a shopping cart entity, so kept states are not changed by their users.
+   *
+   * @param shoppingCartEntity shopping cart entity.
+   * @return copy.
+   */
+  private static ShoppingCartEntity copy(ShoppingCartEntity shoppingCartEntity) {
+    return new ShoppingCartEntity(shoppingCartEntity.getId(), shoppingCartEntity.getUserId(),
+        shoppingCartEntity.isCompleted(), shoppingCartEntity.getItems(),
+        shoppingCartEntity.getTotalPrice(), shoppingCartEntity.getVersion());
+  }
+
+}
@@ -0,0 +1,234 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.workers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pool of single thread workers which process the records of consumed batches, so blocking work
+ * of different keys runs in parallel instead of one record after another on the consumer thread.
+ * Records are assigned to workers by key hash, so records of a key are processed in order, and
+ * once a record of a key fails, next records of that key in the batch are not processed. The
+ * batch completes when all its records are processed. If any failed, the first failed or not
+ * processed record of the batch is reported, so offsets are committed up to the contiguous
+ * completed records and the rest are delivered again. Offsets of records completed after the
+ * reported one are remembered, so they are skipped instead of processed again when delivered
+ * again, and forgotten once their partition is consumed past them.
+ */
+@Component
+@Slf4j
+public class KeyOrderedWorkerPool {
+
+  /**
+   * Workers.
+   */
+  private final List<ExecutorService> workers;
+
+  /**
+   * Offsets of records completed after a failed record of its batch, by partition.
+   */
+  private final Map<TopicPartition, Set<Long>> completedOffsets = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param count number of workers.
+   */
+  public KeyOrderedWorkerPool(@Value("${kafka.workers.count}") int count) {
+    this.workers = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String name = "events-worker-" + i;
+      this.workers.add(Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+      }));
+    }
+  }
+
+  /**
+   * Process a batch of records, and wait until all of them are processed.
+   *
+   * @param records batch of records.
+   * @param handler record handler.
+   * @throws BatchListenerFailedException with first failed or not processed record, if any.
+   * @throws InterruptedException         if interrupted while waiting.
+   */
+  public void process(List<ConsumerRecord<String, byte[]>> records, RecordHandler handler)
+      throws InterruptedException {
+    this.forgetCommittedOffsets(records);
+    List<List<Integer>> indexesByWorker = new ArrayList<>(this.workers.size());
+    this.workers.forEach(worker -> indexesByWorker.add(new ArrayList<>()));
+    for (int index = 0; index < records.size(); index++) {
+      if (!this.isCompleted(records.get(index))) {
+        indexesByWorker.get(this.workerOf(records.get(index))).add(index);
+      }
+    }
+    AtomicReferenceArray<Exception> failures = new AtomicReferenceArray<>(records.size());
+    List<Future<?>> futures = new ArrayList<>(this.workers.size());
+    for (int i = 0; i < this.workers.size(); i++) {
+      List<Integer> indexes = indexesByWorker.get(i);
+      if (!indexes.isEmpty()) {
+        futures.add(this.workers.get(i).submit(() -> process(records, indexes, handler,
+            failures)));
+      }
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Worker failed", e.getCause());
+      }
+    }
+    for (int index = 0; index < records.size(); index++) {
+      if (failures.get(index) != null) {
+        this.rememberCompletedOffsets(records, failures, index);
+        throw new BatchListenerFailedException("Failed record of key " + records.get(index).key(),
+            failures.get(index), index);
+      }
+    }
+  }
+
+  /**
+   * Process in order the records of a batch assigned to a worker. Records of a key after a failed
+   * one are not processed, and take its failure.
+   *
+   * @param records  batch of records.
+   * @param indexes  indexes of records assigned to the worker.
+   * @param handler  record handler.
+   * @param failures failure of each record of the batch, set if it failed or was not processed.
+   */
+  private static void process(List<ConsumerRecord<String, byte[]>> records,
+      List<Integer> indexes, RecordHandler handler, AtomicReferenceArray<Exception> failures) {
+    Set<String> failedKeys = new HashSet<>();
+    Exception failure = null;
+    for (int index : indexes) {
+      ConsumerRecord<String, byte[]> record = records.get(index);
+      if (failedKeys.contains(record.key())) {
+        failures.set(index, failure);
+        continue;
+      }
+      try {
+        handler.handle(record);
+      } catch (Exception e) {
+        log.error("Error processing record of key {} of topic {}: {}", record.key(),
+            record.topic(), e.getMessage());
+        failure = e;
+        failures.set(index, e);
+        failedKeys.add(record.key());
+      }
+    }
+  }
+
+  /**
+   * Remember offsets of records completed after the first failed record of a batch, which will
+   * be delivered again.
+   *
+   * @param records     batch of records.
+   * @param failures    failure of each record of the batch.
+   * @param failedIndex index of first failed record.
+   */
+  private void rememberCompletedOffsets(List<ConsumerRecord<String, byte[]>> records,
+      AtomicReferenceArray<Exception> failures, int failedIndex) {
+    for (int index = failedIndex + 1; index < records.size(); index++) {
+      if (failures.get(index) == null) {
+        ConsumerRecord<String, byte[]> record = records.get(index);
+        this.completedOffsets.computeIfAbsent(partitionOf(record),
+            partition -> ConcurrentHashMap.newKeySet()).add(record.offset());
+      }
+    }
+  }
+
+  /**
+   * Forget remembered offsets lower than the first offset of each partition in a batch, as they
+   * are already committed.
+   *
+   * @param records batch of records.
+   */
+  private void forgetCommittedOffsets(List<ConsumerRecord<String, byte[]>> records) {
+    if (this.completedOffsets.isEmpty()) {
+      return;
+    }
+    Map<TopicPartition, Long> firstOffsets = new HashMap<>();
+    records.forEach(record -> firstOffsets.merge(partitionOf(record), record.offset(), Math::min));
+    firstOffsets.forEach((partition, firstOffset) -> this.completedOffsets.computeIfPresent(
+        partition, (key, offsets) -> {
+          offsets.removeIf(offset -> offset < firstOffset);
+          return offsets.isEmpty() ? null : offsets;
+        }));
+  }
+
+  /**
+   * Check if a record was already completed in a previous delivery.
+   *
+   * @param record record.
+   * @return true if completed, false otherwise.
+   */
+  private boolean isCompleted(ConsumerRecord<String, byte[]> record) {
+    Set<Long> offsets = this.completedOffsets.get(partitionOf(record));
+    return offsets != null && offsets.contains(record.offset());
+  }
+
+  /**
+   * Get partition of a record.
+   *
+   * @param record record.
+   * @return topic partition.
+   */
+  private static TopicPartition partitionOf(ConsumerRecord<String, byte[]> record) {
+    return new TopicPartition(record.topic(), record.partition());
+  }
+
+  /**
+   * Get worker of a record, by its key hash, or by its partition if it has no key.
+   *
+   * @param record record.
+   * @return worker index.
+   */
+  private int workerOf(ConsumerRecord<String, byte[]> record) {
+    int hash = record.key() == null ? record.partition() : Objects.hashCode(record.key());
+    return Math.floorMod(hash, this.workers.size());
+  }
+
+  /**
+   * Stop workers.
+   */
+  @PreDestroy
+  public void close() {
+    this.workers.forEach(ExecutorService::shutdown);
+  }
+
+  /**
+   * Record handler.
+   */
+  @FunctionalInterface
+  public interface RecordHandler {
+
+    /**
+     * Handle a record.
+     *
+     * @param record record.
+     * @throws Exception if an error happens.
+     */
+    void handle(ConsumerRecord<String, byte[]> record) throws Exception;
+
+  }
+
+}
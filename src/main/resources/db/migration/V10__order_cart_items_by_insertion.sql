@@ -0,0 +1,7 @@
+-- Shopping cart items stored as rows are read in insertion order, as they are in the items JSON
+-- column, so each row gets an increasing sequence number when inserted. An updated item keeps its
+-- sequence number, and so its position. Existing rows are numbered in primary key order.
+
+alter table cart_items
+  add column sequence_number bigint not null auto_increment,
+  add constraint uk_cart_items_sequence_number unique (sequence_number);
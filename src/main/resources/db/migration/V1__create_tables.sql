@@ -0,0 +1,24 @@
+-- Schema previously generated by Hibernate from the entities, as it was before migrations
+-- existed, including its generated constraint name. Databases created that way are baselined at
+-- this version, so only next migrations are applied to them.
+
+create table orders (
+  id bigint not null,
+  errors json,
+  state varchar(255),
+  shopping_cart_id bigint not null,
+  primary key (id)
+) engine = InnoDB;
+
+create table shopping_carts (
+  id bigint not null,
+  completed bit not null,
+  items json,
+  total_price double precision not null,
+  user_id integer not null,
+  primary key (id)
+) engine = InnoDB;
+
+alter table orders
+  add constraint FKn63qt2b9c7hfgq7iekl7lgojm foreign key (shopping_cart_id)
+    references shopping_carts (id);
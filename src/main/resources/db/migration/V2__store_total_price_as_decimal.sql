@@ -0,0 +1,4 @@
+-- Shopping cart total price is a fixed-point amount of money, rounded to its minor units.
+
+alter table shopping_carts
+  modify total_price decimal(19, 2) not null;
@@ -0,0 +1,14 @@
+-- Events written in the same transaction as the change they describe, and sent to Kafka by the
+-- outbox relay in identifier order.
+
+create table outbox_events (
+  id bigint not null auto_increment,
+  event_id bigint,
+  event_key varchar(255),
+  node_id integer not null,
+  payload mediumblob not null,
+  topic varchar(255),
+  primary key (id)
+) engine = InnoDB;
+
+create index idx_outbox_events_node_id on outbox_events (node_id, id);
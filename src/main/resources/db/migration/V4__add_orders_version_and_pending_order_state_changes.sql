@@ -0,0 +1,17 @@
+-- Number of state changes applied to each order, null for existing orders, which count as version
+-- zero, and state changes received before the previous ones, applied once these arrive.
+
+alter table orders
+  add column version integer;
+
+create table pending_order_state_changes (
+  id bigint not null auto_increment,
+  errors json,
+  order_id bigint not null,
+  state varchar(255),
+  version integer not null,
+  primary key (id)
+) engine = InnoDB;
+
+create index idx_pending_order_state_changes_order_id
+  on pending_order_state_changes (order_id, version);
@@ -0,0 +1,10 @@
+-- Identifiers of the events already processed, to drop redelivered ones, removed once older than
+-- their retention.
+
+create table processed_events (
+  id bigint not null,
+  processed_at datetime(6) not null,
+  primary key (id)
+) engine = InnoDB;
+
+create index idx_processed_events_processed_at on processed_events (processed_at);
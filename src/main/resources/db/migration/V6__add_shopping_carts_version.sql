@@ -0,0 +1,5 @@
+-- Shopping cart version, checked on each write so a state changed meanwhile by another instance
+-- fails it. Existing shopping carts start at version zero.
+
+alter table shopping_carts
+  add column version bigint default 0;
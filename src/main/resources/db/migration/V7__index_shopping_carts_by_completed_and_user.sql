@@ -0,0 +1,4 @@
+-- Serves the incomplete shopping cart of a user lookup, by both columns, and the load of all
+-- incomplete shopping carts, by its prefix.
+
+create index idx_shopping_carts_completed_user_id on shopping_carts (completed, user_id);
@@ -0,0 +1,15 @@
+-- Shopping cart items stored as rows, one per product, used when items storage mode is rows.
+-- Items of a shopping cart are read by the primary key prefix, and deleted with it.
+
+create table cart_items (
+  cart_id bigint not null,
+  product_id integer not null,
+  quantity integer not null,
+  total_price decimal(19, 2) not null,
+  unit_price decimal(19, 2) not null,
+  primary key (cart_id, product_id)
+) engine = InnoDB;
+
+alter table cart_items
+  add constraint fk_cart_items_cart_id foreign key (cart_id)
+    references shopping_carts (id) on delete cascade;
@@ -0,0 +1,15 @@
+-- Outbox events are relayed by any instance, claiming them by primary key order, so they are no
+-- longer partitioned by the node which wrote them. Node identifiers are leased by the running
+-- instance using them, so two instances can't share one.
+
+drop index idx_outbox_events_node_id on outbox_events;
+
+alter table outbox_events
+  drop column node_id;
+
+create table node_leases (
+  node_id integer not null,
+  expires_at datetime(6) not null,
+  instance varchar(255) not null,
+  primary key (node_id)
+) engine = InnoDB;
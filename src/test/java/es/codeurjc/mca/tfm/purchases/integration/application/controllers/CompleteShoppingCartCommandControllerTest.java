@@ -10,6 +10,7 @@ import static org.mockito.Mockito.verify;
 import es.codeurjc.mca.tfm.purchases.application.dtos.responses.ItemResponseDto;
 import es.codeurjc.mca.tfm.purchases.application.dtos.responses.ShoppingCartResponseDto;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
 import es.codeurjc.mca.tfm.purchases.domain.ports.in.OrderUseCase;
 import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
 import java.util.Map;
@@ -44,7 +45,7 @@ public class CompleteShoppingCartCommandControllerTest extends ShoppingCartComma
         + "    \"quantity\": 1,\n"
         + "    \"totalPrice\": 1\n"
         + "  }]");
-    shoppingCartEntity.setTotalPrice(1.0);
+    shoppingCartEntity.setTotalPrice(Money.parse("1.0"));
     this.jpaShoppingCartRepository.save(shoppingCartEntity);
 
     String token = this.generateValidToken();
@@ -79,12 +80,13 @@ public class CompleteShoppingCartCommandControllerTest extends ShoppingCartComma
     assertEquals(shoppingCartResponseDto.getItems(), shoppingCartDto.getItems().stream()
         .map(itemDto -> ItemResponseDto.builder()
             .productId(itemDto.getProductId())
-            .unitPrice(itemDto.getUnitPrice())
+            .unitPrice(itemDto.getUnitPrice().toDouble())
             .quantity(itemDto.getQuantity())
-            .totalPrice(itemDto.getTotalPrice())
+            .totalPrice(itemDto.getTotalPrice().toDouble())
             .build())
         .collect(Collectors.toList()));
-    assertEquals(shoppingCartResponseDto.getTotalPrice(), shoppingCartDto.getTotalPrice());
+    assertEquals(shoppingCartResponseDto.getTotalPrice(),
+        shoppingCartDto.getTotalPrice().toDouble());
 
 
   }
@@ -0,0 +1,198 @@
+package es.codeurjc.mca.tfm.purchases.integration.application.controllers;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import es.codeurjc.mca.tfm.purchases.application.dtos.requests.ItemRequest;
+import es.codeurjc.mca.tfm.purchases.application.dtos.responses.ItemResponseDto;
+import es.codeurjc.mca.tfm.purchases.application.dtos.responses.ShoppingCartResponseDto;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+
+@DisplayName("ShoppingCartCommandController set and delete items endpoints integration tests")
+public class SetItemsToShoppingCartCommandControllerTest extends
+    ShoppingCartCommandControllerTest {
+
+  private static final Integer PRODUCT_2_ID = 2;
+
+  @Value("${kafka.topics.updateItems}")
+  private String updateItemsTopic;
+
+  @Test
+  @DisplayName("Test set and delete items in shopping cart successfully")
+  @DirtiesContext
+  public void givenShoppingCartIdAndItemsWithTokenWhenSetItemsAndDeleteItemsThenShouldReturnAcceptedResponsesAndSendOneUpdatePerRequest()
+      throws InterruptedException {
+    String token = this.generateValidToken();
+    Long shoppingCartId = this.createShoppingCart(token);
+
+    this.webClient
+        .patch()
+        .uri(SHOPPING_CART_BASE_URL + "/" + shoppingCartId + "/products")
+        .headers(http -> http.setBearerAuth(token))
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(List.of(buildItemRequest(PRODUCT_ID, PRODUCT_QUANTITY),
+            buildItemRequest(PRODUCT_2_ID, 1)))
+        .exchange()
+        .expectStatus()
+        .isAccepted();
+
+    Thread.sleep(WAIT_TIME);
+
+    assertEquals(List.of(buildItemResponse(PRODUCT_ID, PRODUCT_QUANTITY, PRODUCT_TOTAL_PRICE),
+            buildItemResponse(PRODUCT_2_ID, 1, PRODUCT_UNIT_PRICE)),
+        this.getShoppingCart(shoppingCartId, token).getItems());
+
+    this.webClient
+        .delete()
+        .uri(SHOPPING_CART_BASE_URL + "/" + shoppingCartId + "/products?productIds="
+            + PRODUCT_2_ID + "," + PRODUCT_ID)
+        .headers(http -> http.setBearerAuth(token))
+        .exchange()
+        .expectStatus()
+        .isAccepted();
+
+    Thread.sleep(WAIT_TIME);
+
+    assertEquals(List.of(), this.getShoppingCart(shoppingCartId, token).getItems());
+    verify(this.kafkaTemplate, times(2)).send(eq(this.updateItemsTopic),
+        eq(String.valueOf(shoppingCartId)), any(byte[].class));
+  }
+
+  @Test
+  @DisplayName("Test set items with an invalid item in shopping cart")
+  public void givenShoppingCartIdAndItemsWithInvalidQuantityWhenSetItemsThenShouldReturnBadRequestResponse() {
+    this.webClient
+        .patch()
+        .uri(SHOPPING_CART_BASE_URL + "/" + SHOPPING_CART_ID + "/products")
+        .headers(http -> http.setBearerAuth(this.generateValidToken()))
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(List.of(buildItemRequest(PRODUCT_ID, PRODUCT_QUANTITY),
+            buildItemRequest(PRODUCT_2_ID, 0)))
+        .exchange()
+        .expectStatus()
+        .isBadRequest();
+  }
+
+  @Test
+  @DisplayName("Test set items with a null item, an item without fields or no items")
+  public void givenShoppingCartIdAndNullOrIncompleteItemsWhenSetItemsThenShouldReturnBadRequestResponse() {
+    for (List<ItemRequest> itemRequests : List.of(
+        Arrays.asList(buildItemRequest(PRODUCT_ID, PRODUCT_QUANTITY), null),
+        List.of(ItemRequest.builder().productId(PRODUCT_2_ID).build()),
+        List.<ItemRequest>of())) {
+      this.webClient
+          .patch()
+          .uri(SHOPPING_CART_BASE_URL + "/" + SHOPPING_CART_ID + "/products")
+          .headers(http -> http.setBearerAuth(this.generateValidToken()))
+          .contentType(MediaType.APPLICATION_JSON)
+          .bodyValue(itemRequests)
+          .exchange()
+          .expectStatus()
+          .isBadRequest();
+    }
+  }
+
+  @Test
+  @DisplayName("Test set items with non existing shopping cart identifier")
+  public void givenNonExistingShoppingCartIdAndItemsWhenSetItemsThenShouldReturnNotFoundResponse() {
+    this.webClient
+        .patch()
+        .uri(SHOPPING_CART_BASE_URL + "/" + SHOPPING_CART_ID + "/products")
+        .headers(http -> http.setBearerAuth(this.generateValidToken()))
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(List.of(buildItemRequest(PRODUCT_ID, PRODUCT_QUANTITY)))
+        .exchange()
+        .expectStatus()
+        .isNotFound();
+  }
+
+  @Test
+  @DisplayName("Test delete items without product identifiers")
+  public void givenShoppingCartIdWithoutProductIdsWhenDeleteItemsThenShouldReturnBadRequestResponse() {
+    this.webClient
+        .delete()
+        .uri(SHOPPING_CART_BASE_URL + "/" + SHOPPING_CART_ID + "/products")
+        .headers(http -> http.setBearerAuth(this.generateValidToken()))
+        .exchange()
+        .expectStatus()
+        .isBadRequest();
+  }
+
+  @Test
+  @DisplayName("Test set items to shopping cart without token")
+  public void givenShoppingCartIdAndItemsWithoutTokenWhenSetItemsThenShouldReturnUnauthorizedResponse() {
+    this.webClient
+        .patch()
+        .uri(SHOPPING_CART_BASE_URL + "/" + SHOPPING_CART_ID + "/products")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(List.of(buildItemRequest(PRODUCT_ID, PRODUCT_QUANTITY)))
+        .exchange()
+        .expectStatus()
+        .isUnauthorized();
+  }
+
+  private Long createShoppingCart(String token) throws InterruptedException {
+    HttpHeaders headers = this.webClient
+        .post()
+        .uri(SHOPPING_CART_BASE_URL)
+        .headers(http -> http.setBearerAuth(token))
+        .exchange()
+        .expectStatus()
+        .isAccepted()
+        .expectHeader()
+        .value(LOCATION_HEADER,
+            startsWith("https://localhost:" + this.port + SHOPPING_CART_BASE_URL + "/"))
+        .returnResult(Map.class)
+        .getResponseHeaders();
+
+    String[] locationUrlParts = headers.get(LOCATION_HEADER).get(0).split("/");
+
+    Thread.sleep(WAIT_TIME);
+
+    return Long.valueOf(locationUrlParts[locationUrlParts.length - 1]);
+  }
+
+  private ShoppingCartResponseDto getShoppingCart(Long shoppingCartId, String token) {
+    return this.webClient
+        .get()
+        .uri(SHOPPING_CART_BASE_URL + "/" + shoppingCartId)
+        .headers(http -> http.setBearerAuth(token))
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(ShoppingCartResponseDto.class)
+        .returnResult()
+        .getResponseBody();
+  }
+
+  private static ItemRequest buildItemRequest(Integer productId, Integer quantity) {
+    return ItemRequest.builder()
+        .productId(productId)
+        .unitPrice(PRODUCT_UNIT_PRICE)
+        .quantity(quantity)
+        .build();
+  }
+
+  private static ItemResponseDto buildItemResponse(Integer productId, Integer quantity,
+      Double totalPrice) {
+    return ItemResponseDto.builder()
+        .productId(productId)
+        .unitPrice(PRODUCT_UNIT_PRICE)
+        .quantity(quantity)
+        .totalPrice(totalPrice)
+        .build();
+  }
+
+}
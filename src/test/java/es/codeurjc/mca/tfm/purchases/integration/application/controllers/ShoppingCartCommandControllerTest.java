@@ -1,6 +1,7 @@
 package es.codeurjc.mca.tfm.purchases.integration.application.controllers;
 
 import es.codeurjc.mca.tfm.purchases.application.dtos.requests.SetItemRequest;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
 import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
 import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
 import org.springframework.boot.test.mock.mockito.SpyBean;
@@ -20,14 +21,14 @@ public abstract class ShoppingCartCommandControllerTest extends AuthenticatedBas
   protected JpaShoppingCartRepository jpaShoppingCartRepository;
 
   @SpyBean
-  protected KafkaTemplate<String, String> kafkaTemplate;
+  protected KafkaTemplate<String, byte[]> kafkaTemplate;
 
   protected static ShoppingCartEntity buildShoppingCart(Long id) {
     ShoppingCartEntity shoppingCartEntity = new ShoppingCartEntity();
     shoppingCartEntity.setId(id);
     shoppingCartEntity.setUserId(USER_ID);
     shoppingCartEntity.setItems("[]");
-    shoppingCartEntity.setTotalPrice(0.0);
+    shoppingCartEntity.setTotalPrice(Money.ZERO);
 
     return shoppingCartEntity;
   }
@@ -11,6 +11,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import es.codeurjc.mca.tfm.purchases.PurchasesApplication;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.OrderDto;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
 import es.codeurjc.mca.tfm.purchases.domain.models.OrderState;
 import es.codeurjc.mca.tfm.purchases.domain.ports.in.OrderUseCase;
 import es.codeurjc.mca.tfm.purchases.domain.ports.out.OrderRepository;
@@ -71,7 +72,7 @@ public class OrderFlowsIntegrationTest extends TestContainersBase {
   static class OrderFlowsIntegrationTestContextConfiguration {
 
     @Bean
-    public TestEventsListener testEventsListener(KafkaTemplate<String, String> kafkaTemplate,
+    public TestEventsListener testEventsListener(KafkaTemplate<String, byte[]> kafkaTemplate,
         ObjectMapper objectMapper) {
       return new TestEventsListener(kafkaTemplate, objectMapper);
     }
@@ -206,7 +207,7 @@ public class OrderFlowsIntegrationTest extends TestContainersBase {
         + "\"quantity\": 1, "
         + "\"totalPrice\": 1.0"
         + "}]");
-    shoppingCartEntity.setTotalPrice(1.0);
+    shoppingCartEntity.setTotalPrice(Money.parse("1.0"));
 
     return shoppingCartEntity;
   }
@@ -0,0 +1,181 @@
+package es.codeurjc.mca.tfm.purchases.integration.infrastructure;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import es.codeurjc.mca.tfm.purchases.PurchasesApplication;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaCartItemRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaNodeLeaseRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaOrderRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaOutboxEventRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaPendingOrderStateChangeRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaProcessedEventRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
+import es.codeurjc.mca.tfm.purchases.testcontainers.TestContainersBase;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = PurchasesApplication.class, properties =
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "es.codeurjc.mca.tfm.purchases.integration.infrastructure.SqlStatementRecorder")
+@ActiveProfiles("test")
+@Tag("IntegrationTest")
+@DisplayName("Repository queries execution plan integration tests")
+@DirtiesContext
+public class RepositoryQueriesPlanIntegrationTest extends TestContainersBase {
+
+  private static final int ROWS = 200;
+
+  private static final int INCOMPLETE_ROWS = 10;
+
+  private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private JpaShoppingCartRepository jpaShoppingCartRepository;
+
+  @Autowired
+  private JpaCartItemRepository jpaCartItemRepository;
+
+  @Autowired
+  private JpaOrderRepository jpaOrderRepository;
+
+  @Autowired
+  private JpaPendingOrderStateChangeRepository jpaPendingOrderStateChangeRepository;
+
+  @Autowired
+  private JpaOutboxEventRepository jpaOutboxEventRepository;
+
+  @Autowired
+  private JpaNodeLeaseRepository jpaNodeLeaseRepository;
+
+  @Autowired
+  private JpaProcessedEventRepository jpaProcessedEventRepository;
+
+  @BeforeEach
+  public void setUp() {
+    for (String table : List.of("orders", "cart_items", "shopping_carts", "pending_order_state_changes",
+        "outbox_events", "processed_events")) {
+      this.jdbcTemplate.update("delete from " + table);
+    }
+    List<Object[]> shoppingCarts = new ArrayList<>();
+    List<Object[]> cartItems = new ArrayList<>();
+    List<Object[]> orders = new ArrayList<>();
+    List<Object[]> pendingStateChanges = new ArrayList<>();
+    List<Object[]> outboxEvents = new ArrayList<>();
+    List<Object[]> processedEvents = new ArrayList<>();
+    for (long id = 1; id <= ROWS; id++) {
+      boolean completed = id > INCOMPLETE_ROWS;
+      shoppingCarts.add(new Object[]{id, id, completed});
+      cartItems.add(new Object[]{id, 1});
+      cartItems.add(new Object[]{id, 2});
+      if (completed) {
+        orders.add(new Object[]{id, id});
+      }
+      pendingStateChanges.add(new Object[]{id});
+      outboxEvents.add(new Object[]{new byte[]{0}});
+      processedEvents.add(new Object[]{id, Timestamp.from(NOW.minus(id, ChronoUnit.HOURS))});
+    }
+    this.jdbcTemplate.batchUpdate("insert into shopping_carts "
+        + "(id, user_id, completed, items, total_price, version) values (?, ?, ?, '[]', 0, 0)",
+        shoppingCarts);
+    this.jdbcTemplate.batchUpdate("insert into cart_items "
+        + "(cart_id, product_id, unit_price, quantity, total_price) values (?, ?, 1, 1, 1)",
+        cartItems);
+    this.jdbcTemplate.batchUpdate("insert into orders (id, shopping_cart_id, state, version) "
+        + "values (?, ?, 'DONE', 1)", orders);
+    this.jdbcTemplate.batchUpdate("insert into pending_order_state_changes "
+        + "(order_id, state, version) values (?, 'DONE', 2)", pendingStateChanges);
+    this.jdbcTemplate.batchUpdate("insert into outbox_events "
+        + "(topic, event_key, payload) values ('topic', 'key', ?)", outboxEvents);
+    this.jdbcTemplate.batchUpdate("insert into processed_events (id, processed_at) "
+        + "values (?, ?)", processedEvents);
+    this.jdbcTemplate.execute("analyze table shopping_carts, cart_items, orders, "
+        + "pending_order_state_changes, outbox_events, processed_events");
+  }
+
+  @Test
+  @DisplayName("Test shopping cart repository queries don't scan the whole table")
+  public void givenShoppingCartRepositoryQueriesWhenExplainedThenShouldNotScanWholeTables() {
+    this.assertNoFullTableScan(
+        () -> this.jpaShoppingCartRepository.findByUserIdAndCompletedIsFalse(1), 1);
+    this.assertNoFullTableScan(() -> this.jpaShoppingCartRepository
+        .findByCompletedIsFalseAndIdGreaterThanOrderByIdAsc(1L, PageRequest.of(0, 1000)), 1L,
+        1000);
+    this.assertNoFullTableScan(() -> this.jpaShoppingCartRepository.findById(1L), 1L);
+  }
+
+  @Test
+  @DisplayName("Test shopping cart item repository queries don't scan the whole table")
+  public void givenCartItemRepositoryQueriesWhenExplainedThenShouldNotScanWholeTables() {
+    this.assertNoFullTableScan(
+        () -> this.jpaCartItemRepository.findByCartIdInInsertionOrder(1L), 1L);
+    this.assertNoFullTableScan(
+        () -> this.jpaCartItemRepository.findByCartIdAndProductIdIn(1L, List.of(1)), 1L, 1);
+    this.assertNoFullTableScan(
+        () -> this.jpaCartItemRepository.deleteByCartIdAndProductIdIn(1L, List.of(1)), 1L, 1);
+    this.assertNoFullTableScan(() -> this.jpaCartItemRepository.deleteByCartId(2L), 2L);
+  }
+
+  @Test
+  @DisplayName("Test order repository queries don't scan the whole table")
+  public void givenOrderRepositoryQueriesWhenExplainedThenShouldNotScanWholeTables() {
+    this.assertNoFullTableScan(() -> this.jpaOrderRepository.findById((long) ROWS),
+        (long) ROWS);
+    this.assertNoFullTableScan(() -> this.jpaOrderRepository.findForUpdateById((long) ROWS),
+        (long) ROWS);
+  }
+
+  @Test
+  @DisplayName("Test events and state changes repositories queries don't scan the whole table")
+  public void givenOtherRepositoriesQueriesWhenExplainedThenShouldNotScanWholeTables() {
+    this.assertNoFullTableScan(() -> this.jpaPendingOrderStateChangeRepository
+        .findByOrderIdInOrderByVersionAscIdAsc(List.of(1L, 2L)), 1L, 2L);
+    this.assertNoFullTableScan(() -> this.jpaOutboxEventRepository.findOldestId());
+    this.assertNoFullTableScan(() -> this.jpaOutboxEventRepository.claimOldest(500), 500);
+    this.assertNoFullTableScan(() -> this.jpaNodeLeaseRepository.findByNodeIdForUpdate(0), 0);
+    Timestamp before = Timestamp.from(NOW.minus(ROWS - INCOMPLETE_ROWS, ChronoUnit.HOURS));
+    this.assertNoFullTableScan(() -> this.jpaProcessedEventRepository
+        .deleteByProcessedAtBefore(before.toInstant()), before);
+  }
+
+  private void assertNoFullTableScan(Runnable query, Object... params) {
+    SqlStatementRecorder.start();
+    List<String> statements;
+    try {
+      this.transactionTemplate.executeWithoutResult(status -> query.run());
+    } finally {
+      statements = SqlStatementRecorder.stop();
+    }
+    assertFalse(statements.isEmpty());
+    String sql = statements.get(0);
+    for (Map<String, Object> row : this.jdbcTemplate.queryForList("explain " + sql, params)) {
+      assertNotEquals("ALL", row.get("type"),
+          () -> "Full scan of table " + row.get("table") + " by " + sql);
+    }
+  }
+
+}
@@ -0,0 +1,30 @@
+package es.codeurjc.mca.tfm.purchases.integration.infrastructure;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+public class SqlStatementRecorder implements StatementInspector {
+
+  private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+  public static void start() {
+    STATEMENTS.set(new ArrayList<>());
+  }
+
+  public static List<String> stop() {
+    List<String> statements = STATEMENTS.get();
+    STATEMENTS.remove();
+    return statements;
+  }
+
+  @Override
+  public String inspect(String sql) {
+    List<String> statements = STATEMENTS.get();
+    if (statements != null) {
+      statements.add(sql);
+    }
+    return sql;
+  }
+
+}
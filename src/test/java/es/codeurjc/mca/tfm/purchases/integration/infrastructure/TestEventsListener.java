@@ -18,11 +18,11 @@ import org.springframework.kafka.core.KafkaTemplate;
 @Slf4j
 public class TestEventsListener {
 
-  private KafkaTemplate<String, String> kafkaTemplate;
+  private KafkaTemplate<String, byte[]> kafkaTemplate;
 
   private ObjectMapper objectMapper;
 
-  public TestEventsListener(KafkaTemplate<String, String> kafkaTemplate,
+  public TestEventsListener(KafkaTemplate<String, byte[]> kafkaTemplate,
       ObjectMapper objectMapper) {
     this.kafkaTemplate = kafkaTemplate;
     this.objectMapper = objectMapper;
@@ -35,47 +35,52 @@ public class TestEventsListener {
   private String changeOrderStateTopic;
 
   @KafkaListener(topics = "${kafka.topics.validateItems}", groupId = "${kafka.groupId}")
-  public void onValidateItems(String validateItemsEvent) throws Exception {
+  public void onValidateItems(byte[] validateItemsEvent) throws Exception {
     try {
-      log.info("Received {}", validateItemsEvent);
+      log.info("Received {}", new String(validateItemsEvent));
       OrderValidationRequestedEvent orderValidationRequestedEvent = this.objectMapper.readValue(
           validateItemsEvent, OrderValidationRequestedEvent.class);
       OrderUpdateRequestedEvent orderUpdateRequestedEvent = new OrderUpdateRequestedEvent();
       orderUpdateRequestedEvent.setId(orderValidationRequestedEvent.getId());
       orderUpdateRequestedEvent.setState(orderValidationRequestedEvent.getSuccessState());
+      orderUpdateRequestedEvent.setVersion(orderValidationRequestedEvent.getVersion());
       if (ORDER_INVALID_ITEMS_SC_ID.equals(
           orderValidationRequestedEvent.getShoppingCart().getId())) {
         orderUpdateRequestedEvent.setState(orderValidationRequestedEvent.getFailureState());
         orderUpdateRequestedEvent.setErrors(Optional.of(List.of(INVALID_ITEMS_MSG)));
       }
       this.kafkaTemplate.send(this.changeOrderStateTopic,
-          this.objectMapper.writeValueAsString(orderUpdateRequestedEvent));
-      log.info("Sent {}", this.objectMapper.writeValueAsString(orderUpdateRequestedEvent));
+          String.valueOf(orderUpdateRequestedEvent.getId()),
+          this.objectMapper.writeValueAsBytes(orderUpdateRequestedEvent));
+      log.info("Sent {}", orderUpdateRequestedEvent);
     } catch (Exception e) {
-      log.error("Error processing event {}: {}", validateItemsEvent, e.getMessage());
+      log.error("Error processing event {}: {}", new String(validateItemsEvent), e.getMessage());
       throw e;
     }
   }
 
   @KafkaListener(topics = "${kafka.topics.validateBalance}", groupId = "${kafka.groupId}")
-  public void onValidateBalance(String validateBalanceEvent) throws Exception {
+  public void onValidateBalance(byte[] validateBalanceEvent) throws Exception {
     try {
-      log.info("Received {}", validateBalanceEvent);
+      log.info("Received {}", new String(validateBalanceEvent));
       OrderValidationRequestedEvent orderValidationRequestedEvent = this.objectMapper.readValue(
           validateBalanceEvent, OrderValidationRequestedEvent.class);
       OrderUpdateRequestedEvent orderUpdateRequestedEvent = new OrderUpdateRequestedEvent();
       orderUpdateRequestedEvent.setId(orderValidationRequestedEvent.getId());
       orderUpdateRequestedEvent.setState(orderValidationRequestedEvent.getSuccessState());
+      orderUpdateRequestedEvent.setVersion(orderValidationRequestedEvent.getVersion());
       if (ORDER_INVALID_BALANCE_SC_ID.equals(
           orderValidationRequestedEvent.getShoppingCart().getId())) {
         orderUpdateRequestedEvent.setState(orderValidationRequestedEvent.getFailureState());
         orderUpdateRequestedEvent.setErrors(Optional.of(List.of(INVALID_BALANCE_MSG)));
       }
       this.kafkaTemplate.send(this.changeOrderStateTopic,
-          this.objectMapper.writeValueAsString(orderUpdateRequestedEvent));
-      log.info("Sent {}", this.objectMapper.writeValueAsString(orderUpdateRequestedEvent));
+          String.valueOf(orderUpdateRequestedEvent.getId()),
+          this.objectMapper.writeValueAsBytes(orderUpdateRequestedEvent));
+      log.info("Sent {}", orderUpdateRequestedEvent);
     } catch (Exception e) {
-      log.error("Error processing event {}: {}", validateBalanceEvent, e.getMessage());
+      log.error("Error processing event {}: {}", new String(validateBalanceEvent),
+          e.getMessage());
       throw e;
     }
   }
@@ -0,0 +1,21 @@
+package es.codeurjc.mca.tfm.purchases.testcontainers;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+@Configuration
+@Profile("test")
+public class CleanDatabaseMigrationConfig {
+
+  @Bean
+  public FlywayMigrationStrategy cleanMigrationStrategy() {
+    return (Flyway flyway) -> {
+      flyway.clean();
+      flyway.migrate();
+    };
+  }
+
+}
@@ -0,0 +1,60 @@
+package es.codeurjc.mca.tfm.purchases.unit.domain.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.MoneyModule;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Money tests")
+public class MoneyTest {
+
+  private static final Money PRICE = Money.parse("19.99");
+
+  private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new MoneyModule());
+
+  @Test
+  @DisplayName("Test arithmetic is exact in minor units")
+  public void givenDecimalAmountsWhenOperateThenShouldKeepExactMinorUnits() {
+    assertEquals(1999L, PRICE.getMinorUnits());
+    assertEquals(Money.parse("59.97"), PRICE.times(3));
+    assertEquals(Money.parse("0.3"), Money.parse("0.1").plus(Money.parse("0.2")));
+    assertEquals(Money.ZERO, PRICE.minus(PRICE));
+    assertEquals(new BigDecimal("19.99"), PRICE.toBigDecimal());
+  }
+
+  @Test
+  @DisplayName("Test creation from double and decimal rounds to minor unit")
+  public void givenNonExactAmountsWhenCreateThenShouldRoundHalfUpToMinorUnit() {
+    assertEquals(Money.parse("6.6"), Money.of(6.6000000000000005));
+    assertEquals(Money.parse("0.13"), Money.of(new BigDecimal("0.125")));
+  }
+
+  @Test
+  @DisplayName("Test overflow is detected")
+  public void givenMaxAmountWhenAddThenShouldThrowArithmeticException() {
+    assertThrows(ArithmeticException.class,
+        () -> Money.ofMinorUnits(Long.MAX_VALUE).plus(Money.ofMinorUnits(1L)));
+  }
+
+  @Test
+  @DisplayName("Test JSON codec keeps decimal number format")
+  public void givenMoneyWhenSerializeAndDeserializeThenShouldUseDecimalNumbers()
+      throws JsonProcessingException {
+    assertEquals("19.99", this.objectMapper.writeValueAsString(PRICE));
+    assertEquals(PRICE, this.objectMapper.readValue("19.99", Money.class));
+    assertEquals(Money.parse("1"), this.objectMapper.readValue("1", Money.class));
+    assertEquals(PRICE, this.objectMapper.readValue("\"19.99\"", Money.class));
+  }
+
+}
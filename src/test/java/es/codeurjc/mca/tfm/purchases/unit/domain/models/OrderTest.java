@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import es.codeurjc.mca.tfm.purchases.domain.models.Item;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
 import es.codeurjc.mca.tfm.purchases.domain.models.Order;
 import es.codeurjc.mca.tfm.purchases.domain.models.OrderState;
 import es.codeurjc.mca.tfm.purchases.domain.models.ShoppingCart;
@@ -28,7 +29,7 @@ public class OrderTest {
 
   private static final Integer PRODUCT_1_ID = 100;
 
-  private static final Double PRODUCT_1_PRICE = 19.99;
+  private static final Money PRODUCT_1_PRICE = Money.parse("19.99");
 
   private static final Item ITEM_1 = new Item(PRODUCT_1_ID, PRODUCT_1_PRICE, 1);
 
@@ -64,6 +65,7 @@ public class OrderTest {
     Order order = buildOrder(OrderState.VALIDATING_ITEMS);
     assertTrue(order.updateState(OrderState.REJECTED));
     assertEquals(OrderState.REJECTED, order.getState());
+    assertEquals(1, order.getVersion());
   }
 
   @Test
@@ -72,6 +74,7 @@ public class OrderTest {
     Order order = buildOrder(OrderState.DONE);
     assertFalse(order.updateState(OrderState.VALIDATING_BALANCE));
     assertEquals(OrderState.DONE, order.getState());
+    assertEquals(0, order.getVersion());
   }
 
   @Test
@@ -82,6 +85,20 @@ public class OrderTest {
     assertEquals(OrderState.DONE, order.getState());
   }
 
+  @Test
+  @DisplayName("Test transition table only allows moving forward from non final states")
+  public void givenAllStatesWhenCanTransitionToThenShouldOnlyAllowForwardTransitions() {
+    for (OrderState from : OrderState.values()) {
+      for (OrderState to : OrderState.values()) {
+        boolean expected = from.ordinal() < OrderState.DONE.ordinal()
+            && to.ordinal() > from.ordinal();
+        assertEquals(expected, from.canTransitionTo(to), from + " -> " + to);
+      }
+    }
+    assertTrue(OrderState.DONE.isFinal());
+    assertTrue(OrderState.REJECTED.isFinal());
+  }
+
   @Test
   @DisplayName("Test reject order in done state")
   public void givenADoneStateOrderWhenRejectOrderThenShouldNotUpdateErrorsAndReturnFalse() {
@@ -124,7 +141,7 @@ public class OrderTest {
 
   private static Order buildOrder(OrderState orderState) {
     Order order = new Order(ORDER_ID, buildShoppingCart(), orderState,
-        Optional.empty());
+        Optional.empty(), 0);
     return order;
   }
 
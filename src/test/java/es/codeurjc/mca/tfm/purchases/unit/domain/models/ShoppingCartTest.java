@@ -2,9 +2,12 @@ package es.codeurjc.mca.tfm.purchases.unit.domain.models;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import es.codeurjc.mca.tfm.purchases.domain.exceptions.InvalidItemException;
 import es.codeurjc.mca.tfm.purchases.domain.models.Item;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
 import es.codeurjc.mca.tfm.purchases.domain.models.ShoppingCart;
 import java.util.ArrayList;
 import java.util.List;
@@ -25,20 +28,20 @@ public class ShoppingCartTest {
 
   private static final Integer PRODUCT_1_ID = 100;
 
-  private static final Double PRODUCT_1_PRICE = 19.99;
+  private static final Money PRODUCT_1_PRICE = Money.parse("19.99");
 
   private static final Item ITEM_1 = new Item(PRODUCT_1_ID, PRODUCT_1_PRICE, 1);
 
   private static final Integer PRODUCT_2_ID = 200;
 
-  private static final Double PRODUCT_2_PRICE = 3.05;
+  private static final Money PRODUCT_2_PRICE = Money.parse("3.05");
 
   private static final Item ITEM_2 = new Item(PRODUCT_2_ID, PRODUCT_2_PRICE, 2);
 
   @Test
   @DisplayName("Test is deletable on incomplete shopping cart")
   public void givenAnIncompleteShoppingCartWhenIsDeletableThenShouldReturnTrue() {
-    ShoppingCart shoppingCart = new ShoppingCart(USER_ID);
+    ShoppingCart shoppingCart = new ShoppingCart(SHOPPING_CART_ID, USER_ID);
     assertTrue(shoppingCart.isDeletable());
   }
 
@@ -60,7 +63,7 @@ public class ShoppingCartTest {
   @DisplayName("Test is completable on incomplete shopping cart but without items")
   public void givenAnIncompleteShoppingCartWithoutItemsWhenIsCompletableThenShouldReturnFalse() {
     ShoppingCart shoppingCart = new ShoppingCart(SHOPPING_CART_ID, USER_ID, false,
-        List.of(), 0.0);
+        List.of(), Money.ZERO);
     assertFalse(shoppingCart.isCompletable());
   }
 
@@ -68,7 +71,7 @@ public class ShoppingCartTest {
   @DisplayName("Test is completable on incomplete shopping cart with items but with zero total price")
   public void givenAnIncompleteShoppingCartWithItemsButNotTotalPriceWhenIsCompletableThenShouldReturnFalse() {
     ShoppingCart shoppingCart = new ShoppingCart(SHOPPING_CART_ID, USER_ID, true,
-        List.of(ITEM_1), 0.0);
+        List.of(ITEM_1), Money.ZERO);
     assertFalse(shoppingCart.isCompletable());
   }
 
@@ -83,27 +86,27 @@ public class ShoppingCartTest {
   @Test
   @DisplayName("Test set item on incomplete shopping cart with invalid item price")
   public void givenAnIncompleteShoppingCartAndInvalidItemUnitPriceWhenSetItemThenShouldNotSetItemAndReturnFalse() {
-    ShoppingCart shoppingCart = new ShoppingCart(USER_ID);
+    ShoppingCart shoppingCart = new ShoppingCart(SHOPPING_CART_ID, USER_ID);
     assertFalse(
-        shoppingCart.setItem(ITEM_2.getProductId(), 0.0, ITEM_2.getQuantity()));
+        shoppingCart.setItem(ITEM_2.getProductId(), Money.ZERO, ITEM_2.getQuantity()));
     assertTrue(shoppingCart.getItems().isEmpty());
-    assertEquals(0.0, shoppingCart.getTotalPrice());
+    assertEquals(Money.ZERO, shoppingCart.getTotalPrice());
   }
 
   @Test
   @DisplayName("Test set item on incomplete shopping cart with invalid item quantity")
   public void givenAnIncompleteShoppingCartAndInvalidItemQuantityWhenSetItemThenShouldNotSetItemAndReturnFalse() {
-    ShoppingCart shoppingCart = new ShoppingCart(USER_ID);
+    ShoppingCart shoppingCart = new ShoppingCart(SHOPPING_CART_ID, USER_ID);
     assertFalse(
         shoppingCart.setItem(ITEM_2.getProductId(), ITEM_2.getUnitPrice(), 0));
     assertTrue(shoppingCart.getItems().isEmpty());
-    assertEquals(0.0, shoppingCart.getTotalPrice());
+    assertEquals(Money.ZERO, shoppingCart.getTotalPrice());
   }
 
   @Test
   @DisplayName("Test set item on incomplete shopping cart with no items")
   public void givenAnIncompleteShoppingCartWithEmptyItemsAndValidItemWhenSetItemThenShouldSetItemAndReturnTrue() {
-    ShoppingCart shoppingCart = new ShoppingCart(USER_ID);
+    ShoppingCart shoppingCart = new ShoppingCart(SHOPPING_CART_ID, USER_ID);
     assertTrue(
         shoppingCart.setItem(ITEM_2.getProductId(), ITEM_2.getUnitPrice(), ITEM_2.getQuantity()));
     assertEquals(1, shoppingCart.getItems().size());
@@ -133,14 +136,14 @@ public class ShoppingCartTest {
     assertEquals(ITEM_2.getUnitPrice(), shoppingCart.getItems().get(1).getUnitPrice());
     assertEquals(ITEM_2.getQuantity(), shoppingCart.getItems().get(1).getQuantity());
     assertEquals(ITEM_2.getTotalPrice(), shoppingCart.getItems().get(1).getTotalPrice());
-    assertEquals(ITEM_1.getTotalPrice() + ITEM_2.getTotalPrice(), shoppingCart.getTotalPrice());
+    assertEquals(ITEM_1.getTotalPrice().plus(ITEM_2.getTotalPrice()), shoppingCart.getTotalPrice());
   }
 
   @Test
   @DisplayName("Test set item on incomplete shopping cart containing that item")
   public void givenAnIncompleteShoppingCartContainingThatItemWhenSetItemThenShouldSetItemAndReturnTrue() {
     ShoppingCart shoppingCart = new ShoppingCart(SHOPPING_CART_ID, USER_ID, false,
-        List.of(ITEM_1), PRODUCT_1_PRICE);
+        List.of(new Item(PRODUCT_1_ID, PRODUCT_1_PRICE, 1)), PRODUCT_1_PRICE);
     assertTrue(
         shoppingCart.setItem(ITEM_1.getProductId(), ITEM_2.getUnitPrice(), ITEM_2.getQuantity()));
     assertEquals(1, shoppingCart.getItems().size());
@@ -176,7 +179,7 @@ public class ShoppingCartTest {
     assertTrue(
         shoppingCart.deleteItem(ITEM_1.getProductId()));
     assertTrue(shoppingCart.getItems().isEmpty());
-    assertEquals(0.0, shoppingCart.getTotalPrice());
+    assertEquals(Money.ZERO, shoppingCart.getTotalPrice());
   }
 
   @Test
@@ -186,7 +189,7 @@ public class ShoppingCartTest {
     items.add(ITEM_1);
     items.add(ITEM_2);
     ShoppingCart shoppingCart = new ShoppingCart(SHOPPING_CART_ID, USER_ID, false,
-        items, ITEM_1.getTotalPrice() + ITEM_2.getTotalPrice());
+        items, ITEM_1.getTotalPrice().plus(ITEM_2.getTotalPrice()));
     assertTrue(
         shoppingCart.deleteItem(ITEM_2.getProductId()));
     assertEquals(1, shoppingCart.getItems().size());
@@ -194,6 +197,63 @@ public class ShoppingCartTest {
     assertEquals(PRODUCT_1_PRICE, shoppingCart.getTotalPrice());
   }
 
+  @Test
+  @DisplayName("Test set and delete items keeps items insertion order")
+  public void givenAnIncompleteShoppingCartWhenSetAndDeleteItemsThenShouldKeepInsertionOrder() {
+    ShoppingCart shoppingCart = new ShoppingCart(SHOPPING_CART_ID, USER_ID);
+    shoppingCart.setItem(PRODUCT_1_ID, PRODUCT_1_PRICE, 1);
+    shoppingCart.setItem(PRODUCT_2_ID, PRODUCT_2_PRICE, 2);
+    shoppingCart.setItem(300, Money.parse("1.0"), 1);
+
+    shoppingCart.setItem(PRODUCT_1_ID, PRODUCT_1_PRICE, 5);
+    shoppingCart.deleteItem(PRODUCT_2_ID);
+    shoppingCart.setItem(PRODUCT_2_ID, PRODUCT_2_PRICE, 1);
+
+    List<Item> items = shoppingCart.getItems();
+    assertEquals(3, items.size());
+    assertEquals(PRODUCT_1_ID, items.get(0).getProductId());
+    assertEquals(5, items.get(0).getQuantity());
+    assertEquals(300, items.get(1).getProductId());
+    assertEquals(PRODUCT_2_ID, items.get(2).getProductId());
+  }
+
+  @Test
+  @DisplayName("Test total price doesn't drift after many set and delete item operations")
+  public void givenAnIncompleteShoppingCartWhenSetAndDeleteManyItemsThenTotalPriceShouldNotDrift() {
+    ShoppingCart shoppingCart = new ShoppingCart(SHOPPING_CART_ID, USER_ID);
+    shoppingCart.setItem(PRODUCT_1_ID, PRODUCT_1_PRICE, 1);
+    for (int productId = 1000; productId < 2000; productId++) {
+      shoppingCart.setItem(productId, PRODUCT_2_PRICE, 3);
+      shoppingCart.setItem(productId, Money.parse("0.1"), 7);
+    }
+    for (int productId = 1000; productId < 2000; productId++) {
+      shoppingCart.deleteItem(productId);
+    }
+
+    assertEquals(1, shoppingCart.getItems().size());
+    assertEquals(PRODUCT_1_PRICE, shoppingCart.getTotalPrice());
+  }
+
+  @Test
+  @DisplayName("Test set item whose total price overflows leaves shopping cart unchanged")
+  public void givenAnItemWhenSetItemWithOverflowingTotalPriceThenShouldKeepShoppingCart() {
+    ShoppingCart shoppingCart = new ShoppingCart(SHOPPING_CART_ID, USER_ID);
+    shoppingCart.setItem(PRODUCT_1_ID, PRODUCT_1_PRICE, 1);
+    shoppingCart.setItem(PRODUCT_2_ID, PRODUCT_2_PRICE, 2);
+    Money hugePrice = Money.ofMinorUnits(Long.MAX_VALUE / 2);
+
+    assertThrows(InvalidItemException.class,
+        () -> shoppingCart.setItem(PRODUCT_1_ID, hugePrice, 3));
+    assertThrows(InvalidItemException.class,
+        () -> shoppingCart.setItems(List.of(new Item(PRODUCT_1_ID, hugePrice, 1),
+            new Item(PRODUCT_2_ID, hugePrice, 1), new Item(300, hugePrice, 1))));
+
+    assertEquals(2, shoppingCart.getItems().size());
+    assertEquals(PRODUCT_1_PRICE, shoppingCart.getItems().get(0).getUnitPrice());
+    assertEquals(1, shoppingCart.getItems().get(0).getQuantity());
+    assertEquals(PRODUCT_1_PRICE.plus(PRODUCT_2_PRICE.times(2)), shoppingCart.getTotalPrice());
+  }
+
   private static ShoppingCart buildCompleteShoppingCart() {
     return new ShoppingCart(SHOPPING_CART_ID, USER_ID, true,
         List.of(ITEM_1), PRODUCT_1_PRICE);
@@ -2,7 +2,6 @@ package es.codeurjc.mca.tfm.purchases.unit.domain.usecases;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -18,8 +17,10 @@ import es.codeurjc.mca.tfm.purchases.domain.exceptions.IllegalOrderStateExceptio
 import es.codeurjc.mca.tfm.purchases.domain.exceptions.IllegalShoppingCartStateException;
 import es.codeurjc.mca.tfm.purchases.domain.exceptions.PreviousOrderStateUpdateException;
 import es.codeurjc.mca.tfm.purchases.domain.models.Item;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
 import es.codeurjc.mca.tfm.purchases.domain.models.OrderState;
 import es.codeurjc.mca.tfm.purchases.domain.models.ShoppingCart;
+import es.codeurjc.mca.tfm.purchases.domain.ports.out.IdGenerator;
 import es.codeurjc.mca.tfm.purchases.domain.ports.out.OrderRepository;
 import es.codeurjc.mca.tfm.purchases.domain.services.OrderStateService;
 import es.codeurjc.mca.tfm.purchases.domain.usecases.OrderUseCaseImpl;
@@ -47,7 +48,7 @@ public class OrderUseCaseTest {
 
   private static final Integer PRODUCT_1_ID = 100;
 
-  private static final Double PRODUCT_1_PRICE = 19.99;
+  private static final Money PRODUCT_1_PRICE = Money.parse("19.99");
 
   private static final Item ITEM_1 = new Item(PRODUCT_1_ID, PRODUCT_1_PRICE, 1);
 
@@ -60,7 +61,10 @@ public class OrderUseCaseTest {
   private OrderStateService orderStateService;
 
   @Mock
-  private Map<String, OrderStateService> orderStateServiceMap;
+  private Map<OrderState, OrderStateService> orderStateServiceMap;
+
+  @Mock
+  private IdGenerator idGenerator;
 
   private OrderUseCaseImpl orderUseCase;
 
@@ -69,23 +73,27 @@ public class OrderUseCaseTest {
 
   @BeforeEach
   public void setUp() {
-    this.orderUseCase = new OrderUseCaseImpl(this.orderRepository, this.orderStateServiceMap);
+    this.orderUseCase = new OrderUseCaseImpl(this.orderRepository, this.orderStateServiceMap,
+        this.idGenerator);
   }
 
   @Test
   @DisplayName("Test order creation with completed shopping cart")
   public void givenACompletedShoppingCartDtoWhenCreateThenShouldCreateAndReturnOrderDto() {
+    when(this.idGenerator.nextId()).thenReturn(ORDER_ID);
+
     OrderDto orderDto = this.orderUseCase.create(buildCompletedShoppingCartDto());
 
     verify(this.orderRepository, times(1)).create(orderDtoArgumentCaptor.capture());
 
-    assertNotNull(orderDto.getId());
+    assertEquals(ORDER_ID, orderDto.getId());
     assertEquals(SHOPPING_CART_ID, orderDto.getShoppingCart().getId());
     assertEquals(USER_ID, orderDto.getShoppingCart().getUserId());
     assertEquals(List.of(new ItemDto(ITEM_1)), orderDto.getShoppingCart().getItems());
     assertEquals(PRODUCT_1_PRICE, orderDto.getShoppingCart().getTotalPrice());
     assertEquals(OrderState.CREATED.name(), orderDto.getState());
     assertTrue(orderDto.getErrors().isEmpty());
+    assertEquals(0, orderDto.getVersion());
 
     assertEquals(orderDto, orderDtoArgumentCaptor.getValue());
   }
@@ -102,7 +110,7 @@ public class OrderUseCaseTest {
   @DisplayName("Test update a non existing order")
   public void givenANonExistingOrderWhenUpdateThenShouldTReturnEmptyOptional() {
     assertTrue(this.orderUseCase
-        .update(ORDER_ID, OrderState.VALIDATING_ITEMS.name(), Optional.empty())
+        .update(ORDER_ID, OrderState.VALIDATING_ITEMS, Optional.empty())
         .isEmpty());
     verify(this.orderRepository, never()).update(any(OrderDto.class));
   }
@@ -114,7 +122,7 @@ public class OrderUseCaseTest {
         Optional.of(buildFinalStateOrderDto()));
 
     assertThrows(IllegalOrderStateException.class, () -> this.orderUseCase
-        .update(ORDER_ID, OrderState.VALIDATING_ITEMS.name(), Optional.empty()));
+        .update(ORDER_ID, OrderState.VALIDATING_ITEMS, Optional.empty()));
     verify(this.orderRepository, never()).update(any(OrderDto.class));
   }
 
@@ -124,12 +132,12 @@ public class OrderUseCaseTest {
     when(this.orderRepository.findById(ORDER_ID)).thenReturn(
         Optional.of(buildNonFinalStateOrderDto()));
 
-    when(this.orderStateServiceMap.get(OrderState.REJECTED.name()))
+    when(this.orderStateServiceMap.get(OrderState.REJECTED))
         .thenReturn(this.orderStateService);
 
     List<String> errors = List.of("Not enough stock for product " + PRODUCT_1_ID);
     Optional<OrderDto> optionalOrderDto =
-        this.orderUseCase.update(ORDER_ID, OrderState.REJECTED.name(), Optional.of(errors));
+        this.orderUseCase.update(ORDER_ID, OrderState.REJECTED, Optional.of(errors));
 
     assertFalse(optionalOrderDto.isEmpty());
     OrderDto updatedOrder = optionalOrderDto.get();
@@ -140,6 +148,7 @@ public class OrderUseCaseTest {
     assertEquals(PRODUCT_1_PRICE, updatedOrder.getShoppingCart().getTotalPrice());
     assertEquals(OrderState.REJECTED.name(), updatedOrder.getState());
     assertEquals(errors, updatedOrder.getErrors().get());
+    assertEquals(1, updatedOrder.getVersion());
 
     verify(this.orderRepository, times(1)).update(updatedOrder);
     verify(this.orderStateService, times(1))
@@ -153,7 +162,7 @@ public class OrderUseCaseTest {
         Optional.of(buildNonFinalStateOrderDto()));
 
     assertThrows(PreviousOrderStateUpdateException.class, () -> this.orderUseCase
-        .update(ORDER_ID, OrderState.CREATED.name(), Optional.empty()));
+        .update(ORDER_ID, OrderState.CREATED, Optional.empty()));
     verify(this.orderRepository, never()).update(any(OrderDto.class));
   }
 
@@ -163,12 +172,12 @@ public class OrderUseCaseTest {
     when(this.orderRepository.findById(ORDER_ID)).thenReturn(
         Optional.of(buildNonFinalStateOrderDto()));
 
-    when(this.orderStateServiceMap.get(OrderState.VALIDATING_BALANCE.name()))
+    when(this.orderStateServiceMap.get(OrderState.VALIDATING_BALANCE))
         .thenReturn(this.orderStateService);
 
     List<String> errors = List.of("Not enough stock for product " + PRODUCT_1_ID);
     Optional<OrderDto> optionalOrderDto =
-        this.orderUseCase.update(ORDER_ID, OrderState.VALIDATING_BALANCE.name(), Optional.of(errors));
+        this.orderUseCase.update(ORDER_ID, OrderState.VALIDATING_BALANCE, Optional.of(errors));
 
     assertFalse(optionalOrderDto.isEmpty());
     OrderDto updatedOrder = optionalOrderDto.get();
@@ -201,7 +210,7 @@ public class OrderUseCaseTest {
 
   private static OrderDto buildOrderDto(String orderState) {
     OrderDto orderDto = new OrderDto(ORDER_ID, buildCompletedShoppingCartDto(), orderState,
-        Optional.empty());
+        Optional.empty(), 0);
     return orderDto;
   }
 
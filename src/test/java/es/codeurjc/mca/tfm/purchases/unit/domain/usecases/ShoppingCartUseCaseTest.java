@@ -2,10 +2,10 @@ package es.codeurjc.mca.tfm.purchases.unit.domain.usecases;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -17,7 +17,9 @@ import es.codeurjc.mca.tfm.purchases.domain.exceptions.IllegalShoppingCartStateE
 import es.codeurjc.mca.tfm.purchases.domain.exceptions.IncompleteShoppingCartAlreadyExistsException;
 import es.codeurjc.mca.tfm.purchases.domain.exceptions.InvalidItemException;
 import es.codeurjc.mca.tfm.purchases.domain.models.Item;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
 import es.codeurjc.mca.tfm.purchases.domain.models.ShoppingCart;
+import es.codeurjc.mca.tfm.purchases.domain.ports.out.IdGenerator;
 import es.codeurjc.mca.tfm.purchases.domain.ports.out.ShoppingCartRepository;
 import es.codeurjc.mca.tfm.purchases.domain.usecases.ShoppingCartUseCaseImpl;
 import java.util.List;
@@ -43,13 +45,20 @@ public class ShoppingCartUseCaseTest {
 
   private static final Integer PRODUCT_1_ID = 100;
 
-  private static final Double PRODUCT_1_PRICE = 19.99;
+  private static final Money PRODUCT_1_PRICE = Money.parse("19.99");
 
   private static final Item ITEM_1 = new Item(PRODUCT_1_ID, PRODUCT_1_PRICE, 1);
 
+  private static final Integer PRODUCT_2_ID = 200;
+
+  private static final Money PRODUCT_2_PRICE = Money.parse("3.05");
+
   @Mock
   private ShoppingCartRepository shoppingCartRepository;
 
+  @Mock
+  private IdGenerator idGenerator;
+
   @Captor
   ArgumentCaptor<ShoppingCartDto> shoppingCartDtoArgumentCaptor;
 
@@ -57,7 +66,8 @@ public class ShoppingCartUseCaseTest {
 
   @BeforeEach
   public void setUp() {
-    this.shoppingCartUseCase = new ShoppingCartUseCaseImpl(this.shoppingCartRepository);
+    this.shoppingCartUseCase = new ShoppingCartUseCaseImpl(this.shoppingCartRepository,
+        this.idGenerator);
   }
 
   @Test
@@ -74,14 +84,16 @@ public class ShoppingCartUseCaseTest {
   @Test
   @DisplayName("Test shopping cart creation when user hasn't an incomplete shopping cart")
   public void givenAnUserIdWhenCreateAndDoesNotExistIncompleteShoppingCartForHimThenShouldCreateShoppingCart() {
+    when(this.idGenerator.nextId()).thenReturn(SHOPPING_CART_ID);
+
     ShoppingCartDto shoppingCartDto = this.shoppingCartUseCase.create(USER_ID);
 
     verify(this.shoppingCartRepository, times(1)).create(shoppingCartDtoArgumentCaptor.capture());
 
-    assertNotNull(shoppingCartDto.getId());
+    assertEquals(SHOPPING_CART_ID, shoppingCartDto.getId());
     assertEquals(USER_ID, shoppingCartDto.getUserId());
     assertTrue(shoppingCartDto.getItems().isEmpty());
-    assertEquals(0d, shoppingCartDto.getTotalPrice());
+    assertEquals(Money.ZERO, shoppingCartDto.getTotalPrice());
 
     assertEquals(shoppingCartDto, shoppingCartDtoArgumentCaptor.getValue());
   }
@@ -97,7 +109,7 @@ public class ShoppingCartUseCaseTest {
   @Test
   @DisplayName("Test shopping cart deletion when shopping cart is not deletable")
   public void givenAShoppingCartIdAndUserIdWhenDeleteAndFoundShoppingCartIsNotDeletableThenShouldThrowIllegalShoppingCartStateException() {
-    when(this.shoppingCartRepository.getByIdAndUser(SHOPPING_CART_ID, USER_ID))
+    when(this.shoppingCartRepository.getCurrentByIdAndUser(SHOPPING_CART_ID, USER_ID))
         .thenReturn(Optional.of(buildCompletedShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
 
     assertThrows(IllegalShoppingCartStateException.class,
@@ -108,7 +120,7 @@ public class ShoppingCartUseCaseTest {
   @Test
   @DisplayName("Test shopping cart deletion when shopping cart is deletable")
   public void givenAShoppingCartIdAndUserIdWhenDeleteAndFoundShoppingCartIsDeletableThenShouldDeleteShoppingCart() {
-    when(this.shoppingCartRepository.getByIdAndUser(SHOPPING_CART_ID, USER_ID))
+    when(this.shoppingCartRepository.getCurrentByIdAndUser(SHOPPING_CART_ID, USER_ID))
         .thenReturn(Optional.of(buildIncompleteShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
 
     Optional<ShoppingCartDto> optionalDeletedCart = this.shoppingCartUseCase.delete(
@@ -135,7 +147,7 @@ public class ShoppingCartUseCaseTest {
   @Test
   @DisplayName("Test shopping cart completion when shopping cart is not completable")
   public void givenAShoppingCartIdAndUserIdWhenCompleteAndFoundShoppingCartIsNotCompletableThenShouldThrowIllegalShoppingCartStateException() {
-    when(this.shoppingCartRepository.getByIdAndUser(SHOPPING_CART_ID, USER_ID))
+    when(this.shoppingCartRepository.getCurrentByIdAndUser(SHOPPING_CART_ID, USER_ID))
         .thenReturn(Optional.of(buildCompletedShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
 
     assertThrows(IllegalShoppingCartStateException.class,
@@ -146,7 +158,7 @@ public class ShoppingCartUseCaseTest {
   @Test
   @DisplayName("Test shopping cart completion when shopping cart is completable")
   public void givenAShoppingCartIdAndUserIdWhenCompleteAndFoundShoppingCartIsCompletableThenShouldCompleteShoppingCart() {
-    when(this.shoppingCartRepository.getByIdAndUser(SHOPPING_CART_ID, USER_ID))
+    when(this.shoppingCartRepository.getCurrentByIdAndUser(SHOPPING_CART_ID, USER_ID))
         .thenReturn(Optional.of(buildIncompleteShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
 
     Optional<ShoppingCartDto> optionalCompletedCart =
@@ -169,37 +181,37 @@ public class ShoppingCartUseCaseTest {
     assertTrue(this.shoppingCartUseCase.setItem(SHOPPING_CART_ID, USER_ID, ITEM_1.getProductId(),
         ITEM_1.getUnitPrice(), ITEM_1.getQuantity()).isEmpty());
 
-    verify(this.shoppingCartRepository, never()).updateItems(any(ShoppingCartDto.class));
+    verify(this.shoppingCartRepository, never()).updateItems(any(ShoppingCartDto.class), anyList());
   }
 
   @Test
   @DisplayName("Test set item to shopping cart when shopping cart is completed")
   public void givenAShoppingCartIdAndUserIdAndProductInfoWhenSetItemAndFoundShoppingCartIsCompletedThenShouldThrowIllegalShoppingCartStateException() {
-    when(this.shoppingCartRepository.getByIdAndUser(SHOPPING_CART_ID, USER_ID))
+    when(this.shoppingCartRepository.getCurrentByIdAndUser(SHOPPING_CART_ID, USER_ID))
         .thenReturn(Optional.of(buildCompletedShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
 
     assertThrows(IllegalShoppingCartStateException.class,
         () -> this.shoppingCartUseCase.setItem(SHOPPING_CART_ID, USER_ID, ITEM_1.getProductId(),
             ITEM_1.getUnitPrice(), ITEM_1.getQuantity()));
-    verify(this.shoppingCartRepository, never()).updateItems(any(ShoppingCartDto.class));
+    verify(this.shoppingCartRepository, never()).updateItems(any(ShoppingCartDto.class), anyList());
   }
 
   @Test
   @DisplayName("Test set item with negative quantity to incomplete shopping cart")
   public void givenAShoppingCartIdAndUserIdAndInvalidProductInfoWhenSetItemAndFoundShoppingCartIsIncompleteThenShouldThrowInvalidItemException() {
-    when(this.shoppingCartRepository.getByIdAndUser(SHOPPING_CART_ID, USER_ID))
+    when(this.shoppingCartRepository.getCurrentByIdAndUser(SHOPPING_CART_ID, USER_ID))
         .thenReturn(Optional.of(buildIncompleteShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
 
     assertThrows(InvalidItemException.class,
         () -> this.shoppingCartUseCase.setItem(SHOPPING_CART_ID, USER_ID, ITEM_1.getProductId(),
             ITEM_1.getUnitPrice(), -1));
-    verify(this.shoppingCartRepository, never()).updateItems(any(ShoppingCartDto.class));
+    verify(this.shoppingCartRepository, never()).updateItems(any(ShoppingCartDto.class), anyList());
   }
 
   @Test
   @DisplayName("Test set item to incomplete shopping cart")
   public void givenAShoppingCartIdAndUserIdAndProductInfoWhenSetItemAndFoundShoppingCartIsIncompleteThenShouldSetItem() {
-    when(this.shoppingCartRepository.getByIdAndUser(SHOPPING_CART_ID, USER_ID))
+    when(this.shoppingCartRepository.getCurrentByIdAndUser(SHOPPING_CART_ID, USER_ID))
         .thenReturn(Optional.of(buildIncompleteShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
 
     Optional<ShoppingCartDto> optionalUpdatedCart =
@@ -214,7 +226,7 @@ public class ShoppingCartUseCaseTest {
     assertEquals(PRODUCT_1_PRICE, updatedShoppingCart.getTotalPrice());
 
     verify(this.shoppingCartRepository, times(1))
-        .updateItems(updatedShoppingCart);
+        .updateItems(updatedShoppingCart, List.of(PRODUCT_1_ID));
   }
 
   @Test
@@ -223,25 +235,25 @@ public class ShoppingCartUseCaseTest {
     assertTrue(this.shoppingCartUseCase.deleteItem(SHOPPING_CART_ID, USER_ID, ITEM_1.getProductId())
         .isEmpty());
 
-    verify(this.shoppingCartRepository, never()).updateItems(any(ShoppingCartDto.class));
+    verify(this.shoppingCartRepository, never()).updateItems(any(ShoppingCartDto.class), anyList());
   }
 
   @Test
   @DisplayName("Test delete item from shopping cart when shopping cart is completed")
   public void givenAShoppingCartIdAndUserIdAndProductIdWhenDeleteItemAndFoundShoppingCartIsCompletedThenShouldThrowIllegalShoppingCartStateException() {
-    when(this.shoppingCartRepository.getByIdAndUser(SHOPPING_CART_ID, USER_ID))
+    when(this.shoppingCartRepository.getCurrentByIdAndUser(SHOPPING_CART_ID, USER_ID))
         .thenReturn(Optional.of(buildCompletedShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
 
     assertThrows(IllegalShoppingCartStateException.class,
         () -> this.shoppingCartUseCase.deleteItem(SHOPPING_CART_ID, USER_ID,
             ITEM_1.getProductId()));
-    verify(this.shoppingCartRepository, never()).updateItems(any(ShoppingCartDto.class));
+    verify(this.shoppingCartRepository, never()).updateItems(any(ShoppingCartDto.class), anyList());
   }
 
   @Test
   @DisplayName("Test delete non existing item from incomplete shopping cart")
   public void givenAShoppingCartIdAndUserIdAndNonExistingProductIdWhenDeleteItemAndFoundShoppingCartIsIncompleteThenShouldReturnShoppingCart() {
-    when(this.shoppingCartRepository.getByIdAndUser(SHOPPING_CART_ID, USER_ID))
+    when(this.shoppingCartRepository.getCurrentByIdAndUser(SHOPPING_CART_ID, USER_ID))
         .thenReturn(Optional.of(buildIncompleteShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
 
     Optional<ShoppingCartDto> optionalUpdatedCart =
@@ -254,13 +266,13 @@ public class ShoppingCartUseCaseTest {
     assertEquals(List.of(new ItemDto(ITEM_1)), updatedShoppingCart.getItems());
     assertEquals(PRODUCT_1_PRICE, updatedShoppingCart.getTotalPrice());
 
-    verify(this.shoppingCartRepository, never()).updateItems(updatedShoppingCart);
+    verify(this.shoppingCartRepository, never()).updateItems(any(ShoppingCartDto.class), anyList());
   }
 
   @Test
   @DisplayName("Test delete item from incomplete shopping cart")
   public void givenAShoppingCartIdAndUserIdAndProductIdWhenDeleteItemAndFoundShoppingCartIsIncompleteThenShouldDeleteItem() {
-    when(this.shoppingCartRepository.getByIdAndUser(SHOPPING_CART_ID, USER_ID))
+    when(this.shoppingCartRepository.getCurrentByIdAndUser(SHOPPING_CART_ID, USER_ID))
         .thenReturn(Optional.of(buildIncompleteShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
 
     Optional<ShoppingCartDto> optionalUpdatedCart =
@@ -271,14 +283,95 @@ public class ShoppingCartUseCaseTest {
     assertEquals(SHOPPING_CART_ID, updatedShoppingCart.getId());
     assertEquals(USER_ID, updatedShoppingCart.getUserId());
     assertTrue(updatedShoppingCart.getItems().isEmpty());
-    assertEquals(0, updatedShoppingCart.getTotalPrice());
+    assertEquals(Money.ZERO, updatedShoppingCart.getTotalPrice());
+
+    verify(this.shoppingCartRepository, times(1))
+        .updateItems(updatedShoppingCart, List.of(PRODUCT_1_ID));
+  }
+
+  @Test
+  @DisplayName("Test set items with invalid lines to shopping cart")
+  public void givenAShoppingCartIdAndUserIdAndInvalidItemsWhenSetItemsThenShouldThrowInvalidItemExceptionWithoutReadingShoppingCart() {
+    ItemDto invalidItem = new ItemDto(new Item(PRODUCT_2_ID, PRODUCT_2_PRICE, 1));
+    invalidItem.setQuantity(0);
+
+    InvalidItemException exception = assertThrows(InvalidItemException.class,
+        () -> this.shoppingCartUseCase.setItems(SHOPPING_CART_ID, USER_ID,
+            List.of(new ItemDto(ITEM_1), invalidItem)));
+    assertTrue(exception.getMessage().contains(String.valueOf(PRODUCT_2_ID)));
+    verify(this.shoppingCartRepository, never()).getCurrentByIdAndUser(SHOPPING_CART_ID, USER_ID);
+    verify(this.shoppingCartRepository, never()).updateItems(any(ShoppingCartDto.class), anyList());
+  }
+
+  @Test
+  @DisplayName("Test set items to shopping cart when shopping cart is completed")
+  public void givenAShoppingCartIdAndUserIdAndItemsWhenSetItemsAndFoundShoppingCartIsCompletedThenShouldThrowIllegalShoppingCartStateException() {
+    when(this.shoppingCartRepository.getCurrentByIdAndUser(SHOPPING_CART_ID, USER_ID))
+        .thenReturn(Optional.of(buildCompletedShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
+
+    assertThrows(IllegalShoppingCartStateException.class,
+        () -> this.shoppingCartUseCase.setItems(SHOPPING_CART_ID, USER_ID,
+            List.of(new ItemDto(ITEM_1))));
+    verify(this.shoppingCartRepository, never()).updateItems(any(ShoppingCartDto.class), anyList());
+  }
+
+  @Test
+  @DisplayName("Test set items to incomplete shopping cart")
+  public void givenAShoppingCartIdAndUserIdAndItemsWhenSetItemsAndFoundShoppingCartIsIncompleteThenShouldSetAllItemsWithOneUpdate() {
+    when(this.shoppingCartRepository.getCurrentByIdAndUser(SHOPPING_CART_ID, USER_ID))
+        .thenReturn(Optional.of(buildIncompleteShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
+    Item updatedItem1 = new Item(PRODUCT_1_ID, PRODUCT_1_PRICE, 2);
+    Item item2 = new Item(PRODUCT_2_ID, PRODUCT_2_PRICE, 3);
+
+    Optional<ShoppingCartDto> optionalUpdatedCart =
+        this.shoppingCartUseCase.setItems(SHOPPING_CART_ID, USER_ID,
+            List.of(new ItemDto(updatedItem1), new ItemDto(item2)));
+
+    assertFalse(optionalUpdatedCart.isEmpty());
+    ShoppingCartDto updatedShoppingCart = optionalUpdatedCart.get();
+    assertEquals(List.of(new ItemDto(updatedItem1), new ItemDto(item2)),
+        updatedShoppingCart.getItems());
+    assertEquals(updatedItem1.getTotalPrice().plus(item2.getTotalPrice()),
+        updatedShoppingCart.getTotalPrice());
+
+    verify(this.shoppingCartRepository, times(1)).getCurrentByIdAndUser(SHOPPING_CART_ID, USER_ID);
+    verify(this.shoppingCartRepository, times(1))
+        .updateItems(updatedShoppingCart, List.of(PRODUCT_1_ID, PRODUCT_2_ID));
+  }
+
+  @Test
+  @DisplayName("Test delete items from shopping cart when shopping cart is completed")
+  public void givenAShoppingCartIdAndUserIdAndProductIdsWhenDeleteItemsAndFoundShoppingCartIsCompletedThenShouldThrowIllegalShoppingCartStateException() {
+    when(this.shoppingCartRepository.getCurrentByIdAndUser(SHOPPING_CART_ID, USER_ID))
+        .thenReturn(Optional.of(buildCompletedShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
+
+    assertThrows(IllegalShoppingCartStateException.class,
+        () -> this.shoppingCartUseCase.deleteItems(SHOPPING_CART_ID, USER_ID,
+            List.of(PRODUCT_1_ID)));
+    verify(this.shoppingCartRepository, never()).updateItems(any(ShoppingCartDto.class), anyList());
+  }
+
+  @Test
+  @DisplayName("Test delete items from incomplete shopping cart")
+  public void givenAShoppingCartIdAndUserIdAndProductIdsWhenDeleteItemsAndFoundShoppingCartIsIncompleteThenShouldDeleteExistingItemsWithOneUpdate() {
+    when(this.shoppingCartRepository.getCurrentByIdAndUser(SHOPPING_CART_ID, USER_ID))
+        .thenReturn(Optional.of(buildIncompleteShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
+
+    Optional<ShoppingCartDto> optionalUpdatedCart =
+        this.shoppingCartUseCase.deleteItems(SHOPPING_CART_ID, USER_ID,
+            List.of(PRODUCT_1_ID, 999));
+
+    assertFalse(optionalUpdatedCart.isEmpty());
+    ShoppingCartDto updatedShoppingCart = optionalUpdatedCart.get();
+    assertTrue(updatedShoppingCart.getItems().isEmpty());
+    assertEquals(Money.ZERO, updatedShoppingCart.getTotalPrice());
 
     verify(this.shoppingCartRepository, times(1))
-        .updateItems(updatedShoppingCart);
+        .updateItems(updatedShoppingCart, List.of(PRODUCT_1_ID));
   }
 
   private static ShoppingCartDto buildShoppingCartDto(Integer userId) {
-    ShoppingCart shoppingCart = new ShoppingCart(userId);
+    ShoppingCart shoppingCart = new ShoppingCart(SHOPPING_CART_ID, userId);
     return new ShoppingCartDto(shoppingCart);
   }
 
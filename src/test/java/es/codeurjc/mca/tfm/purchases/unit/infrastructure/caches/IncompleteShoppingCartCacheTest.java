@@ -0,0 +1,177 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.caches;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import es.codeurjc.mca.tfm.purchases.infrastructure.caches.IncompleteShoppingCartCache;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Incomplete shopping cart cache tests")
+public class IncompleteShoppingCartCacheTest {
+
+  private static final Integer USER_ID = 1;
+
+  private static final Long SHOPPING_CART_ID = 1652692327498L;
+
+  private static final Duration TTL = Duration.ofMinutes(10);
+
+  @Mock
+  private JpaShoppingCartRepository jpaShoppingCartRepository;
+
+  private final AtomicLong nanos = new AtomicLong();
+
+  private IncompleteShoppingCartCache incompleteShoppingCartCache;
+
+  @BeforeEach
+  public void setUp() {
+    this.incompleteShoppingCartCache = new IncompleteShoppingCartCache(
+        this.jpaShoppingCartRepository, 2, TTL, this.nanos::get);
+  }
+
+  @Test
+  @DisplayName("Test user without incomplete shopping cart is queried every time")
+  public void givenUserWithoutIncompleteShoppingCartWhenFindTwiceThenShouldQueryTwice() {
+    when(this.jpaShoppingCartRepository.findByUserIdAndCompletedIsFalse(USER_ID))
+        .thenReturn(Optional.empty());
+
+    assertTrue(this.incompleteShoppingCartCache.findByUser(USER_ID).isEmpty());
+    assertTrue(this.incompleteShoppingCartCache.findByUser(USER_ID).isEmpty());
+
+    verify(this.jpaShoppingCartRepository, times(2)).findByUserIdAndCompletedIsFalse(USER_ID);
+    assertEquals(0, this.incompleteShoppingCartCache.stats().hitCount());
+    assertEquals(2, this.incompleteShoppingCartCache.stats().missCount());
+  }
+
+  @Test
+  @DisplayName("Test shopping cart created by another instance is found after a miss")
+  public void givenShoppingCartCreatedAfterMissWhenFindThenShouldReturnIt() {
+    ShoppingCartEntity shoppingCartEntity = buildShoppingCartEntity(false);
+    when(this.jpaShoppingCartRepository.findByUserIdAndCompletedIsFalse(USER_ID))
+        .thenReturn(Optional.empty(), Optional.of(shoppingCartEntity));
+
+    assertTrue(this.incompleteShoppingCartCache.findByUser(USER_ID).isEmpty());
+
+    assertEquals(Optional.of(shoppingCartEntity),
+        this.incompleteShoppingCartCache.findByUser(USER_ID));
+  }
+
+  @Test
+  @DisplayName("Test cached incomplete shopping cart is loaded by identifier")
+  public void givenCachedIncompleteShoppingCartWhenFindThenShouldLoadByIdWithoutUserQuery() {
+    ShoppingCartEntity shoppingCartEntity = buildShoppingCartEntity(false);
+    when(this.jpaShoppingCartRepository.findById(SHOPPING_CART_ID))
+        .thenReturn(Optional.of(shoppingCartEntity));
+    this.incompleteShoppingCartCache.put(USER_ID, SHOPPING_CART_ID);
+
+    assertEquals(Optional.of(shoppingCartEntity),
+        this.incompleteShoppingCartCache.findByUser(USER_ID));
+
+    verify(this.jpaShoppingCartRepository, never()).findByUserIdAndCompletedIsFalse(any());
+  }
+
+  @Test
+  @DisplayName("Test stale cached shopping cart falls back to user query")
+  public void givenCachedShoppingCartAlreadyCompletedWhenFindThenShouldQueryByUser() {
+    when(this.jpaShoppingCartRepository.findById(SHOPPING_CART_ID))
+        .thenReturn(Optional.of(buildShoppingCartEntity(true)));
+    when(this.jpaShoppingCartRepository.findByUserIdAndCompletedIsFalse(USER_ID))
+        .thenReturn(Optional.empty());
+    this.incompleteShoppingCartCache.put(USER_ID, SHOPPING_CART_ID);
+
+    assertTrue(this.incompleteShoppingCartCache.findByUser(USER_ID).isEmpty());
+
+    verify(this.jpaShoppingCartRepository, times(1)).findByUserIdAndCompletedIsFalse(USER_ID);
+  }
+
+  @Test
+  @DisplayName("Test completed or deleted shopping cart is invalidated")
+  public void givenPutNoneWhenFindThenShouldQueryByUser() {
+    when(this.jpaShoppingCartRepository.findByUserIdAndCompletedIsFalse(USER_ID))
+        .thenReturn(Optional.empty());
+    this.incompleteShoppingCartCache.put(USER_ID, SHOPPING_CART_ID);
+    this.incompleteShoppingCartCache.putNone(USER_ID);
+
+    assertTrue(this.incompleteShoppingCartCache.findByUser(USER_ID).isEmpty());
+
+    verify(this.jpaShoppingCartRepository, never()).findById(any());
+    verify(this.jpaShoppingCartRepository, times(1)).findByUserIdAndCompletedIsFalse(USER_ID);
+  }
+
+  @Test
+  @DisplayName("Test expired entries are queried again")
+  public void givenExpiredEntryWhenFindThenShouldQueryAgain() {
+    when(this.jpaShoppingCartRepository.findByUserIdAndCompletedIsFalse(USER_ID))
+        .thenReturn(Optional.empty());
+    this.incompleteShoppingCartCache.put(USER_ID, SHOPPING_CART_ID);
+
+    this.nanos.addAndGet(TTL.toNanos() + 1);
+    this.incompleteShoppingCartCache.findByUser(USER_ID);
+
+    verify(this.jpaShoppingCartRepository, never()).findById(any());
+    verify(this.jpaShoppingCartRepository, times(1)).findByUserIdAndCompletedIsFalse(USER_ID);
+    assertEquals(1, this.incompleteShoppingCartCache.stats().missCount());
+  }
+
+  @Test
+  @DisplayName("Test shopping cart put while querying user is not overwritten by query result")
+  public void givenPutWhileQueryingWhenFindThenShouldKeepPutShoppingCart() throws Exception {
+    ShoppingCartEntity shoppingCartEntity = buildShoppingCartEntity(false);
+    Thread putThread = new Thread(
+        () -> this.incompleteShoppingCartCache.put(USER_ID, SHOPPING_CART_ID));
+    when(this.jpaShoppingCartRepository.findByUserIdAndCompletedIsFalse(USER_ID))
+        .thenAnswer(invocation -> {
+          putThread.start();
+          Thread.sleep(100);
+          return Optional.empty();
+        });
+    when(this.jpaShoppingCartRepository.findById(SHOPPING_CART_ID))
+        .thenReturn(Optional.of(shoppingCartEntity));
+
+    assertTrue(this.incompleteShoppingCartCache.findByUser(USER_ID).isEmpty());
+    putThread.join();
+
+    assertEquals(Optional.of(shoppingCartEntity),
+        this.incompleteShoppingCartCache.findByUser(USER_ID));
+    verify(this.jpaShoppingCartRepository, times(1)).findByUserIdAndCompletedIsFalse(USER_ID);
+  }
+
+  @Test
+  @DisplayName("Test database lookup neither reads nor writes cached entries")
+  public void givenCachedShoppingCartWhenFindInDatabaseThenShouldQueryAndNotCache() {
+    ShoppingCartEntity shoppingCartEntity = buildShoppingCartEntity(false);
+    when(this.jpaShoppingCartRepository.findByUserIdAndCompletedIsFalse(USER_ID))
+        .thenReturn(Optional.of(shoppingCartEntity));
+    this.incompleteShoppingCartCache.put(USER_ID, SHOPPING_CART_ID);
+
+    assertEquals(Optional.of(shoppingCartEntity),
+        this.incompleteShoppingCartCache.findByUserInDatabase(USER_ID));
+
+    verify(this.jpaShoppingCartRepository, never()).findById(any());
+    assertEquals(0, this.incompleteShoppingCartCache.stats().hitCount());
+    assertEquals(0, this.incompleteShoppingCartCache.stats().missCount());
+  }
+
+  private static ShoppingCartEntity buildShoppingCartEntity(boolean completed) {
+    return new ShoppingCartEntity(SHOPPING_CART_ID, USER_ID, completed, "[]", Money.ZERO, 0L);
+  }
+
+}
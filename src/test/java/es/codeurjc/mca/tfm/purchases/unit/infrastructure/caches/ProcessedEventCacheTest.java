@@ -0,0 +1,103 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.caches;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.caches.ProcessedEventCache;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ProcessedEventEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaProcessedEventRepository;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Processed event cache tests")
+public class ProcessedEventCacheTest {
+
+  private static final Long EVENT_ID = 1652692327498L;
+
+  private static final Long OTHER_EVENT_ID = 1652692327499L;
+
+  private static final Duration TTL = Duration.ofMinutes(10);
+
+  private static final Duration RETENTION = Duration.ofDays(7);
+
+  private static final Instant NOW = Instant.parse("2022-06-01T00:00:00Z");
+
+  @Mock
+  private JpaProcessedEventRepository jpaProcessedEventRepository;
+
+  private final AtomicLong nanos = new AtomicLong();
+
+  private ProcessedEventCache processedEventCache;
+
+  @BeforeEach
+  public void setUp() {
+    this.processedEventCache = new ProcessedEventCache(this.jpaProcessedEventRepository, 2, TTL,
+        RETENTION, this.nanos::get, Clock.fixed(NOW, ZoneOffset.UTC));
+  }
+
+  @Test
+  @DisplayName("Test new event is marked as processed and then skipped from cache")
+  public void givenNewEventWhenMarkTwiceThenShouldStoreOnceAndHitCache() {
+    when(this.jpaProcessedEventRepository.findAllById(any())).thenReturn(List.of());
+
+    assertTrue(this.processedEventCache.markProcessed(EVENT_ID));
+    assertFalse(this.processedEventCache.markProcessed(EVENT_ID));
+
+    verify(this.jpaProcessedEventRepository, times(1)).findAllById(Set.of(EVENT_ID));
+    verify(this.jpaProcessedEventRepository, times(1))
+        .saveAll(List.of(new ProcessedEventEntity(EVENT_ID, NOW)));
+    assertEquals(1, this.processedEventCache.stats().hitCount());
+  }
+
+  @Test
+  @DisplayName("Test stored event not cached is found in database")
+  public void givenStoredEventWhenFindProcessedThenShouldQueryOnlyUnknownEvents() {
+    this.processedEventCache.markAllProcessed(List.of(EVENT_ID));
+    when(this.jpaProcessedEventRepository.findAllById(Set.of(OTHER_EVENT_ID)))
+        .thenReturn(List.of(new ProcessedEventEntity(OTHER_EVENT_ID, NOW)));
+
+    assertEquals(Set.of(EVENT_ID, OTHER_EVENT_ID),
+        this.processedEventCache.findProcessed(Arrays.asList(EVENT_ID, OTHER_EVENT_ID, null)));
+  }
+
+  @Test
+  @DisplayName("Test event without identifier is never skipped")
+  public void givenEventWithoutIdWhenMarkThenShouldNotBeSkippedNorStored() {
+    assertTrue(this.processedEventCache.markProcessed(null));
+    assertTrue(this.processedEventCache.markProcessed(null));
+
+    verify(this.jpaProcessedEventRepository, never()).findAllById(any());
+    verify(this.jpaProcessedEventRepository, never()).saveAll(any());
+  }
+
+  @Test
+  @DisplayName("Test purge deletes events processed before retention")
+  public void givenRetentionWhenPurgeThenShouldDeleteOlderEvents() {
+    when(this.jpaProcessedEventRepository.deleteByProcessedAtBefore(NOW.minus(RETENTION)))
+        .thenReturn(3);
+
+    assertEquals(3, this.processedEventCache.purge());
+  }
+
+}
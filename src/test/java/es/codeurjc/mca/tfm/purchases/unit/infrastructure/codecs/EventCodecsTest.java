@@ -0,0 +1,100 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.codecs;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.JsonCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.JsonEventCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.SmileEventCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItem;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Event codecs tests")
+public class EventCodecsTest {
+
+  private static final String BINARY_TOPIC = "update-items";
+
+  private static final String JSON_TOPIC = "validate-items";
+
+  private final EventCodecs eventCodecs = new EventCodecs(
+      new JsonEventCodec(new JsonCodec()), new SmileEventCodec(), Set.of(BINARY_TOPIC));
+
+  @Test
+  @DisplayName("Test binary topic events are smaller and decoded to same event")
+  public void givenBinaryTopicWhenEncodeAndDecodeThenShouldKeepEventWithLessBytes()
+      throws IOException {
+    ShoppingCartItemsUpdateRequestedEvent event = buildItemsUpdateEvent(100);
+
+    byte[] binary = this.eventCodecs.encode(BINARY_TOPIC, event);
+    byte[] json = this.eventCodecs.encode(JSON_TOPIC, event);
+
+    assertEquals(SmileEventCodec.FORMAT_MARKER, binary[0]);
+    assertEquals(SmileEventCodec.SCHEMA_VERSION, binary[1]);
+    assertTrue(binary.length < json.length);
+    assertEquals(event,
+        this.eventCodecs.decode(binary, ShoppingCartItemsUpdateRequestedEvent.class));
+    assertEquals(event, this.eventCodecs.decode(json, ShoppingCartItemsUpdateRequestedEvent.class));
+  }
+
+  @Test
+  @DisplayName("Test JSON topic events are plain JSON")
+  public void givenJsonTopicWhenEncodeThenShouldReturnPlainJson() throws IOException {
+    OrderUpdateRequestedEvent event = new OrderUpdateRequestedEvent();
+    event.setId(1L);
+    event.setState("REJECTED");
+    event.setErrors(Optional.of(List.of("Not enough stock")));
+
+    assertArrayEquals(
+        "{\"id\":1,\"state\":\"REJECTED\",\"errors\":[\"Not enough stock\"]}"
+            .getBytes(StandardCharsets.UTF_8),
+        this.eventCodecs.encode(JSON_TOPIC, event));
+  }
+
+  @Test
+  @DisplayName("Test binary event with unsupported schema version")
+  public void givenUnsupportedSchemaVersionWhenDecodeThenShouldThrowIOException()
+      throws IOException {
+    byte[] binary = this.eventCodecs.encode(BINARY_TOPIC, buildItemsUpdateEvent(1));
+    binary[1] = SmileEventCodec.SCHEMA_VERSION + 1;
+
+    assertThrows(IOException.class,
+        () -> this.eventCodecs.decode(binary, ShoppingCartItemsUpdateRequestedEvent.class));
+  }
+
+  private static ShoppingCartItemsUpdateRequestedEvent buildItemsUpdateEvent(int size) {
+    ShoppingCartItemsUpdateRequestedEvent event = new ShoppingCartItemsUpdateRequestedEvent();
+    event.setId(1652692327498L);
+    event.setItems(IntStream.rangeClosed(1, size)
+        .mapToObj(productId -> {
+          ShoppingCartItem item = new ShoppingCartItem();
+          item.setProductId(productId);
+          item.setUnitPrice(Money.parse("19.99"));
+          item.setQuantity(2);
+          item.setTotalPrice(Money.parse("39.98"));
+          return item;
+        })
+        .collect(Collectors.toList()));
+    event.setTotalPrice(Money.parse("39.98").times(size));
+    return event;
+  }
+
+}
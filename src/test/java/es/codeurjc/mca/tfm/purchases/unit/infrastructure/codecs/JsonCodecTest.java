@@ -0,0 +1,72 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.codecs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ItemDto;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.JsonCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItem;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("JSON codec tests")
+public class JsonCodecTest {
+
+  private static final String ITEMS_JSON =
+      "[{\"productId\":100,\"unitPrice\":19.99,\"quantity\":2,\"totalPrice\":39.98}]";
+
+  private final JsonCodec jsonCodec = new JsonCodec();
+
+  @Test
+  @DisplayName("Test readers and writers are reused")
+  public void givenSameTypeWhenGetReaderOrWriterTwiceThenShouldReturnSameInstance() {
+    assertSame(this.jsonCodec.reader(OrderUpdateRequestedEvent.class),
+        this.jsonCodec.reader(OrderUpdateRequestedEvent.class));
+    assertSame(this.jsonCodec.writer(OrderUpdateRequestedEvent.class),
+        this.jsonCodec.writer(OrderUpdateRequestedEvent.class));
+  }
+
+  @Test
+  @DisplayName("Test items keep money as decimal numbers")
+  public void givenItemsJsonWhenReadAndWriteThenShouldKeepSameJson()
+      throws JsonProcessingException {
+    List<ShoppingCartItem> items = this.jsonCodec.readList(ITEMS_JSON, ShoppingCartItem[].class);
+
+    assertEquals(Money.parse("39.98"), items.get(0).getTotalPrice());
+    assertEquals(ITEMS_JSON, this.jsonCodec.write(items));
+    assertEquals(Money.parse("19.99"),
+        this.jsonCodec.readList(ITEMS_JSON, ItemDto[].class).get(0).getUnitPrice());
+  }
+
+  @Test
+  @DisplayName("Test events with optional fields")
+  public void givenEventWithOptionalErrorsWhenWriteAndReadThenShouldKeepErrors()
+      throws JsonProcessingException {
+    OrderUpdateRequestedEvent event = new OrderUpdateRequestedEvent();
+    event.setId(1L);
+    event.setState("REJECTED");
+    event.setErrors(Optional.of(List.of("Not enough stock")));
+
+    assertEquals(event,
+        this.jsonCodec.read(this.jsonCodec.write(event), OrderUpdateRequestedEvent.class));
+  }
+
+  @Test
+  @DisplayName("Test invalid JSON")
+  public void givenInvalidJsonWhenReadThenShouldThrowJsonProcessingException() {
+    assertThrows(JsonProcessingException.class,
+        () -> this.jsonCodec.read("{", OrderUpdateRequestedEvent.class));
+  }
+
+}
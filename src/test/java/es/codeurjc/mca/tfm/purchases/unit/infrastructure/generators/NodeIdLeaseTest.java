@@ -0,0 +1,97 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.generators;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.NodeLeaseEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.generators.NodeIdLease;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaNodeLeaseRepository;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Node identifier lease tests")
+public class NodeIdLeaseTest {
+
+  private static final Integer NODE_ID = 3;
+
+  private static final String INSTANCE = "purchases-0";
+
+  private static final String OTHER_INSTANCE = "purchases-1";
+
+  private static final Duration TTL = Duration.ofSeconds(30);
+
+  private static final Instant NOW = Instant.parse("2022-06-01T10:00:00Z");
+
+  @Mock
+  private JpaNodeLeaseRepository jpaNodeLeaseRepository;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private NodeIdLease nodeIdLease;
+
+  @BeforeEach
+  public void setUp() {
+    this.nodeIdLease = new NodeIdLease(this.jpaNodeLeaseRepository, this.transactionManager,
+        NODE_ID, INSTANCE, TTL, Clock.fixed(NOW, ZoneOffset.UTC));
+  }
+
+  @Test
+  @DisplayName("Test not leased node identifier is acquired")
+  public void givenNotLeasedNodeIdWhenAcquireThenShouldSaveLease() {
+    when(this.jpaNodeLeaseRepository.findByNodeIdForUpdate(NODE_ID)).thenReturn(Optional.empty());
+
+    this.nodeIdLease.acquire();
+
+    verify(this.jpaNodeLeaseRepository).save(new NodeLeaseEntity(NODE_ID, INSTANCE,
+        NOW.plus(TTL)));
+  }
+
+  @Test
+  @DisplayName("Test node identifier leased by another running instance fails start")
+  public void givenNodeIdLeasedByAnotherInstanceWhenAcquireThenShouldThrowIllegalStateException() {
+    when(this.jpaNodeLeaseRepository.findByNodeIdForUpdate(NODE_ID)).thenReturn(
+        Optional.of(new NodeLeaseEntity(NODE_ID, OTHER_INSTANCE, NOW.plusSeconds(1))));
+
+    assertThrows(IllegalStateException.class, () -> this.nodeIdLease.acquire());
+
+    verify(this.jpaNodeLeaseRepository, never()).save(any());
+  }
+
+  @Test
+  @DisplayName("Test expired lease of another instance is taken over")
+  public void givenExpiredLeaseOfAnotherInstanceWhenAcquireThenShouldSaveLease() {
+    when(this.jpaNodeLeaseRepository.findByNodeIdForUpdate(NODE_ID)).thenReturn(
+        Optional.of(new NodeLeaseEntity(NODE_ID, OTHER_INSTANCE, NOW.minusSeconds(1))));
+
+    this.nodeIdLease.acquire();
+
+    verify(this.jpaNodeLeaseRepository).save(new NodeLeaseEntity(NODE_ID, INSTANCE,
+        NOW.plus(TTL)));
+  }
+
+  @Test
+  @DisplayName("Test lease is released only if held by this instance")
+  public void givenLeaseWhenReleaseThenShouldDeleteLeaseOfThisInstance() {
+    this.nodeIdLease.release();
+
+    verify(this.jpaNodeLeaseRepository).deleteByNodeIdAndInstance(NODE_ID, INSTANCE);
+  }
+
+}
@@ -0,0 +1,36 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.generators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.generators.NodeId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Node identifier tests")
+public class NodeIdTest {
+
+  @Test
+  @DisplayName("Test configured node identifier is used")
+  public void givenNodeIdWhenCreateThenShouldUseIt() {
+    assertEquals(3, new NodeId("3", 4).getValue());
+  }
+
+  @Test
+  @DisplayName("Test node identifier defaults to 0 when a single instance runs")
+  public void givenNoNodeIdAndSingleInstanceWhenCreateThenShouldBeZero() {
+    assertEquals(0, new NodeId("", 1).getValue());
+  }
+
+  @Test
+  @DisplayName("Test node identifier is required when several instances run")
+  public void givenNoNodeIdAndSeveralInstancesWhenCreateThenShouldThrowIllegalStateException() {
+    assertThrows(IllegalStateException.class, () -> new NodeId("", 2));
+  }
+
+}
@@ -0,0 +1,142 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.generators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.generators.SnowflakeIdGenerator;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Snowflake identifier generator tests")
+public class SnowflakeIdGeneratorTest {
+
+  private static final long NODE_ID = 7L;
+
+  private static final int THREADS = 16;
+
+  private static final int IDS_PER_THREAD = 20_000;
+
+  @Test
+  @DisplayName("Test identifiers are unique when generated from many threads")
+  public void givenManyThreadsWhenGenerateIdsThenShouldAllBeUniqueAndIncreasingPerThread()
+      throws Exception {
+    SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(NODE_ID);
+    Set<Long> ids = ConcurrentHashMap.newKeySet();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+        results.add(executorService.submit(() -> {
+          start.await();
+          long previous = Long.MIN_VALUE;
+          boolean increasing = true;
+          for (int j = 0; j < IDS_PER_THREAD; j++) {
+            long id = idGenerator.nextId();
+            increasing &= id > previous;
+            previous = id;
+            ids.add(id);
+          }
+          return increasing;
+        }));
+      }
+      start.countDown();
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get(1, TimeUnit.MINUTES));
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+
+    assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+  }
+
+  @Test
+  @DisplayName("Test identifiers keep increasing when sequence is exhausted or clock goes back")
+  public void givenFixedOrBackwardsClockWhenGenerateIdsThenShouldKeepIncreasing() {
+    MutableClock clock = new MutableClock(SnowflakeIdGenerator.EPOCH + 1000L);
+    SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(NODE_ID, clock);
+
+    long previous = idGenerator.nextId();
+    for (int i = 0; i < 10_000; i++) {
+      if (i == 5_000) {
+        clock.millis -= 100L;
+      }
+      long id = idGenerator.nextId();
+      assertTrue(id > previous);
+      assertEquals(NODE_ID, (id >>> SnowflakeIdGenerator.SEQUENCE_BITS)
+          & SnowflakeIdGenerator.MAX_NODE_ID);
+      previous = id;
+    }
+  }
+
+  @Test
+  @DisplayName("Test identifiers embed creation time")
+  public void givenClockWhenGenerateIdThenShouldContainMillisSinceEpoch() {
+    SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(NODE_ID,
+        new MutableClock(SnowflakeIdGenerator.EPOCH + 123456L));
+
+    long id = idGenerator.nextId();
+
+    assertEquals(123456L, id >>> (SnowflakeIdGenerator.NODE_ID_BITS
+        + SnowflakeIdGenerator.SEQUENCE_BITS));
+    assertEquals(SnowflakeIdGenerator.EPOCH + 123456L, SnowflakeIdGenerator.timestampOf(id));
+  }
+
+  @Test
+  @DisplayName("Test invalid node identifier")
+  public void givenOutOfRangeNodeIdWhenCreateThenShouldThrowIllegalArgumentException() {
+    assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1L));
+    assertThrows(IllegalArgumentException.class,
+        () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+  }
+
+  private static class MutableClock extends Clock {
+
+    private long millis;
+
+    MutableClock(long millis) {
+      this.millis = millis;
+    }
+
+    @Override
+    public ZoneOffset getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public long millis() {
+      return this.millis;
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(this.millis);
+    }
+  }
+
+}
@@ -0,0 +1,49 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.DeadLetterEventsListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Dead letter events listener tests")
+public class DeadLetterEventsListenerTest {
+
+  private static final String TOPIC = "update-items";
+
+  private static final String KEY = "1652692327498";
+
+  private static final byte[] EVENT_JSON =
+      "{\"id\":1652692327498}".getBytes(StandardCharsets.UTF_8);
+
+  private MeterRegistry meterRegistry;
+
+  private DeadLetterEventsListener deadLetterEventsListener;
+
+  @BeforeEach
+  public void setUp() {
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.deadLetterEventsListener = new DeadLetterEventsListener(this.meterRegistry);
+  }
+
+  @Test
+  @DisplayName("Test parked events are counted by original topic")
+  public void givenDeadLetterEventsWhenHandleThenShouldCountThemByOriginalTopic() {
+    this.deadLetterEventsListener.onDeadLetter(EVENT_JSON, TOPIC + "-dlt", KEY,
+        "Deadlock found".getBytes(StandardCharsets.UTF_8));
+    this.deadLetterEventsListener.onDeadLetter(EVENT_JSON, TOPIC + "-dlt", KEY, null);
+
+    assertEquals(2, this.meterRegistry.get(DeadLetterEventsListener.DEAD_LETTERS_METRIC)
+        .tag("topic", TOPIC).counter().count());
+  }
+
+}
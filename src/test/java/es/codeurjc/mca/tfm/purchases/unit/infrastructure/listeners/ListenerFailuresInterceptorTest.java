@@ -0,0 +1,110 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.ListenerFailuresInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.kafka.listener.KafkaBackoffException;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Listener failures interceptor tests")
+public class ListenerFailuresInterceptorTest {
+
+  private static final String TOPIC = "update-items";
+
+  private static final String RETRY_TOPIC = "update-items-retry-0";
+
+  private static final String KEY = "1652692327498";
+
+  private static final byte[] EVENT_JSON =
+      "{\"id\":1652692327498}".getBytes(StandardCharsets.UTF_8);
+
+  @Mock
+  private Consumer<String, byte[]> consumer;
+
+  private MeterRegistry meterRegistry;
+
+  private ListenerFailuresInterceptor listenerFailuresInterceptor;
+
+  @BeforeEach
+  public void setUp() {
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.listenerFailuresInterceptor = new ListenerFailuresInterceptor(this.meterRegistry);
+  }
+
+  @Test
+  @DisplayName("Test records are passed unchanged")
+  public void givenRecordWhenInterceptThenShouldReturnSameRecord() {
+    ConsumerRecord<String, byte[]> record = new ConsumerRecord<>(TOPIC, 0, 0L, KEY, EVENT_JSON);
+
+    assertSame(record, this.listenerFailuresInterceptor.intercept(record, this.consumer));
+  }
+
+  @Test
+  @DisplayName("Test failures are counted by topic and root exception")
+  public void givenFailedRecordsWhenFailureThenShouldCountThemByTopicAndRootException() {
+    Exception exception = new ListenerExecutionFailedException("Listener failed",
+        new CannotAcquireLockException("Deadlock found"));
+
+    this.listenerFailuresInterceptor.failure(
+        new ConsumerRecord<>(TOPIC, 0, 0L, KEY, EVENT_JSON), exception, this.consumer);
+    this.listenerFailuresInterceptor.failure(
+        new ConsumerRecord<>(RETRY_TOPIC, 0, 0L, KEY, EVENT_JSON), exception, this.consumer);
+
+    assertEquals(1, this.meterRegistry.get(ListenerFailuresInterceptor.FAILURES_METRIC)
+        .tag("topic", TOPIC).tag("exception", "CannotAcquireLockException").counter().count());
+    assertEquals(1, this.meterRegistry.get(ListenerFailuresInterceptor.FAILURES_METRIC)
+        .tag("topic", RETRY_TOPIC).counter().count());
+  }
+
+  @Test
+  @DisplayName("Test backed off records are not counted as failures")
+  public void givenBackedOffRecordWhenFailureThenShouldNotCountIt() {
+    Exception exception = new ListenerExecutionFailedException("Listener failed",
+        new KafkaBackoffException("Partition backed off", new TopicPartition(RETRY_TOPIC, 0),
+            "retryListener", Long.MAX_VALUE));
+
+    this.listenerFailuresInterceptor.failure(
+        new ConsumerRecord<>(RETRY_TOPIC, 0, 0L, KEY, EVENT_JSON), exception, this.consumer);
+
+    assertNull(this.meterRegistry.find(ListenerFailuresInterceptor.FAILURES_METRIC).counter());
+  }
+
+  @Test
+  @DisplayName("Test failed batches are counted once by topic")
+  public void givenFailedBatchWhenFailureThenShouldCountItOnceByTopic() {
+    TopicPartition partition0 = new TopicPartition(TOPIC, 0);
+    TopicPartition partition1 = new TopicPartition(TOPIC, 1);
+    ConsumerRecords<String, byte[]> records = new ConsumerRecords<>(Map.of(
+        partition0, List.of(new ConsumerRecord<>(TOPIC, 0, 0L, KEY, EVENT_JSON)),
+        partition1, List.of(new ConsumerRecord<>(TOPIC, 1, 0L, KEY, EVENT_JSON))));
+
+    assertSame(records, this.listenerFailuresInterceptor.intercept(records, this.consumer));
+    this.listenerFailuresInterceptor.failure(records,
+        new CannotAcquireLockException("Deadlock found"), this.consumer);
+
+    assertEquals(1, this.meterRegistry.get(ListenerFailuresInterceptor.FAILURES_METRIC)
+        .tag("topic", TOPIC).tag("exception", "CannotAcquireLockException").counter().count());
+  }
+
+}
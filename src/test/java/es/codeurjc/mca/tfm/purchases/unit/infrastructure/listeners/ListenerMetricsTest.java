@@ -0,0 +1,88 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import es.codeurjc.mca.tfm.purchases.infrastructure.generators.SnowflakeIdGenerator;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.ListenerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Listener metrics tests")
+public class ListenerMetricsTest {
+
+  private static final String TOPIC = "update-items";
+
+  private static final long CREATED_AT = SnowflakeIdGenerator.EPOCH + 1000L;
+
+  private static final long NOW = CREATED_AT + 250L;
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final ListenerMetrics listenerMetrics = new ListenerMetrics(this.meterRegistry,
+      Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC));
+
+  @Test
+  @DisplayName("Test processed record is counted and its end to end latency recorded")
+  public void givenRecordWhenProcessedThenShouldRecordTimeCountAndLatency() throws Exception {
+    this.listenerMetrics.timed(record -> {
+    }).handle(buildRecord(0));
+
+    assertEquals(1, this.meterRegistry.get(ListenerMetrics.PROCESS_METRIC)
+        .tag("topic", TOPIC).tag("result", "success").timer().count());
+    assertEquals(1, this.meterRegistry.get(ListenerMetrics.EVENTS_METRIC)
+        .tag("topic", TOPIC).tag("result", "success").counter().count());
+    assertEquals(250, this.meterRegistry.get(ListenerMetrics.LATENCY_METRIC)
+        .tag("topic", TOPIC).timer().max(TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  @DisplayName("Test failed batch counts events processed before the failed one")
+  public void givenFailedBatchWhenProcessedThenShouldCountProcessedAndFailedEvents() {
+    List<ConsumerRecord<String, byte[]>> records =
+        List.of(buildRecord(0), buildRecord(1), buildRecord(2));
+
+    assertThrows(BatchListenerFailedException.class,
+        () -> this.listenerMetrics.timed(records, batch -> {
+          throw new BatchListenerFailedException("Can't decode event",
+              new IOException("Can't decode event"), 2);
+        }));
+
+    assertEquals(1, this.meterRegistry.get(ListenerMetrics.PROCESS_METRIC)
+        .tag("topic", TOPIC).tag("result", "failure").timer().count());
+    assertEquals(2, this.meterRegistry.get(ListenerMetrics.EVENTS_METRIC)
+        .tag("topic", TOPIC).tag("result", "success").counter().count());
+    assertEquals(1, this.meterRegistry.get(ListenerMetrics.EVENTS_METRIC)
+        .tag("topic", TOPIC).tag("result", "failure").counter().count());
+    assertEquals(2, this.meterRegistry.get(ListenerMetrics.LATENCY_METRIC)
+        .tag("topic", TOPIC).timer().count());
+  }
+
+  private static ConsumerRecord<String, byte[]> buildRecord(long offset) {
+    ConsumerRecord<String, byte[]> record =
+        new ConsumerRecord<>(TOPIC, 0, offset, "1", new byte[0]);
+    long eventId = (CREATED_AT - SnowflakeIdGenerator.EPOCH)
+        << (SnowflakeIdGenerator.NODE_ID_BITS + SnowflakeIdGenerator.SEQUENCE_BITS);
+    record.headers().add(
+        new RecordHeader(EventHeaders.EVENT_ID, EventHeaders.encodeEventId(eventId + offset)));
+    return record;
+  }
+
+}
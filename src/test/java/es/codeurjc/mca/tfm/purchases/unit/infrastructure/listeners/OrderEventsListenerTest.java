@@ -0,0 +1,238 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.domain.models.OrderState;
+import es.codeurjc.mca.tfm.purchases.domain.ports.in.OrderUseCase;
+import es.codeurjc.mca.tfm.purchases.infrastructure.caches.ProcessedEventCache;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.JsonCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.JsonEventCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.SmileEventCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OrderEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.PendingOrderStateChangeEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.OrderEventsListener;
+import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapperImpl;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaOrderRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaPendingOrderStateChangeRepository;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Order events listener tests")
+public class OrderEventsListenerTest {
+
+  private static final String TOPIC = "update-orders";
+
+  private static final Long ORDER_ID = 1652692327532L;
+
+  private static final Long EVENT_ID = 1652692327600L;
+
+  private static final Long OTHER_EVENT_ID = 1652692327601L;
+
+  private static final List<String> ERRORS = List.of("Not enough balance");
+
+  private final JsonCodec jsonCodec = new JsonCodec();
+
+  private final EventCodecs eventCodecs = new EventCodecs(
+      new JsonEventCodec(this.jsonCodec), new SmileEventCodec(), Set.of());
+
+  @Mock
+  private JpaOrderRepository jpaOrderRepository;
+
+  @Mock
+  private JpaPendingOrderStateChangeRepository jpaPendingOrderStateChangeRepository;
+
+  @Mock
+  private ProcessedEventCache processedEventCache;
+
+  @Mock
+  private OrderUseCase orderUseCase;
+
+  @Captor
+  private ArgumentCaptor<PendingOrderStateChangeEntity> pendingStateChangeCaptor;
+
+  @Captor
+  private ArgumentCaptor<Iterable<PendingOrderStateChangeEntity>> doneStateChangesCaptor;
+
+  private OrderEventsListener orderEventsListener;
+
+  @BeforeEach
+  public void setUp() {
+    InfraMapperImpl infraMapper = new InfraMapperImpl();
+    infraMapper.setJsonCodec(this.jsonCodec);
+    this.orderEventsListener = new OrderEventsListener(infraMapper, this.jpaOrderRepository,
+        this.jpaPendingOrderStateChangeRepository, this.processedEventCache, this.orderUseCase,
+        this.eventCodecs);
+    when(this.processedEventCache.markProcessed(any())).thenReturn(true);
+  }
+
+  @Test
+  @DisplayName("Test state change for the current order version is applied")
+  public void givenStateChangeForCurrentVersionWhenReceivedThenShouldApplyIt() throws Exception {
+    when(this.jpaOrderRepository.findForUpdateById(ORDER_ID))
+        .thenReturn(Optional.of(buildOrder(OrderState.VALIDATING_BALANCE, 2)));
+
+    this.orderEventsListener.onOrderStateChanged(
+        this.encode(buildEvent(OrderState.DONE, Optional.empty(), 2)), null);
+
+    verify(this.orderUseCase, times(1)).update(ORDER_ID, OrderState.DONE, Optional.empty());
+    verify(this.jpaPendingOrderStateChangeRepository, never()).save(any());
+  }
+
+  @Test
+  @DisplayName("Test state change for a later order version is kept pending")
+  public void givenStateChangeForLaterVersionWhenReceivedThenShouldKeepItPending()
+      throws Exception {
+    when(this.jpaOrderRepository.findForUpdateById(ORDER_ID))
+        .thenReturn(Optional.of(buildOrder(OrderState.VALIDATING_ITEMS, 1)));
+
+    this.orderEventsListener.onOrderStateChanged(
+        this.encode(buildEvent(OrderState.REJECTED, Optional.of(ERRORS), 2)), null);
+
+    verify(this.orderUseCase, never()).update(anyLong(), any(), any());
+    verify(this.jpaPendingOrderStateChangeRepository, times(1))
+        .save(this.pendingStateChangeCaptor.capture());
+    PendingOrderStateChangeEntity pendingStateChange = this.pendingStateChangeCaptor.getValue();
+    assertEquals(ORDER_ID, pendingStateChange.getOrderId());
+    assertEquals(2, pendingStateChange.getVersion());
+    assertEquals(OrderState.REJECTED.name(), pendingStateChange.getState());
+    assertEquals(ERRORS, this.jsonCodec.readList(pendingStateChange.getErrors(), String[].class));
+  }
+
+  @Test
+  @DisplayName("Test state change for an outdated order version is discarded")
+  public void givenStateChangeForOutdatedVersionWhenReceivedThenShouldDiscardIt()
+      throws Exception {
+    when(this.jpaOrderRepository.findForUpdateById(ORDER_ID))
+        .thenReturn(Optional.of(buildOrder(OrderState.VALIDATING_BALANCE, 2)));
+
+    this.orderEventsListener.onOrderStateChanged(
+        this.encode(buildEvent(OrderState.VALIDATING_BALANCE, Optional.empty(), 1)), null);
+
+    verify(this.orderUseCase, never()).update(anyLong(), any(), any());
+    verify(this.jpaPendingOrderStateChangeRepository, never()).save(any());
+  }
+
+  @Test
+  @DisplayName("Test order update applies pending state changes for the reached version")
+  public void givenPendingStateChangesWhenOrderReachesVersionThenShouldApplyThem()
+      throws Exception {
+    OrderEntity orderEntity = buildOrder(OrderState.VALIDATING_ITEMS, 1);
+    when(this.jpaOrderRepository.findAllById(any())).thenReturn(List.of(orderEntity));
+    PendingOrderStateChangeEntity outdatedStateChange =
+        new PendingOrderStateChangeEntity(1L, ORDER_ID, 1, OrderState.REJECTED.name(), null);
+    PendingOrderStateChangeEntity reachedStateChange = new PendingOrderStateChangeEntity(2L,
+        ORDER_ID, 2, OrderState.REJECTED.name(), this.jsonCodec.write(ERRORS));
+    PendingOrderStateChangeEntity laterStateChange =
+        new PendingOrderStateChangeEntity(3L, ORDER_ID, 3, OrderState.DONE.name(), null);
+    when(this.jpaPendingOrderStateChangeRepository.findByOrderIdInOrderByVersionAscIdAsc(any()))
+        .thenReturn(List.of(outdatedStateChange, reachedStateChange, laterStateChange));
+
+    this.orderEventsListener.onUpdatedOrder(List.of(
+        this.buildRecord(0, buildEvent(OrderState.VALIDATING_ITEMS, Optional.empty(), 1)),
+        this.buildRecord(1, buildEvent(OrderState.VALIDATING_BALANCE, Optional.empty(), 2))));
+
+    assertEquals(OrderState.VALIDATING_BALANCE.name(), orderEntity.getState());
+    assertEquals(2, orderEntity.getVersion());
+    verify(this.orderUseCase, times(1))
+        .update(ORDER_ID, OrderState.REJECTED, Optional.of(ERRORS));
+    verify(this.jpaPendingOrderStateChangeRepository, times(1))
+        .deleteAllInBatch(this.doneStateChangesCaptor.capture());
+    List<PendingOrderStateChangeEntity> doneStateChanges = new ArrayList<>();
+    this.doneStateChangesCaptor.getValue().forEach(doneStateChanges::add);
+    assertEquals(List.of(outdatedStateChange, reachedStateChange), doneStateChanges);
+  }
+
+  @Test
+  @DisplayName("Test already processed state change is skipped")
+  public void givenProcessedStateChangeWhenReceivedAgainThenShouldSkipIt() throws Exception {
+    when(this.processedEventCache.markProcessed(EVENT_ID)).thenReturn(false);
+
+    this.orderEventsListener.onOrderStateChanged(
+        this.encode(buildEvent(OrderState.DONE, Optional.empty(), 2)),
+        EventHeaders.encodeEventId(EVENT_ID));
+
+    verify(this.jpaOrderRepository, never()).findForUpdateById(any());
+    verify(this.orderUseCase, never()).update(anyLong(), any(), any());
+  }
+
+  @Test
+  @DisplayName("Test already processed and repeated order updates of a batch are skipped")
+  public void givenBatchWithProcessedAndRepeatedEventsWhenReceivedThenShouldApplyOthersOnce()
+      throws Exception {
+    OrderEntity orderEntity = buildOrder(OrderState.CREATED, null);
+    when(this.jpaOrderRepository.findAllById(any())).thenReturn(List.of(orderEntity));
+    when(this.processedEventCache.findProcessed(any()))
+        .thenReturn(new HashSet<>(Set.of(EVENT_ID)));
+
+    this.orderEventsListener.onUpdatedOrder(List.of(
+        this.buildRecord(0, buildEvent(OrderState.VALIDATING_ITEMS, Optional.empty(), null),
+            EVENT_ID),
+        this.buildRecord(1, buildEvent(OrderState.REJECTED, Optional.of(ERRORS), null),
+            OTHER_EVENT_ID),
+        this.buildRecord(2, buildEvent(OrderState.REJECTED, Optional.of(ERRORS), null),
+            OTHER_EVENT_ID)));
+
+    assertEquals(OrderState.REJECTED.name(), orderEntity.getState());
+    assertEquals(ERRORS, this.jsonCodec.readList(orderEntity.getErrors(), String[].class));
+    verify(this.processedEventCache, times(1)).markAllProcessed(List.of(OTHER_EVENT_ID));
+  }
+
+  private byte[] encode(OrderUpdateRequestedEvent event) throws IOException {
+    return this.eventCodecs.encode(TOPIC, event);
+  }
+
+  private ConsumerRecord<String, byte[]> buildRecord(long offset,
+      OrderUpdateRequestedEvent event) throws IOException {
+    return new ConsumerRecord<>(TOPIC, 0, offset, String.valueOf(event.getId()),
+        this.encode(event));
+  }
+
+  private ConsumerRecord<String, byte[]> buildRecord(long offset,
+      OrderUpdateRequestedEvent event, Long eventId) throws IOException {
+    ConsumerRecord<String, byte[]> record = this.buildRecord(offset, event);
+    record.headers().add(
+        new RecordHeader(EventHeaders.EVENT_ID, EventHeaders.encodeEventId(eventId)));
+    return record;
+  }
+
+  private static OrderUpdateRequestedEvent buildEvent(OrderState state,
+      Optional<List<String>> errors, Integer version) {
+    OrderUpdateRequestedEvent event = new OrderUpdateRequestedEvent();
+    event.setId(ORDER_ID);
+    event.setState(state.name());
+    event.setErrors(errors);
+    event.setVersion(version);
+    return event;
+  }
+
+  private static OrderEntity buildOrder(OrderState state, Integer version) {
+    return new OrderEntity(ORDER_ID, null, state.name(), null, version);
+  }
+
+}
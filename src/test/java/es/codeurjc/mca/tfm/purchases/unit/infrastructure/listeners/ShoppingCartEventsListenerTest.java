@@ -0,0 +1,175 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import es.codeurjc.mca.tfm.purchases.domain.ports.in.OrderUseCase;
+import es.codeurjc.mca.tfm.purchases.infrastructure.caches.IncompleteShoppingCartCache;
+import es.codeurjc.mca.tfm.purchases.infrastructure.caches.ProcessedEventCache;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.JsonCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.JsonEventCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.SmileEventCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItem;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.ShoppingCartEventsListener;
+import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapperImpl;
+import es.codeurjc.mca.tfm.purchases.infrastructure.projections.ShoppingCartProjection;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.stores.JsonShoppingCartItemsStore;
+import es.codeurjc.mca.tfm.purchases.infrastructure.stores.ShoppingCartStateStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Shopping cart events listener tests")
+public class ShoppingCartEventsListenerTest {
+
+  private static final String TOPIC = "update-items";
+
+  private static final Long SHOPPING_CART_ID = 1652692327498L;
+
+  private static final Long NOT_FOUND_SHOPPING_CART_ID = 999L;
+
+  private static final Integer USER_ID = 1;
+
+  private final JsonCodec jsonCodec = new JsonCodec();
+
+  private final EventCodecs eventCodecs = new EventCodecs(
+      new JsonEventCodec(this.jsonCodec), new SmileEventCodec(), Set.of(TOPIC));
+
+  @Mock
+  private JpaShoppingCartRepository jpaShoppingCartRepository;
+
+  @Mock
+  private IncompleteShoppingCartCache incompleteShoppingCartCache;
+
+  @Mock
+  private ShoppingCartProjection shoppingCartProjection;
+
+  @Mock
+  private ProcessedEventCache processedEventCache;
+
+  @Mock
+  private OrderUseCase orderUseCase;
+
+  @Mock
+  private ScheduledExecutorService loader;
+
+  @Captor
+  private ArgumentCaptor<ShoppingCartEntity> savedShoppingCartsCaptor;
+
+  private ShoppingCartEventsListener shoppingCartEventsListener;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    InfraMapperImpl infraMapper = new InfraMapperImpl();
+    infraMapper.setJsonCodec(this.jsonCodec);
+    this.shoppingCartEventsListener = new ShoppingCartEventsListener(infraMapper,
+        this.jpaShoppingCartRepository,
+        new ShoppingCartStateStore(this.jpaShoppingCartRepository, Map.of(TOPIC, 3),
+            new SimpleMeterRegistry(), this.loader, 0L),
+        new JsonShoppingCartItemsStore(infraMapper), this.incompleteShoppingCartCache,
+        this.shoppingCartProjection, this.processedEventCache, this.orderUseCase,
+        this.eventCodecs);
+    ShoppingCartEntity shoppingCartEntity = new ShoppingCartEntity(SHOPPING_CART_ID, USER_ID,
+        false, this.jsonCodec.write(List.of(buildItem(100, "10.00", 1))), Money.parse("10.00"),
+        0L);
+    when(this.jpaShoppingCartRepository.findAllById(any()))
+        .thenReturn(List.of(shoppingCartEntity));
+  }
+
+  @Test
+  @DisplayName("Test batch of items updates is applied in order and saved at once")
+  public void givenItemsUpdatesBatchWhenReceivedThenShouldApplyThemInOrderAndSaveAtOnce()
+      throws Exception {
+    this.shoppingCartEventsListener.onUpdateShoppingCartItems(List.of(
+        this.buildRecord(0, buildDelta(SHOPPING_CART_ID, List.of(buildItem(200, "5.00", 2)),
+            List.of())),
+        this.buildRecord(1, buildDelta(NOT_FOUND_SHOPPING_CART_ID, List.of(), List.of(100))),
+        this.buildRecord(2, buildDelta(SHOPPING_CART_ID, List.of(), List.of(100)))));
+
+    verify(this.jpaShoppingCartRepository, times(1)).findAllById(
+        Set.of(SHOPPING_CART_ID, NOT_FOUND_SHOPPING_CART_ID));
+    ShoppingCartEntity savedShoppingCart = this.getSavedShoppingCarts().get(0);
+    assertEquals(List.of(buildItem(200, "5.00", 2)),
+        this.jsonCodec.readList(savedShoppingCart.getItems(), ShoppingCartItem[].class));
+    assertEquals(Money.parse("10.00"), savedShoppingCart.getTotalPrice());
+    verify(this.shoppingCartProjection, times(1)).put(savedShoppingCart);
+  }
+
+  @Test
+  @DisplayName("Test batch with an undecodable event saves previous events and reports it")
+  public void givenBatchWithUndecodableEventWhenReceivedThenShouldSavePreviousAndReportIt()
+      throws Exception {
+    List<ConsumerRecord<String, byte[]>> records = List.of(
+        this.buildRecord(0, buildDelta(SHOPPING_CART_ID, List.of(), List.of(100))),
+        new ConsumerRecord<>(TOPIC, 0, 1L, String.valueOf(SHOPPING_CART_ID),
+            "not an event".getBytes(StandardCharsets.UTF_8)),
+        this.buildRecord(2, buildDelta(SHOPPING_CART_ID, List.of(buildItem(200, "5.00", 2)),
+            List.of())));
+
+    BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+        () -> this.shoppingCartEventsListener.onUpdateShoppingCartItems(records));
+
+    assertEquals(1, exception.getIndex());
+    List<ShoppingCartEntity> savedShoppingCarts = this.getSavedShoppingCarts();
+    assertEquals(1, savedShoppingCarts.size());
+    assertEquals("[]", savedShoppingCarts.get(0).getItems());
+  }
+
+  private List<ShoppingCartEntity> getSavedShoppingCarts() {
+    verify(this.jpaShoppingCartRepository, times(1))
+        .update(this.savedShoppingCartsCaptor.capture());
+    return this.savedShoppingCartsCaptor.getAllValues();
+  }
+
+  private ConsumerRecord<String, byte[]> buildRecord(long offset,
+      ShoppingCartItemsUpdateRequestedEvent event) throws IOException {
+    return new ConsumerRecord<>(TOPIC, 0, offset, String.valueOf(event.getId()),
+        this.eventCodecs.encode(TOPIC, event));
+  }
+
+  private static ShoppingCartItemsUpdateRequestedEvent buildDelta(Long id,
+      List<ShoppingCartItem> changedItems, List<Integer> deletedProductIds) {
+    ShoppingCartItemsUpdateRequestedEvent event = new ShoppingCartItemsUpdateRequestedEvent();
+    event.setId(id);
+    event.setChangedItems(changedItems);
+    event.setDeletedProductIds(deletedProductIds);
+    return event;
+  }
+
+  private static ShoppingCartItem buildItem(Integer productId, String unitPrice,
+      Integer quantity) {
+    ShoppingCartItem item = new ShoppingCartItem();
+    item.setProductId(productId);
+    item.setUnitPrice(Money.parse(unitPrice));
+    item.setQuantity(quantity);
+    item.setTotalPrice(Money.parse(unitPrice).times(quantity));
+    return item;
+  }
+
+}
@@ -0,0 +1,85 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.mappers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.JsonCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItem;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapperImpl;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Infrastructure mapper tests")
+public class InfraMapperTest {
+
+  private static final List<ShoppingCartItem> ITEMS =
+      List.of(buildItem(100, "10.00", 1), buildItem(200, "5.00", 2));
+
+  private final JsonCodec jsonCodec = new JsonCodec();
+
+  private InfraMapperImpl infraMapper;
+
+  @BeforeEach
+  public void setUp() {
+    this.infraMapper = new InfraMapperImpl();
+    this.infraMapper.setJsonCodec(this.jsonCodec);
+  }
+
+  @Test
+  @DisplayName("Test snapshot items update replaces current items")
+  public void givenSnapshotItemsUpdateWhenMapToUpdatedItemsThenShouldReplaceItems() {
+    ShoppingCartItemsUpdateRequestedEvent event = new ShoppingCartItemsUpdateRequestedEvent();
+    event.setItems(List.of(buildItem(300, "1.00", 3)));
+
+    assertEquals(List.of(buildItem(300, "1.00", 3)),
+        this.infraMapper.mapToUpdatedItems(ITEMS, event));
+  }
+
+  @Test
+  @DisplayName("Test delta items update sets and deletes items keeping their order")
+  public void givenDeltaItemsUpdateWhenMapToUpdatedItemsThenShouldApplyItOverCurrentItems() {
+    ShoppingCartItemsUpdateRequestedEvent event = new ShoppingCartItemsUpdateRequestedEvent();
+    event.setChangedItems(List.of(buildItem(300, "1.00", 3), buildItem(100, "10.00", 4)));
+    event.setDeletedProductIds(List.of(200, 999));
+
+    assertEquals(List.of(buildItem(100, "10.00", 4), buildItem(300, "1.00", 3)),
+        this.infraMapper.mapToUpdatedItems(ITEMS, event));
+    assertEquals(List.of(buildItem(100, "10.00", 1), buildItem(200, "5.00", 2)), ITEMS);
+  }
+
+  @Test
+  @DisplayName("Test delta items update does not encode snapshot items")
+  public void givenDeltaItemsUpdateWhenWriteThenShouldNotHaveItems()
+      throws JsonProcessingException {
+    ShoppingCartItemsUpdateRequestedEvent event = new ShoppingCartItemsUpdateRequestedEvent();
+    event.setId(1L);
+    event.setDeletedProductIds(List.of(200));
+
+    String json = this.jsonCodec.write(event);
+
+    assertFalse(json.contains("\"items\""));
+    assertEquals(event,
+        this.jsonCodec.read(json, ShoppingCartItemsUpdateRequestedEvent.class));
+  }
+
+  private static ShoppingCartItem buildItem(Integer productId, String unitPrice,
+      Integer quantity) {
+    ShoppingCartItem item = new ShoppingCartItem();
+    item.setProductId(productId);
+    item.setUnitPrice(Money.parse(unitPrice));
+    item.setQuantity(quantity);
+    item.setTotalPrice(Money.parse(unitPrice).times(quantity));
+    return item;
+  }
+
+}
@@ -0,0 +1,189 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.projections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ItemDto;
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.JsonCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapperImpl;
+import es.codeurjc.mca.tfm.purchases.infrastructure.projections.ShoppingCartProjection;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.stores.JsonShoppingCartItemsStore;
+import es.codeurjc.mca.tfm.purchases.infrastructure.stores.ShoppingCartStateStore;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Shopping cart projection tests")
+public class ShoppingCartProjectionTest {
+
+  private static final Integer USER_ID = 1;
+
+  private static final Integer OTHER_USER_ID = 2;
+
+  private static final Long SHOPPING_CART_ID = 1652692327498L;
+
+  private static final String ITEMS =
+      "[{\"productId\":100,\"unitPrice\":19.99,\"quantity\":2,\"totalPrice\":39.98}]";
+
+  @Mock
+  private JpaShoppingCartRepository jpaShoppingCartRepository;
+
+  @Mock
+  private ShoppingCartStateStore shoppingCartStateStore;
+
+  private ShoppingCartProjection shoppingCartProjection;
+
+  @BeforeEach
+  public void setUp() {
+    InfraMapperImpl infraMapper = new InfraMapperImpl();
+    infraMapper.setJsonCodec(new JsonCodec());
+    this.shoppingCartProjection = new ShoppingCartProjection(this.jpaShoppingCartRepository,
+        new JsonShoppingCartItemsStore(infraMapper), this.shoppingCartStateStore, 100,
+        Duration.ofMinutes(10), Ticker.systemTicker());
+    when(this.shoppingCartStateStore.isOwned(anyLong())).thenReturn(true);
+    when(this.shoppingCartStateStore.revocations()).thenReturn(0L);
+  }
+
+  @Test
+  @DisplayName("Test shopping cart not in projection is loaded from database once")
+  public void givenShoppingCartNotInProjectionWhenFindTwiceThenShouldLoadOnce() {
+    when(this.jpaShoppingCartRepository.findById(SHOPPING_CART_ID))
+        .thenReturn(Optional.of(buildShoppingCartEntity(Money.ZERO, "[]")));
+
+    assertTrue(this.shoppingCartProjection.findByIdAndUser(SHOPPING_CART_ID, USER_ID).isPresent());
+    assertTrue(this.shoppingCartProjection.findByIdAndUser(SHOPPING_CART_ID, USER_ID).isPresent());
+
+    verify(this.jpaShoppingCartRepository, times(1)).findById(SHOPPING_CART_ID);
+    assertEquals(1, this.shoppingCartProjection.stats().hitCount());
+  }
+
+  @Test
+  @DisplayName("Test shopping cart put by listener is served without database")
+  public void givenSavedShoppingCartWhenFindThenShouldReturnItWithParsedItems() {
+    this.shoppingCartProjection.put(buildShoppingCartEntity(Money.parse("39.98"), ITEMS));
+
+    ShoppingCartDto shoppingCartDto =
+        this.shoppingCartProjection.findByIdAndUser(SHOPPING_CART_ID, USER_ID).get();
+
+    assertEquals(Money.parse("39.98"), shoppingCartDto.getTotalPrice());
+    List<ItemDto> items = shoppingCartDto.getItems();
+    assertEquals(1, items.size());
+    assertEquals(100, items.get(0).getProductId());
+    assertEquals(Money.parse("39.98"), items.get(0).getTotalPrice());
+    verify(this.jpaShoppingCartRepository, never()).findById(any());
+  }
+
+  @Test
+  @DisplayName("Test shopping cart of other user is not returned")
+  public void givenShoppingCartOfOtherUserWhenFindThenShouldReturnEmpty() {
+    this.shoppingCartProjection.put(buildShoppingCartEntity(Money.ZERO, "[]"));
+
+    assertTrue(
+        this.shoppingCartProjection.findByIdAndUser(SHOPPING_CART_ID, OTHER_USER_ID).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Test removed shopping cart is not found")
+  public void givenRemovedShoppingCartWhenFindThenShouldLoadFromDatabase() {
+    when(this.jpaShoppingCartRepository.findById(SHOPPING_CART_ID)).thenReturn(Optional.empty());
+    this.shoppingCartProjection.put(buildShoppingCartEntity(Money.ZERO, "[]"));
+    this.shoppingCartProjection.remove(SHOPPING_CART_ID);
+
+    assertTrue(this.shoppingCartProjection.findByIdAndUser(SHOPPING_CART_ID, USER_ID).isEmpty());
+    verify(this.jpaShoppingCartRepository, times(1)).findById(SHOPPING_CART_ID);
+  }
+
+  @Test
+  @DisplayName("Test shopping cart not owned by this instance is loaded from database every time")
+  public void givenShoppingCartNotOwnedWhenFindTwiceThenShouldLoadTwice() {
+    when(this.shoppingCartStateStore.isOwned(SHOPPING_CART_ID)).thenReturn(false);
+    when(this.jpaShoppingCartRepository.findById(SHOPPING_CART_ID))
+        .thenReturn(Optional.of(buildShoppingCartEntity(Money.ZERO, "[]")));
+    this.shoppingCartProjection.put(buildShoppingCartEntity(Money.ZERO, "[]"));
+
+    assertTrue(this.shoppingCartProjection.findByIdAndUser(SHOPPING_CART_ID, USER_ID).isPresent());
+    assertTrue(this.shoppingCartProjection.findByIdAndUser(SHOPPING_CART_ID, USER_ID).isPresent());
+
+    verify(this.jpaShoppingCartRepository, times(2)).findById(SHOPPING_CART_ID);
+  }
+
+  @Test
+  @DisplayName("Test shopping cart kept before a revocation of partitions is loaded again")
+  public void givenRevocationSinceKeptWhenFindThenShouldLoadFromDatabase() {
+    when(this.jpaShoppingCartRepository.findById(SHOPPING_CART_ID))
+        .thenReturn(Optional.of(buildShoppingCartEntity(Money.ZERO, "[]")));
+    this.shoppingCartProjection.put(buildShoppingCartEntity(Money.parse("39.98"), ITEMS));
+    when(this.shoppingCartStateStore.revocations()).thenReturn(1L);
+
+    assertEquals(Money.ZERO, this.shoppingCartProjection.findByIdAndUser(SHOPPING_CART_ID, USER_ID)
+        .get().getTotalPrice());
+    assertTrue(this.shoppingCartProjection.findByIdAndUser(SHOPPING_CART_ID, USER_ID).isPresent());
+
+    verify(this.jpaShoppingCartRepository, times(1)).findById(SHOPPING_CART_ID);
+  }
+
+  @Test
+  @DisplayName("Test shopping cart put in a transaction is kept only once it is committed")
+  public void givenPutInTransactionWhenCommittedThenShouldKeepIt() {
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      this.shoppingCartProjection.put(buildShoppingCartEntity(Money.parse("39.98"), ITEMS));
+      assertEquals(0, this.shoppingCartProjection.stats().requestCount());
+      TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+          synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    assertEquals(Money.parse("39.98"), this.shoppingCartProjection
+        .findByIdAndUser(SHOPPING_CART_ID, USER_ID).get().getTotalPrice());
+    verify(this.jpaShoppingCartRepository, never()).findById(any());
+  }
+
+  @Test
+  @DisplayName("Test shopping cart put in a rolled back transaction is dropped")
+  public void givenPutInTransactionWhenRolledBackThenShouldLoadFromDatabase() {
+    when(this.jpaShoppingCartRepository.findById(SHOPPING_CART_ID))
+        .thenReturn(Optional.of(buildShoppingCartEntity(Money.ZERO, "[]")));
+    this.shoppingCartProjection.put(buildShoppingCartEntity(Money.ZERO, "[]"));
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      this.shoppingCartProjection.put(buildShoppingCartEntity(Money.parse("39.98"), ITEMS));
+      TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+          synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    assertEquals(Money.ZERO, this.shoppingCartProjection.findByIdAndUser(SHOPPING_CART_ID, USER_ID)
+        .get().getTotalPrice());
+    verify(this.jpaShoppingCartRepository, times(1)).findById(SHOPPING_CART_ID);
+  }
+
+  private static ShoppingCartEntity buildShoppingCartEntity(Money totalPrice, String items) {
+    return new ShoppingCartEntity(SHOPPING_CART_ID, USER_ID, false, items, totalPrice, 0L);
+  }
+
+}
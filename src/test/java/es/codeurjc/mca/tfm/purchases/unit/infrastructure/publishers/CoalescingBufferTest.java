@@ -0,0 +1,166 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.publishers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.CoalescingBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Coalescing buffer tests")
+public class CoalescingBufferTest {
+
+  private static final Long SHOPPING_CART_ID = 1L;
+
+  private static final Long OTHER_SHOPPING_CART_ID = 2L;
+
+  private final List<String> published = new CopyOnWriteArrayList<>();
+
+  @Test
+  @DisplayName("Test zero window publishes each value")
+  public void givenZeroWindowWhenPutThenShouldPublishRightAway() {
+    CoalescingBuffer<Long, String> buffer =
+        new CoalescingBuffer<>("test", Duration.ZERO, this.published::add);
+
+    buffer.put(SHOPPING_CART_ID, "1");
+    buffer.put(SHOPPING_CART_ID, "2");
+
+    assertEquals(List.of("1", "2"), this.published);
+    assertTrue(buffer.get(SHOPPING_CART_ID).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Test burst of values of a key publishes only the last one after window")
+  public void givenBurstOfValuesWhenWindowEndsThenShouldPublishLastOne()
+      throws InterruptedException {
+    CoalescingBuffer<Long, String> buffer =
+        new CoalescingBuffer<>("test", Duration.ofMillis(100), this.published::add);
+
+    buffer.put(SHOPPING_CART_ID, "1");
+    buffer.put(SHOPPING_CART_ID, "2");
+    buffer.put(SHOPPING_CART_ID, "3");
+
+    assertEquals("3", buffer.get(SHOPPING_CART_ID).get());
+    assertTrue(this.published.isEmpty());
+
+    Thread.sleep(500);
+
+    assertEquals(List.of("3"), this.published);
+    assertTrue(buffer.get(SHOPPING_CART_ID).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Test burst of values of a key publishes them merged after window")
+  public void givenBurstOfValuesAndMergerWhenWindowEndsThenShouldPublishMergedValue()
+      throws InterruptedException {
+    CoalescingBuffer<Long, String> buffer = new CoalescingBuffer<>("test", Duration.ofMillis(100),
+        (pendingValue, value) -> pendingValue + value, this.published::add);
+
+    buffer.put(SHOPPING_CART_ID, "1");
+    buffer.put(SHOPPING_CART_ID, "2");
+    buffer.put(SHOPPING_CART_ID, "3");
+
+    assertEquals("123", buffer.get(SHOPPING_CART_ID).get());
+
+    Thread.sleep(500);
+
+    assertEquals(List.of("123"), this.published);
+    assertTrue(buffer.get(SHOPPING_CART_ID).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Test flush publishes pending value of key")
+  public void givenPendingValuesWhenFlushKeyThenShouldOnlyPublishItsValue() {
+    CoalescingBuffer<Long, String> buffer =
+        new CoalescingBuffer<>("test", Duration.ofMinutes(1), this.published::add);
+    buffer.put(SHOPPING_CART_ID, "1");
+    buffer.put(OTHER_SHOPPING_CART_ID, "2");
+
+    buffer.flush(SHOPPING_CART_ID);
+    buffer.flush(SHOPPING_CART_ID);
+
+    assertEquals(List.of("1"), this.published);
+    assertEquals("2", buffer.get(OTHER_SHOPPING_CART_ID).get());
+  }
+
+  @Test
+  @DisplayName("Test value failed to be published is merged before newer value and retried")
+  public void givenFailedPublishWhenWindowEndsAgainThenShouldPublishMergedValue()
+      throws InterruptedException {
+    AtomicBoolean failed = new AtomicBoolean();
+    CoalescingBuffer<Long, String> buffer = new CoalescingBuffer<>("test", Duration.ofMillis(100),
+        (pendingValue, value) -> pendingValue + value, value -> {
+          if (failed.compareAndSet(false, true)) {
+            throw new IllegalStateException("Outbox unavailable");
+          }
+          this.published.add(value);
+        });
+    buffer.put(SHOPPING_CART_ID, "1");
+
+    buffer.flush(SHOPPING_CART_ID);
+    buffer.put(SHOPPING_CART_ID, "2");
+
+    assertEquals("12", buffer.get(SHOPPING_CART_ID).get());
+
+    Thread.sleep(500);
+
+    assertEquals(List.of("12"), this.published);
+    assertTrue(buffer.get(SHOPPING_CART_ID).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Test values of a key are set without waiting for its publishing")
+  public void givenSlowPublishWhenPutThenShouldNotWaitAndPublishAfterIt() throws Exception {
+    CountDownLatch publishing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CoalescingBuffer<Long, String> buffer = new CoalescingBuffer<>("test", Duration.ofMinutes(1),
+        value -> {
+          publishing.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          this.published.add(value);
+        });
+    buffer.put(SHOPPING_CART_ID, "1");
+    Thread flushThread = new Thread(() -> buffer.flush(SHOPPING_CART_ID));
+    flushThread.start();
+    publishing.await();
+
+    buffer.put(SHOPPING_CART_ID, "2");
+    Thread secondFlushThread = new Thread(() -> buffer.flush(SHOPPING_CART_ID));
+    secondFlushThread.start();
+
+    assertEquals("2", buffer.get(SHOPPING_CART_ID).get());
+    release.countDown();
+    flushThread.join();
+    secondFlushThread.join();
+    assertEquals(List.of("1", "2"), this.published);
+  }
+
+  @Test
+  @DisplayName("Test close publishes all pending values")
+  public void givenPendingValuesWhenCloseThenShouldPublishAll() {
+    CoalescingBuffer<Long, String> buffer =
+        new CoalescingBuffer<>("test", Duration.ofMinutes(1), this.published::add);
+    buffer.put(SHOPPING_CART_ID, "1");
+    buffer.put(OTHER_SHOPPING_CART_ID, "2");
+
+    buffer.close();
+
+    assertEquals(2, this.published.size());
+    assertTrue(this.published.containsAll(List.of("1", "2")));
+  }
+
+}
@@ -0,0 +1,105 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.publishers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.KafkaEventPublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Kafka event publisher tests")
+public class KafkaEventPublisherTest {
+
+  private static final String TOPIC = "update-items";
+
+  private static final String KEY = "1652692327498";
+
+  private static final Long EVENT_ID = 1652692327532L;
+
+  private static final byte[] EVENT_JSON =
+      "{\"id\":1652692327498}".getBytes(StandardCharsets.UTF_8);
+
+  @Mock
+  private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+  @Captor
+  private ArgumentCaptor<ProducerRecord<String, byte[]>> recordCaptor;
+
+  private MeterRegistry meterRegistry;
+
+  private KafkaEventPublisher kafkaEventPublisher;
+
+  private SettableListenableFuture<SendResult<String, byte[]>> future;
+
+  @BeforeEach
+  public void setUp() {
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.kafkaEventPublisher = new KafkaEventPublisher(this.kafkaTemplate, this.meterRegistry);
+    this.future = new SettableListenableFuture<>();
+    when(this.kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(this.future);
+  }
+
+  @Test
+  @DisplayName("Test acknowledged send records latency and size")
+  public void givenAcknowledgedSendWhenPublishThenShouldRecordSuccess() {
+    this.kafkaEventPublisher.publish(TOPIC, KEY, EVENT_ID, EVENT_JSON);
+
+    assertNull(this.meterRegistry.find(KafkaEventPublisher.SEND_METRIC).timer());
+    this.future.set(null);
+
+    assertEquals(1, this.meterRegistry.get(KafkaEventPublisher.SEND_METRIC)
+        .tag("topic", TOPIC).tag("result", "success").timer().count());
+    assertEquals(EVENT_JSON.length,
+        this.meterRegistry.get(KafkaEventPublisher.EVENT_SIZE_METRIC)
+            .tag("topic", TOPIC).summary().totalAmount());
+    assertNull(this.meterRegistry.find(KafkaEventPublisher.SEND_ERRORS_METRIC).counter());
+  }
+
+  @Test
+  @DisplayName("Test event is sent with its identifier header")
+  public void givenEventIdWhenPublishThenShouldSendItAsHeader() {
+    this.kafkaEventPublisher.publish(TOPIC, KEY, EVENT_ID, EVENT_JSON);
+
+    verify(this.kafkaTemplate).send(this.recordCaptor.capture());
+    ProducerRecord<String, byte[]> record = this.recordCaptor.getValue();
+    assertEquals(TOPIC, record.topic());
+    assertEquals(KEY, record.key());
+    assertEquals(EVENT_JSON, record.value());
+    assertEquals(EVENT_ID, EventHeaders.decodeEventId(
+        record.headers().lastHeader(EventHeaders.EVENT_ID).value()));
+  }
+
+  @Test
+  @DisplayName("Test failed send records error")
+  public void givenFailedSendWhenPublishThenShouldRecordError() {
+    this.kafkaEventPublisher.publish(TOPIC, KEY, EVENT_ID, EVENT_JSON);
+    this.future.setException(new TimeoutException("Expiring record"));
+
+    assertEquals(1, this.meterRegistry.get(KafkaEventPublisher.SEND_METRIC)
+        .tag("topic", TOPIC).tag("result", "failure").timer().count());
+    assertEquals(1, this.meterRegistry.get(KafkaEventPublisher.SEND_ERRORS_METRIC)
+        .tag("topic", TOPIC).tag("exception", "TimeoutException").counter().count());
+  }
+
+}
@@ -0,0 +1,146 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.publishers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OutboxEventEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.KafkaEventPublisher;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.OutboxRelay;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaOutboxEventRepository;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Outbox relay tests")
+public class OutboxRelayTest {
+
+  private static final int BATCH_SIZE = 3;
+
+  private static final String TOPIC = "update-items";
+
+  @Mock
+  private JpaOutboxEventRepository jpaOutboxEventRepository;
+
+  @Mock
+  private KafkaEventPublisher kafkaEventPublisher;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private OutboxRelay outboxRelay;
+
+  @BeforeEach
+  public void setUp() {
+    this.outboxRelay = new OutboxRelay(this.jpaOutboxEventRepository, this.kafkaEventPublisher,
+        this.transactionManager, BATCH_SIZE);
+  }
+
+  @Test
+  @DisplayName("Test outbox is drained in batches and in order")
+  public void givenOutboxEventsWhenRelayThenShouldSendAndDeleteThemInBatches() {
+    when(this.jpaOutboxEventRepository.findOldestId()).thenReturn(1L, 4L);
+    when(this.jpaOutboxEventRepository.claimOldest(BATCH_SIZE))
+        .thenReturn(buildOutboxEvents(1, 3), buildOutboxEvents(4, 5));
+    when(this.kafkaEventPublisher.publish(eq(TOPIC), anyString(), any(), any()))
+        .thenAnswer(invocation -> acknowledged());
+
+    assertEquals(5, this.outboxRelay.relay());
+
+    InOrder inOrder = inOrder(this.kafkaEventPublisher, this.jpaOutboxEventRepository);
+    for (long id = 1; id <= 3; id++) {
+      inOrder.verify(this.kafkaEventPublisher)
+          .publish(eq(TOPIC), eq(String.valueOf(id)), eq(id), any());
+    }
+    inOrder.verify(this.jpaOutboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+    for (long id = 4; id <= 5; id++) {
+      inOrder.verify(this.kafkaEventPublisher)
+          .publish(eq(TOPIC), eq(String.valueOf(id)), eq(id), any());
+    }
+    inOrder.verify(this.jpaOutboxEventRepository).deleteAllByIdInBatch(List.of(4L, 5L));
+  }
+
+  @Test
+  @DisplayName("Test outbox events from first failed one are kept")
+  public void givenFailedSendWhenRelayThenShouldOnlyDeleteEventsBeforeIt() {
+    when(this.jpaOutboxEventRepository.findOldestId()).thenReturn(1L);
+    when(this.jpaOutboxEventRepository.claimOldest(BATCH_SIZE))
+        .thenReturn(buildOutboxEvents(1, 3));
+    when(this.kafkaEventPublisher.publish(eq(TOPIC), anyString(), any(), any()))
+        .thenAnswer(invocation -> acknowledged())
+        .thenAnswer(invocation -> failed())
+        .thenAnswer(invocation -> acknowledged());
+
+    assertEquals(1, this.outboxRelay.relay());
+
+    verify(this.jpaOutboxEventRepository).deleteAllByIdInBatch(List.of(1L));
+  }
+
+  @Test
+  @DisplayName("Test empty outbox")
+  public void givenEmptyOutboxWhenRelayThenShouldNotSendNorDelete() {
+    when(this.jpaOutboxEventRepository.findOldestId()).thenReturn(null);
+
+    assertEquals(0, this.outboxRelay.relay());
+
+    verify(this.jpaOutboxEventRepository, never()).claimOldest(anyInt());
+    verify(this.kafkaEventPublisher, never()).publish(anyString(), anyString(), any(), any());
+    verify(this.jpaOutboxEventRepository, never()).deleteAllByIdInBatch(anyList());
+  }
+
+  @Test
+  @DisplayName("Test outbox events are not sent when oldest ones are being sent by another relay")
+  public void givenOldestEventsLockedByAnotherRelayWhenRelayThenShouldNotSendNorDelete() {
+    when(this.jpaOutboxEventRepository.findOldestId()).thenReturn(1L);
+    when(this.jpaOutboxEventRepository.claimOldest(BATCH_SIZE))
+        .thenReturn(buildOutboxEvents(4, 6));
+
+    assertEquals(0, this.outboxRelay.relay());
+
+    verify(this.kafkaEventPublisher, never()).publish(anyString(), anyString(), any(), any());
+    verify(this.jpaOutboxEventRepository, never()).deleteAllByIdInBatch(anyList());
+  }
+
+  private static List<OutboxEventEntity> buildOutboxEvents(long fromId, long toId) {
+    return LongStream.rangeClosed(fromId, toId)
+        .mapToObj(id -> new OutboxEventEntity(id, TOPIC, String.valueOf(id), id,
+            new byte[]{(byte) id}))
+        .collect(Collectors.toList());
+  }
+
+  private static SettableListenableFuture<SendResult<String, byte[]>> acknowledged() {
+    SettableListenableFuture<SendResult<String, byte[]>> future =
+        new SettableListenableFuture<>();
+    future.set(null);
+    return future;
+  }
+
+  private static SettableListenableFuture<SendResult<String, byte[]>> failed() {
+    SettableListenableFuture<SendResult<String, byte[]>> future =
+        new SettableListenableFuture<>();
+    future.setException(new TimeoutException("Expiring record"));
+    return future;
+  }
+
+}
@@ -0,0 +1,263 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.rebuilders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.JsonCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.JsonEventCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.SmileEventCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OrderEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderCreationRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderShoppingCart;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCompletionRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCreationRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItem;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.generators.SnowflakeIdGenerator;
+import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapperImpl;
+import es.codeurjc.mca.tfm.purchases.infrastructure.rebuilders.ProjectionRebuildWriter;
+import es.codeurjc.mca.tfm.purchases.infrastructure.rebuilders.ProjectionRebuilder;
+import es.codeurjc.mca.tfm.purchases.infrastructure.stores.JsonShoppingCartItemsStore;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.springframework.context.ApplicationContext;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Projection rebuilder tests")
+public class ProjectionRebuilderTest {
+
+  private static final String CREATE_SHOPPING_CART_TOPIC = "create-shopping-carts";
+
+  private static final String UPDATE_ITEMS_TOPIC = "update-items";
+
+  private static final String COMPLETE_SHOPPING_CART_TOPIC = "complete-shopping-carts";
+
+  private static final String DELETE_SHOPPING_CART_TOPIC = "delete-shopping-carts";
+
+  private static final String CREATE_ORDER_TOPIC = "create-orders";
+
+  private static final String UPDATE_ORDER_TOPIC = "update-orders";
+
+  private static final List<String> TOPICS = List.of(CREATE_SHOPPING_CART_TOPIC,
+      UPDATE_ITEMS_TOPIC, COMPLETE_SHOPPING_CART_TOPIC, DELETE_SHOPPING_CART_TOPIC,
+      CREATE_ORDER_TOPIC, UPDATE_ORDER_TOPIC);
+
+  private static final Long SHOPPING_CART_ID = 1652692327498L;
+
+  private static final Long OTHER_SHOPPING_CART_ID = 1652692327499L;
+
+  private static final Integer USER_ID = 1;
+
+  private static final Long ORDER_ID = 1652692327532L;
+
+  private final JsonCodec jsonCodec = new JsonCodec();
+
+  private final EventCodecs eventCodecs = new EventCodecs(
+      new JsonEventCodec(this.jsonCodec), new SmileEventCodec(), Set.of());
+
+  private final MockConsumer<String, byte[]> consumer =
+      new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+
+  private final Map<TopicPartition, Long> endOffsets = new HashMap<>();
+
+  @Mock
+  private ConsumerFactory<String, byte[]> consumerFactory;
+
+  @Mock
+  private ProjectionRebuildWriter projectionRebuildWriter;
+
+  @Mock
+  private ApplicationContext applicationContext;
+
+  @Captor
+  private ArgumentCaptor<List<?>> insertedCaptor;
+
+  private ProjectionRebuilder projectionRebuilder;
+
+  @BeforeEach
+  public void setUp() {
+    InfraMapperImpl infraMapper = new InfraMapperImpl();
+    infraMapper.setJsonCodec(this.jsonCodec);
+    this.projectionRebuilder = new ProjectionRebuilder(this.consumerFactory,
+        this.projectionRebuildWriter, infraMapper, new JsonShoppingCartItemsStore(infraMapper),
+        this.eventCodecs, this.applicationContext,
+        CREATE_SHOPPING_CART_TOPIC, UPDATE_ITEMS_TOPIC, COMPLETE_SHOPPING_CART_TOPIC,
+        DELETE_SHOPPING_CART_TOPIC, CREATE_ORDER_TOPIC, UPDATE_ORDER_TOPIC, "purchases-group",
+        100, 1, 1048576, 100, 0);
+    when(this.consumerFactory.createConsumer(anyString(), any(), any(), any(Properties.class)))
+        .thenReturn(this.consumer);
+    Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+    for (String topic : TOPICS) {
+      this.consumer.updatePartitions(topic,
+          List.of(new PartitionInfo(topic, 0, null, null, null)));
+      beginningOffsets.put(new TopicPartition(topic, 0), 0L);
+      this.endOffsets.put(new TopicPartition(topic, 0), 0L);
+    }
+    this.consumer.updateBeginningOffsets(beginningOffsets);
+  }
+
+  @Test
+  @DisplayName("Test events of all topics are applied in event time order and inserted")
+  public void givenEventsOfAllTopicsWhenRebuildThenShouldApplyThemInOrderAndInsertResult()
+      throws Exception {
+    List<ConsumerRecord<String, byte[]>> records = List.of(
+        this.buildRecord(CREATE_SHOPPING_CART_TOPIC, 1, buildCreation(SHOPPING_CART_ID)),
+        this.buildRecord(UPDATE_ITEMS_TOPIC, 2, buildDelta(SHOPPING_CART_ID)),
+        this.buildRecord(UPDATE_ITEMS_TOPIC, 2, buildDelta(SHOPPING_CART_ID)),
+        this.buildRecord(COMPLETE_SHOPPING_CART_TOPIC, 3, buildCompletion(SHOPPING_CART_ID,
+            "10.00")),
+        this.buildRecord(CREATE_ORDER_TOPIC, 4, buildOrderCreation()),
+        this.buildRecord(CREATE_SHOPPING_CART_TOPIC, 5, buildCreation(OTHER_SHOPPING_CART_ID)),
+        this.buildRecord(UPDATE_ORDER_TOPIC, 6, buildOrderUpdate("VALIDATING_ITEMS", 1)),
+        this.buildRecord(UPDATE_ORDER_TOPIC, 7, buildOrderUpdate("DONE", 2)),
+        this.buildRecord(UPDATE_ORDER_TOPIC, 8, buildOrderUpdate("VALIDATING_ITEMS", 1)));
+    this.consumer.updateEndOffsets(this.endOffsets);
+    this.consumer.schedulePollTask(() -> records.forEach(this.consumer::addRecord));
+
+    this.projectionRebuilder.rebuild();
+
+    InOrder inOrder = inOrder(this.projectionRebuildWriter);
+    inOrder.verify(this.projectionRebuildWriter).prepare();
+    inOrder.verify(this.projectionRebuildWriter, times(2))
+        .insertAll(this.insertedCaptor.capture());
+    inOrder.verify(this.projectionRebuildWriter).swap();
+    List<?> shoppingCarts = this.insertedCaptor.getAllValues().get(0);
+    assertEquals(2, shoppingCarts.size());
+    ShoppingCartEntity shoppingCart = (ShoppingCartEntity) shoppingCarts.get(0);
+    assertEquals(SHOPPING_CART_ID, shoppingCart.getId());
+    assertTrue(shoppingCart.isCompleted());
+    assertEquals(Money.parse("10.00"), shoppingCart.getTotalPrice());
+    assertEquals(List.of(buildItem()),
+        this.jsonCodec.readList(shoppingCart.getItems(), ShoppingCartItem[].class));
+    ShoppingCartEntity otherShoppingCart = (ShoppingCartEntity) shoppingCarts.get(1);
+    assertEquals(OTHER_SHOPPING_CART_ID, otherShoppingCart.getId());
+    assertFalse(otherShoppingCart.isCompleted());
+    List<?> orders = this.insertedCaptor.getAllValues().get(1);
+    assertEquals(1, orders.size());
+    OrderEntity order = (OrderEntity) orders.get(0);
+    assertEquals(ORDER_ID, order.getId());
+    assertEquals("DONE", order.getState());
+    assertEquals(2, order.getVersion());
+    assertSame(shoppingCart, order.getShoppingCart());
+  }
+
+  @Test
+  @DisplayName("Test tables are not written if a topic lost its first events")
+  public void givenTopicWithDeletedEventsWhenRebuildThenShouldFailWithoutWritingTables() {
+    this.consumer.updateBeginningOffsets(Map.of(new TopicPartition(UPDATE_ORDER_TOPIC, 0), 1L));
+    this.consumer.updateEndOffsets(this.endOffsets);
+
+    assertThrows(IllegalStateException.class, () -> this.projectionRebuilder.rebuild());
+
+    verifyNoInteractions(this.projectionRebuildWriter);
+  }
+
+  private ConsumerRecord<String, byte[]> buildRecord(String topic, long time, Object event)
+      throws IOException {
+    TopicPartition partition = new TopicPartition(topic, 0);
+    long offset = this.endOffsets.get(partition);
+    this.endOffsets.put(partition, offset + 1);
+    long eventId = time << (SnowflakeIdGenerator.NODE_ID_BITS
+        + SnowflakeIdGenerator.SEQUENCE_BITS);
+    RecordHeaders headers = new RecordHeaders();
+    headers.add(EventHeaders.EVENT_ID, EventHeaders.encodeEventId(eventId));
+    return new ConsumerRecord<>(topic, 0, offset, 0L, TimestampType.CREATE_TIME, 0, 0, null,
+        this.eventCodecs.encode(topic, event), headers, Optional.empty());
+  }
+
+  private static ShoppingCartCreationRequestedEvent buildCreation(Long id) {
+    ShoppingCartCreationRequestedEvent event = new ShoppingCartCreationRequestedEvent();
+    event.setId(id);
+    event.setUserId(USER_ID);
+    event.setItems(List.of());
+    event.setTotalPrice(Money.parse("0.00"));
+    return event;
+  }
+
+  private static ShoppingCartItemsUpdateRequestedEvent buildDelta(Long id) {
+    ShoppingCartItemsUpdateRequestedEvent event = new ShoppingCartItemsUpdateRequestedEvent();
+    event.setId(id);
+    event.setChangedItems(List.of(buildItem()));
+    event.setDeletedProductIds(List.of());
+    return event;
+  }
+
+  private static ShoppingCartCompletionRequestedEvent buildCompletion(Long id,
+      String totalPrice) {
+    ShoppingCartCompletionRequestedEvent event = new ShoppingCartCompletionRequestedEvent();
+    event.setId(id);
+    event.setTotalPrice(Money.parse(totalPrice));
+    return event;
+  }
+
+  private static OrderCreationRequestedEvent buildOrderCreation() {
+    OrderShoppingCart shoppingCart = new OrderShoppingCart();
+    shoppingCart.setId(SHOPPING_CART_ID);
+    shoppingCart.setUserId(USER_ID);
+    shoppingCart.setCompleted(true);
+    shoppingCart.setItems(List.of(buildItem()));
+    shoppingCart.setTotalPrice(Money.parse("10.00"));
+    OrderCreationRequestedEvent event = new OrderCreationRequestedEvent();
+    event.setId(ORDER_ID);
+    event.setShoppingCart(shoppingCart);
+    event.setState("CREATED");
+    return event;
+  }
+
+  private static OrderUpdateRequestedEvent buildOrderUpdate(String state, Integer version) {
+    OrderUpdateRequestedEvent event = new OrderUpdateRequestedEvent();
+    event.setId(ORDER_ID);
+    event.setState(state);
+    event.setErrors(Optional.empty());
+    event.setVersion(version);
+    return event;
+  }
+
+  private static ShoppingCartItem buildItem() {
+    ShoppingCartItem item = new ShoppingCartItem();
+    item.setProductId(200);
+    item.setUnitPrice(Money.parse("5.00"));
+    item.setQuantity(2);
+    item.setTotalPrice(Money.parse("10.00"));
+    return item;
+  }
+
+}
@@ -0,0 +1,121 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.rebuilders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.rebuilders.TopicsReplayer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Topics replayer tests")
+public class TopicsReplayerTest {
+
+  private static final String CARTS_TOPIC = "create-shopping-carts";
+
+  private static final String ORDERS_TOPIC = "create-orders";
+
+  private static final TopicPartition CARTS_PARTITION = new TopicPartition(CARTS_TOPIC, 0);
+
+  private static final TopicPartition OTHER_CARTS_PARTITION = new TopicPartition(CARTS_TOPIC, 1);
+
+  private static final TopicPartition ORDERS_PARTITION = new TopicPartition(ORDERS_TOPIC, 0);
+
+  private final MockConsumer<String, byte[]> consumer =
+      new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+
+  private final List<ConsumerRecord<String, byte[]>> replayed = new ArrayList<>();
+
+  @BeforeEach
+  public void setUp() {
+    this.consumer.updatePartitions(CARTS_TOPIC, List.of(
+        new PartitionInfo(CARTS_TOPIC, 0, null, null, null),
+        new PartitionInfo(CARTS_TOPIC, 1, null, null, null)));
+    this.consumer.updatePartitions(ORDERS_TOPIC, List.of(
+        new PartitionInfo(ORDERS_TOPIC, 0, null, null, null)));
+    this.consumer.updateBeginningOffsets(Map.of(CARTS_PARTITION, 0L, OTHER_CARTS_PARTITION, 0L,
+        ORDERS_PARTITION, 0L));
+  }
+
+  @Test
+  @DisplayName("Test records of all partitions are replayed in event time order")
+  public void givenRecordsOfSeveralTopicsWhenReplayThenShouldReplayThemInEventTimeOrder()
+      throws Exception {
+    this.consumer.updateEndOffsets(Map.of(CARTS_PARTITION, 3L, OTHER_CARTS_PARTITION, 0L,
+        ORDERS_PARTITION, 2L));
+    this.consumer.schedulePollTask(() -> {
+      this.consumer.addRecord(record(CARTS_PARTITION, 0, 100));
+      this.consumer.addRecord(record(CARTS_PARTITION, 1, 300));
+      this.consumer.addRecord(record(CARTS_PARTITION, 2, 500));
+      this.consumer.addRecord(record(ORDERS_PARTITION, 0, 200));
+      this.consumer.addRecord(record(ORDERS_PARTITION, 1, 400));
+    });
+
+    long replayed = new TopicsReplayer(this.consumer, 1, 0)
+        .replay(List.of(CARTS_TOPIC, ORDERS_TOPIC), this.replayed::add);
+
+    assertEquals(5, replayed);
+    assertEquals(List.of(100L, 200L, 300L, 400L, 500L), this.replayedTimestamps());
+  }
+
+  @Test
+  @DisplayName("Test records after end offsets at start are not replayed")
+  public void givenRecordsAfterEndOffsetsWhenReplayThenShouldNotReplayThem() throws Exception {
+    this.consumer.updateEndOffsets(Map.of(CARTS_PARTITION, 1L, OTHER_CARTS_PARTITION, 0L,
+        ORDERS_PARTITION, 1L));
+    this.consumer.schedulePollTask(() -> {
+      this.consumer.addRecord(record(CARTS_PARTITION, 0, 100));
+      this.consumer.addRecord(record(CARTS_PARTITION, 1, 150));
+      this.consumer.addRecord(record(ORDERS_PARTITION, 0, 200));
+    });
+
+    long replayed = new TopicsReplayer(this.consumer, 10, 0)
+        .replay(List.of(CARTS_TOPIC, ORDERS_TOPIC), this.replayed::add);
+
+    assertEquals(2, replayed);
+    assertEquals(List.of(100L, 200L), this.replayedTimestamps());
+  }
+
+  @Test
+  @DisplayName("Test topics with deleted records are not replayed")
+  public void givenPartitionNotStartingAtZeroWhenReplayThenShouldFail() {
+    this.consumer.updateBeginningOffsets(Map.of(ORDERS_PARTITION, 5L));
+    this.consumer.updateEndOffsets(Map.of(CARTS_PARTITION, 0L, OTHER_CARTS_PARTITION, 0L,
+        ORDERS_PARTITION, 6L));
+
+    assertThrows(IllegalStateException.class, () -> new TopicsReplayer(this.consumer, 10, 0)
+        .replay(List.of(CARTS_TOPIC, ORDERS_TOPIC), this.replayed::add));
+    assertTrue(this.replayed.isEmpty());
+  }
+
+  private List<Long> replayedTimestamps() {
+    List<Long> timestamps = new ArrayList<>();
+    this.replayed.forEach(record -> timestamps.add(record.timestamp()));
+    return timestamps;
+  }
+
+  private static ConsumerRecord<String, byte[]> record(TopicPartition partition, long offset,
+      long timestamp) {
+    return new ConsumerRecord<>(partition.topic(), partition.partition(), offset, timestamp,
+        TimestampType.CREATE_TIME, 0, 0, null, new byte[0], new RecordHeaders(),
+        Optional.empty());
+  }
+
+}
@@ -0,0 +1,202 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.stores;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ItemDto;
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.JsonCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.CartItemEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItem;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapperImpl;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaCartItemRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.stores.RowsShoppingCartItemsStore;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Rows shopping cart items store tests")
+public class RowsShoppingCartItemsStoreTest {
+
+  private static final Long SHOPPING_CART_ID = 1652692327498L;
+
+  private static final Integer USER_ID = 1;
+
+  @Mock
+  private JpaCartItemRepository jpaCartItemRepository;
+
+  @Mock
+  private JpaShoppingCartRepository jpaShoppingCartRepository;
+
+  private RowsShoppingCartItemsStore rowsShoppingCartItemsStore;
+
+  @BeforeEach
+  public void setUp() {
+    this.rowsShoppingCartItemsStore = this.buildStore(false);
+  }
+
+  @Test
+  @DisplayName("Test start is refused if shopping carts have items in their items column")
+  public void givenItemsInColumnWhenCheckItemsColumnsThenShouldThrowException() {
+    when(this.jpaShoppingCartRepository.countWithItemsInColumn()).thenReturn(2L);
+
+    assertThrows(IllegalStateException.class,
+        () -> this.rowsShoppingCartItemsStore.checkItemsColumns());
+  }
+
+  @Test
+  @DisplayName("Test start is allowed if no shopping cart has items in its items column")
+  public void givenNoItemsInColumnWhenCheckItemsColumnsThenShouldNotThrowException() {
+    when(this.jpaShoppingCartRepository.countWithItemsInColumn()).thenReturn(0L);
+
+    this.rowsShoppingCartItemsStore.checkItemsColumns();
+
+    verify(this.jpaShoppingCartRepository, times(1)).countWithItemsInColumn();
+  }
+
+  @Test
+  @DisplayName("Test items columns are not checked when tables are being rebuilt")
+  public void givenRebuildEnabledWhenCheckItemsColumnsThenShouldNotCheckThem() {
+    this.buildStore(true).checkItemsColumns();
+
+    verify(this.jpaShoppingCartRepository, never()).countWithItemsInColumn();
+  }
+
+  @Test
+  @DisplayName("Test deltas of a shopping cart are merged and only changed rows are written")
+  public void givenDeltasWhenUpdateThenShouldWriteOnlyChangedRows() {
+    ShoppingCartEntity shoppingCartEntity = buildShoppingCartEntity();
+    shoppingCartEntity.setTotalPrice(Money.parse("27.00"));
+    when(this.jpaCartItemRepository.findByCartIdAndProductIdIn(SHOPPING_CART_ID,
+        Set.of(100, 200, 300))).thenReturn(List.of(buildCartItemEntity(100, "10.00", 1),
+        buildCartItemEntity(200, "5.00", 3)));
+
+    this.rowsShoppingCartItemsStore.update(shoppingCartEntity, List.of(
+        buildDelta(List.of(buildItem(100, "10.00", 1), buildItem(200, "5.00", 2)), List.of()),
+        buildDelta(List.of(buildItem(100, "10.00", 3)), List.of(200, 300))));
+
+    verify(this.jpaCartItemRepository, times(1))
+        .deleteByCartIdAndProductIdIn(SHOPPING_CART_ID, List.of(200, 300));
+    verify(this.jpaCartItemRepository, times(1))
+        .upsertAll(List.of(buildCartItemEntity(100, "10.00", 3)));
+    verify(this.jpaCartItemRepository, times(1))
+        .findByCartIdAndProductIdIn(SHOPPING_CART_ID, Set.of(100, 200, 300));
+    verifyNoMoreInteractions(this.jpaCartItemRepository);
+    assertEquals("[]", shoppingCartEntity.getItems());
+    assertEquals(Money.parse("32.00"), shoppingCartEntity.getTotalPrice());
+  }
+
+  @Test
+  @DisplayName("Test snapshot replaces all rows of the shopping cart")
+  public void givenSnapshotWhenUpdateThenShouldReplaceAllRows() {
+    ShoppingCartItemsUpdateRequestedEvent snapshot = new ShoppingCartItemsUpdateRequestedEvent();
+    snapshot.setId(SHOPPING_CART_ID);
+    snapshot.setItems(List.of(buildItem(100, "10.00", 1)));
+    snapshot.setTotalPrice(Money.parse("10.00"));
+
+    ShoppingCartEntity shoppingCartEntity = buildShoppingCartEntity();
+
+    this.rowsShoppingCartItemsStore.update(shoppingCartEntity, List.of(
+        buildDelta(List.of(buildItem(300, "1.00", 1)), List.of()), snapshot,
+        buildDelta(List.of(buildItem(200, "5.00", 2)), List.of())));
+
+    verify(this.jpaCartItemRepository, times(1)).deleteByCartId(SHOPPING_CART_ID);
+    verify(this.jpaCartItemRepository, times(1)).saveAll(List.of(
+        buildCartItemEntity(100, "10.00", 1), buildCartItemEntity(200, "5.00", 2)));
+    verify(this.jpaCartItemRepository, never()).deleteByCartIdAndProductIdIn(anyLong(),
+        anyCollection());
+    verify(this.jpaCartItemRepository, never()).upsertAll(anyList());
+    verify(this.jpaCartItemRepository, never())
+        .findByCartIdAndProductIdIn(anyLong(), anyCollection());
+    assertEquals(Money.parse("20.00"), shoppingCartEntity.getTotalPrice());
+  }
+
+  @Test
+  @DisplayName("Test shopping cart is read with the items of its rows")
+  public void givenItemRowsWhenReadThenShouldReturnShoppingCartWithThem() {
+    when(this.jpaCartItemRepository.findByCartIdInInsertionOrder(SHOPPING_CART_ID))
+        .thenReturn(List.of(buildCartItemEntity(200, "5.00", 2),
+            buildCartItemEntity(100, "10.00", 1)));
+
+    ShoppingCartDto shoppingCartDto =
+        this.rowsShoppingCartItemsStore.read(buildShoppingCartEntity());
+
+    assertEquals(SHOPPING_CART_ID, shoppingCartDto.getId());
+    assertEquals(2, shoppingCartDto.getItems().size());
+    assertEquals(200, shoppingCartDto.getItems().get(0).getProductId());
+    ItemDto itemDto = shoppingCartDto.getItems().get(1);
+    assertEquals(100, itemDto.getProductId());
+    assertEquals(1, itemDto.getQuantity());
+    assertEquals(Money.parse("10.00"), itemDto.getTotalPrice());
+  }
+
+  @Test
+  @DisplayName("Test items of a new shopping cart are mapped to rows")
+  public void givenNewShoppingCartWhenSetItemsThenShouldReturnRowsAndEmptyColumn() {
+    ShoppingCartEntity shoppingCartEntity = buildShoppingCartEntity();
+    shoppingCartEntity.setItems(null);
+
+    List<CartItemEntity> cartItemEntities = this.rowsShoppingCartItemsStore.setItems(
+        shoppingCartEntity, List.of(buildItem(100, "10.00", 1)));
+
+    assertEquals(List.of(buildCartItemEntity(100, "10.00", 1)), cartItemEntities);
+    assertEquals("[]", shoppingCartEntity.getItems());
+  }
+
+  private RowsShoppingCartItemsStore buildStore(boolean rebuildEnabled) {
+    InfraMapperImpl infraMapper = new InfraMapperImpl();
+    infraMapper.setJsonCodec(new JsonCodec());
+    return new RowsShoppingCartItemsStore(infraMapper, this.jpaCartItemRepository,
+        this.jpaShoppingCartRepository, rebuildEnabled);
+  }
+
+  private static ShoppingCartEntity buildShoppingCartEntity() {
+    return new ShoppingCartEntity(SHOPPING_CART_ID, USER_ID, false, "[]", Money.ZERO, 0L);
+  }
+
+  private static ShoppingCartItemsUpdateRequestedEvent buildDelta(
+      List<ShoppingCartItem> changedItems, List<Integer> deletedProductIds) {
+    ShoppingCartItemsUpdateRequestedEvent event = new ShoppingCartItemsUpdateRequestedEvent();
+    event.setId(SHOPPING_CART_ID);
+    event.setChangedItems(changedItems);
+    event.setDeletedProductIds(deletedProductIds);
+    return event;
+  }
+
+  private static ShoppingCartItem buildItem(Integer productId, String unitPrice,
+      Integer quantity) {
+    ShoppingCartItem item = new ShoppingCartItem();
+    item.setProductId(productId);
+    item.setUnitPrice(Money.parse(unitPrice));
+    item.setQuantity(quantity);
+    item.setTotalPrice(Money.parse(unitPrice).times(quantity));
+    return item;
+  }
+
+  private static CartItemEntity buildCartItemEntity(Integer productId, String unitPrice,
+      Integer quantity) {
+    return new CartItemEntity(SHOPPING_CART_ID, productId, Money.parse(unitPrice), quantity,
+        Money.parse(unitPrice).times(quantity));
+  }
+
+}
@@ -0,0 +1,175 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.stores;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.domain.models.Money;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.stores.ShoppingCartStateStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Shopping cart state store tests")
+public class ShoppingCartStateStoreTest {
+
+  private static final String TOPIC = "update-items";
+
+  private static final String OTHER_TOPIC = "create-orders";
+
+  private static final Long SHOPPING_CART_ID = 1652692327498L;
+
+  private static final Integer USER_ID = 1;
+
+  private static final String OTHER_SHOPPING_CART_TOPIC = "complete-shopping-carts";
+
+  private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+
+  @Mock
+  private JpaShoppingCartRepository jpaShoppingCartRepository;
+
+  @Mock
+  private ScheduledExecutorService loader;
+
+  @Captor
+  private ArgumentCaptor<Runnable> loadCaptor;
+
+  private ShoppingCartStateStore shoppingCartStateStore;
+
+  @BeforeEach
+  public void setUp() {
+    this.shoppingCartStateStore = new ShoppingCartStateStore(this.jpaShoppingCartRepository,
+        Map.of(TOPIC, 1, OTHER_SHOPPING_CART_TOPIC, 1), new SimpleMeterRegistry(), this.loader,
+        0L);
+    when(this.loader.schedule(any(Runnable.class), anyLong(), any())).thenAnswer(invocation -> {
+      ((Runnable) invocation.getArgument(0)).run();
+      return null;
+    });
+  }
+
+  @Test
+  @DisplayName("Test incomplete shopping carts are loaded on assignment and found in memory")
+  public void givenAssignedPartitionWhenFindThenShouldNotQueryDatabase() {
+    when(this.jpaShoppingCartRepository.findByCompletedIsFalseAndIdGreaterThanOrderByIdAsc(
+        any(), any())).thenReturn(List.of(buildShoppingCartEntity(false, 3L)));
+
+    this.shoppingCartStateStore.onPartitionsAssigned(
+        List.of(PARTITION, new TopicPartition(OTHER_TOPIC, 0)));
+    ShoppingCartEntity shoppingCartEntity =
+        this.shoppingCartStateStore.find(SHOPPING_CART_ID).get();
+
+    assertEquals(3L, shoppingCartEntity.getVersion());
+    assertEquals(1, this.shoppingCartStateStore.size());
+    verify(this.jpaShoppingCartRepository, never()).findById(any());
+  }
+
+  @Test
+  @DisplayName("Test partitions assigned to several consumers are loaded at once")
+  public void givenSeveralAssignmentsWhenLoadedThenShouldQueryDatabaseOnce() {
+    when(this.loader.schedule(this.loadCaptor.capture(), anyLong(), any())).thenReturn(null);
+    when(this.jpaShoppingCartRepository.findByCompletedIsFalseAndIdGreaterThanOrderByIdAsc(
+        any(), any())).thenReturn(List.of(buildShoppingCartEntity(false, 3L)));
+
+    this.shoppingCartStateStore.onPartitionsAssigned(List.of(PARTITION));
+    this.shoppingCartStateStore.onPartitionsAssigned(
+        List.of(new TopicPartition(OTHER_SHOPPING_CART_TOPIC, 0)));
+    assertEquals(0, this.shoppingCartStateStore.size());
+    this.loadCaptor.getValue().run();
+
+    verify(this.loader, times(1)).schedule(any(Runnable.class), anyLong(), any());
+    verify(this.jpaShoppingCartRepository, times(1))
+        .findByCompletedIsFalseAndIdGreaterThanOrderByIdAsc(any(), any());
+    assertEquals(1, this.shoppingCartStateStore.size());
+  }
+
+  @Test
+  @DisplayName("Test found shopping cart is a copy of the kept state")
+  public void givenKeptShoppingCartWhenFindAndChangeThenShouldNotChangeKeptState() {
+    when(this.jpaShoppingCartRepository.findByCompletedIsFalseAndIdGreaterThanOrderByIdAsc(
+        any(), any())).thenReturn(List.of(buildShoppingCartEntity(false, 3L)));
+    this.shoppingCartStateStore.onPartitionsAssigned(List.of(PARTITION));
+
+    ShoppingCartEntity shoppingCartEntity =
+        this.shoppingCartStateStore.find(SHOPPING_CART_ID).get();
+    shoppingCartEntity.setCompleted(true);
+
+    ShoppingCartEntity keptShoppingCartEntity =
+        this.shoppingCartStateStore.findAll(List.of(SHOPPING_CART_ID)).get(SHOPPING_CART_ID);
+    assertNotSame(shoppingCartEntity, keptShoppingCartEntity);
+    assertFalse(keptShoppingCartEntity.isCompleted());
+  }
+
+  @Test
+  @DisplayName("Test written shopping carts are kept, and completed ones dropped")
+  public void givenWrittenShoppingCartsWhenPutThenShouldKeepOnlyIncompleteOnes() {
+    this.shoppingCartStateStore.onPartitionsAssigned(List.of(PARTITION));
+
+    this.shoppingCartStateStore.putAfterCommit(List.of(buildShoppingCartEntity(false, 4L)));
+    assertEquals(4L, this.shoppingCartStateStore.find(SHOPPING_CART_ID).get().getVersion());
+
+    this.shoppingCartStateStore.putAfterCommit(List.of(buildShoppingCartEntity(true, 5L)));
+    assertEquals(0, this.shoppingCartStateStore.size());
+  }
+
+  @Test
+  @DisplayName("Test shopping cart is owned while its partitions of all topics are assigned")
+  public void givenAssignedPartitionsOfAllTopicsWhenIsOwnedThenShouldReturnTrueUntilRevoked() {
+    this.shoppingCartStateStore.onPartitionsAssigned(List.of(PARTITION));
+    assertFalse(this.shoppingCartStateStore.isOwned(SHOPPING_CART_ID));
+
+    this.shoppingCartStateStore.onPartitionsAssigned(
+        List.of(new TopicPartition(OTHER_SHOPPING_CART_TOPIC, 0)));
+    assertTrue(this.shoppingCartStateStore.isOwned(SHOPPING_CART_ID));
+    assertEquals(0, this.shoppingCartStateStore.revocations());
+
+    this.shoppingCartStateStore.onPartitionsRevoked(List.of(PARTITION));
+    assertFalse(this.shoppingCartStateStore.isOwned(SHOPPING_CART_ID));
+    assertEquals(1, this.shoppingCartStateStore.revocations());
+  }
+
+  @Test
+  @DisplayName("Test shopping carts are dropped on revocation and then loaded from database")
+  public void givenRevokedPartitionWhenFindThenShouldQueryDatabase() {
+    when(this.jpaShoppingCartRepository.findByCompletedIsFalseAndIdGreaterThanOrderByIdAsc(
+        any(), any())).thenReturn(List.of(buildShoppingCartEntity(false, 3L)));
+    when(this.jpaShoppingCartRepository.findById(SHOPPING_CART_ID))
+        .thenReturn(Optional.of(buildShoppingCartEntity(false, 3L)));
+    this.shoppingCartStateStore.onPartitionsAssigned(List.of(PARTITION));
+
+    this.shoppingCartStateStore.onPartitionsRevoked(List.of(PARTITION));
+
+    assertEquals(0, this.shoppingCartStateStore.size());
+    assertTrue(this.shoppingCartStateStore.find(SHOPPING_CART_ID).isPresent());
+    verify(this.jpaShoppingCartRepository, times(1)).findById(SHOPPING_CART_ID);
+    assertEquals(0, this.shoppingCartStateStore.size());
+  }
+
+  private static ShoppingCartEntity buildShoppingCartEntity(boolean completed, Long version) {
+    return new ShoppingCartEntity(SHOPPING_CART_ID, USER_ID, completed, "[]", Money.ZERO,
+        version);
+  }
+
+}
@@ -0,0 +1,137 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.workers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.workers.KeyOrderedWorkerPool;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Key ordered worker pool tests")
+public class KeyOrderedWorkerPoolTest {
+
+  private static final String TOPIC = "change-orders-state";
+
+  private static final String ORDER_ID = "1";
+
+  private static final String OTHER_ORDER_ID = "2";
+
+  private final KeyOrderedWorkerPool keyOrderedWorkerPool = new KeyOrderedWorkerPool(4);
+
+  @AfterEach
+  public void tearDown() {
+    this.keyOrderedWorkerPool.close();
+  }
+
+  @Test
+  @DisplayName("Test records of a key are processed in order")
+  public void givenRecordsOfSameKeyWhenProcessThenShouldProcessThemInOrder()
+      throws InterruptedException {
+    Map<String, List<Long>> processed = new ConcurrentHashMap<>();
+
+    this.keyOrderedWorkerPool.process(List.of(record(ORDER_ID, 0), record(OTHER_ORDER_ID, 1),
+        record(ORDER_ID, 2), record(OTHER_ORDER_ID, 3), record(ORDER_ID, 4)),
+        record -> processed.computeIfAbsent(record.key(), key -> new CopyOnWriteArrayList<>())
+            .add(record.offset()));
+
+    assertEquals(List.of(0L, 2L, 4L), processed.get(ORDER_ID));
+    assertEquals(List.of(1L, 3L), processed.get(OTHER_ORDER_ID));
+  }
+
+  @Test
+  @DisplayName("Test records of different keys are processed in parallel")
+  public void givenRecordsOfDifferentKeysWhenProcessThenShouldProcessThemInParallel()
+      throws InterruptedException {
+    List<ConsumerRecord<String, byte[]>> records = List.of(record("0", 0), record("1", 1));
+    CountDownLatch started = new CountDownLatch(records.size());
+
+    this.keyOrderedWorkerPool.process(records, record -> {
+      started.countDown();
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+    });
+
+    assertEquals(0, started.getCount());
+  }
+
+  @Test
+  @DisplayName("Test failed record is reported and next records of its key are not processed")
+  public void givenFailedRecordWhenProcessThenShouldReportItAndSkipNextRecordsOfItsKey() {
+    List<Long> processed = new CopyOnWriteArrayList<>();
+    IOException exception = new IOException("Can't decode event");
+
+    BatchListenerFailedException batchListenerFailedException = assertThrows(
+        BatchListenerFailedException.class,
+        () -> this.keyOrderedWorkerPool.process(List.of(record(OTHER_ORDER_ID, 0),
+            record(ORDER_ID, 1), record(OTHER_ORDER_ID, 2), record(ORDER_ID, 3)), record -> {
+              if (record.offset() == 1) {
+                throw exception;
+              }
+              processed.add(record.offset());
+            }));
+
+    assertEquals(1, batchListenerFailedException.getIndex());
+    assertEquals(exception, batchListenerFailedException.getCause());
+    assertEquals(List.of(0L, 2L), processed);
+  }
+
+  @Test
+  @DisplayName("Test records completed after a failed record are not processed again")
+  public void givenRecordsCompletedAfterFailedRecordWhenProcessAgainThenShouldSkipThem()
+      throws InterruptedException {
+    List<Long> processed = new CopyOnWriteArrayList<>();
+    assertThrows(BatchListenerFailedException.class,
+        () -> this.keyOrderedWorkerPool.process(List.of(record(OTHER_ORDER_ID, 0),
+            record(ORDER_ID, 1), record(OTHER_ORDER_ID, 2), record(ORDER_ID, 3)), record -> {
+              if (record.offset() == 1) {
+                throw new IOException("Can't decode event");
+              }
+            }));
+
+    this.keyOrderedWorkerPool.process(List.of(record(ORDER_ID, 1), record(OTHER_ORDER_ID, 2),
+        record(ORDER_ID, 3)), record -> processed.add(record.offset()));
+
+    assertEquals(List.of(1L, 3L), processed);
+  }
+
+  @Test
+  @DisplayName("Test remembered records are processed once their partition is consumed past them")
+  public void givenRememberedRecordsWhenPartitionConsumedPastThemThenShouldForgetThem()
+      throws InterruptedException {
+    List<Long> processed = new CopyOnWriteArrayList<>();
+    assertThrows(BatchListenerFailedException.class,
+        () -> this.keyOrderedWorkerPool.process(List.of(record(ORDER_ID, 0),
+            record(OTHER_ORDER_ID, 1)), record -> {
+              if (record.offset() == 0) {
+                throw new IOException("Can't decode event");
+              }
+            }));
+
+    this.keyOrderedWorkerPool.process(List.of(record(OTHER_ORDER_ID, 2)), record -> {
+    });
+    this.keyOrderedWorkerPool.process(List.of(record(OTHER_ORDER_ID, 1)),
+        record -> processed.add(record.offset()));
+
+    assertEquals(List.of(1L), processed);
+  }
+
+  private static ConsumerRecord<String, byte[]> record(String key, long offset) {
+    return new ConsumerRecord<>(TOPIC, 0, offset, key, new byte[0]);
+  }
+
+}